@@ -26,6 +26,7 @@ ${CREATE_SIMPLE} kilda.otsdb &
 ${CREATE_SIMPLE} kilda.simulator &
 ${CREATE_SIMPLE} kilda.speaker &
 ${CREATE_SIMPLE} kilda.stats &
+${CREATE_SIMPLE} kilda.stats.anomaly &
 ${CREATE_SIMPLE} kilda.topo.cache &
 ${CREATE_SIMPLE} kilda.topo.disco &
 ${CREATE_SIMPLE} kilda.topo.eng &
@@ -1,26 +1,59 @@
 package org.openkilda.floodlight.kafka;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.openkilda.floodlight.switchmanager.ISwitchManager;
+import org.openkilda.messaging.Topic;
+import org.openkilda.messaging.info.Datapoint;
+import org.projectfloodlight.openflow.types.DatapathId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+/**
+ * Reads the commands of the speaker. The commands of a switch run one by one in the order they come (an install is
+ * never overtaken by the delete that follows it), the commands of different switches run in parallel.
+ *
+ * The records being handled are bounded: the partitions are paused once there are max-in-flight of them, and
+ * resumed when half are done. The offsets are committed only up to the handled records, and the commands written to
+ * a switch are handled once the switch confirms them, so the records lost with the speaker are consumed again.
+ */
 public class Consumer implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(Consumer.class);
+    private static final long QUEUE_REPORT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final int QUEUE_REPORT_SIZE = 10;
+    private static final String METRIC_PENDING = "pen.speaker.commands.pending";
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1000;
 
     private final List<String> topics;
     private final ConsumerContext context;
-    private final ExecutorService handlersPool;
+    private final KeyedExecutor<DatapathId> handlersPool;
     private final RecordHandler.Factory handlerFactory;
     private final ISwitchManager switchManager; // HACK alert.. adding to facilitate safeSwitchTick()
-
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private OffsetTracker offsets;
+    private boolean isPaused = false;
+    private long lastQueueReport = 0;
+    private Set<DatapathId> reportedQueues = Collections.emptySet();
 
     public Consumer(
             ConsumerContext context, ExecutorService handlersPool, RecordHandler.Factory handlerFactory,
@@ -30,9 +63,12 @@ public class Consumer implements Runnable {
         this.topics.addAll(Arrays.asList(moreTopics));
 
         this.context = context;
-        this.handlersPool = handlersPool;
+        this.handlersPool = new KeyedExecutor<>(handlersPool);
         this.handlerFactory = handlerFactory;
         this.switchManager = switchManager;
+
+        String maxInFlight = context.configLookup("max-in-flight");
+        this.maxInFlight = maxInFlight == null ? DEFAULT_MAX_IN_FLIGHT : Integer.valueOf(maxInFlight);
     }
 
     @Override
@@ -49,20 +85,30 @@ public class Consumer implements Runnable {
              */
             KafkaConsumer<String, String> consumer = null;
             try {
-                consumer = new KafkaConsumer<>(context.getKafkaConfig());
-                consumer.subscribe(topics);
+                Properties config = new Properties();
+                config.putAll(context.getKafkaConfig());
+                config.put("enable.auto.commit", "false");
+                consumer = new KafkaConsumer<>(config);
+                // the records still handled for the previous consumer are not committed, they come again
+                offsets = new OffsetTracker();
+                isPaused = false;
+                consumer.subscribe(topics, new RebalanceListener(consumer));
 
                 while (true) {
                     ConsumerRecords<String, String> batch = consumer.poll(100);
-                    if (batch.count() < 1) {
-                        continue;
+                    if (0 < batch.count()) {
+                        logger.debug("Received records batch contain {} messages", batch.count());
+                        for (ConsumerRecord<String, String> record : batch) {
+                            offsets.add(toPartition(record), record.offset());
+                            inFlight.incrementAndGet();
+                            handle(record);
+                        }
+                        switchManager.safeModeTick(); // HACK alert .. should go in its own timer loop
                     }
 
-                    logger.debug("Received records batch contain {} messages", batch.count());
-                    for (ConsumerRecord<String, String> record : batch) {
-                        handle(record);
-                    }
-                    switchManager.safeModeTick(); // HACK alert .. should go in its own timer loop
+                    throttle(consumer);
+                    commit(consumer);
+                    reportQueues();
                 }
             } catch (Exception e) {
                 /*
@@ -71,6 +117,11 @@ public class Consumer implements Runnable {
                 logger.error("Exception received during main kafka consumer loop: {}", e);
             } finally {
                 if (consumer != null) {
+                    try {
+                        consumer.commitSync(offsets.takeCommittable());
+                    } catch (Exception e) {
+                        logger.error("Failed to commit the handled records: {}", e.getMessage());
+                    }
                     consumer.close(); // we'll create a new one
                 }
             }
@@ -79,6 +130,136 @@ public class Consumer implements Runnable {
 
     protected void handle(ConsumerRecord<String, String> record) {
         logger.trace("received message: {} - {}", record.offset(), record.value());
-        handlersPool.execute(handlerFactory.produce(record));
+        RecordHandler handler = handlerFactory.produce(record);
+        OffsetTracker tracker = offsets;
+        // the partition may be revoked and assigned again while the record is handled
+        long generation = tracker.generation(toPartition(record));
+        handlersPool.execute(handler.getSwitchId(), () -> {
+            try {
+                handler.run();
+            } finally {
+                // the commands written to a switch are done once the switch confirms them
+                handler.getCompletion().addListener(
+                        () -> complete(tracker, generation, record), MoreExecutors.directExecutor());
+            }
+        });
+    }
+
+    /**
+     * Marks the record that is not handled as done, so its offset is committed.
+     */
+    protected void skip(ConsumerRecord<String, String> record) {
+        complete(offsets, offsets.generation(toPartition(record)), record);
+    }
+
+    private void complete(OffsetTracker tracker, long generation, ConsumerRecord<String, String> record) {
+        tracker.done(toPartition(record), record.offset(), generation);
+        inFlight.decrementAndGet();
+    }
+
+    private static TopicPartition toPartition(ConsumerRecord<String, String> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    /**
+     * Pauses the partitions while too many records are handled. The paused consumer keeps polling, so it stays in
+     * the group.
+     */
+    private void throttle(KafkaConsumer<String, String> consumer) {
+        int count = inFlight.get();
+        if (!isPaused && maxInFlight <= count) {
+            logger.warn("Pause consuming, {} records are in flight", count);
+            consumer.pause(consumer.assignment());
+            isPaused = true;
+        } else if (isPaused && count <= maxInFlight / 2) {
+            logger.info("Resume consuming, {} records are in flight", count);
+            consumer.resume(consumer.paused());
+            isPaused = false;
+        }
+    }
+
+    private void commit(KafkaConsumer<String, String> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> committable = offsets.takeCommittable();
+        if (!committable.isEmpty()) {
+            consumer.commitAsync(committable, (committed, exception) -> {
+                if (exception != null) {
+                    logger.error("Failed to commit offsets {}: {}", committed, exception.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the number of the commands pending for every switch to OpenTSDB, a deep queue is a slow switch. A
+     * switch whose queue is drained since the previous report gets a 0 once, so its graph comes down. The switches
+     * with the most commands pending are logged too.
+     */
+    private void reportQueues() {
+        long now = System.currentTimeMillis();
+        if (now - lastQueueReport < QUEUE_REPORT_INTERVAL) {
+            return;
+        }
+        lastQueueReport = now;
+
+        Map<DatapathId, Integer> depths = handlersPool.getQueueDepths();
+        List<Datapoint> datapoints = new ArrayList<>(depths.size() + reportedQueues.size());
+        for (Map.Entry<DatapathId, Integer> entry : depths.entrySet()) {
+            datapoints.add(makePendingDatapoint(now, entry.getKey(), entry.getValue()));
+        }
+        for (DatapathId dpid : reportedQueues) {
+            if (!depths.containsKey(dpid)) {
+                datapoints.add(makePendingDatapoint(now, dpid, 0));
+            }
+        }
+        reportedQueues = new HashSet<>(depths.keySet());
+        if (!datapoints.isEmpty()) {
+            context.getKafkaProducer().getProducer().handleDatapoints(Topic.OTSDB, datapoints);
+        }
+
+        if (depths.isEmpty()) {
+            return;
+        }
+        String deepest = depths.entrySet().stream()
+                .sorted(Map.Entry.<DatapathId, Integer>comparingByValue().reversed())
+                .limit(QUEUE_REPORT_SIZE)
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(", "));
+        logger.info("Commands pending for {} switches, total {}: {}",
+                depths.size(), depths.values().stream().mapToInt(Integer::intValue).sum(), deepest);
+    }
+
+    private static Datapoint makePendingDatapoint(long timestamp, DatapathId dpid, int pending) {
+        // the same switch id tag as the stats topology writes
+        Map<String, String> tags = Collections.singletonMap("switchid", dpid.toString().replace(":", ""));
+        return new Datapoint(METRIC_PENDING, timestamp, tags, pending);
+    }
+
+    /**
+     * Commits the handled records of the partitions taken away, and keeps the new partitions paused while the
+     * consumer is.
+     */
+    private class RebalanceListener implements ConsumerRebalanceListener {
+        private final KafkaConsumer<String, String> consumer;
+
+        RebalanceListener(KafkaConsumer<String, String> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            try {
+                consumer.commitSync(offsets.takeCommittable());
+            } catch (Exception e) {
+                logger.error("Failed to commit the handled records: {}", e.getMessage());
+            }
+            offsets.forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (isPaused) {
+                consumer.pause(partitions);
+            }
+        }
     }
 }
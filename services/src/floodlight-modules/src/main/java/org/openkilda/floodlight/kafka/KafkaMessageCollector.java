@@ -69,7 +69,9 @@ public class KafkaMessageCollector implements IFloodlightModule {
 
         logger.info("Starting {}", this.getClass().getCanonicalName());
         try {
-            ExecutorService parseRecordExecutor = Executors.newFixedThreadPool(EXEC_POOL_SIZE);
+            String poolSize = context.configLookup("handlers-pool-size");
+            ExecutorService parseRecordExecutor = Executors.newFixedThreadPool(
+                    poolSize == null ? EXEC_POOL_SIZE : Integer.valueOf(poolSize));
 
             Consumer consumer;
             if (! "YES".equals(context.configLookup("testing-mode"))) {
@@ -0,0 +1,125 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the tasks of the same key one by one in the order they are submitted, and the tasks of different keys in
+ * parallel on the shared pool. A key takes at most one thread of the pool, so a slow key can't starve the others.
+ *
+ * A key with queued tasks gets the pool thread for one task at a time, then goes behind the other keys.
+ */
+class KeyedExecutor<K> {
+    private static final Logger logger = LoggerFactory.getLogger(KeyedExecutor.class);
+
+    private final ExecutorService executor;
+    /** The keys with pending tasks, guarded by this. */
+    private final Map<K, KeyQueue> queues = new HashMap<>();
+
+    KeyedExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the task after all the tasks of the key submitted before it. A task without a key is not ordered.
+     */
+    void execute(K key, Runnable task) {
+        if (key == null) {
+            executor.execute(task);
+            return;
+        }
+
+        KeyQueue queue;
+        synchronized (this) {
+            queue = queues.get(key);
+            if (queue != null) {
+                queue.tasks.add(task);
+                return;
+            }
+            queue = new KeyQueue(key);
+            queue.tasks.add(task);
+            queues.put(key, queue);
+        }
+        submit(queue);
+    }
+
+    /**
+     * @return the number of the pending tasks, the running one included, of the keys that have any
+     */
+    synchronized Map<K, Integer> getQueueDepths() {
+        Map<K, Integer> depths = new HashMap<>(queues.size() * 4 / 3 + 1);
+        for (KeyQueue queue : queues.values()) {
+            depths.put(queue.key, queue.tasks.size());
+        }
+        return depths;
+    }
+
+    private void submit(KeyQueue queue) {
+        try {
+            executor.execute(queue);
+        } catch (RejectedExecutionException e) {
+            logger.error("Drop {} tasks of {}, the executor is shut down", queue.tasks.size(), queue.key);
+            synchronized (this) {
+                queues.remove(queue.key);
+            }
+        }
+    }
+
+    private final class KeyQueue implements Runnable {
+        private final K key;
+        /** The head is the running task, it is removed once done. */
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        KeyQueue(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            synchronized (KeyedExecutor.this) {
+                task = tasks.peek();
+            }
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Task of {} failed", key, e);
+            } finally {
+                boolean isPending;
+                synchronized (KeyedExecutor.this) {
+                    tasks.remove();
+                    isPending = !tasks.isEmpty();
+                    if (!isPending) {
+                        queues.remove(key);
+                    }
+                }
+                if (isPending) {
+                    submit(this);
+                }
+            }
+        }
+    }
+}
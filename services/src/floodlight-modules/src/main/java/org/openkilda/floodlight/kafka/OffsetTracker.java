@@ -0,0 +1,100 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.kafka;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The offsets of the records being handled, to commit only the records that are done. The records of a partition
+ * finish out of order (the commands of different switches run in parallel), the offset of a partition is
+ * committed up to its oldest record that is not done yet.
+ *
+ * A partition that is revoked and assigned again is tracked anew, under a new generation. The records of the
+ * previous one are redelivered, so the handlers still running for them are ignored when they are done.
+ */
+class OffsetTracker {
+    private final Map<TopicPartition, PartitionOffsets> partitions = new HashMap<>();
+    private long generations = 0;
+
+    synchronized void add(TopicPartition partition, long offset) {
+        PartitionOffsets offsets = partitions.computeIfAbsent(
+                partition, key -> new PartitionOffsets(offset, ++generations));
+        offsets.pending.add(offset);
+        offsets.next = Math.max(offsets.next, offset + 1);
+    }
+
+    /**
+     * @return the generation the records of the partition are tracked under now, 0 if it is not tracked
+     */
+    synchronized long generation(TopicPartition partition) {
+        PartitionOffsets offsets = partitions.get(partition);
+        return offsets == null ? 0 : offsets.generation;
+    }
+
+    /**
+     * Marks the record as handled. The records of the partitions that are forgotten, or tracked under another
+     * generation since, are ignored.
+     */
+    synchronized void done(TopicPartition partition, long offset, long generation) {
+        PartitionOffsets offsets = partitions.get(partition);
+        if (offsets != null && offsets.generation == generation) {
+            offsets.pending.remove(offset);
+        }
+    }
+
+    /**
+     * @return the offsets to commit, of the partitions that moved since the previous call
+     */
+    synchronized Map<TopicPartition, OffsetAndMetadata> takeCommittable() {
+        Map<TopicPartition, OffsetAndMetadata> committable = new HashMap<>();
+        for (Map.Entry<TopicPartition, PartitionOffsets> entry : partitions.entrySet()) {
+            PartitionOffsets offsets = entry.getValue();
+            long offset = offsets.pending.isEmpty() ? offsets.next : offsets.pending.first();
+            if (offsets.committed < offset) {
+                offsets.committed = offset;
+                committable.put(entry.getKey(), new OffsetAndMetadata(offset));
+            }
+        }
+        return committable;
+    }
+
+    /**
+     * Drops the partitions taken from the consumer, their records are redelivered to the new owner.
+     */
+    synchronized void forget(Collection<TopicPartition> revoked) {
+        partitions.keySet().removeAll(revoked);
+    }
+
+    private static final class PartitionOffsets {
+        private final long generation;
+        private final TreeSet<Long> pending = new TreeSet<>();
+        /** The offset after the latest record. */
+        private long next;
+        private long committed;
+
+        PartitionOffsets(long first, long generation) {
+            this.generation = generation;
+            next = first;
+            committed = first;
+        }
+    }
+}
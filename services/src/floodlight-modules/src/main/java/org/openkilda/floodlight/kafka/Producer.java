@@ -3,6 +3,7 @@ package org.openkilda.floodlight.kafka;
 import static org.openkilda.messaging.Utils.MAPPER;
 
 import org.openkilda.messaging.Message;
+import org.openkilda.messaging.info.Datapoint;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.kafka.clients.producer.KafkaProducer;
@@ -10,6 +11,8 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 public class Producer {
     private static final Logger logger = LoggerFactory.getLogger(Producer.class);
 
@@ -28,6 +31,17 @@ public class Producer {
         }
     }
 
+    /**
+     * Writes the datapoints as one JSON array, the OpenTSDB topology reads them so.
+     */
+    public void handleDatapoints(String topic, List<Datapoint> datapoints) {
+        try {
+            send(topic, MAPPER.writeValueAsString(datapoints));
+        } catch (JsonProcessingException e) {
+            logger.error("Can not serialize datapoints: {}", datapoints, e);
+        }
+    }
+
     protected void send(String topic, String jsonPayload) {
         // (crimi) - uncomment for development only .. some messages (stats) fill up the log too quickly
         logger.debug("Posting: topic={}, message={}", topic, jsonPayload);
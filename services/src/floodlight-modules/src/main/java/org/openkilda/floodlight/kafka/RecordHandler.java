@@ -1,6 +1,7 @@
 package org.openkilda.floodlight.kafka;
 
 import static org.openkilda.messaging.Utils.MAPPER;
+import static org.openkilda.messaging.Utils.PAYLOAD;
 import static java.util.Arrays.asList;
 
 
@@ -14,9 +15,11 @@ import org.openkilda.messaging.Topic;
 import org.openkilda.messaging.command.CommandData;
 import org.openkilda.messaging.command.CommandMessage;
 import org.openkilda.messaging.command.CommandWithReplyToMessage;
+import org.openkilda.messaging.command.discovery.DiscoverIslBatchCommandData;
 import org.openkilda.messaging.command.discovery.DiscoverIslCommandData;
 import org.openkilda.messaging.command.discovery.DiscoverPathCommandData;
 import org.openkilda.messaging.command.discovery.NetworkCommandData;
+import org.openkilda.messaging.command.flow.BaseFlow;
 import org.openkilda.messaging.command.flow.BaseInstallFlow;
 import org.openkilda.messaging.command.flow.InstallEgressFlow;
 import org.openkilda.messaging.command.flow.InstallIngressFlow;
@@ -45,14 +48,25 @@ import org.openkilda.messaging.info.switches.ConnectModeResponse;
 import org.openkilda.messaging.info.switches.SwitchRulesResponse;
 import org.openkilda.messaging.payload.flow.OutputVlanType;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import net.floodlightcontroller.core.IOFSwitch;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
+import org.projectfloodlight.openflow.protocol.OFMeterModFailedCode;
+import org.projectfloodlight.openflow.protocol.errormsg.OFMeterModFailedErrorMsg;
 import org.projectfloodlight.openflow.types.DatapathId;
 import org.projectfloodlight.openflow.types.OFPort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 class RecordHandler implements Runnable {
@@ -61,9 +75,22 @@ class RecordHandler implements Runnable {
     private static final String OUTPUT_DISCO_TOPIC = Topic.TOPO_DISCO;
     private static final String TOPO_ENG_TOPIC = Topic.TOPO_ENG;
 
+    /** The commands ordered by their switch, see {@link #getSwitchId()}. */
+    private static final List<Class<?>> ORDERED_COMMANDS = asList(
+            BaseFlow.class, SwitchRulesDeleteRequest.class, SwitchRulesInstallRequest.class, DumpRulesRequest.class,
+            InstallMissedFlowsRequest.class);
+    /** The JSON names of the switch id of the ordered commands. */
+    private static final Set<String> SWITCH_ID_FIELDS = new HashSet<>(asList("switch_id", "switchId"));
+    /** Whether the command class is ordered, by the class name. */
+    private static final Map<String, Boolean> orderedCommands = new ConcurrentHashMap<>();
+
     private final ConsumerContext context;
     private final ConsumerRecord<String, String> record;
     private final MeterPool meterPool;
+    private final SettableFuture<Void> completion = SettableFuture.create();
+    /** Set once the command waits for the switch, the reply of the switch completes it then. */
+    private volatile boolean isWaitingSwitch = false;
+    private CommandMessage message;
 
     public RecordHandler(ConsumerContext context, ConsumerRecord<String, String> record,
             MeterPool meterPool) {
@@ -99,6 +126,8 @@ class RecordHandler implements Runnable {
             Destination replyDestination) throws FlowCommandException {
         if (data instanceof DiscoverIslCommandData) {
             doDiscoverIslCommand(data);
+        } else if (data instanceof DiscoverIslBatchCommandData) {
+            doDiscoverIslBatchCommand(data);
         } else if (data instanceof DiscoverPathCommandData) {
             doDiscoverPathCommand(data);
         } else if (data instanceof InstallIngressFlow) {
@@ -153,6 +182,23 @@ class RecordHandler implements Runnable {
         }
     }
 
+    private void doDiscoverIslBatchCommand(CommandData data) {
+        DiscoverIslBatchCommandData command = (DiscoverIslBatchCommandData) data;
+        logger.debug("sending discover ISL batch to {}", command);
+
+        String switchId = command.getSwitchId();
+        List<OFPort> ports = command.getPorts().stream()
+                .map(OFPort::of)
+                .collect(Collectors.toList());
+        boolean result = context.getPathVerificationService().sendDiscoveryMessages(DatapathId.of(switchId), ports);
+
+        if (result) {
+            logger.debug("{} packet_out were sent to {}", ports.size(), switchId);
+        } else {
+            logger.warn("packet_out were not sent to {}-{}", switchId, command.getPorts());
+        }
+    }
+
     private void doDiscoverPathCommand(CommandData data) {
         DiscoverPathCommandData command = (DiscoverPathCommandData) data;
         logger.warn("NOT IMPLEMENTED: sending discover Path to {}", command);
@@ -167,13 +213,8 @@ class RecordHandler implements Runnable {
             throws FlowCommandException {
         InstallIngressFlow command = (InstallIngressFlow) message.getData();
 
-        try {
-            installIngressFlow(command);
-            message.setDestination(replyDestination);
-            context.getKafkaProducer().postMessage(replyToTopic, message);
-        } catch (SwitchOperationException e) {
-            throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
-        }
+        runBatch(message, command, ErrorType.CREATION_FAILURE, replyToTopic, replyDestination,
+                () -> installIngressFlow(command));
     }
 
     /**
@@ -216,13 +257,8 @@ class RecordHandler implements Runnable {
             throws FlowCommandException {
         InstallEgressFlow command = (InstallEgressFlow) message.getData();
 
-        try {
-            installEgressFlow(command);
-            message.setDestination(replyDestination);
-            context.getKafkaProducer().postMessage(replyToTopic, message);
-        } catch (SwitchOperationException e) {
-            throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
-        }
+        runBatch(message, command, ErrorType.CREATION_FAILURE, replyToTopic, replyDestination,
+                () -> installEgressFlow(command));
     }
 
     /**
@@ -253,13 +289,8 @@ class RecordHandler implements Runnable {
             throws FlowCommandException {
         InstallTransitFlow command = (InstallTransitFlow) message.getData();
 
-        try {
-            installTransitFlow(command);
-            message.setDestination(replyDestination);
-            context.getKafkaProducer().postMessage(replyToTopic, message);
-        } catch (SwitchOperationException e) {
-            throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
-        }
+        runBatch(message, command, ErrorType.CREATION_FAILURE, replyToTopic, replyDestination,
+                () -> installTransitFlow(command));
     }
 
     /**
@@ -289,13 +320,8 @@ class RecordHandler implements Runnable {
         InstallOneSwitchFlow command = (InstallOneSwitchFlow) message.getData();
         logger.debug("creating a flow through one switch: {}", command);
 
-        try {
-            installOneSwitchFlow(command);
-            message.setDestination(replyDestination);
-            context.getKafkaProducer().postMessage(replyToTopic, message);
-        } catch (SwitchOperationException e) {
-            throw new FlowCommandException(command.getId(), ErrorType.CREATION_FAILURE, e);
-        }
+        runBatch(message, command, ErrorType.CREATION_FAILURE, replyToTopic, replyDestination,
+                () -> installOneSwitchFlow(command));
     }
 
     /**
@@ -340,19 +366,84 @@ class RecordHandler implements Runnable {
 
         DatapathId dpid = DatapathId.of(command.getSwitchId());
         ISwitchManager switchManager = context.getSwitchManager();
-        try {
+        runBatch(message, command, ErrorType.DELETION_FAILURE, replyToTopic, replyDestination, () -> {
             switchManager.deleteFlow(dpid, command.getId(), command.getCookie());
 
             Integer meterId = meterPool.deallocate(command.getSwitchId(), command.getId());
             if (meterId != null) {
                 switchManager.deleteMeter(dpid, meterId);
             }
+        });
+    }
 
-            message.setDestination(replyDestination);
-            context.getKafkaProducer().postMessage(replyToTopic, message);
+    /**
+     * Writes the mods of the command to the switch as one batch, and replies once the switch confirms them: with
+     * the command if the switch accepted all the mods, with an error otherwise. The command is complete then.
+     *
+     * The meter of a flow is added with an install command, so the install that is redelivered finds the meter
+     * there already: the switch rejects it as an existing one, and that is not an error.
+     */
+    private void runBatch(final CommandMessage message, BaseFlow command, ErrorType errorType,
+                          String replyToTopic, Destination replyDestination, SwitchCommand switchCommand)
+            throws FlowCommandException {
+        DatapathId dpid = DatapathId.of(command.getSwitchId());
+        ISwitchManager switchManager = context.getSwitchManager();
+        ListenableFuture<List<OFErrorMsg>> written;
+        try {
+            switchManager.startBatch(dpid);
+            try {
+                switchCommand.run();
+            } finally {
+                written = switchManager.commitBatch(dpid);
+            }
         } catch (SwitchOperationException e) {
-            throw new FlowCommandException(command.getId(), ErrorType.DELETION_FAILURE, e);
+            throw new FlowCommandException(command.getId(), errorType, e);
         }
+
+        isWaitingSwitch = true;
+        Futures.addCallback(written, new FutureCallback<List<OFErrorMsg>>() {
+            @Override
+            public void onSuccess(List<OFErrorMsg> errors) {
+                try {
+                    List<OFErrorMsg> failures = errors.stream()
+                            .filter(error -> !isMeterExists(error))
+                            .collect(Collectors.toList());
+                    if (failures.isEmpty()) {
+                        message.setDestination(replyDestination);
+                        message.setTimestamp(System.currentTimeMillis());
+                        context.getKafkaProducer().postMessage(replyToTopic, message);
+                    } else {
+                        replyError(failures.stream()
+                                .map(error -> String.format("%s on xid %d", error.getErrType(), error.getXid()))
+                                .collect(Collectors.joining(", ")));
+                    }
+                } finally {
+                    completion.set(null);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                try {
+                    replyError(error.getMessage());
+                } finally {
+                    completion.set(null);
+                }
+            }
+
+            private void replyError(String description) {
+                logger.error("Switch {} failed command {}: {}", dpid, message.getCorrelationId(), description);
+                ErrorMessage error = new ErrorMessage(
+                        new ErrorData(errorType, description, command.getId()),
+                        System.currentTimeMillis(), message.getCorrelationId(), replyDestination);
+                context.getKafkaProducer().postMessage(replyToTopic, error);
+            }
+        });
+    }
+
+    private static boolean isMeterExists(OFErrorMsg error) {
+        return error instanceof OFMeterModFailedErrorMsg
+                && ((OFMeterModFailedErrorMsg) error).getCode() == OFMeterModFailedCode.METER_EXISTS;
     }
 
     /**
@@ -544,41 +635,151 @@ class RecordHandler implements Runnable {
         final String switchId = request.getSwitchId();
         logger.debug("Processing rules to be updated for switch {}", switchId);
 
-        for (BaseInstallFlow command : request.getFlowCommands()) {
-            logger.debug("Processing command for switch {} {}", switchId, command);
-            try {
-                if (command instanceof InstallIngressFlow) {
-                    installIngressFlow((InstallIngressFlow) command);
-                } else if (command instanceof InstallEgressFlow) {
-                    installEgressFlow((InstallEgressFlow) command);
-                } else if (command instanceof InstallTransitFlow) {
-                    installTransitFlow((InstallTransitFlow) command);
-                } else if (command instanceof InstallOneSwitchFlow) {
-                    installOneSwitchFlow((InstallOneSwitchFlow) command);
+        DatapathId dpid = DatapathId.of(switchId);
+        ISwitchManager switchManager = context.getSwitchManager();
+        try {
+            switchManager.startBatch(dpid);
+        } catch (SwitchOperationException e) {
+            logger.error("Error during flow installation", e);
+            return;
+        }
+
+        ListenableFuture<List<OFErrorMsg>> written;
+        try {
+            for (BaseInstallFlow command : request.getFlowCommands()) {
+                logger.debug("Processing command for switch {} {}", switchId, command);
+                try {
+                    if (command instanceof InstallIngressFlow) {
+                        installIngressFlow((InstallIngressFlow) command);
+                    } else if (command instanceof InstallEgressFlow) {
+                        installEgressFlow((InstallEgressFlow) command);
+                    } else if (command instanceof InstallTransitFlow) {
+                        installTransitFlow((InstallTransitFlow) command);
+                    } else if (command instanceof InstallOneSwitchFlow) {
+                        installOneSwitchFlow((InstallOneSwitchFlow) command);
+                    }
+                } catch (SwitchOperationException e) {
+                    logger.error("Error during flow installation", e);
+                }
+            }
+        } finally {
+            written = switchManager.commitBatch(dpid);
+        }
+
+        Futures.addCallback(written, new FutureCallback<List<OFErrorMsg>>() {
+            @Override
+            public void onSuccess(List<OFErrorMsg> errors) {
+                for (OFErrorMsg error : errors) {
+                    logger.error("Switch {} rejected the missed flow: {}", switchId, error);
                 }
-            } catch (SwitchOperationException e) {
-                logger.error("Error during flow installation", e);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                logger.error("Missed flows are not installed on switch {}", switchId, error);
+            }
+        });
+    }
+
+    /**
+     * @return the command of the record, or null if it can't be parsed
+     */
+    private CommandMessage parseRecord(ConsumerRecord<String, String> record) {
+        if (message == null) {
+            try {
+                String value = (String) record.value();
+                // TODO: Prior to Message changes, this MAPPER would read Message ..
+                //          but, changed to BaseMessage and got an error wrt "timestamp" ..
+                //          so, need to experiment with why CommandMessage can't be read as
+                //          a BaseMessage
+                message = MAPPER.readValue(value, CommandMessage.class);
+            } catch (Exception exception) {
+                logger.error("error parsing record={}", record.value(), exception);
             }
         }
+        return message;
     }
 
-    private void parseRecord(ConsumerRecord<String, String> record) {
+    /**
+     * The commands that read or change the state of a switch must run in the order they come. Discovery and the
+     * network dump are not ordered, the packet outs must not wait for the flow commands.
+     *
+     * It runs on the consumer thread, so the command is not parsed: only the class and the switch id of the payload
+     * are read with the streaming parser. The command is parsed by the pool thread that runs it.
+     *
+     * @return the switch the command is ordered by, or null if the command is not ordered
+     */
+    public DatapathId getSwitchId() {
+        String commandClass = null;
+        String switchId = null;
+        try (JsonParser parser = MAPPER.getFactory().createParser(record.value())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT && PAYLOAD.equals(field)) {
+                    while ((commandClass == null || switchId == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                            parser.skipChildren();
+                        } else if ("clazz".equals(name)) {
+                            commandClass = parser.getText();
+                        } else if (SWITCH_ID_FIELDS.contains(name)) {
+                            switchId = parser.getText();
+                        }
+                    }
+                    break;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // the command is reported broken once it is parsed
+            return null;
+        }
+
+        if (commandClass == null || switchId == null || !isOrdered(commandClass)) {
+            return null;
+        }
         try {
-            String value = (String) record.value();
-            // TODO: Prior to Message changes, this MAPPER would read Message ..
-            //          but, changed to BaseMessage and got an error wrt "timestamp" ..
-            //          so, need to experiment with why CommandMessage can't be read as
-            //          a BaseMessage
-            CommandMessage message = MAPPER.readValue(value, CommandMessage.class);
-            doControllerMsg(message);
-        } catch (Exception exception) {
-            logger.error("error parsing record={}", record.value(), exception);
+            return DatapathId.of(switchId);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid switch id {} of command {}", switchId, commandClass);
+            return null;
         }
     }
 
+    private static boolean isOrdered(String commandClass) {
+        return orderedCommands.computeIfAbsent(commandClass, name -> {
+            try {
+                Class<?> type = Class.forName(name, false, RecordHandler.class.getClassLoader());
+                return ORDERED_COMMANDS.stream().anyMatch(ordered -> ordered.isAssignableFrom(type));
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        });
+    }
+
     @Override
     public void run() {
-        parseRecord(record);
+        try {
+            CommandMessage message = parseRecord(record);
+            if (message != null) {
+                doControllerMsg(message);
+            }
+        } finally {
+            if (!isWaitingSwitch) {
+                completion.set(null);
+            }
+        }
+    }
+
+    /**
+     * Completes once the command is done: when {@link #run} returns, or when the switch confirms the mods of the
+     * command, so its record is committed only then.
+     */
+    ListenableFuture<Void> getCompletion() {
+        return completion;
     }
 
     protected SwitchInfoData buildSwitchInfoData(IOFSwitch sw) {
@@ -587,6 +788,10 @@ class RecordHandler implements Runnable {
         return IOFSwitchConverter.buildSwitchInfoData(sw, state);
     }
 
+    private interface SwitchCommand {
+        void run() throws SwitchOperationException;
+    }
+
     public static class Factory {
         private final ConsumerContext context;
         private final MeterPool meterPool = new MeterPool();
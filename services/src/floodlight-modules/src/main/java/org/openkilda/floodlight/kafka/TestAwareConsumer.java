@@ -44,11 +44,14 @@ public class TestAwareConsumer extends Consumer {
             break;
         }
 
-        if (isHandled)
+        if (isHandled) {
+            skip(record);
             return;
+        }
 
         if (! breakTrigger.isCommunicationEnabled()) {
             logger.info("Suppress record - key: {}, value: {}", record.key(), record.value());
+            skip(record);
             return;
         }
 
@@ -19,6 +19,8 @@ import net.floodlightcontroller.core.module.IFloodlightService;
 import org.projectfloodlight.openflow.types.DatapathId;
 import org.projectfloodlight.openflow.types.OFPort;
 
+import java.util.List;
+
 public interface IPathVerificationService extends IFloodlightService {
 
     public boolean isAlive();
@@ -27,4 +29,6 @@ public interface IPathVerificationService extends IFloodlightService {
 
     public boolean sendDiscoveryMessage(DatapathId srcSwId, OFPort port, DatapathId dstSwId);
 
+    public boolean sendDiscoveryMessages(DatapathId srcSwId, List<OFPort> ports);
+
 }
@@ -259,6 +259,45 @@ public class PathVerificationService implements IFloodlightModule, IOFMessageLis
         return result;
     }
 
+    /**
+     * Sends verification packets for several ports of one switch, writing them to the switch in a single batch.
+     *
+     * @return true if a packet was generated and written for every port
+     */
+    @Override
+    public boolean sendDiscoveryMessages(DatapathId srcSwId, List<OFPort> ports) {
+        boolean result = false;
+
+        try {
+            IOFSwitch srcSwitch = switchService.getSwitch(srcSwId);
+            if (srcSwitch != null) {
+                List<OFMessage> packets = new ArrayList<>(ports.size());
+                for (OFPort port : ports) {
+                    OFPacketOut ofPacketOut = null;
+                    if (srcSwitch.getPort(port) != null) {
+                        ofPacketOut = generateVerificationPacket(srcSwitch, port, null, true);
+                    }
+                    if (ofPacketOut != null) {
+                        packets.add(ofPacketOut);
+                    } else {
+                        logger.error("<== Unable to generate verification packet for {}/{}", srcSwitch.getId(), port);
+                    }
+                }
+                logger.debug("==> Sending {} verification packets out {}", packets.size(), srcSwitch.getId());
+                Collection<OFMessage> unsent = srcSwitch.write(packets);
+                if (!unsent.isEmpty()) {
+                    logger.error("<== {} of {} verification packets were not sent to {}",
+                            unsent.size(), packets.size(), srcSwitch.getId());
+                }
+                result = unsent.isEmpty() && packets.size() == ports.size();
+            }
+        } catch (Exception exception) {
+            logger.error("Error trying to sendDiscoveryMessages: {}", exception);
+        }
+
+        return result;
+    }
+
     public OFPacketOut generateVerificationPacket(IOFSwitch srcSw, OFPort port) {
         return generateVerificationPacket(srcSw,port,null,true);
     }
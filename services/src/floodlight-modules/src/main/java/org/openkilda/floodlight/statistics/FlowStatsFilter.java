@@ -0,0 +1,101 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.statistics;
+
+import org.openkilda.messaging.info.stats.FlowStatsData;
+import org.openkilda.messaging.info.stats.FlowStatsEntry;
+import org.openkilda.messaging.info.stats.FlowStatsReply;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The flow counters last reported for a switch, so only the flows whose counters changed are reported. The idle
+ * flows make most of the flow table on many switches, it cuts the stats traffic accordingly.
+ *
+ * Every refresh interval-th stats are full: the consumers get all the counters now and then, and the counters of
+ * the flows that are gone from the switch are forgotten.
+ *
+ * Every stats carry the number of the poll, so the consumers can tell that a sparse one follows a lost one: the flows
+ * it omits may have changed in the lost one.
+ */
+class FlowStatsFilter {
+    private final int refreshInterval;
+    private Map<Long, long[]> counters = new HashMap<>();
+    private long polls = 0;
+
+    /**
+     * @param refreshInterval every how many stats are full, 1 and below for the full stats only
+     */
+    FlowStatsFilter(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * @return the stats of the flows whose counters changed, or of all the flows if the full stats are due
+     */
+    synchronized FlowStatsData filter(String switchId, List<FlowStatsReply> replies) {
+        if (refreshInterval <= 1) {
+            return new FlowStatsData(switchId, replies);
+        }
+
+        long sequence = polls;
+        boolean isFull = polls % refreshInterval == 0;
+        polls += 1;
+        if (isFull) {
+            counters = new HashMap<>(counters.size() * 4 / 3 + 1);
+            for (FlowStatsReply reply : replies) {
+                for (FlowStatsEntry entry : reply.getEntries()) {
+                    isChanged(entry);
+                }
+            }
+            return new FlowStatsData(switchId, replies, false, sequence);
+        }
+
+        List<FlowStatsReply> sparseReplies = new ArrayList<>(replies.size());
+        for (FlowStatsReply reply : replies) {
+            List<FlowStatsEntry> entries = new ArrayList<>();
+            for (FlowStatsEntry entry : reply.getEntries()) {
+                if (isChanged(entry)) {
+                    entries.add(entry);
+                }
+            }
+            sparseReplies.add(new FlowStatsReply(reply.getXid(), entries));
+        }
+        return new FlowStatsData(switchId, sparseReplies, true, sequence);
+    }
+
+    /**
+     * Stores the counters of the flow.
+     *
+     * @return true if the counters differ from the stored ones, or there are none
+     */
+    private boolean isChanged(FlowStatsEntry entry) {
+        long[] last = counters.get(entry.getCookie());
+        if (last == null) {
+            counters.put(entry.getCookie(), new long[]{entry.getPacketCount(), entry.getByteCount()});
+            return true;
+        }
+        if (last[0] == entry.getPacketCount() && last[1] == entry.getByteCount()) {
+            return false;
+        }
+        last[0] = entry.getPacketCount();
+        last[1] = entry.getByteCount();
+        return true;
+    }
+}
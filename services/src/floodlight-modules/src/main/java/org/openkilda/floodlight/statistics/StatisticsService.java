@@ -23,9 +23,11 @@ import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Topic;
 import org.openkilda.messaging.info.InfoData;
 import org.openkilda.messaging.info.InfoMessage;
-import org.openkilda.messaging.info.stats.FlowStatsData;
 import org.openkilda.messaging.info.stats.FlowStatsEntry;
 import org.openkilda.messaging.info.stats.FlowStatsReply;
+import org.openkilda.messaging.info.stats.MeterStatsData;
+import org.openkilda.messaging.info.stats.MeterStatsEntry;
+import org.openkilda.messaging.info.stats.MeterStatsReply;
 import org.openkilda.messaging.info.stats.PortStatsData;
 import org.openkilda.messaging.info.stats.PortStatsEntry;
 import org.openkilda.messaging.info.stats.PortStatsReply;
@@ -33,6 +35,9 @@ import org.openkilda.messaging.info.stats.PortStatsReply;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import net.floodlightcontroller.core.IFloodlightProviderService;
+import net.floodlightcontroller.core.IOFSwitch;
+import net.floodlightcontroller.core.IOFSwitchListener;
+import net.floodlightcontroller.core.PortChangeType;
 import net.floodlightcontroller.core.internal.IOFSwitchService;
 import net.floodlightcontroller.core.module.FloodlightModuleContext;
 import net.floodlightcontroller.core.module.FloodlightModuleException;
@@ -41,11 +46,16 @@ import net.floodlightcontroller.core.module.IFloodlightService;
 import net.floodlightcontroller.threadpool.IThreadPoolService;
 import org.projectfloodlight.openflow.protocol.OFFactory;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFMeterBandStats;
+import org.projectfloodlight.openflow.protocol.OFMeterStats;
+import org.projectfloodlight.openflow.protocol.OFMeterStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFPortDesc;
 import org.projectfloodlight.openflow.protocol.OFPortStatsProp;
 import org.projectfloodlight.openflow.protocol.OFPortStatsPropEthernet;
 import org.projectfloodlight.openflow.protocol.OFPortStatsRequest;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
 import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.DatapathId;
 import org.projectfloodlight.openflow.types.OFGroup;
 import org.projectfloodlight.openflow.types.OFPort;
 import org.projectfloodlight.openflow.types.U64;
@@ -57,22 +67,49 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
- * This service performs periodic port/flow/meter config statistics collection and pushes it to Kafka.
+ * This service performs periodic port/flow/meter statistics collection and pushes it to Kafka.
+ *
+ * The switches are not polled all at once: each one gets a slot within the interval by its dpid, so the requests,
+ * the replies and the Kafka sends are spread evenly over the interval.
+ *
+ * The flow stats filter and the poll of a switch are dropped when the switch is removed.
  */
-public class StatisticsService implements IStatisticsService, IFloodlightModule {
+public class StatisticsService implements IStatisticsService, IFloodlightModule, IOFSwitchListener {
     private static final Logger logger = LoggerFactory.getLogger(StatisticsService.class);
     private static final U64 SYSTEM_MASK = U64.of(0x8000000000000000L);
     private static final long OFPM_ALL = 0xffffffffL;
     private static final String STATISTICS_TOPIC = Topic.STATS;
 
+    /**
+     * The switches are spread over the slots of this length within the interval.
+     */
+    private static final long TICK_MILLIS = 250;
+
+    /**
+     * A poll without all the replies for this many intervals is given up on.
+     */
+    private static final int STALE_INTERVALS = 3;
+
     private IOFSwitchService switchService;
     private KafkaMessageProducer kafkaProducer;
     private IThreadPoolService threadPoolService;
     private int interval;
+    private int maxOutstanding;
+    private int flowStatsRefresh;
+
+    private int slots;
+    /** Only the scheduler thread uses it. */
+    private long ticks = 0;
+    private final ConcurrentMap<DatapathId, Poll> polls = new ConcurrentHashMap<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final ConcurrentMap<DatapathId, FlowStatsFilter> flowStatsFilters = new ConcurrentHashMap<>();
 
     @Override
     public Collection<Class<? extends IFloodlightService>> getModuleServices() {
@@ -100,128 +137,308 @@ public class StatisticsService implements IStatisticsService, IFloodlightModule
         kafkaProducer = context.getServiceImpl(KafkaMessageProducer.class);
         Map<String, String> configParameters = context.getConfigParams(this);
         interval = Integer.valueOf(configParameters.get("interval"));
+        maxOutstanding = Integer.valueOf(configParameters.get("max-outstanding"));
+        flowStatsRefresh = Integer.valueOf(configParameters.get("flow-stats-refresh"));
     }
 
     @Override
     public void startUp(FloodlightModuleContext context) throws FloodlightModuleException {
         if (interval > 0) {
+            switchService.addOFSwitchListener(this);
+            slots = Math.max(1, (int) (TimeUnit.SECONDS.toMillis(interval) / TICK_MILLIS));
             threadPoolService.getScheduledExecutor().scheduleAtFixedRate(
-                    () -> switchService.getAllSwitchMap().values().forEach(iofSwitch -> {
-                        OFFactory factory = iofSwitch.getOFFactory();
-                        final String switchId = iofSwitch.getId().toString();
-
-                        OFPortStatsRequest portStatsRequest = factory
-                                .buildPortStatsRequest()
-                                .setPortNo(OFPort.ANY)
-                                .build();
-
-                        OFFlowStatsRequest flowStatsRequest = factory
-                                .buildFlowStatsRequest()
-                                .setOutGroup(OFGroup.ANY)
-                                .setCookieMask(SYSTEM_MASK)
-                                .build();
-
-                        logger.trace("Getting port stats for switch={}", iofSwitch.getId());
-
-                        Futures.addCallback(iofSwitch.writeStatsRequest(portStatsRequest),
-                                new RequestCallback<>(data -> {
-                                    List<PortStatsReply> replies = data.stream().map(reply -> {
-                                        List<PortStatsEntry> entries = reply.getEntries().stream()
-                                                .map(entry -> {
-                                                    if (entry.getVersion().compareTo(OFVersion.OF_13) > 0) {
-                                                        long rxFrameErr, rxOverErr, rxCrcErr, collisions;
-                                                        rxFrameErr = rxOverErr = rxCrcErr = collisions = 0;
-
-                                                        for (OFPortStatsProp property : entry.getProperties()) {
-                                                            if (property.getType() == 0x0) {
-                                                                OFPortStatsPropEthernet etherProps =
-                                                                        (OFPortStatsPropEthernet) property;
-                                                                rxFrameErr = etherProps.getRxFrameErr().getValue();
-                                                                rxOverErr = etherProps.getRxOverErr().getValue();
-                                                                rxCrcErr = etherProps.getRxCrcErr().getValue();
-                                                                collisions = etherProps.getCollisions().getLength();
-                                                            }
-                                                        }
-
-                                                        return new PortStatsEntry(
-                                                                entry.getPortNo().getPortNumber(),
-                                                                entry.getRxPackets().getValue(),
-                                                                entry.getTxPackets().getValue(),
-                                                                entry.getRxBytes().getValue(),
-                                                                entry.getTxBytes().getValue(),
-                                                                entry.getRxDropped().getValue(),
-                                                                entry.getTxDropped().getValue(),
-                                                                entry.getRxErrors().getValue(),
-                                                                entry.getTxErrors().getValue(),
-                                                                rxFrameErr,
-                                                                rxOverErr,
-                                                                rxCrcErr,
-                                                                collisions);
-                                                    } else {
-                                                        return new PortStatsEntry(
-                                                                entry.getPortNo().getPortNumber(),
-                                                                entry.getRxPackets().getValue(),
-                                                                entry.getTxPackets().getValue(),
-                                                                entry.getRxBytes().getValue(),
-                                                                entry.getTxBytes().getValue(),
-                                                                entry.getRxDropped().getValue(),
-                                                                entry.getTxDropped().getValue(),
-                                                                entry.getRxErrors().getValue(),
-                                                                entry.getTxErrors().getValue(),
-                                                                entry.getRxFrameErr().getValue(),
-                                                                entry.getRxOverErr().getValue(),
-                                                                entry.getRxCrcErr().getValue(),
-                                                                entry.getCollisions().getValue());
-                                                    }
-                                                })
-                                                .collect(toList());
-                                        return new PortStatsReply(reply.getXid(), entries);
-                                    }).collect(toList());
-                                    return new PortStatsData(switchId, replies);
-                                }, "port"));
-
-                        if (factory.getVersion().compareTo(OFVersion.OF_15) != 0) {
-                            // skip flow stats for OF 1.5 protocol version
-                            logger.trace("Getting flow stats for switch={}", iofSwitch.getId());
-
-                            Futures.addCallback(iofSwitch.writeStatsRequest(flowStatsRequest),
-                                    new RequestCallback<>(data -> {
-                                        List<FlowStatsReply> replies = data.stream().map(reply -> {
-                                            List<FlowStatsEntry> entries = reply.getEntries().stream()
-                                                    .map(entry -> new FlowStatsEntry(
-                                                            entry.getTableId().getValue(),
-                                                            entry.getCookie().getValue(),
-                                                            entry.getPacketCount().getValue(),
-                                                            entry.getByteCount().getValue()))
-                                                    .collect(toList());
-                                            return new FlowStatsReply(reply.getXid(), entries);
-                                        }).collect(toList());
-                                        return new FlowStatsData(switchId, replies);
-                                    }, "flow"));
-                        }
-                    }), interval, interval, TimeUnit.SECONDS);
+                    this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void switchRemoved(DatapathId switchId) {
+        flowStatsFilters.remove(switchId);
+        Poll poll = polls.get(switchId);
+        if (poll != null) {
+            poll.release();
+        }
+    }
+
+    @Override
+    public void switchAdded(DatapathId switchId) {
+    }
+
+    @Override
+    public void switchActivated(DatapathId switchId) {
+    }
+
+    @Override
+    public void switchPortChanged(DatapathId switchId, OFPortDesc port, PortChangeType type) {
+    }
+
+    @Override
+    public void switchChanged(DatapathId switchId) {
+    }
+
+    @Override
+    public void switchDeactivated(DatapathId switchId) {
+    }
+
+    /**
+     * Polls the switches of the current slot.
+     */
+    private void tick() {
+        try {
+            int slot = (int) (ticks++ % slots);
+            long now = System.currentTimeMillis();
+            for (IOFSwitch iofSwitch : switchService.getAllSwitchMap().values()) {
+                if (getSlot(iofSwitch.getId(), slots) != slot) {
+                    continue;
+                }
+
+                if (!isReadyToPoll(iofSwitch.getId(), now)) {
+                    continue;
+                }
+
+                try {
+                    pollSwitch(iofSwitch, now);
+                } catch (Exception e) {
+                    logger.error("Error polling stats of switch={}", iofSwitch.getId(), e);
+                    Poll poll = polls.get(iofSwitch.getId());
+                    if (poll != null) {
+                        poll.release();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // an exception would cancel the schedule
+            logger.error("Error polling switch stats", e);
+        }
+    }
+
+    /**
+     * A switch is skipped if its previous poll is not over yet, or if too many polls are outstanding; it is polled
+     * again in its slot of the next interval. A poll without all the replies for {@link #STALE_INTERVALS} is given
+     * up on.
+     */
+    boolean isReadyToPoll(DatapathId dpid, long now) {
+        Poll previous = polls.get(dpid);
+        if (previous != null) {
+            if (now - previous.started < TimeUnit.SECONDS.toMillis(interval) * STALE_INTERVALS) {
+                logger.debug("Skip stats of switch={}, the previous poll is not over", dpid);
+                return false;
+            }
+            logger.warn("Stats of switch={} are not received since {}", dpid, previous.started);
+            previous.release();
+        }
+        if (maxOutstanding <= outstanding.get()) {
+            logger.debug("Skip stats of switch={}, {} polls are outstanding", dpid, outstanding.get());
+            return false;
+        }
+        return true;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * The slot of the switch within the interval, the dpids are mixed so the sequential ones are spread too.
+     */
+    static int getSlot(DatapathId dpid, int slots) {
+        long hash = dpid.getLong() * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned(hash ^ (hash >>> 32), slots);
+    }
+
+    private void pollSwitch(IOFSwitch iofSwitch, long now) {
+        OFFactory factory = iofSwitch.getOFFactory();
+        final String switchId = iofSwitch.getId().toString();
+        boolean isFlowStats = factory.getVersion().compareTo(OFVersion.OF_15) != 0;
+        boolean isMeterStats = factory.getVersion().compareTo(OFVersion.OF_13) >= 0;
+        Poll poll = new Poll(iofSwitch.getId(), now, 1 + (isFlowStats ? 1 : 0) + (isMeterStats ? 1 : 0));
+
+        OFPortStatsRequest portStatsRequest = factory
+                .buildPortStatsRequest()
+                .setPortNo(OFPort.ANY)
+                .build();
+
+        OFFlowStatsRequest flowStatsRequest = factory
+                .buildFlowStatsRequest()
+                .setOutGroup(OFGroup.ANY)
+                .setCookieMask(SYSTEM_MASK)
+                .build();
+
+        logger.trace("Getting port stats for switch={}", iofSwitch.getId());
+
+        Futures.addCallback(iofSwitch.writeStatsRequest(portStatsRequest),
+                new RequestCallback<>(data -> {
+                    List<PortStatsReply> replies = data.stream().map(reply -> {
+                        List<PortStatsEntry> entries = reply.getEntries().stream()
+                                .map(entry -> {
+                                    if (entry.getVersion().compareTo(OFVersion.OF_13) > 0) {
+                                        long rxFrameErr, rxOverErr, rxCrcErr, collisions;
+                                        rxFrameErr = rxOverErr = rxCrcErr = collisions = 0;
+
+                                        for (OFPortStatsProp property : entry.getProperties()) {
+                                            if (property.getType() == 0x0) {
+                                                OFPortStatsPropEthernet etherProps =
+                                                        (OFPortStatsPropEthernet) property;
+                                                rxFrameErr = etherProps.getRxFrameErr().getValue();
+                                                rxOverErr = etherProps.getRxOverErr().getValue();
+                                                rxCrcErr = etherProps.getRxCrcErr().getValue();
+                                                collisions = etherProps.getCollisions().getLength();
+                                            }
+                                        }
+
+                                        return new PortStatsEntry(
+                                                entry.getPortNo().getPortNumber(),
+                                                entry.getRxPackets().getValue(),
+                                                entry.getTxPackets().getValue(),
+                                                entry.getRxBytes().getValue(),
+                                                entry.getTxBytes().getValue(),
+                                                entry.getRxDropped().getValue(),
+                                                entry.getTxDropped().getValue(),
+                                                entry.getRxErrors().getValue(),
+                                                entry.getTxErrors().getValue(),
+                                                rxFrameErr,
+                                                rxOverErr,
+                                                rxCrcErr,
+                                                collisions);
+                                    } else {
+                                        return new PortStatsEntry(
+                                                entry.getPortNo().getPortNumber(),
+                                                entry.getRxPackets().getValue(),
+                                                entry.getTxPackets().getValue(),
+                                                entry.getRxBytes().getValue(),
+                                                entry.getTxBytes().getValue(),
+                                                entry.getRxDropped().getValue(),
+                                                entry.getTxDropped().getValue(),
+                                                entry.getRxErrors().getValue(),
+                                                entry.getTxErrors().getValue(),
+                                                entry.getRxFrameErr().getValue(),
+                                                entry.getRxOverErr().getValue(),
+                                                entry.getRxCrcErr().getValue(),
+                                                entry.getCollisions().getValue());
+                                    }
+                                })
+                                .collect(toList());
+                        return new PortStatsReply(reply.getXid(), entries);
+                    }).collect(toList());
+                    return new PortStatsData(switchId, replies);
+                }, "port", poll));
+
+        if (isFlowStats) {
+            // skip flow stats for OF 1.5 protocol version
+            logger.trace("Getting flow stats for switch={}", iofSwitch.getId());
+            FlowStatsFilter filter = flowStatsFilters.computeIfAbsent(
+                    iofSwitch.getId(), dpid -> new FlowStatsFilter(flowStatsRefresh));
+
+            Futures.addCallback(iofSwitch.writeStatsRequest(flowStatsRequest),
+                    new RequestCallback<>(data -> {
+                        List<FlowStatsReply> replies = data.stream().map(reply -> {
+                            List<FlowStatsEntry> entries = reply.getEntries().stream()
+                                    .map(entry -> new FlowStatsEntry(
+                                            entry.getTableId().getValue(),
+                                            entry.getCookie().getValue(),
+                                            entry.getPacketCount().getValue(),
+                                            entry.getByteCount().getValue()))
+                                    .collect(toList());
+                            return new FlowStatsReply(reply.getXid(), entries);
+                        }).collect(toList());
+                        return filter.filter(switchId, replies);
+                    }, "flow", poll));
+        }
+
+        if (isMeterStats) {
+            // meters are there since OF 1.3
+            logger.trace("Getting meter stats for switch={}", iofSwitch.getId());
+
+            OFMeterStatsRequest meterStatsRequest = factory
+                    .buildMeterStatsRequest()
+                    .setMeterId(OFPM_ALL)
+                    .build();
+
+            Futures.addCallback(iofSwitch.writeStatsRequest(meterStatsRequest),
+                    new RequestCallback<>(data -> {
+                        List<MeterStatsReply> replies = data.stream().map(reply -> {
+                            List<MeterStatsEntry> entries = reply.getEntries().stream()
+                                    .map(StatisticsService::toMeterStatsEntry)
+                                    .collect(toList());
+                            return new MeterStatsReply(reply.getXid(), entries);
+                        }).collect(toList());
+                        return new MeterStatsData(switchId, replies);
+                    }, "meter", poll));
+        }
+    }
+
+    private static MeterStatsEntry toMeterStatsEntry(OFMeterStats entry) {
+        long packetBandCount = 0;
+        long byteBandCount = 0;
+        for (OFMeterBandStats band : entry.getBandStats()) {
+            packetBandCount += band.getPacketBandCount().getValue();
+            byteBandCount += band.getByteBandCount().getValue();
+        }
+        return new MeterStatsEntry(entry.getMeterId(), entry.getPacketInCount().getValue(),
+                entry.getByteInCount().getValue(), packetBandCount, byteBandCount);
+    }
+
+    /**
+     * The stats requests sent to a switch in one interval.
+     */
+    final class Poll {
+        private final DatapathId dpid;
+        private final long started;
+        private final AtomicInteger remaining;
+
+        Poll(DatapathId dpid, long started, int requests) {
+            this.dpid = dpid;
+            this.started = started;
+            this.remaining = new AtomicInteger(requests);
+            polls.put(dpid, this);
+            outstanding.incrementAndGet();
+        }
+
+        void complete() {
+            if (remaining.decrementAndGet() == 0) {
+                release();
+            }
+        }
+
+        /**
+         * Frees the slot of the poll, once: when all the replies are there or when the poll is given up on.
+         */
+        void release() {
+            if (polls.remove(dpid, this)) {
+                outstanding.decrementAndGet();
+            }
         }
     }
 
     private class RequestCallback<T extends OFStatsReply> implements FutureCallback<List<T>> {
         private Function<List<T>, InfoData> transform;
         private String type;
+        private Poll poll;
 
-        RequestCallback(Function<List<T>, InfoData> transform, String type) {
+        RequestCallback(Function<List<T>, InfoData> transform, String type, Poll poll) {
             this.transform = transform;
             this.type = type;
+            this.poll = poll;
         }
 
         @Override
         public void onSuccess(List<T> data) {
-            InfoMessage infoMessage = new InfoMessage(transform.apply(data),
-                    System.currentTimeMillis(), SYSTEM_CORRELATION_ID, Destination.WFM_STATS);
-            kafkaProducer.postMessage(STATISTICS_TOPIC, infoMessage);
+            try {
+                InfoMessage infoMessage = new InfoMessage(transform.apply(data),
+                        System.currentTimeMillis(), SYSTEM_CORRELATION_ID, Destination.WFM_STATS);
+                kafkaProducer.postMessage(STATISTICS_TOPIC, infoMessage);
+            } finally {
+                poll.complete();
+            }
         }
 
         @Override
         public void onFailure(Throwable throwable) {
             logger.error("Exception reading {} stats", type, throwable);
+            poll.complete();
         }
     }
 }
@@ -0,0 +1,116 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.floodlight.switchmanager;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import net.floodlightcontroller.core.IOFSwitch;
+import org.projectfloodlight.openflow.protocol.OFBarrierReply;
+import org.projectfloodlight.openflow.protocol.OFErrorMsg;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.types.DatapathId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The flow and meter mods to a switch written together and followed by a barrier. The switch replies to the
+ * barrier once it has processed all the mods before it, so the errors it replied to the mods by then are all of
+ * them.
+ */
+class FlowModBatch {
+    private final DatapathId dpid;
+    private final IOFSwitch sw;
+    private final List<OFMessage> messages = new ArrayList<>();
+    private final List<OFErrorMsg> errors = Collections.synchronizedList(new ArrayList<>());
+    private final SettableFuture<List<OFErrorMsg>> result = SettableFuture.create();
+
+    FlowModBatch(DatapathId dpid, IOFSwitch sw) {
+        this.dpid = dpid;
+        this.sw = sw;
+    }
+
+    DatapathId getDpid() {
+        return dpid;
+    }
+
+    boolean isFor(IOFSwitch sw) {
+        return this.sw == sw;
+    }
+
+    void add(OFMessage message) {
+        messages.add(message);
+    }
+
+    void addError(OFErrorMsg error) {
+        errors.add(error);
+    }
+
+    /**
+     * Writes the mods and the barrier.
+     *
+     * @param pending the batches waiting for the barrier reply of the switch by the xids of their mods, the errors
+     *                of the switch are routed by it
+     * @return completes with the errors the switch replied to the mods, fails if the mods or the barrier can't be
+     *         written, or the barrier reply doesn't come
+     */
+    ListenableFuture<List<OFErrorMsg>> commit(ConcurrentMap<Long, FlowModBatch> pending) {
+        if (messages.isEmpty()) {
+            result.set(Collections.emptyList());
+            return result;
+        }
+
+        for (OFMessage message : messages) {
+            pending.put(message.getXid(), this);
+        }
+
+        Collection<OFMessage> unsent = sw.write(messages);
+        if (!unsent.isEmpty()) {
+            release(pending);
+            result.setException(new OFInstallException(dpid, unsent.iterator().next()));
+            return result;
+        }
+
+        ListenableFuture<OFBarrierReply> barrier = sw.writeRequest(sw.getOFFactory().buildBarrierRequest().build());
+        Futures.addCallback(barrier, new FutureCallback<OFBarrierReply>() {
+            @Override
+            public void onSuccess(OFBarrierReply reply) {
+                release(pending);
+                synchronized (errors) {
+                    result.set(new ArrayList<>(errors));
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                release(pending);
+                result.setException(error);
+            }
+        });
+        return result;
+    }
+
+    private void release(ConcurrentMap<Long, FlowModBatch> pending) {
+        for (OFMessage message : messages) {
+            pending.remove(message.getXid(), this);
+        }
+    }
+}
@@ -15,10 +15,12 @@
 
 package org.openkilda.floodlight.switchmanager;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.module.IFloodlightService;
 import org.openkilda.messaging.command.switches.ConnectModeRequest;
 import org.openkilda.messaging.payload.flow.OutputVlanType;
+import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMeterConfigStatsReply;
 import org.projectfloodlight.openflow.types.DatapathId;
@@ -43,6 +45,24 @@ public interface ISwitchManager extends IFloodlightService {
     ConnectModeRequest.Mode connectMode(final ConnectModeRequest.Mode mode);
 
 
+    /**
+     * Starts a batch to the switch for the calling thread. The flow and meter mods of the install and delete calls
+     * to the switch that follow are not written until the batch is committed.
+     *
+     * @param dpid datapathId of switch
+     * @throws SwitchOperationException Switch not found
+     */
+    void startBatch(final DatapathId dpid) throws SwitchOperationException;
+
+    /**
+     * Writes the mods of the batch of the calling thread followed by a barrier.
+     *
+     * @param dpid datapathId of switch
+     * @return completes on the barrier reply with the OF errors the switch replied to the mods of the batch, fails
+     *         if the mods can't be written or the barrier is not replied
+     */
+    ListenableFuture<List<OFErrorMsg>> commitBatch(final DatapathId dpid);
+
     /**
      * Adds default rules to install verification rules and final drop rule.
      * Essentially, it calls installDropFlow and installVerificationRule twice (ie isBroadcast)
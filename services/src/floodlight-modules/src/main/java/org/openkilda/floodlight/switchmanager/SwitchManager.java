@@ -94,6 +94,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -124,6 +126,12 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
     private KafkaMessageProducer kafkaProducer;
     private ConnectModeRequest.Mode connectMode;
 
+    /** The batch the mods of the calling thread go to, if started. */
+    private final ThreadLocal<FlowModBatch> batch = new ThreadLocal<>();
+    /** The batches waiting for the barrier reply, by the switch and the xids of their mods. */
+    private final ConcurrentMap<DatapathId, ConcurrentMap<Long, FlowModBatch>> pendingBatches =
+            new ConcurrentHashMap<>();
+
     // IFloodlightModule Methods
 
     /**
@@ -218,6 +226,14 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         logger.debug("OF_ERROR: {}", msg);
         // TODO: track xid for flow id
         if (OFType.ERROR.equals(msg.getType())) {
+            ConcurrentMap<Long, FlowModBatch> switchBatches = pendingBatches.get(sw.getId());
+            FlowModBatch errorBatch = switchBatches == null ? null : switchBatches.get(msg.getXid());
+            if (errorBatch != null) {
+                // the command of the batch replies with it
+                errorBatch.addError((OFErrorMsg) msg);
+                return Command.CONTINUE;
+            }
+
             ErrorMessage error = new ErrorMessage(
                     new ErrorData(ErrorType.INTERNAL_ERROR, ((OFErrorMsg) msg).getErrType().toString(), null),
                     System.currentTimeMillis(), DEFAULT_CORRELATION_ID, Destination.WFM_TRANSACTION);
@@ -267,6 +283,30 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
         return this.connectMode;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startBatch(final DatapathId dpid) throws SwitchOperationException {
+        if (batch.get() != null) {
+            throw new IllegalStateException(String.format("The batch to switch %s is not committed", dpid));
+        }
+        batch.set(new FlowModBatch(dpid, lookupSwitch(dpid)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ListenableFuture<List<OFErrorMsg>> commitBatch(final DatapathId dpid) {
+        FlowModBatch current = batch.get();
+        if (current == null || !current.getDpid().equals(dpid)) {
+            throw new IllegalStateException(String.format("No batch to switch %s is started", dpid));
+        }
+        batch.remove();
+        return current.commit(pendingBatches.computeIfAbsent(dpid, key -> new ConcurrentHashMap<>()));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1047,7 +1087,8 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
     }
 
     /**
-     * Pushes a single flow modification command to the switch with the given datapath ID.
+     * Pushes a single flow modification command to the switch with the given datapath ID, or adds it to the batch
+     * of the calling thread to the switch.
      *
      * @param sw      open flow switch descriptor
      * @param flowId  flow name, for logging
@@ -1056,6 +1097,13 @@ public class SwitchManager implements IFloodlightModule, IFloodlightService, ISw
      * @throws OFInstallException
      */
     private long pushFlow(final IOFSwitch sw, final String flowId, final OFMessage flowMod) throws OFInstallException {
+        FlowModBatch current = batch.get();
+        if (current != null && current.isFor(sw)) {
+            logger.info("batching {} flow: {}", flowId, flowMod);
+            current.add(flowMod);
+            return flowMod.getXid();
+        }
+
         logger.info("installing {} flow: {}", flowId, flowMod);
 
         if (! sw.write(flowMod)) {
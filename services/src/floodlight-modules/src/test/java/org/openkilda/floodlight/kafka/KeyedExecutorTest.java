@@ -0,0 +1,75 @@
+package org.openkilda.floodlight.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class KeyedExecutorTest {
+    private ExecutorService pool;
+    private KeyedExecutor<String> executor;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        executor = new KeyedExecutor<>(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void tasksOfKeyRunInOrder() throws InterruptedException {
+        List<Integer> done = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            final int task = i;
+            executor.execute("sw1", () -> {
+                done.add(task);
+                finished.countDown();
+            });
+        }
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) done.get(i));
+        }
+    }
+
+    @Test
+    public void slowKeyDoesNotBlockOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        CountDownLatch slowFinished = new CountDownLatch(1);
+        executor.execute("sw1", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute("sw1", slowFinished::countDown);
+        executor.execute("sw2", finished::countDown);
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(2, (int) executor.getQueueDepths().get("sw1"));
+
+        release.countDown();
+        assertTrue(slowFinished.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(executor.getQueueDepths().isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package org.openkilda.floodlight.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class OffsetTrackerTest {
+    private static final TopicPartition PARTITION = new TopicPartition("speaker", 0);
+
+    @Test
+    public void committedUpToOldestPendingRecord() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.add(PARTITION, 10);
+        tracker.add(PARTITION, 11);
+        tracker.add(PARTITION, 12);
+        assertTrue(tracker.takeCommittable().isEmpty());
+
+        tracker.done(PARTITION, 11, tracker.generation(PARTITION));
+        tracker.done(PARTITION, 12, tracker.generation(PARTITION));
+        assertTrue(tracker.takeCommittable().isEmpty());
+
+        tracker.done(PARTITION, 10, tracker.generation(PARTITION));
+        Map<TopicPartition, OffsetAndMetadata> committable = tracker.takeCommittable();
+        assertEquals(13, committable.get(PARTITION).offset());
+        assertTrue(tracker.takeCommittable().isEmpty());
+    }
+
+    @Test
+    public void partialProgressIsCommitted() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.add(PARTITION, 10);
+        tracker.add(PARTITION, 11);
+        tracker.done(PARTITION, 10, tracker.generation(PARTITION));
+
+        assertEquals(11, tracker.takeCommittable().get(PARTITION).offset());
+    }
+
+    @Test
+    public void forgottenPartitionIsIgnored() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.add(PARTITION, 10);
+        long generation = tracker.generation(PARTITION);
+        tracker.forget(Collections.singletonList(PARTITION));
+        tracker.done(PARTITION, 10, generation);
+
+        assertTrue(tracker.takeCommittable().isEmpty());
+    }
+
+    @Test
+    public void recordOfPreviousAssignmentIsIgnored() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.add(PARTITION, 10);
+        long previous = tracker.generation(PARTITION);
+        tracker.forget(Collections.singletonList(PARTITION));
+
+        // the record is redelivered after the partition is assigned again
+        tracker.add(PARTITION, 10);
+        tracker.add(PARTITION, 11);
+        tracker.done(PARTITION, 10, previous);
+        tracker.done(PARTITION, 11, tracker.generation(PARTITION));
+        assertTrue(tracker.takeCommittable().isEmpty());
+
+        tracker.done(PARTITION, 10, tracker.generation(PARTITION));
+        assertEquals(12, tracker.takeCommittable().get(PARTITION).offset());
+    }
+}
@@ -19,9 +19,12 @@ import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.newCapture;
 import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.openkilda.floodlight.message.command.encapsulation.PushSchemeOutputCommands.ofFactory;
 import static org.openkilda.messaging.Utils.MAPPER;
 
@@ -33,16 +36,20 @@ import org.openkilda.floodlight.switchmanager.ISwitchManager;
 import org.openkilda.floodlight.switchmanager.MeterPool;
 import org.openkilda.floodlight.switchmanager.SwitchEventCollector;
 import org.openkilda.floodlight.switchmanager.SwitchManager;
+import org.openkilda.messaging.Message;
 import org.openkilda.messaging.command.CommandData;
 import org.openkilda.messaging.command.CommandMessage;
 import org.openkilda.messaging.command.flow.InstallEgressFlow;
 import org.openkilda.messaging.command.flow.InstallIngressFlow;
 import org.openkilda.messaging.command.flow.InstallOneSwitchFlow;
+import org.openkilda.messaging.command.flow.BaseFlow;
 import org.openkilda.messaging.command.flow.InstallTransitFlow;
+import org.openkilda.messaging.error.ErrorMessage;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import net.floodlightcontroller.core.IOFSwitch;
 import net.floodlightcontroller.core.SwitchDescription;
 import net.floodlightcontroller.core.internal.IOFSwitchService;
@@ -51,16 +58,23 @@ import net.floodlightcontroller.core.module.FloodlightModuleException;
 import net.floodlightcontroller.restserver.IRestApiService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.easymock.Capture;
-import org.easymock.CaptureType;
 import org.junit.Before;
 import org.junit.Test;
+import org.projectfloodlight.openflow.protocol.OFBarrierReply;
+import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
+import org.projectfloodlight.openflow.protocol.OFFlowModFailedCode;
 import org.projectfloodlight.openflow.protocol.OFFlowAdd;
+import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFMeterMod;
+import org.projectfloodlight.openflow.protocol.OFMeterModFailedCode;
 import org.projectfloodlight.openflow.types.DatapathId;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class ReplaceInstallFlowTest {
     private static final FloodlightModuleContext context = new FloodlightModuleContext();
@@ -70,6 +84,10 @@ public class ReplaceInstallFlowTest {
     private IOFSwitchService ofSwitchService;
     private KafkaMessageCollector collector;
     private KafkaMessageProducer producer;
+    private SwitchManager switchManager;
+    private IOFSwitch iofSwitch;
+    private Capture<List<OFMessage>> batchCapture;
+    private SettableFuture<OFBarrierReply> barrier;
 
     /**
      * Returns CommandData entity constructed by data string from json resource file.
@@ -85,7 +103,7 @@ public class ReplaceInstallFlowTest {
 
     @Before
     public void setUp() throws FloodlightModuleException {
-        final SwitchManager switchManager = new SwitchManager();
+        switchManager = new SwitchManager();
         final PathVerificationService pathVerificationService = new PathVerificationService();
 
         ofSwitchService = createMock(IOFSwitchService.class);
@@ -238,16 +256,80 @@ public class ReplaceInstallFlowTest {
         runTest(value, flowCommand, null, null, null);
     }
 
+    @Test
+    public void commandIsDoneOnceSwitchConfirmsIt() throws IOException, InterruptedException {
+        RecordHandler handler = runIngressFlow();
+        assertFalse(handler.getCompletion().isDone());
+
+        Capture<Message> reply = expectReply();
+        barrier.set(ofFactory.buildBarrierReply().build());
+
+        assertTrue(handler.getCompletion().isDone());
+        assertTrue(reply.getValue() instanceof CommandMessage);
+    }
+
+    @Test
+    public void existingMeterIsNotAnError() throws IOException, InterruptedException {
+        RecordHandler handler = runIngressFlow();
+
+        // the command is redelivered, its meter is there already
+        Capture<Message> reply = expectReply();
+        switchManager.receive(iofSwitch, ofFactory.errorMsgs().buildMeterModFailedErrorMsg()
+                .setXid(findMod(OFMeterMod.class).getXid())
+                .setCode(OFMeterModFailedCode.METER_EXISTS)
+                .build(), null);
+        barrier.set(ofFactory.buildBarrierReply().build());
+
+        assertTrue(handler.getCompletion().isDone());
+        assertTrue(reply.getValue() instanceof CommandMessage);
+    }
+
+    @Test
+    public void rejectedFlowModFailsCommand() throws IOException, InterruptedException {
+        RecordHandler handler = runIngressFlow();
+
+        Capture<Message> reply = expectReply();
+        switchManager.receive(iofSwitch, ofFactory.errorMsgs().buildFlowModFailedErrorMsg()
+                .setXid(findMod(OFFlowAdd.class).getXid())
+                .setCode(OFFlowModFailedCode.TABLE_FULL)
+                .build(), null);
+        barrier.set(ofFactory.buildBarrierReply().build());
+
+        assertTrue(handler.getCompletion().isDone());
+        assertTrue(reply.getValue() instanceof ErrorMessage);
+    }
+
+    private RecordHandler runIngressFlow() throws IOException, InterruptedException {
+        String value = Resources.toString(getClass().getResource("/install_ingress_none_flow.json"), Charsets.UTF_8);
+        return runTest(value, null, null, null, null);
+    }
+
+    private Capture<Message> expectReply() {
+        Capture<Message> reply = newCapture();
+        producer.postMessage(anyObject(String.class), capture(reply));
+        expectLastCall();
+        replay(producer);
+        return reply;
+    }
+
+    private OFMessage findMod(Class<? extends OFMessage> type) {
+        return batchCapture.getValue().stream()
+                .filter(type::isInstance)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + type.getSimpleName() + " is written"));
+    }
+
     /**
      * Runs test case.
      *
      * @param value       data string from json resource file
      * @param flowCommand OFFlowAdd instance to compare result with
+     * @return the handler of the command, it is done once the barrier of the switch is replied
      * @throws InterruptedException if test was interrupted during run
      */
-    private void runTest(final String value, final OFFlowAdd flowCommand, final OFMeterMod meterCommand,
-                         final OFFlowAdd reverseFlowCommand, final OFMeterMod reverseMeterCommand)
-            throws InterruptedException {
+    private RecordHandler runTest(final String value, final OFFlowAdd flowCommand, final OFMeterMod meterCommand,
+                                  final OFFlowAdd reverseFlowCommand, final OFMeterMod reverseMeterCommand)
+            throws IOException, InterruptedException {
         // construct kafka message
         ConsumerRecord<String, String> record = new ConsumerRecord<>("", 0, 0, "", value);
 
@@ -255,58 +337,53 @@ public class ReplaceInstallFlowTest {
         ConsumerContext kafkaContext = new ConsumerContext(context, collector);
         RecordHandler parseRecord = new RecordHandler(kafkaContext, record, new MeterPool());
         // init test mocks
-        Capture<OFFlowAdd> flowAddCapture = flowCommand == null ? null : newCapture(CaptureType.ALL);
-        Capture<OFMeterMod> meterAddCapture = meterCommand == null ? null : newCapture(CaptureType.ALL);
-        prepareMocks(flowAddCapture, meterAddCapture, reverseFlowCommand != null, reverseMeterCommand != null);
+        prepareMocks(DatapathId.of(((BaseFlow) prepareData(value)).getSwitchId()));
 
         // run parser and wait for termination or timeout
         parseRecordExecutor.execute(parseRecord);
         parseRecordExecutor.shutdown();
         parseRecordExecutor.awaitTermination(10, TimeUnit.SECONDS);
 
-        // verify results
+        // verify results, the mods are written in one batch
+        List<OFMessage> meterMods = batchCapture.getValue().stream()
+                .filter(message -> message instanceof OFMeterMod)
+                .collect(Collectors.toList());
+        List<OFMessage> flowMods = batchCapture.getValue().stream()
+                .filter(message -> message instanceof OFFlowAdd)
+                .collect(Collectors.toList());
         if (meterCommand != null) {
-            assertEquals(meterCommand, meterAddCapture.getValues().get(0));
+            assertEquals(meterCommand, meterMods.get(0));
             if (reverseMeterCommand != null) {
-                assertEquals(reverseMeterCommand, meterAddCapture.getValues().get(1));
+                assertEquals(reverseMeterCommand, meterMods.get(1));
             }
         }
         if (flowCommand != null) {
-            assertEquals(flowCommand, flowAddCapture.getValues().get(0));
+            assertEquals(flowCommand, flowMods.get(0));
             if (reverseFlowCommand != null) {
-                assertEquals(reverseFlowCommand, flowAddCapture.getValues().get(1));
+                assertEquals(reverseFlowCommand, flowMods.get(1));
             }
         }
+        return parseRecord;
     }
 
     /**
      * Prepares test mocks for run.
      *
-     * @param flowAddCapture  Capture for FlowAdd command
-     * @param meterAddCapture Capture for MeterMod<Add> command
+     * @param dpid the switch of the command
      */
-    private void prepareMocks(Capture<OFFlowAdd> flowAddCapture, Capture<OFMeterMod> meterAddCapture,
-                              boolean needCheckReverseFlow, boolean needCheckReverseMeter) {
-        IOFSwitch iofSwitch = createMock(IOFSwitch.class);
+    private void prepareMocks(DatapathId dpid) {
+        iofSwitch = createMock(IOFSwitch.class);
+        batchCapture = newCapture();
+        barrier = SettableFuture.create();
 
         expect(ofSwitchService.getSwitch(anyObject(DatapathId.class))).andStubReturn(iofSwitch);
         expect(iofSwitch.getOFFactory()).andStubReturn(ofFactory);
         expect(iofSwitch.getSwitchDescription()).andStubReturn(switchDescription);
+        expect(iofSwitch.getId()).andStubReturn(dpid);
 
-        if (meterAddCapture != null) {
-            expect(iofSwitch.write(capture(meterAddCapture))).andReturn(true);
-            if (flowAddCapture != null) {
-                expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true);
-            }
-            if (needCheckReverseMeter) {
-                expect(iofSwitch.write(capture(meterAddCapture))).andReturn(true);
-            }
-            if (needCheckReverseFlow) {
-                expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true);
-            }
-        } else if (flowAddCapture != null) {
-            expect(iofSwitch.write(capture(flowAddCapture))).andReturn(true).times(needCheckReverseFlow ? 2 : 1);
-        }
+        expect(iofSwitch.write(capture(batchCapture))).andReturn(Collections.emptyList());
+        expect(iofSwitch.writeRequest(anyObject(OFBarrierRequest.class)))
+                .andReturn(barrier);
 
         replay(ofSwitchService);
         replay(iofSwitch);
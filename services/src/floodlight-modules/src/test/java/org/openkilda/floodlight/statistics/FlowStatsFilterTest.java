@@ -0,0 +1,68 @@
+package org.openkilda.floodlight.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openkilda.messaging.info.stats.FlowStatsData;
+import org.openkilda.messaging.info.stats.FlowStatsEntry;
+import org.openkilda.messaging.info.stats.FlowStatsReply;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FlowStatsFilterTest {
+    private static final String SWITCH_ID = "00:00:00:00:00:00:00:01";
+
+    @Test
+    public void onlyChangedFlowsBetweenFullStats() {
+        FlowStatsFilter filter = new FlowStatsFilter(3);
+
+        FlowStatsData data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100),
+                new FlowStatsEntry(0, 2, 20, 200)));
+        assertFalse(data.isSparse());
+        assertEquals(2, data.getStats().get(0).getEntries().size());
+
+        data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100),
+                new FlowStatsEntry(0, 2, 21, 210), new FlowStatsEntry(0, 3, 1, 10)));
+        assertTrue(data.isSparse());
+        List<FlowStatsEntry> entries = data.getStats().get(0).getEntries();
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(0).getCookie());
+        assertEquals(3, entries.get(1).getCookie());
+
+        data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100)));
+        assertTrue(data.isSparse());
+        assertTrue(data.getStats().get(0).getEntries().isEmpty());
+
+        data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100)));
+        assertFalse(data.isSparse());
+        assertEquals(1, data.getStats().get(0).getEntries().size());
+    }
+
+    @Test
+    public void statsAreNumbered() {
+        FlowStatsFilter filter = new FlowStatsFilter(2);
+
+        for (long sequence = 0; sequence < 3; sequence++) {
+            FlowStatsData data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100)));
+            assertEquals(sequence, data.getSequence());
+        }
+    }
+
+    @Test
+    public void fullStatsOnlyWithoutRefreshInterval() {
+        FlowStatsFilter filter = new FlowStatsFilter(1);
+
+        filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100)));
+        FlowStatsData data = filter.filter(SWITCH_ID, makeReplies(new FlowStatsEntry(0, 1, 10, 100)));
+        assertFalse(data.isSparse());
+        assertEquals(1, data.getStats().get(0).getEntries().size());
+    }
+
+    private static List<FlowStatsReply> makeReplies(FlowStatsEntry... entries) {
+        return Collections.singletonList(new FlowStatsReply(1, Arrays.asList(entries)));
+    }
+}
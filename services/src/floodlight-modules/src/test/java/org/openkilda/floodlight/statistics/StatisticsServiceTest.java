@@ -0,0 +1,91 @@
+package org.openkilda.floodlight.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.floodlightcontroller.core.module.FloodlightModuleContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectfloodlight.openflow.types.DatapathId;
+
+import java.util.concurrent.TimeUnit;
+
+public class StatisticsServiceTest {
+    private static final int INTERVAL = 10;
+    private static final long INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(INTERVAL);
+    private static final int MAX_OUTSTANDING = 2;
+
+    private static final DatapathId DPID_1 = DatapathId.of(1);
+    private static final DatapathId DPID_2 = DatapathId.of(2);
+    private static final DatapathId DPID_3 = DatapathId.of(3);
+
+    private StatisticsService service;
+
+    @Before
+    public void setUp() throws Exception {
+        service = new StatisticsService();
+        FloodlightModuleContext context = new FloodlightModuleContext();
+        context.addConfigParam(service, "interval", String.valueOf(INTERVAL));
+        context.addConfigParam(service, "max-outstanding", String.valueOf(MAX_OUTSTANDING));
+        context.addConfigParam(service, "flow-stats-refresh", "3");
+        service.init(context);
+    }
+
+    @Test
+    public void sequentialSwitchesAreSpreadOverSlots() {
+        int slots = 40;
+        int perSlot = 100;
+        int[] counts = new int[slots];
+        for (long dpid = 1; dpid <= slots * perSlot; dpid++) {
+            int slot = StatisticsService.getSlot(DatapathId.of(dpid), slots);
+            assertTrue(0 <= slot && slot < slots);
+            counts[slot] += 1;
+        }
+
+        for (int count : counts) {
+            assertTrue("Uneven slot: " + count, perSlot * 0.7 < count && count < perSlot * 1.3);
+        }
+    }
+
+    @Test
+    public void switchIsSkippedWhilePollIsPending() {
+        StatisticsService.Poll poll = service.new Poll(DPID_1, 0, 2);
+        assertFalse(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS));
+
+        poll.complete();
+        assertFalse(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS));
+        assertEquals(1, service.getOutstanding());
+
+        poll.complete();
+        assertTrue(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS));
+        assertEquals(0, service.getOutstanding());
+    }
+
+    @Test
+    public void outstandingPollsAreCapped() {
+        StatisticsService.Poll poll = service.new Poll(DPID_1, 0, 1);
+        service.new Poll(DPID_2, 0, 1);
+        assertEquals(MAX_OUTSTANDING, service.getOutstanding());
+        assertFalse(service.isReadyToPoll(DPID_3, INTERVAL_MILLIS));
+
+        poll.complete();
+        assertTrue(service.isReadyToPoll(DPID_3, INTERVAL_MILLIS));
+    }
+
+    @Test
+    public void stalePollIsReleasedOnce() {
+        StatisticsService.Poll stale = service.new Poll(DPID_1, 0, 2);
+        assertFalse(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS * 3 - 1));
+
+        assertTrue(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS * 3));
+        assertEquals(0, service.getOutstanding());
+
+        // the replies of the stale poll come after the next poll has started
+        service.new Poll(DPID_1, INTERVAL_MILLIS * 3, 1);
+        stale.complete();
+        stale.complete();
+        assertEquals(1, service.getOutstanding());
+        assertFalse(service.isReadyToPoll(DPID_1, INTERVAL_MILLIS * 3));
+    }
+}
@@ -28,6 +28,7 @@ public interface Topic {
     public static final String SIMULATOR = "kilda.simulator";
     public static final String SPEAKER = "kilda.speaker";
     public static final String STATS = "kilda.stats";
+    public static final String STATS_ANOMALY = "kilda.stats.anomaly";
     public static final String TOPO_CACHE = "kilda.topo.cache";
     public static final String TOPO_DISCO = "kilda.topo.disco";
     public static final String TOPO_ENG = "kilda.topo.eng";
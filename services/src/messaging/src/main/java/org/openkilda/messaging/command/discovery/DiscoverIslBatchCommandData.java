@@ -0,0 +1,124 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.command.discovery;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import org.openkilda.messaging.command.CommandData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Defines the payload of a Message representing a command for ISL discovery on several ports of one switch.
+ */
+@JsonSerialize
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "command",
+        "switch_id",
+        "ports"})
+public class DiscoverIslBatchCommandData extends CommandData {
+    /**
+     * Serialization version number constant.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Switch id.
+     */
+    @JsonProperty("switch_id")
+    private final String switchId;
+
+    /**
+     * Port numbers.
+     */
+    @JsonProperty("ports")
+    private final List<Integer> ports;
+
+    /**
+     * Instance constructor.
+     *
+     * @param switchId switch id
+     * @param ports    port numbers
+     */
+    @JsonCreator
+    public DiscoverIslBatchCommandData(@JsonProperty("switch_id") final String switchId,
+                                       @JsonProperty("ports") final List<Integer> ports) {
+        this.switchId = switchId;
+        this.ports = ports;
+    }
+
+    /**
+     * Returns switch id.
+     *
+     * @return switch id
+     */
+    public String getSwitchId() {
+        return switchId;
+    }
+
+    /**
+     * Returns port numbers.
+     *
+     * @return port numbers
+     */
+    public List<Integer> getPorts() {
+        return ports;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("switch_id", switchId)
+                .add("ports", ports)
+                .toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(switchId, ports);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        DiscoverIslBatchCommandData that = (DiscoverIslBatchCommandData) object;
+        return Objects.equals(getSwitchId(), that.getSwitchId())
+                && Objects.equals(getPorts(), that.getPorts());
+    }
+}
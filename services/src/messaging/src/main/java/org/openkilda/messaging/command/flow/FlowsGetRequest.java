@@ -36,7 +36,8 @@ import java.util.Objects;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
         "command",
-        PAYLOAD})
+        PAYLOAD,
+        "switch_id"})
 public class FlowsGetRequest extends CommandData {
     /**
      * Serialization version number constant.
@@ -49,15 +50,34 @@ public class FlowsGetRequest extends CommandData {
     @JsonProperty(PAYLOAD)
     protected FlowIdStatusPayload payload;
 
+    /**
+     * Optional switch filter, only flows with an endpoint on this switch are dumped.
+     */
+    @JsonProperty("switch_id")
+    protected String switchId;
+
     /**
      * Instance constructor.
      *
      * @param payload request payload
      * @throws IllegalArgumentException if payload is null
      */
+    public FlowsGetRequest(final FlowIdStatusPayload payload) {
+        this(payload, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param payload  request payload, its status (if set) is used as flow state filter
+     * @param switchId switch filter or null
+     * @throws IllegalArgumentException if payload is null
+     */
     @JsonCreator
-    public FlowsGetRequest(@JsonProperty(PAYLOAD) final FlowIdStatusPayload payload) {
+    public FlowsGetRequest(@JsonProperty(PAYLOAD) final FlowIdStatusPayload payload,
+                           @JsonProperty("switch_id") final String switchId) {
         setPayload(payload);
+        this.switchId = switchId;
     }
 
     /**
@@ -81,6 +101,15 @@ public class FlowsGetRequest extends CommandData {
         this.payload = payload;
     }
 
+    /**
+     * Returns switch filter.
+     *
+     * @return switch id or null if not set
+     */
+    public String getSwitchId() {
+        return switchId;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,6 +117,7 @@ public class FlowsGetRequest extends CommandData {
     public String toString() {
         return toStringHelper(this)
                 .add(PAYLOAD, payload)
+                .add("switch_id", switchId)
                 .toString();
     }
 
@@ -96,7 +126,7 @@ public class FlowsGetRequest extends CommandData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(payload);
+        return Objects.hash(payload, switchId);
     }
 
     /**
@@ -112,6 +142,7 @@ public class FlowsGetRequest extends CommandData {
         }
 
         FlowsGetRequest that = (FlowsGetRequest) object;
-        return Objects.equals(getPayload(), that.getPayload());
+        return Objects.equals(getPayload(), that.getPayload())
+                && Objects.equals(getSwitchId(), that.getSwitchId());
     }
 }
@@ -0,0 +1,48 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.openkilda.messaging.command.stats;
+
+import org.openkilda.messaging.command.CommandData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Asks the stats topology for the flows with the highest bit rates, on one switch or in the whole network.
+ */
+@Value
+@Builder
+public class TopFlowsRequest extends CommandData {
+
+    /**
+     * The switch to report the flows of, null for the whole network.
+     */
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    @JsonProperty("limit")
+    private int limit;
+
+    @JsonCreator
+    public TopFlowsRequest(@JsonProperty("switch_id") String switchId,
+                           @JsonProperty("limit") int limit) {
+        this.switchId = switchId;
+        this.limit = limit;
+    }
+}
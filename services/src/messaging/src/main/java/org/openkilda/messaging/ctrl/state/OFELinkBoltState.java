@@ -10,6 +10,7 @@ import org.openkilda.messaging.ctrl.state.visitor.DumpStateVisitor;
 import org.openkilda.messaging.model.DiscoveryNode;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @JsonSerialize
@@ -22,12 +23,18 @@ public class OFELinkBoltState extends AbstractDumpState {
     @JsonProperty("filtered")
     private final Set<?> filtered;
 
+    /** ISL flap dampening counters */
+    @JsonProperty("dampening")
+    private final Map<String, Long> dampening;
+
     @JsonCreator
     public OFELinkBoltState(
             @JsonProperty("state") List<DiscoveryNode> discovery,
-            @JsonProperty("filtered") Set<?> filtered) {
+            @JsonProperty("filtered") Set<?> filtered,
+            @JsonProperty("dampening") Map<String, Long> dampening) {
         this.discovery = discovery;
         this.filtered = filtered;
+        this.dampening = dampening;
     }
 
     public void accept(DumpStateVisitor visitor) {
@@ -41,4 +48,8 @@ public class OFELinkBoltState extends AbstractDumpState {
     public Set<?> getFiltered() {
         return filtered;
     }
+
+    public Map<String, Long> getDampening() {
+        return dampening;
+    }
 }
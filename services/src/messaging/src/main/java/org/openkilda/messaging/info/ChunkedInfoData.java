@@ -0,0 +1,38 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info;
+
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
+
+/**
+ * Response data which may be sliced on several messages. Every partition of the responder sends its own
+ * part of the response, and every part may be sliced on chunks.
+ */
+public interface ChunkedInfoData {
+    /**
+     * Returns position of the message in the part of the response sent by one partition.
+     *
+     * @return chunk descriptor or null if the part is not chunked
+     */
+    ChunkDescriptor getChunk();
+
+    /**
+     * Returns partition which sent the message.
+     *
+     * @return partition descriptor or null if the response is not partitioned
+     */
+    ChunkDescriptor getPartition();
+}
@@ -3,6 +3,7 @@ package org.openkilda.messaging.info.discovery;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 public class ChunkDescriptor implements Serializable {
     @JsonProperty("current")
@@ -25,4 +26,27 @@ public class ChunkDescriptor implements Serializable {
     public int getTotal() {
         return total;
     }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        ChunkDescriptor that = (ChunkDescriptor) object;
+        return current == that.current && total == that.total;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(current, total);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d", current, total);
+    }
 }
@@ -0,0 +1,74 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info.event;
+
+import org.openkilda.messaging.info.InfoData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A port started or stopped to drop or to corrupt more of its packets than usual. The degraded ISLs can be drained
+ * before they fail.
+ */
+@Value
+@Builder
+public class PortAnomalyData extends InfoData {
+
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    @JsonProperty("port_no")
+    private int portNo;
+
+    @JsonProperty("type")
+    private PortAnomalyType type;
+
+    /**
+     * True when the anomaly starts, false when it is over.
+     */
+    @JsonProperty("active")
+    private boolean active;
+
+    /**
+     * The share of the bad packets in the last stats interval.
+     */
+    @JsonProperty("ratio")
+    private double ratio;
+
+    /**
+     * The usual share of the bad packets of the port.
+     */
+    @JsonProperty("baseline")
+    private double baseline;
+
+    @JsonCreator
+    public PortAnomalyData(@JsonProperty("switch_id") String switchId,
+                           @JsonProperty("port_no") int portNo,
+                           @JsonProperty("type") PortAnomalyType type,
+                           @JsonProperty("active") boolean active,
+                           @JsonProperty("ratio") double ratio,
+                           @JsonProperty("baseline") double baseline) {
+        this.switchId = switchId;
+        this.portNo = portNo;
+        this.type = type;
+        this.active = active;
+        this.ratio = ratio;
+        this.baseline = baseline;
+    }
+}
@@ -16,12 +16,15 @@
 package org.openkilda.messaging.info.flow;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.info.ChunkedInfoData;
 import org.openkilda.messaging.info.InfoData;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.payload.flow.FlowCacheSyncResults;
 
@@ -35,7 +38,7 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  */
 @JsonSerialize
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class FlowCacheSyncResponse extends InfoData {
+public class FlowCacheSyncResponse extends InfoData implements ChunkedInfoData {
     /**
      * Serialization version number constant.
      */
@@ -47,15 +50,34 @@ public class FlowCacheSyncResponse extends InfoData {
     @JsonProperty(Utils.PAYLOAD)
     protected FlowCacheSyncResults payload;
 
+    /**
+     * Partition which sent this response, null for not partitioned response.
+     */
+    @JsonProperty("partition")
+    protected ChunkDescriptor partition;
+
     /**
      * Instance constructor.
      *
      * @param payload response payload
      * @throws IllegalArgumentException if payload is null
      */
+    public FlowCacheSyncResponse(FlowCacheSyncResults payload) {
+        this(payload, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param payload   response payload
+     * @param partition partition descriptor
+     * @throws IllegalArgumentException if payload is null
+     */
     @JsonCreator
-    public FlowCacheSyncResponse(@JsonProperty(Utils.PAYLOAD) FlowCacheSyncResults payload) {
+    public FlowCacheSyncResponse(@JsonProperty(Utils.PAYLOAD) FlowCacheSyncResults payload,
+                                 @JsonProperty("partition") ChunkDescriptor partition) {
         setPayload(payload);
+        this.partition = partition;
     }
 
     /**
@@ -79,6 +101,27 @@ public class FlowCacheSyncResponse extends InfoData {
         this.payload = payload;
     }
 
+    /**
+     * Cache sync results are never chunked.
+     *
+     * @return null
+     */
+    @JsonIgnore
+    @Override
+    public ChunkDescriptor getChunk() {
+        return null;
+    }
+
+    /**
+     * Returns partition descriptor.
+     *
+     * @return partition descriptor or null if response is not partitioned
+     */
+    @Override
+    public ChunkDescriptor getPartition() {
+        return partition;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -86,6 +129,7 @@ public class FlowCacheSyncResponse extends InfoData {
     public String toString() {
         return toStringHelper(this)
                 .add(Utils.PAYLOAD, payload)
+                .add("partition", partition)
                 .toString();
     }
 
@@ -94,7 +138,7 @@ public class FlowCacheSyncResponse extends InfoData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(payload);
+        return Objects.hash(payload, partition);
     }
 
     /**
@@ -110,6 +154,7 @@ public class FlowCacheSyncResponse extends InfoData {
         }
 
         FlowCacheSyncResponse that = (FlowCacheSyncResponse) object;
-        return Objects.equals(getPayload(), that.getPayload());
+        return Objects.equals(getPayload(), that.getPayload())
+                && Objects.equals(getPartition(), that.getPartition());
     }
 }
@@ -18,7 +18,9 @@ package org.openkilda.messaging.info.flow;
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.info.ChunkedInfoData;
 import org.openkilda.messaging.info.InfoData;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
 import org.openkilda.messaging.model.Flow;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -37,8 +39,10 @@ import java.util.Objects;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
         "message_type",
-        Utils.PAYLOAD})
-public class FlowsResponse extends InfoData {
+        Utils.PAYLOAD,
+        "chunk",
+        "partition"})
+public class FlowsResponse extends InfoData implements ChunkedInfoData {
     /**
      * Serialization version number constant.
      */
@@ -50,15 +54,54 @@ public class FlowsResponse extends InfoData {
     @JsonProperty(Utils.PAYLOAD)
     protected List<Flow> payload;
 
+    /**
+     * Position of this response in a chunked flows dump, null for not chunked response.
+     */
+    @JsonProperty("chunk")
+    protected ChunkDescriptor chunk;
+
+    /**
+     * Partition which sent this response, null for not partitioned response.
+     */
+    @JsonProperty("partition")
+    protected ChunkDescriptor partition;
+
     /**
      * Instance constructor.
      *
      * @param payload response payload
      * @throws IllegalArgumentException if payload is null
      */
+    public FlowsResponse(List<Flow> payload) {
+        this(payload, null, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param payload response payload
+     * @param chunk   chunk descriptor
+     * @throws IllegalArgumentException if payload is null
+     */
+    public FlowsResponse(List<Flow> payload, ChunkDescriptor chunk) {
+        this(payload, chunk, null);
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param payload   response payload
+     * @param chunk     chunk descriptor
+     * @param partition partition descriptor
+     * @throws IllegalArgumentException if payload is null
+     */
     @JsonCreator
-    public FlowsResponse(@JsonProperty(Utils.PAYLOAD) List<Flow> payload) {
+    public FlowsResponse(@JsonProperty(Utils.PAYLOAD) List<Flow> payload,
+                         @JsonProperty("chunk") ChunkDescriptor chunk,
+                         @JsonProperty("partition") ChunkDescriptor partition) {
         setPayload(payload);
+        this.chunk = chunk;
+        this.partition = partition;
     }
 
     /**
@@ -82,6 +125,26 @@ public class FlowsResponse extends InfoData {
         this.payload = payload;
     }
 
+    /**
+     * Returns chunk descriptor.
+     *
+     * @return chunk descriptor or null if response is not chunked
+     */
+    @Override
+    public ChunkDescriptor getChunk() {
+        return chunk;
+    }
+
+    /**
+     * Returns partition descriptor.
+     *
+     * @return partition descriptor or null if response is not partitioned
+     */
+    @Override
+    public ChunkDescriptor getPartition() {
+        return partition;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -89,6 +152,8 @@ public class FlowsResponse extends InfoData {
     public String toString() {
         return toStringHelper(this)
                 .add(Utils.PAYLOAD, payload)
+                .add("chunk", chunk)
+                .add("partition", partition)
                 .toString();
     }
 
@@ -97,7 +162,7 @@ public class FlowsResponse extends InfoData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(payload);
+        return Objects.hash(payload, chunk, partition);
     }
 
     /**
@@ -113,6 +178,8 @@ public class FlowsResponse extends InfoData {
         }
 
         FlowsResponse that = (FlowsResponse) object;
-        return Objects.equals(getPayload(), that.getPayload());
+        return Objects.equals(getPayload(), that.getPayload())
+                && Objects.equals(getChunk(), that.getChunk())
+                && Objects.equals(getPartition(), that.getPartition());
     }
 }
@@ -17,6 +17,7 @@ package org.openkilda.messaging.info.stats;
 
 import org.openkilda.messaging.info.InfoData;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -30,6 +31,8 @@ import java.util.List;
 @JsonPropertyOrder({
         "message_type",
         "switch_id",
+        "sparse",
+        "sequence",
         "stats"})
 public class FlowStatsData extends InfoData {
 
@@ -41,10 +44,31 @@ public class FlowStatsData extends InfoData {
     @JsonProperty
     private List<FlowStatsReply> stats;
 
+    /**
+     * The flows whose counters did not change since the previous stats of the switch are left out.
+     */
+    @JsonProperty("sparse")
+    private boolean sparse;
+
+    /**
+     * The number of the stats of the switch, a gap in it means that stats are lost.
+     */
+    @JsonProperty("sequence")
+    private long sequence;
+
+    public FlowStatsData(String switchId, List<FlowStatsReply> switchStats) {
+        this(switchId, switchStats, false, 0);
+    }
+
+    @JsonCreator
     public FlowStatsData(@JsonProperty("switch_id") String switchId,
-                         @JsonProperty("stats") List<FlowStatsReply> switchStats) {
+                         @JsonProperty("stats") List<FlowStatsReply> switchStats,
+                         @JsonProperty("sparse") boolean sparse,
+                         @JsonProperty("sequence") long sequence) {
         this.switchId = switchId;
         this.stats = switchStats;
+        this.sparse = sparse;
+        this.sequence = sequence;
     }
 
     public String getSwitchId() {
@@ -54,4 +78,12 @@ public class FlowStatsData extends InfoData {
     public List<FlowStatsReply> getStats() {
         return stats;
     }
+
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
 }
@@ -0,0 +1,74 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.messaging.info.stats;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+
+/**
+ * The counters of a meter. The band counters are summed over the bands, they count the traffic the meter
+ * policed: dropped, or remarked for the bands that do not drop.
+ */
+public class MeterStatsEntry implements Serializable {
+
+    @JsonProperty
+    private long meterId;
+
+    @JsonProperty
+    private long packetInCount;
+
+    @JsonProperty
+    private long byteInCount;
+
+    @JsonProperty
+    private long packetBandCount;
+
+    @JsonProperty
+    private long byteBandCount;
+
+    public MeterStatsEntry(@JsonProperty("meterId") long meterId,
+                           @JsonProperty("packetInCount") long packetInCount,
+                           @JsonProperty("byteInCount") long byteInCount,
+                           @JsonProperty("packetBandCount") long packetBandCount,
+                           @JsonProperty("byteBandCount") long byteBandCount) {
+        this.meterId = meterId;
+        this.packetInCount = packetInCount;
+        this.byteInCount = byteInCount;
+        this.packetBandCount = packetBandCount;
+        this.byteBandCount = byteBandCount;
+    }
+
+    public long getMeterId() {
+        return meterId;
+    }
+
+    public long getPacketInCount() {
+        return packetInCount;
+    }
+
+    public long getByteInCount() {
+        return byteInCount;
+    }
+
+    public long getPacketBandCount() {
+        return packetBandCount;
+    }
+
+    public long getByteBandCount() {
+        return byteBandCount;
+    }
+}
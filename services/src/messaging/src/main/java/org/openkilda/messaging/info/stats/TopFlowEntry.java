@@ -0,0 +1,66 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.openkilda.messaging.info.stats;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * The bit rate of a flow direction measured on a switch. Both directions of a flow may pass the same switch, so an
+ * entry is identified by the flow id and the direction.
+ */
+@Value
+public class TopFlowEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("flow_id")
+    private String flowId;
+
+    /**
+     * "forward" or "reverse".
+     */
+    @JsonProperty("direction")
+    private String direction;
+
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    @JsonProperty("bps")
+    private double bps;
+
+    /**
+     * When the rate was measured.
+     */
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonCreator
+    public TopFlowEntry(@JsonProperty("flow_id") String flowId,
+                        @JsonProperty("direction") String direction,
+                        @JsonProperty("switch_id") String switchId,
+                        @JsonProperty("bps") double bps,
+                        @JsonProperty("timestamp") long timestamp) {
+        this.flowId = flowId;
+        this.direction = direction;
+        this.switchId = switchId;
+        this.bps = bps;
+        this.timestamp = timestamp;
+    }
+}
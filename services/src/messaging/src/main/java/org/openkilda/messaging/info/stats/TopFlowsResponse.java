@@ -0,0 +1,50 @@
+/* Copyright 2018 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+
+package org.openkilda.messaging.info.stats;
+
+import org.openkilda.messaging.info.InfoData;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The flows with the highest bit rates, the highest first.
+ */
+@Value
+@Builder
+public class TopFlowsResponse extends InfoData {
+
+    /**
+     * The switch the flows were measured on, null for the whole network.
+     */
+    @JsonProperty("switch_id")
+    private String switchId;
+
+    @JsonProperty("flows")
+    private List<TopFlowEntry> flows;
+
+    @JsonCreator
+    public TopFlowsResponse(@JsonProperty("switch_id") String switchId,
+                            @JsonProperty("flows") List<TopFlowEntry> flows) {
+        this.switchId = switchId;
+        this.flows = flows;
+    }
+}
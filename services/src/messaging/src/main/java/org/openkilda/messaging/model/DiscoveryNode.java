@@ -62,6 +62,18 @@ public class DiscoveryNode implements Serializable {
     @JsonProperty("found_isl")
     private boolean foundIsl;
 
+    /** How many times the ISL went down, the port/switch down events included */
+    @JsonProperty("flap_count")
+    private int flapCount;
+
+    /** The flap dampening penalty, as of the last time it was updated */
+    @JsonProperty("flap_penalty")
+    private double flapPenalty;
+
+    /** The ISL is UP, but that wasn't announced due to flap dampening */
+    @JsonProperty("suppressed")
+    private boolean suppressed;
+
     /**
      * TODO: forlornThreshold is understandable (ie point at which to stop checking), but regarding
      * method signatures, it is very similar to DiscoverManager, which uses consecutive failure
@@ -87,7 +99,10 @@ public class DiscoveryNode implements Serializable {
             @JsonProperty("consecutive_failure") final int consecutiveFailure,
             @JsonProperty("consecutive_success") final int consecutiveSuccess,
             @JsonProperty("forlorn_threshold") final int forlornThreshold,
-            @JsonProperty("found_isl") final boolean foundIsl) {
+            @JsonProperty("found_isl") final boolean foundIsl,
+            @JsonProperty("flap_count") final int flapCount,
+            @JsonProperty("flap_penalty") final double flapPenalty,
+            @JsonProperty("suppressed") final boolean suppressed) {
 
         this.switchId = switchId;
         this.portId = portId;
@@ -98,8 +113,19 @@ public class DiscoveryNode implements Serializable {
         this.consecutiveFailure = consecutiveFailure;
         this.consecutiveSuccess = consecutiveSuccess;
         this.foundIsl = foundIsl;
+        this.flapCount = flapCount;
+        this.flapPenalty = flapPenalty;
+        this.suppressed = suppressed;
     }
 
+    /**
+     * Copy constructor, makes a snapshot of the node state.
+     */
+    public DiscoveryNode(DiscoveryNode other) {
+        this(other.switchId, other.portId, other.attempts, other.timeCounter, other.checkInterval,
+                other.consecutiveFailure, other.consecutiveSuccess, other.forlornThreshold, other.foundIsl,
+                other.flapCount, other.flapPenalty, other.suppressed);
+    }
 
     public void setFoundIsl(boolean foundIsl){
         this.foundIsl = foundIsl;
@@ -129,6 +155,16 @@ public class DiscoveryNode implements Serializable {
         return consecutiveFailure > forlornThreshold;
     }
 
+    /**
+     * @return failures left till the node is forlorn, {@link Integer#MAX_VALUE} if it never is
+     */
+    public int getFailuresToForlorn() {
+        if (forlornThreshold == FORLORN_NEVER) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, forlornThreshold - consecutiveFailure + 1);
+    }
+
     public void clearConsecutiveFailure() {
         consecutiveFailure = 0;
     }
@@ -149,6 +185,10 @@ public class DiscoveryNode implements Serializable {
         consecutiveFailure++;
     }
 
+    public void incConsecutiveFailure(int count) {
+        consecutiveFailure += count;
+    }
+
     public void incConsecutiveSuccess() {
         consecutiveSuccess++;
     }
@@ -161,10 +201,21 @@ public class DiscoveryNode implements Serializable {
         timeCounter++;
     }
 
+    public void incTick(int count) {
+        timeCounter += count;
+    }
+
     public void resetTickCounter() {
         timeCounter = 0;
     }
 
+    /**
+     * Makes the next check due after the specified amount of ticks, instead of the whole check interval.
+     */
+    public void setTicksToCheck(int ticks) {
+        timeCounter = Math.max(0, checkInterval - ticks);
+    }
+
     /**
      * @param attemptLimit the limit to test against
      * @return true if attempts is greater than attemptLimit.
@@ -177,14 +228,50 @@ public class DiscoveryNode implements Serializable {
         attempts++;
     }
 
+    public void incAttempts(int count) {
+        attempts += count;
+    }
+
     public int getAttempts() {
         return attempts;
     }
 
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(int checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
     public boolean timeToCheck() {
         return timeCounter >= checkInterval;
     }
 
+    public int getFlapCount() {
+        return flapCount;
+    }
+
+    public void incFlapCount() {
+        flapCount++;
+    }
+
+    public double getFlapPenalty() {
+        return flapPenalty;
+    }
+
+    public void setFlapPenalty(double flapPenalty) {
+        this.flapPenalty = flapPenalty;
+    }
+
+    public boolean isSuppressed() {
+        return suppressed;
+    }
+
+    public void setSuppressed(boolean suppressed) {
+        this.suppressed = suppressed;
+    }
+
     public String getSwitchId() {
         return switchId;
     }
@@ -217,8 +304,11 @@ public class DiscoveryNode implements Serializable {
                 "switchId='" + switchId + '\'' +
                 ", portId='" + portId + '\'' +
                 ", attempts=" + attempts +
+                ", checkInterval=" + checkInterval +
                 ", consecutiveFailure=" + consecutiveFailure +
                 ", consecutiveSuccess=" + consecutiveSuccess +
+                ", flapCount=" + flapCount +
+                ", suppressed=" + suppressed +
                 '}';
     }
 }
@@ -23,11 +23,13 @@ import org.openkilda.messaging.AbstractSerializer;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.discovery.DiscoverIslBatchCommandData;
 import org.openkilda.messaging.command.discovery.HealthCheckCommandData;
 import org.openkilda.messaging.error.ErrorData;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
 import org.openkilda.messaging.info.discovery.NetworkInfoData;
 import org.openkilda.messaging.info.event.IslChangeType;
 import org.openkilda.messaging.info.event.IslInfoData;
@@ -412,6 +414,44 @@ public abstract class AbstractSerializerTest implements AbstractSerializer {
         assertEquals(Collections.singletonList(flowModel).hashCode(), resultData.getPayload().hashCode());
     }
 
+    @Test
+    public void chunkedFlowsResponseTest() throws IOException, ClassNotFoundException {
+        FlowsResponse data = new FlowsResponse(Collections.singletonList(flowModel), new ChunkDescriptor(2, 3));
+        System.out.println(data);
+
+        InfoMessage info = new InfoMessage(data, System.currentTimeMillis(), CORRELATION_ID, DESTINATION);
+        serialize(info);
+
+        Message message = (Message) deserialize();
+        assertTrue(message instanceof InfoMessage);
+
+        FlowsResponse resultData = (FlowsResponse) ((InfoMessage) message).getData();
+        System.out.println(resultData);
+        assertEquals(data, resultData);
+        assertEquals(2, resultData.getChunk().getCurrent());
+        assertEquals(3, resultData.getChunk().getTotal());
+    }
+
+    @Test
+    public void discoverIslBatchCommandTest() throws IOException, ClassNotFoundException {
+        DiscoverIslBatchCommandData data = new DiscoverIslBatchCommandData(SWITCH_ID, Arrays.asList(1, 2, 3));
+        System.out.println(data);
+
+        CommandMessage command = new CommandMessage(data, System.currentTimeMillis(), CORRELATION_ID, DESTINATION);
+        serialize(command);
+
+        Message message = (Message) deserialize();
+        assertTrue(message instanceof CommandMessage);
+
+        CommandMessage resultCommand = (CommandMessage) message;
+        assertTrue(resultCommand.getData() instanceof DiscoverIslBatchCommandData);
+
+        DiscoverIslBatchCommandData resultData = (DiscoverIslBatchCommandData) resultCommand.getData();
+        System.out.println(resultData);
+        assertEquals(data, resultData);
+        assertEquals(data.hashCode(), resultData.hashCode());
+    }
+
     @Test
     public void eventIslInfoTest() throws IOException, ClassNotFoundException {
         PathNode payload = new PathNode(SWITCH_ID, INPUT_PORT, 0);
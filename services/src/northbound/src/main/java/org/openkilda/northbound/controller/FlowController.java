@@ -26,7 +26,9 @@ import org.openkilda.messaging.payload.flow.FlowCacheSyncResults;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
 import org.openkilda.messaging.payload.flow.FlowPathPayload;
 import org.openkilda.messaging.payload.flow.FlowPayload;
+import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.messaging.info.flow.FlowInfoData;
+import org.openkilda.messaging.info.stats.TopFlowEntry;
 import org.openkilda.northbound.dto.FlowValidationDto;
 import org.openkilda.northbound.service.BatchResults;
 import org.openkilda.northbound.service.FlowService;
@@ -204,8 +206,10 @@ public class FlowController {
     }
 
     /**
-     * Dumps all flows. Dumps all flows with specific status if specified.
+     * Dumps all flows. Dumps all flows with specific status and/or switch if specified.
      *
+     * @param switchId      optional switch filter
+     * @param state         optional flow state filter
      * @param correlationId correlation ID header value
      * @return list of flow
      */
@@ -223,13 +227,15 @@ public class FlowController {
             method = RequestMethod.GET,
             produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<List<FlowPayload>> getFlows(
+            @RequestParam(value = "switch-id", required = false) String switchId,
+            @RequestParam(value = "state", required = false) FlowState state,
             @RequestHeader(value = CORRELATION_ID, defaultValue = DEFAULT_CORRELATION_ID) String correlationId) {
 
         if (correlationId.equals(DEFAULT_CORRELATION_ID))
             correlationId = getUniqueCorrelation();
 
-        logger.debug("Get flows: {}={}", CORRELATION_ID, correlationId);
-        List<FlowPayload> response = flowService.getFlows(correlationId);
+        logger.debug("Get flows: {}={}, switch={}, state={}", CORRELATION_ID, correlationId, switchId, state);
+        List<FlowPayload> response = flowService.getFlows(switchId, state, correlationId);
         return new ResponseEntity<>(response, new HttpHeaders(), HttpStatus.OK);
     }
 
@@ -519,5 +525,38 @@ public class FlowController {
         return flowService.syncFlowCache(correlationId);
     }
 
+    /**
+     * Gets the flows with the highest rates, network wide or on one switch.
+     *
+     * @param switchId      the switch to get the top for, all the network if not set
+     * @param limit         how many flows to return
+     * @param correlationId correlation ID header value
+     * @return the flows, the highest rate first
+     */
+    @ApiOperation(value = "Gets the flows with the highest rates", response = TopFlowEntry.class,
+            responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, response = TopFlowEntry.class, responseContainer = "List",
+                    message = "Operation is successful"),
+            @ApiResponse(code = 400, response = MessageError.class, message = "Invalid input data"),
+            @ApiResponse(code = 401, response = MessageError.class, message = "Unauthorized"),
+            @ApiResponse(code = 403, response = MessageError.class, message = "Forbidden"),
+            @ApiResponse(code = 404, response = MessageError.class, message = "Not found"),
+            @ApiResponse(code = 500, response = MessageError.class, message = "General error"),
+            @ApiResponse(code = 503, response = MessageError.class, message = "Service unavailable")})
+    @RequestMapping(path = "/flows/top",
+            method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public List<TopFlowEntry> getTopFlows(
+            @RequestParam(value = "switch-id", required = false) String switchId,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestHeader(value = CORRELATION_ID, defaultValue = DEFAULT_CORRELATION_ID) String correlationId) {
 
+        if (correlationId.equals(DEFAULT_CORRELATION_ID))
+            correlationId = getUniqueCorrelation();
+
+        logger.debug("Top flows: {}={}, switch={}", CORRELATION_ID, correlationId, switchId);
+        return flowService.getTopFlows(switchId, limit, correlationId);
+    }
 }
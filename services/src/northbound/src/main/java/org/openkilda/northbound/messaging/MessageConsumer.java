@@ -15,6 +15,9 @@
 
 package org.openkilda.northbound.messaging;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface MessageConsumer<T> {
     /**
      * Kafka message queue poll timeout.
@@ -34,6 +37,17 @@ public interface MessageConsumer<T> {
      */
     T poll(final String correlationId);
 
+    /**
+     * Polls Kafka message queue for a response sliced on chunks. Returns all chunks of the response once every
+     * one of them is received, or the single message (i.e. an error) sent instead of the chunked response.
+     *
+     * @param correlationId correlation id
+     * @return received chunks ordered by position
+     */
+    default List<T> pollChunked(final String correlationId) {
+        return Collections.singletonList(poll(correlationId));
+    }
+
     /**
      * Clears message queue.
      */
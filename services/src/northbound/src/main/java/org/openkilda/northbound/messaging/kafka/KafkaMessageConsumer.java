@@ -25,6 +25,9 @@ import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Topic;
 import org.openkilda.messaging.error.MessageException;
+import org.openkilda.messaging.info.ChunkedInfoData;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
 import org.openkilda.northbound.messaging.MessageConsumer;
 
 import org.slf4j.Logger;
@@ -35,7 +38,13 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
@@ -62,6 +71,11 @@ public class KafkaMessageConsumer implements MessageConsumer<Message> {
      */
     private static final Logger logger = LoggerFactory.getLogger(KafkaMessageConsumer.class);
 
+    /**
+     * Descriptor used for not chunked or not partitioned parts of a response.
+     */
+    private static final ChunkDescriptor SINGLE = new ChunkDescriptor(1, 1);
+
     @Value("${northbound.messages.expiration.minutes}")
     private int expiredTime;
 
@@ -70,9 +84,16 @@ public class KafkaMessageConsumer implements MessageConsumer<Message> {
      */
     private Map<String, Message> messages;
 
+    /**
+     * Partially received chunked responses.
+     */
+    private Map<String, ChunkedMessage> chunkedMessages;
+
     @PostConstruct
     public void setUp() {
         messages = new PassiveExpiringMap<>(expiredTime, TimeUnit.MINUTES, new ConcurrentHashMap<String, Message>());
+        chunkedMessages = new PassiveExpiringMap<>(expiredTime, TimeUnit.MINUTES,
+                new ConcurrentHashMap<String, ChunkedMessage>());
     }
 
     /**
@@ -85,7 +106,16 @@ public class KafkaMessageConsumer implements MessageConsumer<Message> {
         try {
             logger.debug("message received: {}", record);
             Message message = MAPPER.readValue(record, Message.class);
-            messages.put(message.getCorrelationId(), message);
+            ChunkedInfoData chunked = getChunkedData(message);
+            if (chunked != null) {
+                ChunkDescriptor partition = Optional.ofNullable(chunked.getPartition()).orElse(SINGLE);
+                ChunkDescriptor chunk = Optional.ofNullable(chunked.getChunk()).orElse(SINGLE);
+                chunkedMessages.computeIfAbsent(message.getCorrelationId(),
+                        key -> new ChunkedMessage(partition.getTotal()))
+                        .add(partition, chunk, message);
+            } else {
+                messages.put(message.getCorrelationId(), message);
+            }
         } catch (IOException exception) {
             logger.error("Could not deserialize message: {}", record, exception);
         }
@@ -115,6 +145,46 @@ public class KafkaMessageConsumer implements MessageConsumer<Message> {
                 OPERATION_TIMED_OUT, TIMEOUT_ERROR_MESSAGE, Topic.NORTHBOUND);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Message> pollChunked(final String correlationId) {
+        try {
+            for (int i = POLL_TIMEOUT / POLL_PAUSE; i < POLL_TIMEOUT; i += POLL_PAUSE) {
+                ChunkedMessage chunked = chunkedMessages.get(correlationId);
+                if (chunked != null && chunked.isComplete()) {
+                    chunkedMessages.remove(correlationId);
+                    return chunked.getChunks();
+                } else if (messages.containsKey(correlationId)) {
+                    chunkedMessages.remove(correlationId);
+                    return Collections.singletonList(messages.remove(correlationId));
+                } else if (messages.containsKey(SYSTEM_CORRELATION_ID)) {
+                    return Collections.singletonList(messages.remove(SYSTEM_CORRELATION_ID));
+                }
+                Thread.sleep(POLL_PAUSE);
+            }
+        } catch (InterruptedException exception) {
+            logger.error("{}: {}={}", INTERRUPTED_ERROR_MESSAGE, CORRELATION_ID, correlationId);
+            throw new MessageException(correlationId, System.currentTimeMillis(),
+                    INTERNAL_ERROR, INTERRUPTED_ERROR_MESSAGE, Topic.NORTHBOUND);
+        }
+        chunkedMessages.remove(correlationId);
+        logger.error("{}: {}={}", TIMEOUT_ERROR_MESSAGE, CORRELATION_ID, correlationId);
+        throw new MessageException(correlationId, System.currentTimeMillis(),
+                OPERATION_TIMED_OUT, TIMEOUT_ERROR_MESSAGE, Topic.NORTHBOUND);
+    }
+
+    private static ChunkedInfoData getChunkedData(Message message) {
+        if (message instanceof InfoMessage && ((InfoMessage) message).getData() instanceof ChunkedInfoData) {
+            ChunkedInfoData data = (ChunkedInfoData) ((InfoMessage) message).getData();
+            if (data.getChunk() != null || data.getPartition() != null) {
+                return data;
+            }
+        }
+        return null;
+    }
+
     //todo(Nikita C): rewrite current poll method using async way.
 /*
     @Async
@@ -147,4 +217,47 @@ public class KafkaMessageConsumer implements MessageConsumer<Message> {
         //we shouldn't clear up collection, outdated messages are removing by default.
         //messages.clear();
     }
+
+    /**
+     * Collects chunks of one response sent by all partitions of the responder, chunks may arrive in any order.
+     */
+    private static final class ChunkedMessage {
+        private final Message[][] chunks;
+        private int completed;
+
+        private ChunkedMessage(int partitions) {
+            chunks = new Message[partitions][];
+        }
+
+        private synchronized void add(ChunkDescriptor partition, ChunkDescriptor chunk, Message message) {
+            int index = partition.getCurrent() - 1;
+            if (index < 0 || index >= chunks.length || chunk.getCurrent() < 1 || chunk.getCurrent() > chunk.getTotal()
+                    || (chunks[index] != null && chunks[index].length != chunk.getTotal())) {
+                logger.error("Drop chunk {} of partition {}: {}={}",
+                        chunk, partition, CORRELATION_ID, message.getCorrelationId());
+                return;
+            }
+            if (chunks[index] == null) {
+                chunks[index] = new Message[chunk.getTotal()];
+            }
+            if (chunks[index][chunk.getCurrent() - 1] == null) {
+                chunks[index][chunk.getCurrent() - 1] = message;
+                if (Arrays.stream(chunks[index]).allMatch(Objects::nonNull)) {
+                    completed += 1;
+                }
+            }
+        }
+
+        private synchronized boolean isComplete() {
+            return completed == chunks.length;
+        }
+
+        private synchronized List<Message> getChunks() {
+            List<Message> result = new ArrayList<>();
+            for (Message[] partition : chunks) {
+                Collections.addAll(result, partition);
+            }
+            return result;
+        }
+    }
 }
@@ -19,7 +19,9 @@ import org.openkilda.messaging.payload.flow.FlowCacheSyncResults;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
 import org.openkilda.messaging.payload.flow.FlowPathPayload;
 import org.openkilda.messaging.payload.flow.FlowPayload;
+import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.messaging.info.flow.FlowInfoData;
+import org.openkilda.messaging.info.stats.TopFlowEntry;
 import org.openkilda.northbound.dto.FlowValidationDto;
 import org.openkilda.messaging.payload.flow.FlowReroutePayload;
 import org.springframework.web.context.request.async.DeferredResult;
@@ -74,6 +76,16 @@ public interface FlowService extends BasicService {
      */
     List<FlowPayload> getFlows(final String correlationId);
 
+    /**
+     * Gets flows filtered by switch and/or state.
+     *
+     * @param switchId      switch id filter, null to skip
+     * @param state         flow state filter, null to skip
+     * @param correlationId request correlation id
+     * @return the list of flows matching the filters
+     */
+    List<FlowPayload> getFlows(final String switchId, final FlowState state, final String correlationId);
+
     /**
      * Deletes all flows. Primarily this is a combination of getFlows and deleteFlow.
      * This should be called with care ..
@@ -158,4 +170,14 @@ public interface FlowService extends BasicService {
      * @return updated flow path information.
      */
     FlowCacheSyncResults syncFlowCache(final String correlationId);
+
+    /**
+     * Gets the flows with the highest rates, as last reported by the stats topology.
+     *
+     * @param switchId the switch to get the top for, or null for the network wide top
+     * @param limit how many flows to return
+     * @param correlationId request correlation Id
+     * @return the flows, the highest rate first.
+     */
+    List<TopFlowEntry> getTopFlows(final String switchId, final int limit, final String correlationId);
 }
@@ -20,6 +20,7 @@ import static org.openkilda.messaging.Utils.CORRELATION_ID;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.CommandWithReplyToMessage;
 import org.openkilda.messaging.command.flow.FlowCreateRequest;
 import org.openkilda.messaging.command.flow.FlowDeleteRequest;
 import org.openkilda.messaging.command.flow.FlowGetRequest;
@@ -29,6 +30,7 @@ import org.openkilda.messaging.command.flow.FlowStatusRequest;
 import org.openkilda.messaging.command.flow.FlowUpdateRequest;
 import org.openkilda.messaging.command.flow.FlowsGetRequest;
 import org.openkilda.messaging.command.flow.FlowCacheSyncRequest;
+import org.openkilda.messaging.command.stats.TopFlowsRequest;
 import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.info.flow.FlowOperation;
 import org.openkilda.messaging.info.flow.FlowPathResponse;
@@ -40,6 +42,8 @@ import org.openkilda.messaging.info.flow.FlowCacheSyncResponse;
 import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.rule.FlowEntry;
 import org.openkilda.messaging.info.rule.SwitchFlowEntries;
+import org.openkilda.messaging.info.stats.TopFlowEntry;
+import org.openkilda.messaging.info.stats.TopFlowsResponse;
 import org.openkilda.messaging.model.Flow;
 import org.openkilda.messaging.payload.flow.FlowCacheSyncResults;
 import org.openkilda.messaging.payload.flow.FlowIdStatusPayload;
@@ -74,6 +78,7 @@ import org.springframework.web.client.RestTemplate;
 import javax.annotation.PostConstruct;
 import java.nio.file.InvalidPathException;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Manages operations with flows.
@@ -105,6 +110,15 @@ public class FlowServiceImpl implements FlowService {
     @Value("${kafka.topo.eng.topic}")
     private String topoEngTopic;
 
+    /**
+     * The kafka topic for the stats topology
+     */
+    @Value("${kafka.stats.topic}")
+    private String statsTopic;
+
+    @Value("${kafka.northbound.topic}")
+    private String northboundTopic;
+
 
     @Value("${neo4j.hosts}")
     private String neoHost;
@@ -246,16 +260,28 @@ public class FlowServiceImpl implements FlowService {
      */
     @Override
     public List<FlowPayload> getFlows(final String correlationId) {
-        LOGGER.debug("\n\n\nGet flows: ENTER {}={}\n", CORRELATION_ID, correlationId);
-        // TODO: why does FlowsGetRequest use empty FlowIdStatusPayload? Delete if not needed.
-        FlowsGetRequest data = new FlowsGetRequest(new FlowIdStatusPayload());
+        return getFlows(null, null, correlationId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FlowPayload> getFlows(final String switchId, final FlowState state, final String correlationId) {
+        LOGGER.debug("\n\n\nGet flows: ENTER {}={}, switch={}, state={}\n",
+                CORRELATION_ID, correlationId, switchId, state);
+        FlowsGetRequest data = new FlowsGetRequest(new FlowIdStatusPayload(null, state), switchId);
         CommandMessage request = new CommandMessage(data, System.currentTimeMillis(), correlationId, Destination.WFM);
         messageConsumer.clear();
         messageProducer.send(topic, request);
-        Message message = (Message) messageConsumer.poll(correlationId);
-        FlowsResponse response = (FlowsResponse) validateInfoMessage(request, message, correlationId);
-        List<FlowPayload> result = Converter.buildFlowsPayloadByFlows(response.getPayload());
-        logger.debug("\nGet flows: EXIT {}={}, num_flows {}\n\n\n", CORRELATION_ID, correlationId, result.size());
+
+        // the dump arrives sliced on chunks, convert them one by one to not hold the whole dump twice
+        List<FlowPayload> result = new ArrayList<>();
+        for (Message message : (List<Message>) messageConsumer.pollChunked(correlationId)) {
+            FlowsResponse response = (FlowsResponse) validateInfoMessage(request, message, correlationId);
+            result.addAll(Converter.buildFlowsPayloadByFlows(response.getPayload()));
+        }
+        LOGGER.debug("\nGet flows: EXIT {}={}, num_flows {}\n\n\n", CORRELATION_ID, correlationId, result.size());
         return result;
     }
 
@@ -749,9 +775,41 @@ public class FlowServiceImpl implements FlowService {
         CommandMessage request = new CommandMessage(data, System.currentTimeMillis(), correlationId, Destination.WFM);
         messageConsumer.clear();
         messageProducer.send(topic, request);
-        Message message = (Message) messageConsumer.poll(correlationId);
-        FlowCacheSyncResponse response = (FlowCacheSyncResponse) validateInfoMessage(request, message, correlationId);
-        return response.getPayload();
+
+        // every flow topology partition syncs and reports only the flows it owns
+        List<FlowCacheSyncResults> parts = new ArrayList<>();
+        for (Message message : (List<Message>) messageConsumer.pollChunked(correlationId)) {
+            FlowCacheSyncResponse response = (FlowCacheSyncResponse) validateInfoMessage(
+                    request, message, correlationId);
+            parts.add(response.getPayload());
+        }
+        return new FlowCacheSyncResults(
+                mergeSyncResults(parts, FlowCacheSyncResults::getDroppedFlows),
+                mergeSyncResults(parts, FlowCacheSyncResults::getAddedFlows),
+                mergeSyncResults(parts, FlowCacheSyncResults::getModifiedFlows),
+                mergeSyncResults(parts, FlowCacheSyncResults::getUnchangedFlows));
+    }
+
+    private static String[] mergeSyncResults(List<FlowCacheSyncResults> parts,
+                                             Function<FlowCacheSyncResults, String[]> field) {
+        return parts.stream()
+                .map(field)
+                .flatMap(Arrays::stream)
+                .toArray(String[]::new);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TopFlowEntry> getTopFlows(final String switchId, final int limit, final String correlationId) {
+        LOGGER.debug("Top flows: {}={}", CORRELATION_ID, correlationId);
+        TopFlowsRequest data = new TopFlowsRequest(switchId, limit);
+        CommandMessage request = new CommandWithReplyToMessage(data, System.currentTimeMillis(), correlationId,
+                Destination.WFM_STATS, northboundTopic);
+        messageProducer.send(statsTopic, request);
+        Message message = (Message) messageConsumer.poll(correlationId);
+        TopFlowsResponse response = (TopFlowsResponse) validateInfoMessage(request, message, correlationId);
+        return response.getFlows();
+    }
 }
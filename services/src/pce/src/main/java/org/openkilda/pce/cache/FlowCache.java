@@ -51,13 +51,34 @@ public class FlowCache extends Cache {
      * {@link ResourceCache} instance.
      */
     @VisibleForTesting
-    final ResourceCache resourceCache = new ResourceCache();
+    final ResourceCache resourceCache;
 
     /**
      * Flow pool.
      */
     private final Map<String, ImmutablePair<Flow, Flow>> flowPool = new ConcurrentHashMap<>();
 
+    /**
+     * Flows handled by other caches, which resources are reserved in this cache.
+     */
+    private final Map<String, ImmutablePair<Flow, Flow>> reservedFlows = new ConcurrentHashMap<>();
+
+    /**
+     * Instance constructor.
+     */
+    public FlowCache() {
+        this(new ResourceCache());
+    }
+
+    /**
+     * Instance constructor.
+     *
+     * @param resourceCache {@link ResourceCache} instance used to allocate flow resources
+     */
+    public FlowCache(ResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
     /**
      * Fills cache.
      *
@@ -73,6 +94,7 @@ public class FlowCache extends Cache {
      */
     public void clear() {
         flowPool.clear();
+        reservedFlows.clear();
         resourceCache.clear();
     }
 
@@ -106,6 +128,43 @@ public class FlowCache extends Cache {
         resourceCache.allocateFlow(flow);
     }
 
+    /**
+     * Marks flow resources as allocated without putting flow into the cache. Used for flows handled by
+     * other caches, so their resources are not allocated once again.
+     *
+     * @param flow flow
+     */
+    public void reserveResources(ImmutablePair<Flow, Flow> flow) {
+        ImmutablePair<Flow, Flow> previous = reservedFlows.put(flow.getLeft().getFlowId(), flow);
+        if (previous != null) {
+            resourceCache.deallocateFlow(previous);
+        }
+        resourceCache.allocateFlow(flow);
+    }
+
+    /**
+     * Releases resources reserved by {@link #reserveResources(ImmutablePair)}.
+     *
+     * @param flowId flow id
+     * @return flow which resources were released or null
+     */
+    public ImmutablePair<Flow, Flow> releaseResources(String flowId) {
+        ImmutablePair<Flow, Flow> flow = reservedFlows.remove(flowId);
+        if (flow != null) {
+            resourceCache.deallocateFlow(flow);
+        }
+        return flow;
+    }
+
+    /**
+     * Gets flows which resources are reserved.
+     *
+     * @return flows handled by other caches
+     */
+    public Set<ImmutablePair<Flow, Flow>> dumpReservedFlows() {
+        return new HashSet<>(reservedFlows.values());
+    }
+
     /**
      * Checks if flow pool contains {@link Flow} instance.
      *
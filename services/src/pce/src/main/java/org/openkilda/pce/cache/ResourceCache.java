@@ -90,17 +90,52 @@ public class ResourceCache extends Cache {
     /**
      * Cookie pool.
      */
-    private final ResourcePool cookiePool = new ResourcePool(MIN_COOKIE, MAX_COOKIE);
+    private final ResourcePool cookiePool;
 
     /**
      * Transit vlan id pool.
      */
-    private final ResourcePool vlanPool = new ResourcePool(MIN_VLAN_ID, MAX_VLAN_ID);
+    private final ResourcePool vlanPool;
+
+    /**
+     * Index of the resource ranges slice new values are allocated from.
+     */
+    private final int partition;
+
+    /**
+     * Amount of slices the resource ranges are split on.
+     */
+    private final int partitionsCount;
 
     /**
      * Instance constructor.
      */
     public ResourceCache() {
+        this(0, 1);
+    }
+
+    /**
+     * Instance constructor. New cookies, vlan ids and meter ids are allocated only from the specified slice of
+     * their ranges, so caches created for different partitions never allocate the same value. Explicitly
+     * requested values are accepted from the whole range.
+     *
+     * <p>Each slice holds only 1/partitionsCount of a range, i.e. a cache of one of N partitions can allocate
+     * at most about 4095/N cookies, even if the slices of other partitions are free.
+     *
+     * @param partition       slice index, starts from 0
+     * @param partitionsCount amount of slices
+     * @throws IllegalArgumentException if partition is out of range
+     */
+    public ResourceCache(int partition, int partitionsCount) {
+        if (partitionsCount < 1 || partition < 0 || partitionsCount <= partition) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid resource partition %d of %d", partition, partitionsCount));
+        }
+
+        this.partition = partition;
+        this.partitionsCount = partitionsCount;
+        cookiePool = makePool(MIN_COOKIE, MAX_COOKIE);
+        vlanPool = makePool(MIN_VLAN_ID, MAX_VLAN_ID);
     }
 
     /**
@@ -187,7 +222,7 @@ public class ResourceCache extends Cache {
      * @return allocated meter id value
      */
     public synchronized Integer allocateMeterId(String switchId) {
-        return meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID)).allocate();
+        return meterPool.computeIfAbsent(switchId, k -> makePool(MIN_METER_ID, MAX_METER_ID)).allocate();
     }
 
     /**
@@ -199,10 +234,10 @@ public class ResourceCache extends Cache {
      */
     public synchronized Integer allocateMeterId(String switchId, Integer meterId) {
         if (meterId == 0) {
-            return meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID))
+            return meterPool.computeIfAbsent(switchId, k -> makePool(MIN_METER_ID, MAX_METER_ID))
                     .allocate();
         } else {
-            meterPool.computeIfAbsent(switchId, k -> new ResourcePool(MIN_METER_ID, MAX_METER_ID))
+            meterPool.computeIfAbsent(switchId, k -> makePool(MIN_METER_ID, MAX_METER_ID))
                     .allocate(meterId);
             return meterId;
         }
@@ -294,12 +329,28 @@ public class ResourceCache extends Cache {
         }
     }
 
+    /**
+     * Creates resource pool restricted to the own slice of the range.
+     *
+     * @param minValue range minimum value
+     * @param maxValue range maximum value
+     * @return resource pool
+     */
+    private ResourcePool makePool(int minValue, int maxValue) {
+        int size = (maxValue - minValue + 1) / partitionsCount;
+        int first = minValue + partition * size;
+        int last = partition == partitionsCount - 1 ? maxValue : first + size - 1;
+        return new ResourcePool(first, last);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("partition", partition)
+                .add("partitions", partitionsCount)
                 .add("meters", meterPool)
                 .add("cookies", cookiePool)
                 .add("vlans", vlanPool)
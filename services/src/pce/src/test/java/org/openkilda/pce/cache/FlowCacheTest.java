@@ -142,6 +142,23 @@ public class FlowCacheTest {
         assertEquals(oldFlow, newFlow);
     }
 
+    @Test
+    public void reserveAndReleaseResources() throws Exception {
+        ImmutablePair<Flow, Flow> foreign = new FlowCache().createFlow(
+                firstFlow, computer.getPath(firstFlow, defaultStrategy));
+
+        flowCache.reserveResources(foreign);
+        assertEquals(1, flowCache.resourceCache.getAllCookies().size());
+        assertEquals(2, flowCache.resourceCache.getAllVlanIds().size());
+        assertEquals(Collections.singleton(foreign), flowCache.dumpReservedFlows());
+        assertEquals(0, flowCache.dumpFlows().size());
+
+        assertEquals(foreign, flowCache.releaseResources(firstFlow.getFlowId()));
+        assertEquals(0, flowCache.resourceCache.getAllCookies().size());
+        assertEquals(0, flowCache.resourceCache.getAllVlanIds().size());
+        assertEquals(0, flowCache.dumpReservedFlows().size());
+    }
+
     @Test
     public void dumpFlows() throws Exception {
         ImmutablePair<Flow, Flow> first = flowCache.createFlow(firstFlow, computer.getPath(firstFlow, defaultStrategy));
@@ -53,6 +53,28 @@ public class ResourceCacheTest {
         resourceCache = new ResourceCache();
     }
 
+    @Test
+    public void partitionedPools() throws Exception {
+        ResourceCache first = new ResourceCache(0, 2);
+        ResourceCache second = new ResourceCache(1, 2);
+
+        assertEquals(1, first.allocateCookie());
+        assertEquals(2048, second.allocateCookie());
+        assertEquals(2, first.allocateVlanId());
+        assertEquals(2048, second.allocateVlanId());
+        assertEquals(1, first.allocateMeterId(SWITCH_ID));
+        assertEquals(2048, second.allocateMeterId(SWITCH_ID));
+
+        // values allocated by other partitions are accepted from the whole range
+        first.allocateCookie(4095);
+        assertEquals(new HashSet<>(Arrays.asList(1, 4095)), first.getAllCookies());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPartition() throws Exception {
+        new ResourceCache(2, 2);
+    }
+
     @Test
     public void allocateAll() throws Exception {
         // TODO
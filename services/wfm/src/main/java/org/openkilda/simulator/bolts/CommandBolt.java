@@ -11,6 +11,7 @@ import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Utils;
 import org.openkilda.messaging.command.CommandData;
 import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.discovery.DiscoverIslBatchCommandData;
 import org.openkilda.messaging.command.discovery.DiscoverIslCommandData;
 import org.openkilda.messaging.command.discovery.DiscoverPathCommandData;
 import org.openkilda.messaging.command.flow.*;
@@ -52,7 +53,17 @@ public class CommandBolt extends BaseRichBolt {
             CommandData data = command.getData();
             Commands switchCommand;
             String sw;
-            if (data instanceof DiscoverIslCommandData) {
+            if (data instanceof DiscoverIslBatchCommandData) {
+                // simulated switches handle one port per command, so unroll the batch
+                DiscoverIslBatchCommandData batch = (DiscoverIslBatchCommandData) data;
+                sw = batch.getSwitchId();
+                for (Integer port : batch.getPorts()) {
+                    collector.emit(SimulatorTopology.COMMAND_BOLT_STREAM, tuple,
+                            new Values(sw.toLowerCase(), Commands.DO_DISCOVER_ISL_COMMAND.name(),
+                                    new DiscoverIslCommandData(sw, port)));
+                }
+                return;
+            } else if (data instanceof DiscoverIslCommandData) {
                 switchCommand = Commands.DO_DISCOVER_ISL_COMMAND;
                 sw = ((DiscoverIslCommandData) data).getSwitchId();
             } else if (data instanceof DiscoverPathCommandData) {
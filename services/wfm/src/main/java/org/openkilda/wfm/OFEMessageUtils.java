@@ -23,6 +23,7 @@ import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.event.IslChangeType;
 import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.command.discovery.DiscoverIslBatchCommandData;
 import org.openkilda.messaging.command.discovery.DiscoverIslCommandData;
 import org.openkilda.messaging.command.CommandMessage;
 import org.openkilda.messaging.Destination;
@@ -31,8 +32,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * OFEMessageUtils - A utility class that will help with the messages on kilda.speaker and
@@ -180,4 +183,19 @@ public class OFEMessageUtils {
         );
         return MAPPER.writeValueAsString(message);
     }
+
+    /**
+     * @return a JSON string with one discovery command for several ports of the switch
+     */
+    public static String createIslDiscoveryBatch(String switchID, List<String> portIDs) throws IOException {
+        List<Integer> ports = portIDs.stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        CommandMessage message = new CommandMessage(
+                new DiscoverIslBatchCommandData(switchID, ports), // Payload
+                System.currentTimeMillis(),
+                "", Destination.CONTROLLER
+        );
+        return MAPPER.writeValueAsString(message);
+    }
 }
@@ -5,9 +5,18 @@ import org.openkilda.wfm.topology.stats.StatsTopology;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * The DiscoveryManager holds the core logic for managing ISLs. This includes all of the
@@ -27,32 +36,94 @@ import java.util.ListIterator;
  *      3) Ensure some separation between lifetime failure counts, current failure counts, and
  *          whether an ISL discovery packet should be sent. As an example, if we've stopped sending,
  *          and want to send discovery again, is there a clean way to do this?
+ *
+ * Nodes are indexed by switch and port, and scheduled on a hashed timing wheel, so each tick only
+ * touches the nodes that are due: the ones to send discovery for, to report failure for or to become
+ * forlorn. The ticks in between change only the node counters, they are applied lazily whenever the
+ * node is accessed. Forlorn nodes are not scheduled at all until an event revives them.
+ *
+ * The check interval is kept per node. Each confirmation of a stable ISL doubles it, up to the max
+ * interval. Ports that never answered use the edge port interval. A state change, a missed response or
+ * a port/switch event puts the node back on the base interval, so failures are still caught quickly.
+ *
+ * Every time the ISL goes down the node gets a flap penalty, see {@link FlapDampening}. The ISL UP is
+ * not reported while the penalty is too high, the ISL DOWN always is. The nodes removed by port or switch
+ * down keep their penalty until it decays, so a flapping port doesn't start from scratch.
  */
 public class DiscoveryManager {
+    /** Amount of the timing wheel slots, must be a power of two. */
+    private static final int WHEEL_SIZE = 64;
+
     private final Logger logger = LoggerFactory.getLogger(StatsTopology.class);
 
     private final IIslFilter filter;
     /** the frequency with which we should check if the ISL is healthy or existant */
     private final Integer islHealthCheckInterval;
+    /** the limit the check interval of a stable ISL backs off to */
+    private final Integer islHealthCheckMaxInterval;
+    /** the check interval of the ports that are not ISLs */
+    private final Integer edgePortCheckInterval;
+    private final FlapDampening dampening;
     private final Integer islConsecutiveFailureLimit;
     private final Integer forlornLimit;
-    private final LinkedList<DiscoveryNode> pollQueue;
+
+    /** switch id -> port id -> node, ports are kept in the order they were added */
+    private final Map<String, Map<String, Entry>> index = new HashMap<>();
+    private final List<Set<Entry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long tick = 0;
+
+    /** the removed nodes with the flap penalty that has not decayed yet */
+    private final Map<Node, Entry> flapHistory = new HashMap<>();
+    private long flapsCount = 0;
+    private long suppressionsCount = 0;
 
     /**
      * @param filter - a list of nodes we should not do discovery on, if any.
-     * @param persistentQueue - the persistent queue to use.
+     * @param persistentQueue - the nodes to start with.
      * @param islHealthCheckInterval - how frequently (in ticks) to check.
      * @param islConsecutiveFailureLimit - the threshold for sending ISL down, if it is an ISL
      * @param forlornLimit - the threshold for stopping all checks.
      */
-    public DiscoveryManager(IIslFilter filter, LinkedList<DiscoveryNode> persistentQueue,
+    public DiscoveryManager(IIslFilter filter, Collection<DiscoveryNode> persistentQueue,
                             Integer islHealthCheckInterval, Integer islConsecutiveFailureLimit,
                             Integer forlornLimit) {
+        this(filter, persistentQueue, islHealthCheckInterval, islConsecutiveFailureLimit, forlornLimit,
+                islHealthCheckInterval, islHealthCheckInterval, FlapDampening.NONE);
+    }
+
+    /**
+     * @param filter - a list of nodes we should not do discovery on, if any.
+     * @param persistentQueue - the nodes to start with.
+     * @param islHealthCheckInterval - how frequently (in ticks) to check.
+     * @param islConsecutiveFailureLimit - the threshold for sending ISL down, if it is an ISL
+     * @param forlornLimit - the threshold for stopping all checks.
+     * @param islHealthCheckMaxInterval - how rarely (in ticks) to check a stable ISL, capped at the failure
+     *          threshold (islHealthCheckInterval * islConsecutiveFailureLimit).
+     * @param edgePortCheckInterval - how frequently (in ticks) to check a port that is not an ISL.
+     * @param dampening - the ISL flap dampening policy.
+     */
+    public DiscoveryManager(IIslFilter filter, Collection<DiscoveryNode> persistentQueue,
+                            Integer islHealthCheckInterval, Integer islConsecutiveFailureLimit,
+                            Integer forlornLimit, Integer islHealthCheckMaxInterval,
+                            Integer edgePortCheckInterval, FlapDampening dampening) {
         this.filter = filter;
         this.islHealthCheckInterval = islHealthCheckInterval;
+        // a stable ISL is checked at least once per failure threshold, so the failure is not reported later
+        this.islHealthCheckMaxInterval = Math.max(islHealthCheckInterval,
+                Math.min(islHealthCheckMaxInterval, islHealthCheckInterval * islConsecutiveFailureLimit));
+        this.edgePortCheckInterval = edgePortCheckInterval;
+        this.dampening = dampening;
         this.islConsecutiveFailureLimit = islConsecutiveFailureLimit;
         this.forlornLimit = forlornLimit;
-        this.pollQueue = persistentQueue;
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new LinkedHashSet<>());
+        }
+        for (DiscoveryNode node : persistentQueue) {
+            Entry entry = new Entry(node);
+            index.computeIfAbsent(node.getSwitchId(), k -> new LinkedHashMap<>()).put(node.getPortId(), entry);
+            schedule(entry);
+        }
     }
 
     /**
@@ -71,9 +142,29 @@ public class DiscoveryManager {
     public Plan makeDiscoveryPlan() {
         Plan result = new Plan();
 
-        for (DiscoveryNode subject : pollQueue) {
+        tick += 1;
+        if (slotIndex(tick) == 0) {
+            flapHistory.values().removeIf(entry -> decayPenalty(entry) < 1);
+        }
+
+        Set<Entry> slot = wheel.get(slotIndex(tick));
+        List<Entry> due = new ArrayList<>();
+        for (Iterator<Entry> it = slot.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.dueTick == tick) {
+                it.remove();
+                due.add(entry);
+            }
+        }
+
+        for (Entry entry : due) {
+            DiscoveryNode subject = entry.node;
+            // all the ticks before this one are counters only
+            catchUp(entry, tick - 1);
+            entry.syncTick = tick;
 
             if (!checkForIsl(subject)){
+                schedule(entry);
                 continue;
             }
 
@@ -90,8 +181,15 @@ public class DiscoveryManager {
                 if (subject.isFoundIsl() && subject.getConsecutiveFailure() == 0) {
                     // It is a discovery failure if it was previously a success.
                     // NB:
-                    result.discoveryFailure.add(node);
-                    logger.info("ISL IS DOWN (NO RESPONSE): {}", subject);
+                    registerFlap(entry);
+                    if (subject.isSuppressed()) {
+                        // the UP was never reported, so there is nothing to take back
+                        subject.setSuppressed(false);
+                        logger.info("ISL IS DOWN (NO RESPONSE), UP was suppressed: {}", subject);
+                    } else {
+                        result.discoveryFailure.add(node);
+                        logger.info("ISL IS DOWN (NO RESPONSE): {}", subject);
+                    }
                 }
                 // Increment Failure = 1 after maxAttempts failure, then increases every attempt.
                 subject.incConsecutiveFailure();
@@ -106,13 +204,29 @@ public class DiscoveryManager {
              *  - NB: we'll keep trying to send discovery, even if we don't get a response.
              */
             if (subject.timeToCheck()) {
-                subject.incAttempts();
-                subject.resetTickCounter();
+                if (subject.getAttempts() == 0 && subject.isFoundIsl()) {
+                    // A backed off check counts as all the base interval checks it stands for, and a missed
+                    // response is rechecked on the base interval, so the ISL failure is reported after the
+                    // same amount of ticks as without the back off.
+                    // NB: a node is checked every (interval + 1) ticks
+                    int checks = (subject.getCheckInterval() + islHealthCheckInterval + 1)
+                            / (islHealthCheckInterval + 1);
+                    subject.incAttempts(Math.max(1, checks));
+                    subject.setTicksToCheck(islHealthCheckInterval);
+                } else {
+                    if (subject.getAttempts() > 0) {
+                        // the previous check got no response
+                        subject.setCheckInterval(isEdgePort(subject) ? edgePortCheckInterval : islHealthCheckInterval);
+                    }
+                    subject.incAttempts();
+                    subject.resetTickCounter();
+                }
                 result.needDiscovery.add(node);
             } else {
                 subject.incTick();
             }
 
+            schedule(entry);
         }
 
         return result;
@@ -125,12 +239,12 @@ public class DiscoveryManager {
     public boolean handleDiscovered(String switchId, String portId) {
         boolean stateChanged = false;
         Node node = new Node(switchId, portId);
-        List<DiscoveryNode> subjectList = filterQueue(node);
+        Entry entry = findEntry(node);
 
-        if (subjectList.size() == 0) {
+        if (entry == null) {
             logger.warn("Ignore \"AVAIL\" request for {}: node not found", node);
         } else {
-            DiscoveryNode subject = subjectList.get(0);
+            DiscoveryNode subject = entry.node;
             if (!subject.isFoundIsl()){
                 // "forever" mark this port as part of an ISL
                 // "forever" changes if we get another Switch UP message - this is documented
@@ -147,10 +261,17 @@ public class DiscoveryManager {
                 stateChanged = true;
                 logger.info("ISL IS UP: {}", subject);
             }
+            if (stateChanged) {
+                subject.setCheckInterval(islHealthCheckInterval);
+            } else {
+                backOff(subject);
+            }
+            stateChanged = isAnnounceUp(entry, stateChanged);
             subject.renew();
             subject.incConsecutiveSuccess();
             subject.clearConsecutiveFailure();
             // If one of the logs above wasn't reachd, don't log anything .. ISL was up and is still up
+            schedule(entry);
         }
 
         if (stateChanged) {
@@ -170,21 +291,31 @@ public class DiscoveryManager {
     public boolean handleFailed(String switchId, String portId) {
         boolean stateChanged = false;
         Node node = new Node(switchId, portId);
-        List<DiscoveryNode> subjectList = filterQueue(node);
+        Entry entry = findEntry(node);
 
-        if (subjectList.size() == 0) {
+        if (entry == null) {
             logger.warn("Ignoring \"FAILED\" request for {}: node not found", node);
         } else {
-            DiscoveryNode subject = subjectList.get(0);
+            DiscoveryNode subject = entry.node;
             if (subject.isFoundIsl() && subject.getConsecutiveFailure() == 0){
                 // This is the first failure for an ISL. That is a state change.
                 // IF this isn't an ISL and we receive a failure, that isn't a state change.
                 stateChanged = true;
                 logger.info("ISL IS DOWN (GOT RESPONSE): {}", subject);
             }
+            if (stateChanged) {
+                registerFlap(entry);
+                if (subject.isSuppressed()) {
+                    // the UP was never reported, so there is nothing to take back
+                    subject.setSuppressed(false);
+                    stateChanged = false;
+                }
+            }
+            subject.setCheckInterval(subject.isFoundIsl() ? islHealthCheckInterval : edgePortCheckInterval);
             subject.renew();
             subject.incConsecutiveFailure();
             subject.clearConsecutiveSuccess();
+            schedule(entry);
         }
         return stateChanged;
     }
@@ -199,67 +330,94 @@ public class DiscoveryManager {
          * If a switch comes up, clear any "isFoundIsl" flags, in case something has changed,
          * and/or if the TE has cleared it's state .. this will pass along the ISL.
          */
-        Node node = new Node(switchId, null);
-        List<DiscoveryNode> subjectList = filterQueue(node, false);
+        Map<String, Entry> ports = index.get(switchId);
 
-        if (subjectList.size() > 0) {
+        if (ports != null && ports.size() > 0) {
             logger.info("Received SWITCH UP (id:{}) with EXISTING NODES.  Clearing isFoundISL flags", switchId);
-            for (DiscoveryNode subject : subjectList) {
-                subject.setFoundIsl(false);
-                subject.clearConsecutiveFailure(); // ensure we bypass forlorn
+            for (Entry entry : ports.values()) {
+                catchUp(entry, tick);
+                entry.node.setFoundIsl(false);
+                entry.node.clearConsecutiveFailure(); // ensure we bypass forlorn
+                entry.node.setCheckInterval(islHealthCheckInterval);
+                schedule(entry);
             }
         }
     }
 
     public void handleSwitchDown(String switchId) {
-        Node node = new Node(switchId, null);
-        List<DiscoveryNode> subjectList = filterQueue(node, true);
+        Map<String, Entry> ports = index.remove(switchId);
 
         logger.info("Deregister switch {} from ISL discovery manager", switchId);
-        for (DiscoveryNode subject : subjectList) {
-            logger.info("Del {}", subject);
+        if (ports != null) {
+            for (Entry entry : ports.values()) {
+                forget(entry);
+                logger.info("Del {}", entry.node);
+            }
         }
     }
 
     public void handlePortUp(String switchId, String portId) {
         DiscoveryNode subject;
         Node node = new Node(switchId, portId);
-        List<DiscoveryNode> subjectList = filterQueue(node);
+        Entry entry = findEntry(node);
 
-        if (subjectList.size() != 0) {
+        if (entry != null) {
             // Similar to SwitchUp, if we have a PortUp on an existing port, either we are receiving
             // a duplicate, or we missed the port down, or a new discovery has occurred.
             // NB: this should cause an ISL discovery packet to be sent.
             // TODO: we should probably separate "port up" from "do discovery". ATM, one would call
             //          this function just to get the "do discovery" functionality.
-            subject = subjectList.get(0);
+            subject = entry.node;
             logger.info("Port UP on existing node {};  clear failures and ISLFound", subject);
             subject.setFoundIsl(false);
             subject.clearConsecutiveFailure(); // ensure we bypass forlorn
+            subject.setCheckInterval(islHealthCheckInterval);
+            schedule(entry);
             return;
         }
 
-        subject = new DiscoveryNode(
-                node.switchId, node.portId,
-                this.islHealthCheckInterval,
-                this.forlornLimit
-        );
-        pollQueue.add(subject);
+        entry = flapHistory.remove(node);
+        if (entry != null) {
+            // the port is back, it goes on with the flap penalty it had
+            subject = entry.node;
+            catchUp(entry, tick);
+            decayPenalty(entry);
+            subject.renew();
+            subject.setFoundIsl(false);
+            subject.setSuppressed(false);
+            subject.clearConsecutiveFailure();
+            subject.clearConsecutiveSuccess();
+            subject.setCheckInterval(islHealthCheckInterval);
+        } else {
+            subject = new DiscoveryNode(
+                    node.switchId, node.portId,
+                    this.islHealthCheckInterval,
+                    this.forlornLimit
+            );
+            entry = new Entry(subject);
+            entry.syncTick = tick;
+            entry.penaltyTick = tick;
+        }
+        index.computeIfAbsent(switchId, k -> new LinkedHashMap<>()).put(portId, entry);
+        schedule(entry);
         logger.info("New {}", subject);
     }
 
     public void handlePortDown(String switchId, String portId) {
-        DiscoveryNode subject;
         Node node = new Node(switchId, portId);
-        List<DiscoveryNode> subjectList = filterQueue(node, true);
+        Map<String, Entry> ports = index.get(switchId);
+        Entry entry = ports != null ? ports.remove(portId) : null;
 
-        if (subjectList.size() == 0) {
+        if (entry == null) {
             logger.warn("Can't update discovery {} -> node not found", node);
             return;
         }
+        if (ports.isEmpty()) {
+            index.remove(switchId);
+        }
 
-        subject = subjectList.get(0);
-        logger.info("Del {}", subject);
+        forget(entry);
+        logger.info("Del {}", entry.node);
     }
 
     /**
@@ -269,24 +427,199 @@ public class DiscoveryManager {
      * @return a list of any matched nodes.
      */
     public List<DiscoveryNode> filterQueue(Node subject) {
-        return filterQueue(subject, false);
+        List<DiscoveryNode> result = new LinkedList<>();
+        if (subject.portId != null) {
+            Entry entry = findEntry(subject);
+            if (entry != null) {
+                decayPenalty(entry);
+                result.add(entry.node);
+            }
+        } else {
+            for (Entry entry : index.getOrDefault(subject.switchId, Collections.emptyMap()).values()) {
+                catchUp(entry, tick);
+                decayPenalty(entry);
+                result.add(entry.node);
+            }
+        }
+
+        return result;
     }
 
-    private List<DiscoveryNode> filterQueue(Node subject, boolean extract) {
-        List<DiscoveryNode> result = new LinkedList<>();
-        for (ListIterator<DiscoveryNode> it = pollQueue.listIterator(); it.hasNext(); ) {
-            DiscoveryNode node = it.next();
-            if (!subject.matchDiscoveryNode(node)) {
-                continue;
+    /**
+     * @return all the nodes, switch by switch.
+     */
+    public List<DiscoveryNode> getNodes() {
+        List<DiscoveryNode> result = new ArrayList<>();
+        for (Map<String, Entry> ports : index.values()) {
+            for (Entry entry : ports.values()) {
+                catchUp(entry, tick);
+                decayPenalty(entry);
+                result.add(entry.node);
             }
+        }
+        return result;
+    }
 
-            if (extract) {
-                it.remove();
+    /**
+     * @return the flap dampening counters: flaps and suppressions so far, the ISLs suppressed now and
+     *     the removed ports whose penalty is still remembered.
+     */
+    public Map<String, Long> getDampeningStats() {
+        long suppressed = index.values().stream()
+                .flatMap(ports -> ports.values().stream())
+                .filter(entry -> entry.node.isSuppressed())
+                .count();
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("flaps", flapsCount);
+        stats.put("suppressions", suppressionsCount);
+        stats.put("suppressed", suppressed);
+        stats.put("remembered", (long) flapHistory.size());
+        return stats;
+    }
+
+    /**
+     * Looks up the node and brings its counters up to the current tick.
+     */
+    private Entry findEntry(Node subject) {
+        Map<String, Entry> ports = index.get(subject.switchId);
+        Entry entry = ports != null ? ports.get(subject.portId) : null;
+        if (entry != null) {
+            catchUp(entry, tick);
+        }
+        return entry;
+    }
+
+    /**
+     * Applies the ticks the node wasn't due at. Such ticks only increase the tick counter and, if
+     * there were no response for too many attempts, the consecutive failure counter. The counters stop
+     * once the node is forlorn.
+     */
+    private void catchUp(Entry entry, long toTick) {
+        DiscoveryNode subject = entry.node;
+        if (entry.dueTick != Entry.NOT_SCHEDULED && !subject.forlorn()) {
+            long ticks = Math.max(0, Math.min(toTick - entry.syncTick, Integer.MAX_VALUE));
+            if (subject.maxAttempts(islConsecutiveFailureLimit)) {
+                ticks = Math.min(ticks, subject.getFailuresToForlorn());
+                subject.incConsecutiveFailure((int) ticks);
             }
-            result.add(node);
+            subject.incTick((int) ticks);
         }
+        entry.syncTick = Math.max(entry.syncTick, toTick);
+    }
 
-        return result;
+    /**
+     * Puts the node on the wheel at the first tick something besides counters happens to it. Forlorn
+     * nodes stay off the wheel.
+     */
+    private void schedule(Entry entry) {
+        unschedule(entry);
+
+        DiscoveryNode subject = entry.node;
+        if (subject.forlorn()) {
+            return;
+        }
+
+        long delay = Math.max(1, subject.getCheckInterval() - subject.getTicks() + 1);
+        if (subject.maxAttempts(islConsecutiveFailureLimit)) {
+            if (subject.isFoundIsl() && subject.getConsecutiveFailure() == 0) {
+                delay = 1;
+            } else if (forlornLimit != DiscoveryNode.FORLORN_NEVER) {
+                delay = Math.min(delay, Math.max(1, forlornLimit - subject.getConsecutiveFailure() + 2));
+            }
+        }
+
+        entry.dueTick = entry.syncTick + delay;
+        wheel.get(slotIndex(entry.dueTick)).add(entry);
+    }
+
+    /**
+     * Doubles the check interval of the confirmed ISL, up to the max interval.
+     */
+    private void backOff(DiscoveryNode subject) {
+        if (subject.isFoundIsl()) {
+            int interval = Math.max(1, subject.getCheckInterval()) * 2;
+            subject.setCheckInterval(Math.min(islHealthCheckMaxInterval, interval));
+        }
+    }
+
+    /**
+     * @return true if the port never answered the discovery, ie it is not connected to other switch
+     */
+    private boolean isEdgePort(DiscoveryNode subject) {
+        return !subject.isFoundIsl() && subject.maxAttempts(islConsecutiveFailureLimit);
+    }
+
+    /**
+     * Brings the flap penalty of the node to the current tick.
+     */
+    private double decayPenalty(Entry entry) {
+        DiscoveryNode subject = entry.node;
+        subject.setFlapPenalty(dampening.decay(subject.getFlapPenalty(), tick - entry.penaltyTick));
+        entry.penaltyTick = tick;
+        return subject.getFlapPenalty();
+    }
+
+    private void registerFlap(Entry entry) {
+        DiscoveryNode subject = entry.node;
+        subject.setFlapPenalty(dampening.penalize(decayPenalty(entry)));
+        subject.incFlapCount();
+        flapsCount += 1;
+    }
+
+    /**
+     * Decides whether the ISL UP is reported. Once suppressed, the ISL stays so until its penalty decays
+     * below the reuse threshold, the UP is reported by the first discovery after that.
+     */
+    private boolean isAnnounceUp(Entry entry, boolean stateChanged) {
+        DiscoveryNode subject = entry.node;
+        if (!stateChanged && !subject.isSuppressed()) {
+            return false;
+        }
+
+        double penalty = decayPenalty(entry);
+        boolean suppress = subject.isSuppressed() ? !dampening.isReuse(penalty) : dampening.isSuppress(penalty);
+        if (suppress) {
+            if (!subject.isSuppressed()) {
+                suppressionsCount += 1;
+                logger.info("ISL UP SUPPRESSED (penalty {}): {}", (int) penalty, subject);
+            }
+            subject.setSuppressed(true);
+            return false;
+        }
+
+        if (subject.isSuppressed()) {
+            logger.info("ISL UP RELEASED (penalty {}): {}", (int) penalty, subject);
+            subject.setSuppressed(false);
+        }
+        return true;
+    }
+
+    /**
+     * Drops the removed node from the wheel. Going down is a flap for an ISL; if the node has some
+     * penalty, it is kept aside for the case the port comes back.
+     */
+    private void forget(Entry entry) {
+        unschedule(entry);
+
+        DiscoveryNode subject = entry.node;
+        if (subject.isFoundIsl() && subject.getConsecutiveFailure() == 0) {
+            registerFlap(entry);
+        }
+        if (decayPenalty(entry) >= 1) {
+            flapHistory.put(new Node(subject), entry);
+        }
+    }
+
+    private void unschedule(Entry entry) {
+        if (entry.dueTick != Entry.NOT_SCHEDULED) {
+            wheel.get(slotIndex(entry.dueTick)).remove(entry);
+            entry.dueTick = Entry.NOT_SCHEDULED;
+        }
+    }
+
+    private static int slotIndex(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
     }
 
     /**
@@ -297,10 +630,12 @@ public class DiscoveryManager {
      * @return true if not an ISL or is forlorned
      */
     public boolean checkForIsl(String switchId, String portId) {
-        List<DiscoveryNode> subjectList = filterQueue(new Node(switchId, portId));
+        Entry entry = findEntry(new Node(switchId, portId));
 
-        if (subjectList.size() != 0) {
-            return checkForIsl(subjectList.get(0));
+        if (entry != null) {
+            boolean result = checkForIsl(entry.node);
+            schedule(entry);
+            return result;
         }
         // We don't know about this node .. definitely not testing for ISL.
         return false;
@@ -319,6 +654,24 @@ public class DiscoveryManager {
     }
 
 
+    /**
+     * Node with its position on the timing wheel.
+     */
+    private static final class Entry {
+        private static final long NOT_SCHEDULED = -1;
+
+        private final DiscoveryNode node;
+        /** the last tick the node counters reflect */
+        private long syncTick;
+        /** the last tick the node flap penalty reflects */
+        private long penaltyTick;
+        private long dueTick = NOT_SCHEDULED;
+
+        private Entry(DiscoveryNode node) {
+            this.node = node;
+        }
+    }
+
     public class Plan {
         public final List<Node> needDiscovery;
         public final List<Node> discoveryFailure;
@@ -353,6 +706,23 @@ public class DiscoveryManager {
             return portId.equals(target.getPortId());
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node that = (Node) o;
+            return Objects.equals(switchId, that.switchId) && Objects.equals(portId, that.portId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(switchId, portId);
+        }
+
         @Override
         public String toString() {
             return "Node{" +
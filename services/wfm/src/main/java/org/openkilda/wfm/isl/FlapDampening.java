@@ -0,0 +1,84 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.isl;
+
+import java.io.Serializable;
+
+/**
+ * The policy of the ISL flap dampening, BGP style. Every time an ISL goes down it gets a penalty, the
+ * penalty decays exponentially. An ISL with the penalty above the suppress threshold is not announced
+ * as UP until its penalty decays below the reuse threshold.
+ *
+ * Times are in ticks, same as the rest of the discovery settings.
+ */
+public class FlapDampening implements Serializable {
+    /** No penalty for flaps, nothing is ever suppressed. */
+    public static final FlapDampening NONE = new FlapDampening(0, 1, 0, 1, 0);
+
+    private final int penalty;
+    private final int suppressThreshold;
+    private final int reuseThreshold;
+    private final int halfLife;
+    private final int maxPenalty;
+
+    /**
+     * @param penalty - how much each flap adds to the penalty, 0 disables dampening.
+     * @param suppressThreshold - the penalty from which the UP announcements are suppressed.
+     * @param reuseThreshold - the penalty below which the UP announcements are released.
+     * @param halfLife - how many ticks it takes for the penalty to decay by half.
+     * @param maxPenalty - the penalty limit, it bounds the time the ISL can stay suppressed.
+     */
+    public FlapDampening(int penalty, int suppressThreshold, int reuseThreshold, int halfLife, int maxPenalty) {
+        if (reuseThreshold > suppressThreshold) {
+            throw new IllegalArgumentException(String.format(
+                    "Reuse threshold %d is above suppress threshold %d", reuseThreshold, suppressThreshold));
+        }
+        if (halfLife <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid half life %d", halfLife));
+        }
+
+        this.penalty = penalty;
+        this.suppressThreshold = suppressThreshold;
+        this.reuseThreshold = reuseThreshold;
+        this.halfLife = halfLife;
+        this.maxPenalty = maxPenalty;
+    }
+
+    /**
+     * @return the penalty after the ticks passed.
+     */
+    public double decay(double value, long ticks) {
+        if (value == 0 || ticks <= 0) {
+            return value;
+        }
+        return value * Math.pow(0.5, (double) ticks / halfLife);
+    }
+
+    /**
+     * @return the penalty with one more flap.
+     */
+    public double penalize(double value) {
+        return Math.min(maxPenalty, value + penalty);
+    }
+
+    public boolean isSuppress(double value) {
+        return penalty > 0 && value >= suppressThreshold;
+    }
+
+    public boolean isReuse(double value) {
+        return value < reuseThreshold;
+    }
+}
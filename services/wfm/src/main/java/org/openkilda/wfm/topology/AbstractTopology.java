@@ -29,6 +29,9 @@ import org.openkilda.wfm.topology.utils.KafkaRecordTranslator;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.storm.Config;
 import org.apache.storm.LocalCluster;
@@ -199,6 +202,20 @@ public abstract class AbstractTopology implements Topology {
         return new KafkaSpout<>(config);
     }
 
+    /**
+     * Creates Kafka spout for the binary messages, the message field of the tuples is a byte array.
+     *
+     * @param topic Kafka topic
+     * @return {@link KafkaSpout}
+     */
+    protected KafkaSpout<String, byte[]> createKafkaBytesSpout(String topic, String spoutId) {
+        KafkaSpoutConfig<String, byte[]> config = makeKafkaSpoutConfigBuilder(
+                spoutId, topic, ByteArrayDeserializer.class)
+                .build();
+
+        return new KafkaSpout<>(config);
+    }
+
     /**
      * Creates Kafka bolt.
      *
@@ -212,6 +229,23 @@ public abstract class AbstractTopology implements Topology {
                 .withTupleToKafkaMapper(new FieldNameBasedTupleToKafkaMapper<>());
     }
 
+    /**
+     * Creates Kafka bolt for the binary messages, the message field of the tuples is a byte array.
+     *
+     * @param topic Kafka topic
+     * @return {@link KafkaBolt}
+     */
+    protected KafkaBolt createKafkaBytesBolt(final String topic) {
+        Properties properties = new Properties();
+        properties.putAll(kafkaProperties);
+        properties.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+
+        return new KafkaBolt<String, byte[]>()
+                .withProducerProperties(properties)
+                .withTopicSelector(new DefaultTopicSelector(topic))
+                .withTupleToKafkaMapper(new FieldNameBasedTupleToKafkaMapper<>());
+    }
+
     protected void createCtrlBranch(TopologyBuilder builder, List<CtrlBoltRef> targets)
             throws StreamNameCollisionException {
         checkAndCreateTopic(config.getKafkaCtrlTopic());
@@ -254,8 +288,13 @@ public abstract class AbstractTopology implements Topology {
     }
 
     protected KafkaSpoutConfig.Builder<String, String> makeKafkaSpoutConfigBuilder(String spoutId, String topic) {
+        return makeKafkaSpoutConfigBuilder(spoutId, topic, StringDeserializer.class);
+    }
+
+    private <V> KafkaSpoutConfig.Builder<String, V> makeKafkaSpoutConfigBuilder(
+            String spoutId, String topic, Class<? extends Deserializer<V>> valueDeserializer) {
         return new KafkaSpoutConfig.Builder<>(
-                config.getKafkaHosts(), StringDeserializer.class, StringDeserializer.class,
+                config.getKafkaHosts(), StringDeserializer.class, valueDeserializer,
                 new CustomNamedSubscription(topic))
 
                 .setGroupId(makeKafkaGroupName(spoutId))
@@ -7,6 +7,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class TopologyConfig {
     private static final Logger logger = LoggerFactory.getLogger(TopologyConfig.class);
     private Boolean isLocal;
@@ -17,6 +21,16 @@ public class TopologyConfig {
     private Integer discoveryInterval;
     private Integer discoveryTimeout;
     private Integer discoveryLimit;
+    private Integer discoveryMaxInterval;
+    private Integer discoveryEdgeInterval;
+    private Integer discoveryFlapPenalty;
+    private Integer discoveryFlapSuppressThreshold;
+    private Integer discoveryFlapReuseThreshold;
+    private Integer discoveryFlapHalfLife;
+    private Integer discoveryFlapMaxPenalty;
+    private String discoveryCheckpointDirectory;
+    private Integer discoveryCheckpointInterval;
+    private Integer discoveryCheckpointMaxAge;
     private float discoverySpeakerFailureTimeout;
     private String filterDirectory;
     private Level loggerLevel;
@@ -38,6 +52,7 @@ public class TopologyConfig {
     private String kafkaSimulatorTopic;
     private String kafkaSpeakerTopic;
     private String kafkaStatsTopic;
+    private String kafkaStatsAnomalyTopic;
     private String kafkaTopoEngTopic;
     private String kafkaTopoDiscoTopic;
     private String kafkaTopoCacheTopic;
@@ -49,6 +64,10 @@ public class TopologyConfig {
 
     private Integer openTsdbNumSpouts;
     private Integer openTsdbFilterBoltExecutors;
+    private Integer openTsdbFilterTtl;
+    private Integer openTsdbFilterMaxMemory;
+    private List<String> openTsdbRollupPrefixes;
+    private List<Integer> openTsdbRollupWindows;
     private Integer openTsdbBoltExecutors;
     private Integer openTsdbBoltWorkers;
     private Integer openTsdbBatchSize;
@@ -56,6 +75,13 @@ public class TopologyConfig {
     private Integer getDatapointParseBoltExecutors;
     private Integer getDatapointParseBoltWorkers;
 
+    private Float statsAnomalyDropThreshold;
+    private Float statsAnomalyErrorThreshold;
+    private Float statsAnomalyDeviation;
+    private Float statsAnomalyMinPps;
+    private Integer statsFlowCacheSize;
+    private Integer statsFlowResyncInterval;
+
     private String neo4jHost;
     private String neo4jLogin;
     private String neo4jPassword;
@@ -72,6 +98,16 @@ public class TopologyConfig {
         discoveryInterval = config.getInteger("discovery.interval");
         discoveryTimeout = config.getInteger("discovery.timeout");
         discoveryLimit = config.getInteger("discovery.limit");
+        discoveryMaxInterval = config.getInteger("discovery.max-interval");
+        discoveryEdgeInterval = config.getInteger("discovery.edge-interval");
+        discoveryFlapPenalty = config.getInteger("discovery.flap.penalty");
+        discoveryFlapSuppressThreshold = config.getInteger("discovery.flap.suppress-threshold");
+        discoveryFlapReuseThreshold = config.getInteger("discovery.flap.reuse-threshold");
+        discoveryFlapHalfLife = config.getInteger("discovery.flap.half-life");
+        discoveryFlapMaxPenalty = config.getInteger("discovery.flap.max-penalty");
+        discoveryCheckpointDirectory = config.getString("discovery.checkpoint.directory");
+        discoveryCheckpointInterval = config.getInteger("discovery.checkpoint.interval");
+        discoveryCheckpointMaxAge = config.getInteger("discovery.checkpoint.max-age");
         discoverySpeakerFailureTimeout = config.getFloat("discovery.speaker-failure-timeout");
         filterDirectory = config.getString("filter.directory");
         loggerLevel = Level.valueOf(config.getString("logger.level"));
@@ -92,6 +128,7 @@ public class TopologyConfig {
         kafkaSimulatorTopic = config.getString("kafka.topic.simulator");
         kafkaSpeakerTopic = config.getString("kafka.topic.speaker");
         kafkaStatsTopic = config.getString("kafka.topic.stats");
+        kafkaStatsAnomalyTopic = config.getString("kafka.topic.stats.anomaly");
         kafkaTopoCacheTopic = config.getString("kafka.topic.topo.cache");
         kafkaTopoDiscoTopic = config.getString("kafka.topic.topo.disco");
         kafkaTopoEngTopic = config.getString("kafka.topic.topo.eng");
@@ -101,6 +138,12 @@ public class TopologyConfig {
         openTsdbClientChunkedRequestsEnabled = config.getBoolean("opentsdb.client.chunked-requests.enabled");
         openTsdbNumSpouts = config.getInteger("opentsdb.num.spouts");
         openTsdbFilterBoltExecutors = config.getInteger("opentsdb.num.opentsdbfilterbolt");
+        openTsdbFilterTtl = config.getInteger("opentsdb.filter.ttl");
+        openTsdbFilterMaxMemory = config.getInteger("opentsdb.filter.max-memory");
+        openTsdbRollupPrefixes = splitList(config.getString("opentsdb.rollup.prefixes"));
+        openTsdbRollupWindows = splitList(config.getString("opentsdb.rollup.windows")).stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
         openTsdbBoltExecutors = config.getInteger("opentsdb.num.opentsdbbolt");
         openTsdbBoltWorkers = config.getInteger("opentsdb.workers.opentsdbolt");
         openTsdbBatchSize = config.getInteger("opentsdb.batch.size");
@@ -108,6 +151,13 @@ public class TopologyConfig {
         getDatapointParseBoltExecutors = config.getInteger("opentsdb.num.datapointparserbolt");
         getDatapointParseBoltWorkers = config.getInteger("opentsdb.workers.datapointparserbolt");
 
+        statsAnomalyDropThreshold = config.getFloat("stats.anomaly.drop-threshold");
+        statsAnomalyErrorThreshold = config.getFloat("stats.anomaly.error-threshold");
+        statsAnomalyDeviation = config.getFloat("stats.anomaly.deviation");
+        statsAnomalyMinPps = config.getFloat("stats.anomaly.min-pps");
+        statsFlowCacheSize = config.getInteger("stats.flow.cache-size");
+        statsFlowResyncInterval = config.getInteger("stats.flow.resync-interval");
+
         neo4jHost = config.getString("neo4j.hosts");
         neo4jLogin = config.getString("neo4j.user");
         neo4jPassword = config.getString("neo4j.pswd");
@@ -154,6 +204,46 @@ public class TopologyConfig {
         return discoveryLimit;
     }
 
+    public Integer getDiscoveryMaxInterval() {
+        return discoveryMaxInterval;
+    }
+
+    public Integer getDiscoveryEdgeInterval() {
+        return discoveryEdgeInterval;
+    }
+
+    public Integer getDiscoveryFlapPenalty() {
+        return discoveryFlapPenalty;
+    }
+
+    public Integer getDiscoveryFlapSuppressThreshold() {
+        return discoveryFlapSuppressThreshold;
+    }
+
+    public Integer getDiscoveryFlapReuseThreshold() {
+        return discoveryFlapReuseThreshold;
+    }
+
+    public Integer getDiscoveryFlapHalfLife() {
+        return discoveryFlapHalfLife;
+    }
+
+    public Integer getDiscoveryFlapMaxPenalty() {
+        return discoveryFlapMaxPenalty;
+    }
+
+    public String getDiscoveryCheckpointDirectory() {
+        return discoveryCheckpointDirectory;
+    }
+
+    public Integer getDiscoveryCheckpointInterval() {
+        return discoveryCheckpointInterval;
+    }
+
+    public Integer getDiscoveryCheckpointMaxAge() {
+        return discoveryCheckpointMaxAge;
+    }
+
     public String getFilterDirectory() {
         return filterDirectory;
     }
@@ -224,6 +314,10 @@ public class TopologyConfig {
         return kafkaStatsTopic;
     }
 
+    public String getKafkaStatsAnomalyTopic() {
+        return kafkaStatsAnomalyTopic;
+    }
+
     public String getKafkaTopoCacheTopic() {
         return kafkaTopoCacheTopic;
     }
@@ -258,6 +352,46 @@ public class TopologyConfig {
         return openTsdbFilterBoltExecutors;
     }
 
+    public Integer getOpenTsdbFilterTtl() {
+        return openTsdbFilterTtl;
+    }
+
+    public Integer getOpenTsdbFilterMaxMemory() {
+        return openTsdbFilterMaxMemory;
+    }
+
+    public List<String> getOpenTsdbRollupPrefixes() {
+        return openTsdbRollupPrefixes;
+    }
+
+    public List<Integer> getOpenTsdbRollupWindows() {
+        return openTsdbRollupWindows;
+    }
+
+    public Float getStatsAnomalyDropThreshold() {
+        return statsAnomalyDropThreshold;
+    }
+
+    public Float getStatsAnomalyErrorThreshold() {
+        return statsAnomalyErrorThreshold;
+    }
+
+    public Float getStatsAnomalyDeviation() {
+        return statsAnomalyDeviation;
+    }
+
+    public Float getStatsAnomalyMinPps() {
+        return statsAnomalyMinPps;
+    }
+
+    public Integer getStatsFlowCacheSize() {
+        return statsFlowCacheSize;
+    }
+
+    public Integer getStatsFlowResyncInterval() {
+        return statsFlowResyncInterval;
+    }
+
     public Integer getGetDatapointParseBoltExecutors() {
         return getDatapointParseBoltExecutors;
     }
@@ -293,4 +427,14 @@ public class TopologyConfig {
     public String getNeo4jPassword() {
         return neo4jPassword;
     }
+
+    /**
+     * @return the comma separated values, empty if there are none
+     */
+    private static List<String> splitList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,109 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openkilda.messaging.model.DiscoveryNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local copy of the {@link OFELinkBolt} discovery state: the known ports with their counters and the
+ * ISL filter. A restarted task goes on with the discovery from it right away, the network dump is
+ * applied on top of it as a delta.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DiscoveryCheckpoint {
+    /** When the checkpoint was made, in ms. */
+    @JsonProperty("timestamp")
+    private final long timestamp;
+
+    /** Amount of the bolt tasks the switches were distributed between. */
+    @JsonProperty("partitions_count")
+    private final int partitionsCount;
+
+    @JsonProperty("nodes")
+    private final List<DiscoveryNode> nodes;
+
+    @JsonProperty("filtered")
+    private final Set<DiscoveryNode> filtered;
+
+    @JsonCreator
+    public DiscoveryCheckpoint(
+            @JsonProperty("timestamp") long timestamp,
+            @JsonProperty("partitions_count") int partitionsCount,
+            @JsonProperty("nodes") List<DiscoveryNode> nodes,
+            @JsonProperty("filtered") Set<DiscoveryNode> filtered) {
+        this.timestamp = timestamp;
+        this.partitionsCount = partitionsCount;
+        this.nodes = nodes;
+        this.filtered = filtered;
+    }
+
+    /**
+     * @return the checkpoint file of the bolt task.
+     */
+    public static Path makePath(String directory, String componentId, int partition) {
+        return Paths.get(directory, String.format("%s-%d.json", componentId, partition));
+    }
+
+    /**
+     * @return the checkpoint or null if there is none.
+     */
+    public static DiscoveryCheckpoint load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return MAPPER.readValue(path.toFile(), DiscoveryCheckpoint.class);
+    }
+
+    /**
+     * Writes the checkpoint to the temporary file and moves it in place, so the previous checkpoint
+     * stays intact if the worker dies in the middle.
+     */
+    public void save(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        MAPPER.writeValue(temporary.toFile(), this);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getPartitionsCount() {
+        return partitionsCount;
+    }
+
+    public List<DiscoveryNode> getNodes() {
+        return nodes;
+    }
+
+    public Set<DiscoveryNode> getFiltered() {
+        return filtered;
+    }
+}
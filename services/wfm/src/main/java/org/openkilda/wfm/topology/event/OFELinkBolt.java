@@ -52,6 +52,7 @@ import org.openkilda.wfm.ctrl.CtrlAction;
 import org.openkilda.wfm.ctrl.ICtrlBolt;
 import org.openkilda.wfm.isl.DiscoveryManager;
 import org.openkilda.wfm.isl.DummyIIslFilter;
+import org.openkilda.wfm.isl.FlapDampening;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.TopologyConfig;
 import org.openkilda.wfm.topology.utils.AbstractTickStatefulBolt;
@@ -59,10 +60,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -82,6 +91,10 @@ import java.util.stream.Collectors;
  * internal state. For restore data in bolt we send a message to FL and wait till callback message
  * with network data arrive. We don't process common messages and mark it as fail before that.
  * UML Diagram is here https://github.com/telstra/open-kilda/issues/213
+ *
+ * To avoid that wait, the discovery state is saved into the local {@link DiscoveryCheckpoint} every
+ * few ticks. A task restored from the checkpoint goes on with the discovery at once, and the network
+ * dump is applied to it as a delta. Same for the state kept through the speaker outage.
  */
 public class OFELinkBolt
         extends AbstractTickStatefulBolt<KeyValueState<String, Object>>
@@ -97,15 +110,34 @@ public class OFELinkBolt
     private final int islHealthCheckInterval;
     private final int islHealthCheckTimeout;
     private final int islHealthFailureLimit;
+    private final int islHealthCheckMaxInterval;
+    private final int edgePortCheckInterval;
+    private final FlapDampening flapDampening;
+    private final String checkpointDirectory;
+    private final int checkpointInterval;
+    private final int checkpointMaxAge;
+    private int checkpointTicks = 0;
+    private ExecutorService checkpointWriter;
+    private Future<?> checkpointWrite;
+    private KeyValueState<String, Object> state;
     private final float watchDogInterval;
     private WatchDog watchDog;
     private boolean isOnline = true;
     private TopologyContext context;
     private OutputCollector collector;
 
+    /**
+     * Index of this task, the task handles switches routed to it by {@link SwitchIdGrouping}.
+     */
+    private int partition;
+
+    /**
+     * Amount of the bolt tasks.
+     */
+    private int partitionsCount;
+
     private DummyIIslFilter islFilter;
     private DiscoveryManager discovery;
-    private LinkedList<DiscoveryNode> discoveryQueue;
 
     /**
      * Initialization flag
@@ -117,6 +149,16 @@ public class OFELinkBolt
      */
     private boolean isCacheRequestSend = false;
 
+    /**
+     * The task waits for a network dump: to initialize, or to apply it as a delta after a speaker outage
+     */
+    private boolean isNetworkDumpPending = true;
+
+    /**
+     * Ticks the task waits for the network dump requested by the first task
+     */
+    private int networkDumpWaitTicks = 0;
+
     /**
      * Default constructor .. default health check frequency
      */
@@ -126,6 +168,16 @@ public class OFELinkBolt
         this.islHealthCheckInterval = config.getDiscoveryInterval();
         this.islHealthCheckTimeout = config.getDiscoveryTimeout();
         this.islHealthFailureLimit = config.getDiscoveryLimit();
+        this.islHealthCheckMaxInterval = config.getDiscoveryMaxInterval();
+        this.edgePortCheckInterval = config.getDiscoveryEdgeInterval();
+        this.flapDampening = new FlapDampening(
+                config.getDiscoveryFlapPenalty(), config.getDiscoveryFlapSuppressThreshold(),
+                config.getDiscoveryFlapReuseThreshold(), config.getDiscoveryFlapHalfLife(),
+                config.getDiscoveryFlapMaxPenalty());
+
+        checkpointDirectory = config.getDiscoveryCheckpointDirectory();
+        checkpointInterval = config.getDiscoveryCheckpointInterval();
+        checkpointMaxAge = config.getDiscoveryCheckpointMaxAge();
 
         watchDogInterval = config.getDiscoverySpeakerFailureTimeout();
 
@@ -139,6 +191,21 @@ public class OFELinkBolt
 
         this.context = context;
         this.collector = collector;
+        this.partition = context.getThisTaskIndex();
+        this.partitionsCount = Math.max(1, context.getComponentTasks(context.getThisComponentId()).size());
+
+        // the checkpoint is written in background, the file IO must not delay the discovery ticks
+        checkpointWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "discovery-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void cleanup() {
+        checkpointWriter.shutdown();
+        super.cleanup();
     }
 
     @Override
@@ -149,15 +216,25 @@ public class OFELinkBolt
         // NB: First time the worker is created this will be null
         // TODO: what happens to state as workers go up or down
         Object payload = state.get(STATE_ID_DISCOVERY);
+        LinkedList<DiscoveryNode> discoveryQueue;
         if (payload == null) {
             payload = discoveryQueue = new LinkedList<>();
-            state.put(islDiscoveryTopic, payload);
+            DiscoveryCheckpoint checkpoint = loadCheckpoint();
+            if (checkpoint != null) {
+                discoveryQueue.addAll(checkpoint.getNodes());
+                checkpoint.getFiltered().forEach(node -> islFilter.add(node.getSwitchId(), node.getPortId()));
+            }
+            state.put(STATE_ID_DISCOVERY, payload);
         } else {
             discoveryQueue = (LinkedList<DiscoveryNode>) payload;
         }
+        this.state = state;
+        // discovery goes on with the state we have, the network dump is applied to it as a delta
+        isReceivedCacheInfo = !discoveryQueue.isEmpty();
 
         discovery = new DiscoveryManager(
-                islFilter, discoveryQueue, islHealthCheckInterval, islHealthCheckTimeout, islHealthFailureLimit
+                islFilter, discoveryQueue, islHealthCheckInterval, islHealthCheckTimeout, islHealthFailureLimit,
+                islHealthCheckMaxInterval, edgePortCheckInterval, flapDampening
         );
     }
 
@@ -172,9 +249,11 @@ public class OFELinkBolt
             if (isSpeakerAvailable) {
                 logger.warn("Switch into ONLINE mode");
                 isCacheRequestSend = false;
+                isNetworkDumpPending = true;
+                networkDumpWaitTicks = 0;
             } else {
+                // keep the discovery state, the network dump is applied to it as a delta
                 logger.warn("Switch into OFFLINE mode");
-                isReceivedCacheInfo = false;
             }
         }
         isOnline = isSpeakerAvailable;
@@ -183,20 +262,30 @@ public class OFELinkBolt
             return;
         }
 
-        if (!isCacheRequestSend)
+        if (isNetworkDumpPending && !isCacheRequestSend)
         {
-            // Only one message to FL needed
-            isCacheRequestSend = true;
-            sendNetworkRequest(tuple);
+            // The dump is broadcast to every task, so the first task requests it for all of them. The other
+            // tasks request it themselves only if it doesn't come, e.g. when they are restarted alone.
+            networkDumpWaitTicks += 1;
+            if (partition == 0 || watchDogInterval <= networkDumpWaitTicks * BOLT_TICK_INTERVAL) {
+                isCacheRequestSend = true;
+                sendNetworkRequest(tuple);
+            }
         }
-        else if (isReceivedCacheInfo)
+
+        if (isReceivedCacheInfo)
         {
             // On first tick(or after network outage), we send network dump request to FL,
             // and then we ignore all ticks till cache not received
             DiscoveryManager.Plan discoveryPlan = discovery.makeDiscoveryPlan();
             try {
+                // one command per switch, speaker sends all the switch's discovery packets at once
+                Map<String, List<String>> portsBySwitch = new LinkedHashMap<>();
                 for (DiscoveryManager.Node node : discoveryPlan.needDiscovery) {
-                    sendDiscoveryMessage(tuple, node);
+                    portsBySwitch.computeIfAbsent(node.switchId, k -> new ArrayList<>()).add(node.portId);
+                }
+                for (Map.Entry<String, List<String>> entry : portsBySwitch.entrySet()) {
+                    sendDiscoveryMessage(tuple, entry.getKey(), entry.getValue());
                 }
 
                 for (DiscoveryManager.Node node : discoveryPlan.discoveryFailure) {
@@ -209,7 +298,75 @@ public class OFELinkBolt
             } catch (IOException e) {
                 logger.error("Unable to encode message: {}", e);
             }
+
+            checkpointTicks += 1;
+            if (checkpointInterval <= checkpointTicks) {
+                checkpointTicks = 0;
+                saveCheckpoint();
+            }
+        }
+    }
+
+    private DiscoveryCheckpoint loadCheckpoint() {
+        if (checkpointDirectory.isEmpty()) {
+            return null;
+        }
+
+        Path path = DiscoveryCheckpoint.makePath(checkpointDirectory, context.getThisComponentId(), partition);
+        try {
+            DiscoveryCheckpoint checkpoint = DiscoveryCheckpoint.load(path);
+            if (checkpoint == null) {
+                logger.info("There is no discovery checkpoint {}", path);
+                return null;
+            }
+
+            long age = System.currentTimeMillis() - checkpoint.getTimestamp();
+            if (checkpoint.getPartitionsCount() != partitionsCount) {
+                logger.info("Ignore discovery checkpoint {}: it is made for {} partitions, there are {} now",
+                        path, checkpoint.getPartitionsCount(), partitionsCount);
+                return null;
+            }
+            if (TimeUnit.SECONDS.toMillis(checkpointMaxAge) < age) {
+                logger.info("Ignore discovery checkpoint {}: it is {} ms old", path, age);
+                return null;
+            }
+
+            logger.info("Restore {} discovery nodes from checkpoint {} made {} ms ago",
+                    checkpoint.getNodes().size(), path, age);
+            return checkpoint;
+        } catch (IOException e) {
+            logger.error("Unable to load discovery checkpoint {}", path, e);
+            return null;
+        }
+    }
+
+    private void saveCheckpoint() {
+        List<DiscoveryNode> nodes = discovery.getNodes();
+        state.put(STATE_ID_DISCOVERY, new LinkedList<>(nodes));
+
+        if (checkpointDirectory.isEmpty()) {
+            return;
+        }
+
+        if (checkpointWrite != null && !checkpointWrite.isDone()) {
+            logger.warn("Skip discovery checkpoint: the previous one is still being written");
+            return;
         }
+
+        // the nodes keep changing on the ticks, so the writer gets a snapshot of them
+        Path path = DiscoveryCheckpoint.makePath(checkpointDirectory, context.getThisComponentId(), partition);
+        DiscoveryCheckpoint checkpoint = new DiscoveryCheckpoint(
+                System.currentTimeMillis(), partitionsCount,
+                nodes.stream().map(DiscoveryNode::new).collect(Collectors.toList()),
+                islFilter.getMatchSet().stream().map(DiscoveryNode::new).collect(Collectors.toSet()));
+        checkpointWrite = checkpointWriter.submit(() -> {
+            try {
+                checkpoint.save(path);
+                logger.debug("Save {} discovery nodes to checkpoint {}", checkpoint.getNodes().size(), path);
+            } catch (IOException e) {
+                logger.error("Unable to save discovery checkpoint {}", path, e);
+            }
+        });
     }
 
     /**
@@ -232,10 +389,10 @@ public class OFELinkBolt
     }
 
     /**
-     * Helper method for sending an ISL Discovery Message
+     * Helper method for sending an ISL Discovery Message for several ports of the switch
      */
-    private void sendDiscoveryMessage(Tuple tuple, DiscoveryManager.Node node) throws IOException {
-        String json = OFEMessageUtils.createIslDiscovery(node.switchId, node.portId);
+    private void sendDiscoveryMessage(Tuple tuple, String switchId, List<String> portIds) throws IOException {
+        String json = OFEMessageUtils.createIslDiscoveryBatch(switchId, portIds);
         logger.debug("LINK: Send ISL discovery command: {}", json);
         collector.emit(islDiscoveryTopic, tuple, new Values(PAYLOAD, json));
     }
@@ -266,8 +423,17 @@ public class OFELinkBolt
             if (bm instanceof InfoMessage) {
                 InfoData data = ((InfoMessage)bm).getData();
                 if (data instanceof NetworkInfoData) {
-                    handleNetworkDump(tuple, (NetworkInfoData)data);
-                    isReceivedCacheInfo = true;
+                    // the dump is broadcast, one dump serves all the tasks waiting for it
+                    if (!isNetworkDumpPending) {
+                        logger.debug("Skip network dump, bolt is already initialized");
+                    } else if (!isReceivedCacheInfo) {
+                        handleNetworkDump(tuple, (NetworkInfoData) data);
+                        isReceivedCacheInfo = true;
+                        isNetworkDumpPending = false;
+                    } else {
+                        handleNetworkDelta(tuple, (NetworkInfoData) data);
+                        isNetworkDumpPending = false;
+                    }
                 } else if (!isReceivedCacheInfo) {
                     logger.debug("Bolt is not initialized mark tuple as fail");
                 } else if (data instanceof SwitchInfoData) {
@@ -300,12 +466,65 @@ public class OFELinkBolt
     }
 
     private void handleNetworkDump(Tuple tuple, NetworkInfoData data) {
-        logger.info("Start process network dump");
-        data.getSwitches().forEach( switchInfo -> handleSwitchEvent(tuple, switchInfo) );
-        data.getPorts().forEach( portInfo -> handlePortEvent(tuple, portInfo) );
+        logger.info("Start process network dump: partition={}/{}", partition + 1, partitionsCount);
+        data.getSwitches().stream()
+                .filter(switchInfo -> isOwnSwitch(switchInfo.getSwitchId()))
+                .forEach(switchInfo -> handleSwitchEvent(tuple, switchInfo));
+        data.getPorts().stream()
+                .filter(portInfo -> isOwnSwitch(portInfo.getSwitchId()))
+                .forEach(portInfo -> handlePortEvent(tuple, portInfo));
         logger.info("Finish process network dump");
     }
 
+    /**
+     * Brings the discovery state in line with the network dump: adds the new switches and ports, drops
+     * the ones that are gone. The ports known already keep their state.
+     */
+    private void handleNetworkDelta(Tuple tuple, NetworkInfoData data) {
+        logger.info("Start apply network dump delta: partition={}/{}", partition + 1, partitionsCount);
+        Set<String> knownSwitches = discovery.getNodes().stream()
+                .map(DiscoveryNode::getSwitchId)
+                .collect(Collectors.toSet());
+        data.getSwitches().stream()
+                .filter(switchInfo -> isOwnSwitch(switchInfo.getSwitchId()))
+                .filter(switchInfo -> !knownSwitches.contains(switchInfo.getSwitchId())
+                        || switchInfo.getState() != SwitchState.ACTIVATED)
+                .forEach(switchInfo -> handleSwitchEvent(tuple, switchInfo));
+
+        Map<DiscoveryManager.Node, DiscoveryNode> gone = new HashMap<>();
+        for (DiscoveryNode subject : discovery.getNodes()) {
+            gone.put(new DiscoveryManager.Node(subject), subject);
+        }
+        for (PortInfoData portInfo : data.getPorts()) {
+            if (!isOwnSwitch(portInfo.getSwitchId()) || !isPortUpOrCached("" + portInfo.getState())) {
+                continue;
+            }
+            DiscoveryManager.Node node = new DiscoveryManager.Node(portInfo.getSwitchId(), "" + portInfo.getPortNo());
+            if (gone.remove(node) == null) {
+                handlePortEvent(tuple, portInfo);
+            }
+        }
+        for (Map.Entry<DiscoveryManager.Node, DiscoveryNode> entry : gone.entrySet()) {
+            DiscoveryManager.Node node = entry.getKey();
+            DiscoveryNode subject = entry.getValue();
+            logger.info("DISCO: Port is not in the network dump: switch={} port={}", node.switchId, node.portId);
+            if (subject.isFoundIsl() && subject.getConsecutiveFailure() == 0 && !subject.isSuppressed()) {
+                // the ISL is gone together with the port, TE hasn't heard about it yet
+                try {
+                    sendDiscoveryFailed(node.switchId, node.portId, tuple);
+                } catch (IOException e) {
+                    logger.error("Unable to encode message: {}", e);
+                }
+            }
+            discovery.handlePortDown(node.switchId, node.portId);
+        }
+        logger.info("Finish apply network dump delta");
+    }
+
+    private boolean isOwnSwitch(String switchId) {
+        return SwitchIdGrouping.getPartition(switchId, partitionsCount) == partition;
+    }
+
     private void handleSwitchEvent(Tuple tuple, SwitchInfoData switchData) {
         String switchID = switchData.getSwitchId();
         String state = "" + switchData.getState();
@@ -426,7 +645,7 @@ public class OFELinkBolt
 
     @Override
     public AbstractDumpState dumpState() {
-        return new OFELinkBoltState(discoveryQueue, islFilter.getMatchSet());
+        return new OFELinkBoltState(discovery.getNodes(), islFilter.getMatchSet(), discovery.getDampeningStats());
     }
 
     @Override
@@ -437,16 +656,15 @@ public class OFELinkBolt
     @Override
     public AbstractDumpState dumpStateBySwitchId(String switchId) {
 
-        List<DiscoveryNode> filteredDiscoveryQueue =  discoveryQueue.stream().
-                filter(node -> node.getSwitchId().equals(switchId)).
-                collect(Collectors.toList());
+        List<DiscoveryNode> filteredDiscoveryQueue = discovery.filterQueue(
+                new DiscoveryManager.Node(switchId, null));
 
         Set<DiscoveryNode> filterdIslFilter = islFilter.getMatchSet().stream().
                 filter(node -> node.getSwitchId().equals(switchId)).
                 collect(Collectors.toSet());
 
 
-        return new OFELinkBoltState(filteredDiscoveryQueue, filterdIslFilter);
+        return new OFELinkBoltState(filteredDiscoveryQueue, filterdIslFilter, discovery.getDampeningStats());
     }
 
     @Override
@@ -462,6 +680,6 @@ public class OFELinkBolt
     @VisibleForTesting
     List<DiscoveryNode> getDiscoveryQueue()
     {
-        return this.discoveryQueue;
+        return discovery.getNodes();
     }
 }
@@ -0,0 +1,78 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import org.openkilda.wfm.OFEMessageUtils;
+import org.openkilda.wfm.topology.AbstractTopology;
+
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.topology.base.BaseRichBolt;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Extracts the switch id from the speaker events, so {@link OFELinkBolt} can be grouped by switch and every
+ * task keeps discovery state for its own switches only. Only the {@link SpeakerEventHeader} is read here, the
+ * message is parsed by {@link OFELinkBolt}.
+ *
+ * Network dumps and speaker heart beats are relevant for every {@link OFELinkBolt} task, so they are sent
+ * to the broadcast stream.
+ */
+public class OFEParseBolt extends BaseRichBolt {
+    private static final Logger logger = LoggerFactory.getLogger(OFEParseBolt.class);
+
+    public static final String STREAM_ID_BROADCAST = "broadcast";
+    public static final Fields fieldsMessageSwitchId = new Fields(
+            AbstractTopology.MESSAGE_FIELD, OFEMessageUtils.FIELD_SWITCH_ID);
+
+    private OutputCollector collector;
+
+    @Override
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        this.collector = collector;
+    }
+
+    @Override
+    public void execute(Tuple tuple) {
+        String json = tuple.getString(0);
+        try {
+            SpeakerEventHeader header = SpeakerEventHeader.parse(json);
+            if (header.isBroadcast()) {
+                collector.emit(STREAM_ID_BROADCAST, tuple, new Values(json));
+            } else {
+                collector.emit(tuple, new Values(json, header.getSwitchId()));
+            }
+        } catch (IOException e) {
+            logger.error("Unknown Message type={}", json);
+        } finally {
+            collector.ack(tuple);
+        }
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(fieldsMessageSwitchId);
+        declarer.declareStream(STREAM_ID_BROADCAST, AbstractTopology.fieldMessage);
+    }
+}
@@ -58,6 +58,7 @@ public class OFEventWFMTopology extends AbstractTopology {
     /** Externalize the ID so that the Test classes can leverage it */
     public static final String SPOUT_ID_INPUT = Topic.TOPO_DISCO+"-spout";
     public static final String BOLT_ID = Topic.TOPO_DISCO+"-bolt";
+    public static final String PARSE_BOLT_ID = Topic.TOPO_DISCO+"-parse-bolt";
 
 //    public static final String SPOUT_ID_INPUT = "input";
 //    public static final String BOLT_ID_OUTPUT = "out";
@@ -94,15 +95,15 @@ public class OFEventWFMTopology extends AbstractTopology {
 
         builder.setSpout(spoutName, createKafkaSpout(kafkaTopoDiscoTopic, spoutName));
 
+        // Parse first just to pull out switchID, so the discovery state of a switch is kept by one task.
+        builder.setBolt(PARSE_BOLT_ID, new OFEParseBolt(), config.getParallelism())
+                .shuffleGrouping(spoutName);
+
         IStatefulBolt bolt = new OFELinkBolt(config);
 
-        // TODO: resolve the comments below; are there any state issues?
-        // NB: with shuffleGrouping, we can't maintain state .. would need to parse first
-        //      just to pull out switchID.
-        // (crimi) - not sure I agree here .. state can be maintained, albeit distributed.
-        //
         BoltDeclarer bd = builder.setBolt(boltName, bolt, config.getParallelism())
-                .shuffleGrouping(spoutName);
+                .customGrouping(PARSE_BOLT_ID, new SwitchIdGrouping())
+                .allGrouping(PARSE_BOLT_ID, OFEParseBolt.STREAM_ID_BROADCAST);
 
         builder.setBolt(kafkaTopoEngTopic, createKafkaBolt(kafkaTopoEngTopic),
                 config.getParallelism()).shuffleGrouping(boltName, kafkaTopoEngTopic);
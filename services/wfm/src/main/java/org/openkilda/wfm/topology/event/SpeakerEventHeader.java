@@ -0,0 +1,130 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import static org.openkilda.messaging.Utils.MAPPER;
+import static org.openkilda.messaging.Utils.PAYLOAD;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.NetworkInfoData;
+import org.openkilda.wfm.OFEMessageUtils;
+
+import java.io.IOException;
+
+/**
+ * The part of a speaker message {@link OFEParseBolt} routes by: the message class, the payload class and the
+ * switch id of the payload. It is read with the streaming parser and the scan stops as soon as these are
+ * known, the message is bound to the objects only once, by {@link OFELinkBolt}.
+ */
+public final class SpeakerEventHeader {
+    private static final String FIELD_CLAZZ = "clazz";
+    private static final String FIELD_PATH = "path";
+
+    private enum Scope {
+        MESSAGE, PAYLOAD, PATH_NODE
+    }
+
+    private String messageClass;
+    private String dataClass;
+    private String switchId;
+
+    private SpeakerEventHeader() {
+    }
+
+    /**
+     * Reads the header of the speaker message.
+     *
+     * @param json speaker message
+     * @return the header
+     * @throws IOException if the message is not a JSON object
+     */
+    public static SpeakerEventHeader parse(String json) throws IOException {
+        SpeakerEventHeader header = new SpeakerEventHeader();
+        try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Message is not a JSON object");
+            }
+            header.readObject(parser, Scope.MESSAGE);
+        }
+        return header;
+    }
+
+    /**
+     * Speaker heart beats and network dumps are relevant for every {@link OFELinkBolt} task.
+     */
+    public boolean isBroadcast() {
+        return !InfoMessage.class.getName().equals(messageClass) || dataClass == null || isNetworkDump();
+    }
+
+    /**
+     * Returns the switch id of a switch or port event, or the one of the first path node of an ISL event.
+     *
+     * @return switch id, null if the payload has none
+     */
+    public String getSwitchId() {
+        return switchId;
+    }
+
+    private boolean isNetworkDump() {
+        return NetworkInfoData.class.getName().equals(dataClass);
+    }
+
+    private boolean isComplete() {
+        return messageClass != null && dataClass != null && (switchId != null || isNetworkDump());
+    }
+
+    private void readObject(JsonParser parser, Scope scope) throws IOException {
+        while (!isComplete() && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if (FIELD_CLAZZ.equals(field) && value == JsonToken.VALUE_STRING && scope != Scope.PATH_NODE) {
+                if (scope == Scope.MESSAGE) {
+                    messageClass = parser.getText();
+                } else {
+                    dataClass = parser.getText();
+                }
+            } else if (PAYLOAD.equals(field) && value == JsonToken.START_OBJECT && scope == Scope.MESSAGE) {
+                readObject(parser, Scope.PAYLOAD);
+            } else if (OFEMessageUtils.FIELD_SWITCH_ID.equals(field) && value == JsonToken.VALUE_STRING
+                    && scope != Scope.MESSAGE) {
+                switchId = parser.getText();
+            } else if (FIELD_PATH.equals(field) && value == JsonToken.START_ARRAY && scope == Scope.PAYLOAD) {
+                readPath(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readPath(JsonParser parser) throws IOException {
+        // the ISL event goes to the owner of the switch of the first path node
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            readObject(parser, Scope.PATH_NODE);
+            if (isComplete()) {
+                return;
+            }
+            token = parser.nextToken();
+        }
+        while (token != null && token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import org.openkilda.wfm.OFEMessageUtils;
+
+import org.apache.storm.generated.GlobalStreamId;
+import org.apache.storm.grouping.CustomStreamGrouping;
+import org.apache.storm.task.WorkerTopologyContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Routes tuples by the switch id field to the task owning the switch. The owner of a switch is defined by
+ * {@link #getPartition(String, int)}, so {@link OFELinkBolt} tasks can pick their own switches and ports out
+ * of the network dump.
+ */
+public class SwitchIdGrouping implements CustomStreamGrouping {
+    private static final long serialVersionUID = 1L;
+
+    private List<Integer> targetTasks;
+    private int switchIdIndex;
+
+    /**
+     * Returns index of the task owning the switch.
+     *
+     * @param switchId        switch id, null goes to the first task
+     * @param partitionsCount amount of tasks
+     * @return task index, starts from 0
+     */
+    public static int getPartition(String switchId, int partitionsCount) {
+        if (switchId == null) {
+            return 0;
+        }
+        return Math.floorMod(switchId.hashCode(), partitionsCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(WorkerTopologyContext context, GlobalStreamId stream, List<Integer> targetTasks) {
+        // task index of the bolt is its position in the sorted list of component tasks
+        this.targetTasks = new ArrayList<>(targetTasks);
+        Collections.sort(this.targetTasks);
+        switchIdIndex = context.getComponentOutputFields(stream).fieldIndex(OFEMessageUtils.FIELD_SWITCH_ID);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> chooseTasks(int taskId, List<Object> values) {
+        String switchId = (String) values.get(switchIdIndex);
+        return Collections.singletonList(targetTasks.get(getPartition(switchId, targetTasks.size())));
+    }
+}
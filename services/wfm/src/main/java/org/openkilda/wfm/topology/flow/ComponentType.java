@@ -94,6 +94,16 @@ public enum ComponentType {
      */
     ERROR_BOLT,
 
+    /**
+     * Latency bolt. Collects request pipeline stage timestamps and computes per-stage latency distributions.
+     */
+    LATENCY_BOLT,
+
+    /**
+     * OpenTSDB kafka bolt. Sends flow request pipeline latency metrics.
+     */
+    LATENCY_KAFKA_BOLT,
+
     LCM_SPOUT,
     LCM_FLOW_SYNC_BOLT,
     TOPOLOGY_ENGINE_OUTPUT
@@ -27,12 +27,14 @@ import org.openkilda.wfm.StreamNameCollisionException;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.flow.bolts.CrudBolt;
 import org.openkilda.wfm.topology.flow.bolts.ErrorBolt;
+import org.openkilda.wfm.topology.flow.bolts.LatencyBolt;
 import org.openkilda.wfm.topology.flow.bolts.LcmFlowCacheSyncBolt;
 import org.openkilda.wfm.topology.flow.bolts.NorthboundReplyBolt;
 import org.openkilda.wfm.topology.flow.bolts.SpeakerBolt;
 import org.openkilda.wfm.topology.flow.bolts.SplitterBolt;
 import org.openkilda.wfm.topology.flow.bolts.TopologyEngineBolt;
 import org.openkilda.wfm.topology.flow.bolts.TransactionBolt;
+import org.openkilda.wfm.topology.flow.utils.FlowIdGrouping;
 import org.openkilda.wfm.topology.utils.LcmKafkaSpout;
 
 import org.apache.storm.generated.ComponentObject;
@@ -56,6 +58,7 @@ public class FlowTopology extends AbstractTopology {
     public static final String SWITCH_ID_FIELD = "switch-id";
     public static final String STATUS_FIELD = "status";
     public static final String ERROR_TYPE_FIELD = "error-type";
+    public static final String LATENCY_STAGE_FIELD = "latency-stage";
     public static final Fields fieldFlowId = new Fields(Utils.FLOW_ID);
     public static final Fields fieldSwitchId = new Fields(SWITCH_ID_FIELD);
     public static final Fields fieldsFlowIdStatus = new Fields(Utils.FLOW_ID, STATUS_FIELD);
@@ -63,6 +66,14 @@ public class FlowTopology extends AbstractTopology {
     public static final Fields fieldsMessageErrorType = new Fields(MESSAGE_FIELD, ERROR_TYPE_FIELD);
     public static final Fields fieldsMessageSwitchIdFlowIdTransactionId =
             new Fields(MESSAGE_FIELD, SWITCH_ID_FIELD, Utils.FLOW_ID, Utils.TRANSACTION_ID);
+    public static final Fields fieldsLatencyTrace =
+            new Fields(Utils.CORRELATION_ID, LATENCY_STAGE_FIELD, Utils.TIMESTAMP);
+    public static final Fields fieldCorrelationId = new Fields(Utils.CORRELATION_ID);
+
+    /**
+     * Interval in seconds between flow request pipeline latency metrics flushes.
+     */
+    private static final int LATENCY_FLUSH_INTERVAL = 60;
 
     private static final Logger logger = LoggerFactory.getLogger(FlowTopology.class);
 
@@ -129,28 +140,41 @@ public class FlowTopology extends AbstractTopology {
 
         /*
          * Bolt handles flow CRUD operations.
-         * It groups requests by flow-id.
+         * It groups requests by flow-id, every task owns its own part of the flows and resources.
+         * Flows dump and cache sync requests are sent to all tasks, each of them replies for its own part.
          */
         CrudBolt crudBolt = new CrudBolt(pathComputerAuth);
         ComponentObject.serialized_java(org.apache.storm.utils.Utils.javaSerialize(pathComputerAuth));
 
         boltSetup = builder.setBolt(ComponentType.CRUD_BOLT.toString(), crudBolt, parallelism)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CREATE.toString(), fieldFlowId)
-                // TODO: this READ is used for single and for all flows. But all flows shouldn't be fieldsGrouping.
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.READ.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.UPDATE.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.DELETE.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.PUSH.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.UNPUSH.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.PATH.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.RESTORE.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.REROUTE.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
-                // TODO: this CACHE_SYNC shouldn't be fields-grouping - there is no field - it should be all - but tackle during multi instance testing
-                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CACHE_SYNC.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.TRANSACTION_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.SPEAKER_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId)
-                .fieldsGrouping(ComponentType.TOPOLOGY_ENGINE_BOLT.toString(), StreamType.STATUS.toString(), fieldFlowId);
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CREATE.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.READ.toString(),
+                        new FlowIdGrouping())
+                .allGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.DUMP.toString())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.UPDATE.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.DELETE.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.PUSH.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.UNPUSH.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.PATH.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.RESTORE.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.REROUTE.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.STATUS.toString(),
+                        new FlowIdGrouping())
+                .allGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.CACHE_SYNC.toString())
+                .customGrouping(ComponentType.TRANSACTION_BOLT.toString(), StreamType.STATUS.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.SPEAKER_BOLT.toString(), StreamType.STATUS.toString(),
+                        new FlowIdGrouping())
+                .customGrouping(ComponentType.TOPOLOGY_ENGINE_BOLT.toString(), StreamType.STATUS.toString(),
+                        new FlowIdGrouping());
 //                .shuffleGrouping(
 //                        ComponentType.LCM_FLOW_SYNC_BOLT.toString(), LcmFlowCacheSyncBolt.STREAM_ID_SYNC_FLOW_CACHE);
         ctrlTargets.add(new CtrlBoltRef(ComponentType.CRUD_BOLT.toString(), crudBolt, boltSetup));
@@ -239,6 +263,31 @@ public class FlowTopology extends AbstractTopology {
         builder.setBolt(ComponentType.NORTHBOUND_KAFKA_BOLT.toString(), northboundKafkaBolt, parallelism)
                 .shuffleGrouping(ComponentType.NORTHBOUND_REPLY_BOLT.toString(), StreamType.RESPONSE.toString());
 
+        /*
+         * Bolt collects request pipeline stage timestamps, groups by correlation-id field.
+         * A single task: the percentiles of several tasks would be written as the same series and overwrite
+         * each other in OpenTSDB.
+         */
+        LatencyBolt latencyBolt = new LatencyBolt(LATENCY_FLUSH_INTERVAL);
+        builder.setBolt(ComponentType.LATENCY_BOLT.toString(), latencyBolt, 1)
+                .fieldsGrouping(ComponentType.SPLITTER_BOLT.toString(), StreamType.LATENCY.toString(),
+                        fieldCorrelationId)
+                .fieldsGrouping(ComponentType.CRUD_BOLT.toString(), StreamType.LATENCY.toString(),
+                        fieldCorrelationId)
+                .fieldsGrouping(ComponentType.TOPOLOGY_ENGINE_BOLT.toString(), StreamType.LATENCY.toString(),
+                        fieldCorrelationId)
+                .fieldsGrouping(ComponentType.SPEAKER_BOLT.toString(), StreamType.LATENCY.toString(),
+                        fieldCorrelationId)
+                .fieldsGrouping(ComponentType.NORTHBOUND_REPLY_BOLT.toString(), StreamType.LATENCY.toString(),
+                        fieldCorrelationId);
+
+        /*
+         * Bolt sends latency metrics to OpenTSDB
+         */
+        KafkaBolt latencyKafkaBolt = createKafkaBolt(config.getKafkaOtsdbTopic());
+        builder.setBolt(ComponentType.LATENCY_KAFKA_BOLT.toString(), latencyKafkaBolt, parallelism)
+                .shuffleGrouping(ComponentType.LATENCY_BOLT.toString());
+
         createCtrlBranch(builder, ctrlTargets);
         createHealthCheckHandler(builder, ServiceType.FLOW_TOPOLOGY.getId());
 
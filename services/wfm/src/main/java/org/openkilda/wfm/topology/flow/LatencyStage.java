@@ -0,0 +1,66 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.flow;
+
+/**
+ * Stages of the flow request pipeline, in the order a request passes them.
+ */
+public enum LatencyStage {
+    /**
+     * Northbound sent the request (request message timestamp).
+     */
+    NORTHBOUND,
+
+    /**
+     * Splitter bolt received the request.
+     */
+    SPLITTER,
+
+    /**
+     * Crud bolt started to process the request.
+     */
+    CRUD,
+
+    /**
+     * Crud bolt finished path computation.
+     */
+    PATH_COMPUTATION,
+
+    /**
+     * Topology Engine sent a flow command (command message timestamp).
+     */
+    TOPOLOGY_ENGINE,
+
+    /**
+     * Speaker command transaction was opened.
+     */
+    TRANSACTION_OPEN,
+
+    /**
+     * Speaker installed/removed the rule (speaker reply timestamp).
+     */
+    SPEAKER,
+
+    /**
+     * Speaker command transaction was closed.
+     */
+    TRANSACTION_CLOSE,
+
+    /**
+     * Reply was sent to northbound.
+     */
+    REPLY
+}
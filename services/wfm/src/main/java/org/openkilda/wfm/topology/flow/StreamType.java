@@ -29,6 +29,11 @@ public enum StreamType {
      */
     READ,
 
+    /**
+     * Get all flows topology stream, delivered to every flow cache partition.
+     */
+    DUMP,
+
     /**
      * Update flow topology stream.
      */
@@ -82,5 +87,10 @@ public enum StreamType {
     /**
      * Error messages.
      */
-    ERROR;
+    ERROR,
+
+    /**
+     * Request pipeline stage timestamps.
+     */
+    LATENCY;
 }
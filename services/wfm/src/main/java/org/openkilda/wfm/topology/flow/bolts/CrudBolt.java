@@ -26,6 +26,7 @@ import org.openkilda.messaging.command.flow.FlowCreateRequest;
 import org.openkilda.messaging.command.flow.FlowRerouteRequest;
 import org.openkilda.messaging.command.flow.FlowRestoreRequest;
 import org.openkilda.messaging.command.flow.FlowUpdateRequest;
+import org.openkilda.messaging.command.flow.FlowsGetRequest;
 import org.openkilda.messaging.ctrl.AbstractDumpState;
 import org.openkilda.messaging.ctrl.state.CrudBoltState;
 import org.openkilda.messaging.ctrl.state.FlowDump;
@@ -35,6 +36,7 @@ import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.error.ErrorType;
 import org.openkilda.messaging.error.MessageException;
 import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
 import org.openkilda.messaging.info.discovery.NetworkInfoData;
 import org.openkilda.messaging.info.event.PathInfoData;
 import org.openkilda.messaging.info.flow.FlowCacheSyncResponse;
@@ -62,8 +64,10 @@ import org.openkilda.wfm.ctrl.ICtrlBolt;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.flow.ComponentType;
 import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
 import org.openkilda.wfm.topology.flow.StreamType;
 import org.openkilda.wfm.topology.flow.utils.BidirectionalFlow;
+import org.openkilda.wfm.topology.flow.utils.FlowIdGrouping;
 import org.openkilda.wfm.topology.flow.validation.FlowValidationException;
 import org.openkilda.wfm.topology.flow.validation.FlowValidator;
 
@@ -98,6 +102,12 @@ public class CrudBolt
      */
     private static final String FLOW_CACHE = "flow";
 
+    /**
+     * Max amount of flows in one flows dump response message.
+     */
+    @VisibleForTesting
+    static final int FLOWS_DUMP_CHUNK_SIZE = 500;
+
     /**
      * Path computation instance.
      */
@@ -117,6 +127,16 @@ public class CrudBolt
      */
     private FlowCache flowCache;
 
+    /**
+     * Index of this task, the task owns flows routed to it by {@link FlowIdGrouping}.
+     */
+    private int partition;
+
+    /**
+     * Amount of the bolt tasks.
+     */
+    private int partitionsCount;
+
     /**
      * Instance constructor.
      *
@@ -137,7 +157,7 @@ public class CrudBolt
         //  The reason for the qestion .. we are only putting in one object.
         flowCache = state.get(FLOW_CACHE);
         if (flowCache == null) {
-            flowCache = new FlowCache();
+            flowCache = new FlowCache(new ResourceCache(partition, partitionsCount));
             this.caches.put(FLOW_CACHE, flowCache);
         }
         initFlowCache();
@@ -154,6 +174,7 @@ public class CrudBolt
         outputFieldsDeclarer.declareStream(StreamType.STATUS.toString(), AbstractTopology.fieldMessage);
         outputFieldsDeclarer.declareStream(StreamType.RESPONSE.toString(), AbstractTopology.fieldMessage);
         outputFieldsDeclarer.declareStream(StreamType.ERROR.toString(), FlowTopology.fieldsMessageErrorType);
+        outputFieldsDeclarer.declareStream(StreamType.LATENCY.toString(), FlowTopology.fieldsLatencyTrace);
         // FIXME(dbogun): use proper tuple format
         outputFieldsDeclarer.declareStream(STREAM_ID_CTRL, AbstractTopology.fieldMessage);
     }
@@ -165,6 +186,8 @@ public class CrudBolt
     public void prepare(Map map, TopologyContext topologyContext, OutputCollector outputCollector) {
         this.context = topologyContext;
         this.outputCollector = outputCollector;
+        this.partition = topologyContext.getThisTaskIndex();
+        this.partitionsCount = topologyContext.getComponentTasks(topologyContext.getThisComponentId()).size();
 
         pathComputer = pathComputerAuth.connect();
     }
@@ -204,6 +227,8 @@ public class CrudBolt
 
                     logger.info("Flow request: {}={}, {}={}, component={}, stream={}",
                             Utils.CORRELATION_ID, correlationId, Utils.FLOW_ID, flowId, componentId, streamId);
+                    LatencyBolt.trace(outputCollector, correlationId, LatencyStage.CRUD,
+                            System.currentTimeMillis());
 
                     switch (streamId) {
                         case CREATE:
@@ -237,11 +262,10 @@ public class CrudBolt
                             handleCacheSyncRequest(cmsg, tuple);
                             break;
                         case READ:
-                            if (flowId != null) {
-                                handleReadRequest(flowId, cmsg, tuple);
-                            } else {
-                                handleDumpRequest(cmsg, tuple);
-                            }
+                            handleReadRequest(flowId, cmsg, tuple);
+                            break;
+                        case DUMP:
+                            handleDumpRequest(cmsg, tuple);
                             break;
                         default:
 
@@ -331,7 +355,22 @@ public class CrudBolt
         List<String> modifiedFlows = new ArrayList<>();
         List<String> unchangedFlows = new ArrayList<>();
 
-        List<FlowInfo> flowInfos = pathComputer.getFlowInfo();
+        // every task syncs only its own flows
+        List<FlowInfo> allFlowInfos = pathComputer.getFlowInfo();
+        List<FlowInfo> flowInfos = allFlowInfos.stream()
+                .filter(fi -> isOwnFlow(fi.getFlowId()))
+                .collect(Collectors.toList());
+
+        // flows of other tasks that are deleted or got new resources no longer hold the reserved ones
+        Set<String> foreignFlows = allFlowInfos.stream()
+                .filter(fi -> !isOwnFlow(fi.getFlowId()))
+                .map(fi -> fi.getFlowId() + fi.getCookie())
+                .collect(Collectors.toSet());
+        for (ImmutablePair<Flow, Flow> flow : flowCache.dumpReservedFlows()) {
+            if (!foreignFlows.contains(flow.left.getFlowId() + flow.left.getCookie())) {
+                flowCache.releaseResources(flow.left.getFlowId());
+            }
+        }
 
         // Instead of determining left/right .. store based on flowid_& cookie
         HashMap<String,FlowInfo> flowToInfo = new HashMap<>();
@@ -394,7 +433,7 @@ public class CrudBolt
         FlowCacheSyncResults results = new FlowCacheSyncResults(
                 droppedFlows.toArray(new String[0]), addedFlows.toArray(new String[0]),
                 modifiedFlows.toArray(new String[0]), unchangedFlows.toArray(new String[0]));
-        Values northbound = new Values(new InfoMessage(new FlowCacheSyncResponse(results),
+        Values northbound = new Values(new InfoMessage(new FlowCacheSyncResponse(results, getPartitionDescriptor()),
                 message.getTimestamp(), message.getCorrelationId(), Destination.NORTHBOUND));
         outputCollector.emit(StreamType.RESPONSE.toString(), tuple, northbound);
     }
@@ -463,6 +502,7 @@ public class CrudBolt
 
             path = pathComputer.getPath(requestedFlow, Strategy.COST);
             logger.info("Created flow path: {}", path);
+            tracePathComputation(message);
 
         } catch (FlowValidationException e) {
             throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
@@ -502,6 +542,7 @@ public class CrudBolt
                     logger.warn("Origin flow {} path: {}", flowId, flow.getLeft().getFlowPath());
                     ImmutablePair<PathInfoData, PathInfoData> path =
                             pathComputer.getPath(flow.getLeft(), Strategy.COST);
+                    tracePathComputation(message);
                     logger.warn("Rerouted flow {} with path: {}", flowId, path.getLeft());
                     boolean isFoundNewPath = false;
                     //no need to emit changes if path wasn't changed and flow is active.
@@ -591,6 +632,7 @@ public class CrudBolt
 
             path = pathComputer.getPath(requestedFlow, Strategy.COST);
             logger.info("Updated flow path: {}", path);
+            tracePathComputation(message);
 
         } catch (FlowValidationException e) {
             throw new MessageException(message.getCorrelationId(), System.currentTimeMillis(),
@@ -615,13 +657,34 @@ public class CrudBolt
     }
 
     private void handleDumpRequest(CommandMessage message, Tuple tuple) {
-        List<Flow> flows = flowCache.dumpFlows().stream().map(this::buildFlowResponse).collect(Collectors.toList());
-
-        logger.info("Dump flows: {}", flows);
-
-        Values northbound = new Values(new InfoMessage(new FlowsResponse(flows),
-                message.getTimestamp(), message.getCorrelationId(), Destination.NORTHBOUND));
-        outputCollector.emit(StreamType.RESPONSE.toString(), tuple, northbound);
+        FlowsGetRequest request = (FlowsGetRequest) message.getData();
+        String switchId = request.getSwitchId();
+        FlowState state = request.getPayload().getStatus();
+
+        List<Flow> flows = flowCache.dumpFlows().stream()
+                .filter(flow -> state == null || state == flow.getLeft().getState())
+                .filter(flow -> switchId == null
+                        || switchId.equals(flow.getLeft().getSourceSwitch())
+                        || switchId.equals(flow.getLeft().getDestinationSwitch()))
+                .map(this::buildFlowResponse)
+                .collect(Collectors.toList());
+
+        // NB: an empty dump is still sent as a single chunk, so northbound always gets a reply
+        int total = Math.max(1, (flows.size() + FLOWS_DUMP_CHUNK_SIZE - 1) / FLOWS_DUMP_CHUNK_SIZE);
+        logger.info("Dump flows: {}={}, partition={}, switch={}, state={}, flows={}, chunks={}",
+                Utils.CORRELATION_ID, message.getCorrelationId(), getPartitionDescriptor(), switchId, state,
+                flows.size(), total);
+
+        for (int idx = 0; idx < total; idx += 1) {
+            int from = idx * FLOWS_DUMP_CHUNK_SIZE;
+            List<Flow> chunk = new ArrayList<>(
+                    flows.subList(from, Math.min(from + FLOWS_DUMP_CHUNK_SIZE, flows.size())));
+
+            Values northbound = new Values(new InfoMessage(
+                    new FlowsResponse(chunk, new ChunkDescriptor(idx + 1, total), getPartitionDescriptor()),
+                    message.getTimestamp(), message.getCorrelationId(), Destination.NORTHBOUND));
+            outputCollector.emit(StreamType.RESPONSE.toString(), tuple, northbound);
+        }
     }
 
     private void handleReadRequest(String flowId, CommandMessage message, Tuple tuple) {
@@ -731,6 +794,11 @@ public class CrudBolt
                 System.currentTimeMillis(), correlationId, Destination.NORTHBOUND);
     }
 
+    private void tracePathComputation(CommandMessage message) {
+        LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.PATH_COMPUTATION,
+                System.currentTimeMillis());
+    }
+
     private boolean isFlowActive(ImmutablePair<Flow, Flow> flowPair) {
         return flowPair.getLeft().getState().isActive() && flowPair.getRight().getState().isActive();
     }
@@ -746,11 +814,25 @@ public class CrudBolt
             pair.add(flow);
         }
 
+        // resources of the flows owned by other tasks are reserved too, so they are never allocated twice
         for (BidirectionalFlow bidirectionalFlow : flowPairsMap.values()) {
-            flowCache.pushFlow(bidirectionalFlow.makeFlowPair());
+            ImmutablePair<Flow, Flow> flow = bidirectionalFlow.makeFlowPair();
+            if (isOwnFlow(flow.getLeft().getFlowId())) {
+                flowCache.pushFlow(flow);
+            } else {
+                flowCache.reserveResources(flow);
+            }
         }
     }
 
+    private boolean isOwnFlow(String flowId) {
+        return FlowIdGrouping.getPartition(flowId, partitionsCount) == partition;
+    }
+
+    private ChunkDescriptor getPartitionDescriptor() {
+        return new ChunkDescriptor(partition + 1, partitionsCount);
+    }
+
     @Override
     public AbstractDumpState dumpState() {
         FlowDump flowDump = new FlowDump(flowCache.dumpFlows());
@@ -0,0 +1,239 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.flow.bolts;
+
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.info.Datapoint;
+import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
+import org.openkilda.wfm.topology.flow.StreamType;
+import org.openkilda.wfm.topology.utils.AbstractTickRichBolt;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.HdrHistogram.Histogram;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency Bolt. Collects timestamps of the flow request pipeline stages keyed by correlation id and keeps
+ * a latency distribution per stage. Latency of a stage is the time passed since the closest preceding stage
+ * seen for the same correlation id. Distributions are flushed to OpenTSDB and reset every tick.
+ *
+ * <p>The bolt runs as a single task, so a distribution covers all the requests of the topology.
+ *
+ * <p>Stages reported from other processes (northbound, topology engine, speaker) use the timestamp of the
+ * message they sent, so their latencies include clock skew between the hosts.
+ */
+public class LatencyBolt extends AbstractTickRichBolt {
+    /**
+     * The logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(LatencyBolt.class);
+
+    public static final String METRIC_LATENCY = "pen.flow.latency";
+    public static final String METRIC_LATENCY_COUNT = "pen.flow.latency.count";
+
+    /**
+     * Latencies above this value are recorded as this value.
+     */
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Max amount of tracked correlation ids, the oldest one is dropped when the limit is reached.
+     */
+    private static final int MAX_TRACES = 100000;
+
+    /**
+     * Trace is dropped if it was started earlier than this.
+     */
+    private static final long TRACE_EXPIRE_TIME = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int TRACE_CREATED_IDX = LatencyStage.values().length;
+
+    private Map<String, long[]> traces;
+    private Map<LatencyStage, Histogram> histograms;
+
+    /**
+     * Instance constructor.
+     *
+     * @param flushInterval interval in seconds between latency metrics flushes
+     */
+    public LatencyBolt(int flushInterval) {
+        super(flushInterval);
+    }
+
+    /**
+     * Emits a pipeline stage timestamp to the latency bolt. The trace is not anchored: the latency bolt falling
+     * behind or failing must not fail the flow request and get it replayed.
+     *
+     * @param collector     output collector of the bolt reporting the stage
+     * @param correlationId request correlation id
+     * @param stage         reached stage
+     * @param timestamp     time the stage was reached at
+     */
+    public static void trace(OutputCollector collector, String correlationId, LatencyStage stage, long timestamp) {
+        if (correlationId != null) {
+            collector.emit(StreamType.LATENCY.toString(), new Values(correlationId, stage, timestamp));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(Map conf, TopologyContext context, OutputCollector collector) {
+        super.prepare(conf, context, collector);
+
+        traces = new LinkedHashMap<String, long[]>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > MAX_TRACES;
+            }
+        };
+        histograms = new EnumMap<>(LatencyStage.class);
+        for (LatencyStage stage : LatencyStage.values()) {
+            histograms.put(stage, new Histogram(HIGHEST_TRACKABLE_LATENCY, 2));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWork(Tuple tuple) {
+        try {
+            String correlationId = tuple.getStringByField(Utils.CORRELATION_ID);
+            LatencyStage stage = (LatencyStage) tuple.getValueByField(FlowTopology.LATENCY_STAGE_FIELD);
+            long timestamp = tuple.getLongByField(Utils.TIMESTAMP);
+
+            record(correlationId, stage, timestamp, System.currentTimeMillis());
+        } finally {
+            _collector.ack(tuple);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTick(Tuple tuple) {
+        long now = System.currentTimeMillis();
+        try {
+            for (Map.Entry<LatencyStage, Histogram> entry : histograms.entrySet()) {
+                Histogram histogram = entry.getValue();
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+
+                emitHistogram(entry.getKey(), histogram, now);
+                histogram.reset();
+            }
+        } catch (IOException e) {
+            logger.error("Could not serialize latency datapoint", e);
+        }
+
+        expireTraces(now);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(AbstractTopology.fieldMessage);
+    }
+
+    @VisibleForTesting
+    void record(String correlationId, LatencyStage stage, long timestamp, long now) {
+        long[] trace = traces.get(correlationId);
+        if (trace == null) {
+            trace = new long[TRACE_CREATED_IDX + 1];
+            trace[TRACE_CREATED_IDX] = now;
+            traces.put(correlationId, trace);
+        }
+
+        for (int idx = stage.ordinal() - 1; 0 <= idx; idx -= 1) {
+            if (trace[idx] == 0) {
+                continue;
+            }
+
+            long latency = Math.max(0, Math.min(timestamp - trace[idx], HIGHEST_TRACKABLE_LATENCY));
+            histograms.get(stage).recordValue(latency);
+            break;
+        }
+        trace[stage.ordinal()] = timestamp;
+    }
+
+    @VisibleForTesting
+    Histogram getHistogram(LatencyStage stage) {
+        return histograms.get(stage);
+    }
+
+    @VisibleForTesting
+    int getTracesCount() {
+        return traces.size();
+    }
+
+    @VisibleForTesting
+    void expireTraces(long now) {
+        // traces are kept in creation order, so we can stop on the first not expired one
+        Iterator<long[]> iterator = traces.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next()[TRACE_CREATED_IDX] < TRACE_EXPIRE_TIME) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void emitHistogram(LatencyStage stage, Histogram histogram, long timestamp) throws IOException {
+        String stageTag = stage.toString().toLowerCase();
+
+        emitDatapoint(METRIC_LATENCY, timestamp, histogram.getValueAtPercentile(50), stageTag, "p50");
+        emitDatapoint(METRIC_LATENCY, timestamp, histogram.getValueAtPercentile(90), stageTag, "p90");
+        emitDatapoint(METRIC_LATENCY, timestamp, histogram.getValueAtPercentile(99), stageTag, "p99");
+        emitDatapoint(METRIC_LATENCY, timestamp, histogram.getMaxValue(), stageTag, "max");
+        emitDatapoint(METRIC_LATENCY_COUNT, timestamp, histogram.getTotalCount(), stageTag, null);
+    }
+
+    private void emitDatapoint(String metric, long timestamp, Number value, String stage, String quantile)
+            throws IOException {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("stage", stage);
+        if (quantile != null) {
+            tags.put("quantile", quantile);
+        }
+
+        Datapoint datapoint = new Datapoint(metric, timestamp, tags, value);
+        _collector.emit(new Values(MAPPER.writeValueAsString(datapoint)));
+    }
+}
@@ -22,6 +22,8 @@ import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Utils;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.flow.ComponentType;
+import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
 import org.openkilda.wfm.topology.flow.StreamType;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -75,6 +77,9 @@ public class NorthboundReplyBolt extends BaseRichBolt {
                     values = new Values(MAPPER.writeValueAsString(message));
                     outputCollector.emit(StreamType.RESPONSE.toString(), tuple, values);
 
+                    LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.REPLY,
+                            System.currentTimeMillis());
+
                     break;
 
                 default:
@@ -99,6 +104,7 @@ public class NorthboundReplyBolt extends BaseRichBolt {
     @Override
     public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
         outputFieldsDeclarer.declareStream(StreamType.RESPONSE.toString(), AbstractTopology.fieldMessage);
+        outputFieldsDeclarer.declareStream(StreamType.LATENCY.toString(), FlowTopology.fieldsLatencyTrace);
     }
 
     /**
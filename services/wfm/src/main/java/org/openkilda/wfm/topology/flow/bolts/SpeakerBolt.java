@@ -27,6 +27,7 @@ import org.openkilda.messaging.command.flow.RemoveFlow;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.payload.flow.FlowState;
 import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
 import org.openkilda.wfm.topology.flow.StreamType;
 
 import org.slf4j.LoggerFactory;
@@ -88,6 +89,7 @@ public class SpeakerBolt extends BaseRichBolt {
                     values = new Values(MAPPER.writeValueAsString(message), switchId, flowId, transactionId);
                     // FIXME(surabujin): looks like TE ignore this messages
                     outputCollector.emit(StreamType.CREATE.toString(), tuple, values);
+                    traceTransactionClose(message);
 
                 } else if (data instanceof RemoveFlow) {
 
@@ -102,6 +104,7 @@ public class SpeakerBolt extends BaseRichBolt {
                     message.setDestination(Destination.TOPOLOGY_ENGINE);
                     values = new Values(MAPPER.writeValueAsString(message), switchId, flowId, transactionId);
                     outputCollector.emit(StreamType.DELETE.toString(), tuple, values);
+                    traceTransactionClose(message);
 
                 } else {
                     logger.debug("Skip undefined command message: {}={}, message={}",
@@ -147,6 +150,17 @@ public class SpeakerBolt extends BaseRichBolt {
         outputFieldsDeclarer.declareStream(StreamType.CREATE.toString(), FlowTopology.fieldsMessageSwitchIdFlowIdTransactionId);
         outputFieldsDeclarer.declareStream(StreamType.DELETE.toString(), FlowTopology.fieldsMessageSwitchIdFlowIdTransactionId);
         outputFieldsDeclarer.declareStream(StreamType.STATUS.toString(), FlowTopology.fieldsFlowIdStatus);
+        outputFieldsDeclarer.declareStream(StreamType.LATENCY.toString(), FlowTopology.fieldsLatencyTrace);
+    }
+
+    /**
+     * Transaction is closed by the transaction bolt right after the speaker reply passes this bolt.
+     */
+    private void traceTransactionClose(Message message) {
+        LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.SPEAKER,
+                message.getTimestamp());
+        LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.TRANSACTION_CLOSE,
+                System.currentTimeMillis());
     }
 
     /**
@@ -37,6 +37,7 @@ import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.flow.FlowInfoData;
 import org.openkilda.messaging.info.flow.FlowOperation;
 import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
 import org.openkilda.wfm.topology.flow.StreamType;
 
 import org.slf4j.LoggerFactory;
@@ -130,6 +131,11 @@ public class SplitterBolt extends BaseRichBolt {
             /*
              * Second, it isn't an InfoMessage, so it must be a CommandMessage.
              */
+            LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.NORTHBOUND,
+                    message.getTimestamp());
+            LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.SPLITTER,
+                    System.currentTimeMillis());
+
             CommandData data = ((CommandMessage) message).getData();
 
             if (data instanceof FlowCreateRequest) {
@@ -192,7 +198,7 @@ public class SplitterBolt extends BaseRichBolt {
                 logger.info("Flows get message: values={}", values);
 
                 values = new Values(message, null);
-                outputCollector.emit(StreamType.READ.toString(), tuple, values);
+                outputCollector.emit(StreamType.DUMP.toString(), tuple, values);
 
             } else if (data instanceof FlowPathRequest) {
                 String flowId = ((FlowPathRequest) data).getPayload().getId();
@@ -248,6 +254,7 @@ public class SplitterBolt extends BaseRichBolt {
     public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
         outputFieldsDeclarer.declareStream(StreamType.CREATE.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.READ.toString(), FlowTopology.fieldsMessageFlowId);
+        outputFieldsDeclarer.declareStream(StreamType.DUMP.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.UPDATE.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.DELETE.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.PUSH.toString(), FlowTopology.fieldsMessageFlowId);
@@ -258,6 +265,7 @@ public class SplitterBolt extends BaseRichBolt {
         outputFieldsDeclarer.declareStream(StreamType.RESTORE.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.REROUTE.toString(), FlowTopology.fieldsMessageFlowId);
         outputFieldsDeclarer.declareStream(StreamType.ERROR.toString(), FlowTopology.fieldsMessageErrorType);
+        outputFieldsDeclarer.declareStream(StreamType.LATENCY.toString(), FlowTopology.fieldsLatencyTrace);
     }
 
     /**
@@ -27,6 +27,7 @@ import org.openkilda.messaging.command.flow.RemoveFlow;
 import org.openkilda.messaging.error.ErrorMessage;
 import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.wfm.topology.flow.FlowTopology;
+import org.openkilda.wfm.topology.flow.LatencyStage;
 import org.openkilda.wfm.topology.flow.StreamType;
 
 import org.slf4j.LoggerFactory;
@@ -89,6 +90,7 @@ public class TopologyEngineBolt extends BaseRichBolt {
                     message.setDestination(Destination.CONTROLLER);
                     values = new Values(MAPPER.writeValueAsString(message), switchId, flowId, transactionId);
                     outputCollector.emit(StreamType.CREATE.toString(), tuple, values);
+                    traceTransactionOpen(message);
 
                 } else if (data instanceof RemoveFlow) {
                     RemoveFlow removeData = (RemoveFlow) data;
@@ -104,6 +106,7 @@ public class TopologyEngineBolt extends BaseRichBolt {
                     message.setDestination(Destination.CONTROLLER);
                     values = new Values(MAPPER.writeValueAsString(message), switchId, flowId, transactionId);
                     outputCollector.emit(StreamType.DELETE.toString(), tuple, values);
+                    traceTransactionOpen(message);
 
                 } else {
                     logger.debug("Skip undefined command message: {}={}, message={}",
@@ -149,6 +152,17 @@ public class TopologyEngineBolt extends BaseRichBolt {
         outputFieldsDeclarer.declareStream(StreamType.DELETE.toString(), FlowTopology.fieldsMessageSwitchIdFlowIdTransactionId);
         outputFieldsDeclarer.declareStream(StreamType.RESPONSE.toString(), FlowTopology.fieldMessage);
         outputFieldsDeclarer.declareStream(StreamType.STATUS.toString(), FlowTopology.fieldsMessageFlowId);
+        outputFieldsDeclarer.declareStream(StreamType.LATENCY.toString(), FlowTopology.fieldsLatencyTrace);
+    }
+
+    /**
+     * Transaction is opened by the transaction bolt right after the command passes this bolt.
+     */
+    private void traceTransactionOpen(Message message) {
+        LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.TOPOLOGY_ENGINE,
+                message.getTimestamp());
+        LatencyBolt.trace(outputCollector, message.getCorrelationId(), LatencyStage.TRANSACTION_OPEN,
+                System.currentTimeMillis());
     }
 
     /**
@@ -0,0 +1,70 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.flow.utils;
+
+import org.openkilda.messaging.Utils;
+
+import org.apache.storm.generated.GlobalStreamId;
+import org.apache.storm.grouping.CustomStreamGrouping;
+import org.apache.storm.task.WorkerTopologyContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Routes tuples by the flow id field to the task owning the flow. Unlike fields grouping, the owner of a flow
+ * is defined by {@link #getPartition(String, int)}, so bolts can tell which flows they own, i.e. when the
+ * flow cache is loaded from the database.
+ */
+public class FlowIdGrouping implements CustomStreamGrouping {
+    private static final long serialVersionUID = 1L;
+
+    private List<Integer> targetTasks;
+    private int flowIdIndex;
+
+    /**
+     * Returns index of the task owning the flow. Tuples without flow id, i.e. error replies, go to the first task.
+     *
+     * @param flowId          flow id
+     * @param partitionsCount amount of tasks
+     * @return task index, starts from 0
+     */
+    public static int getPartition(String flowId, int partitionsCount) {
+        return Math.floorMod(Objects.hashCode(flowId), partitionsCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(WorkerTopologyContext context, GlobalStreamId stream, List<Integer> targetTasks) {
+        // task index of the bolt is its position in the sorted list of component tasks
+        this.targetTasks = new ArrayList<>(targetTasks);
+        Collections.sort(this.targetTasks);
+        flowIdIndex = context.getComponentOutputFields(stream).fieldIndex(Utils.FLOW_ID);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> chooseTasks(int taskId, List<Object> values) {
+        String flowId = (String) values.get(flowIdIndex);
+        return Collections.singletonList(targetTasks.get(getPartition(flowId, targetTasks.size())));
+    }
+}
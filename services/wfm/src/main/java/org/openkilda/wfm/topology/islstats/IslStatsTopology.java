@@ -57,7 +57,7 @@ public class IslStatsTopology extends AbstractTopology {
 
         final String openTsdbTopic = config.getKafkaOtsdbTopic();
         checkAndCreateTopic(openTsdbTopic);
-        KafkaBolt openTsdbBolt = createKafkaBolt(openTsdbTopic);
+        KafkaBolt openTsdbBolt = createKafkaBytesBolt(openTsdbTopic);
         builder.setBolt("isl-stats-opentsdb", openTsdbBolt, config.getParallelism())
                 .shuffleGrouping(verifyIslStatsBoltName);
 
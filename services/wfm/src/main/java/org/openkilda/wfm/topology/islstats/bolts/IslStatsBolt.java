@@ -24,12 +24,12 @@ import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Tuple;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Utils;
-import org.openkilda.messaging.info.Datapoint;
 import org.openkilda.messaging.info.InfoData;
 import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.opentsdb.DatapointWriter;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -42,10 +42,11 @@ public class IslStatsBolt extends BaseRichBolt {
     private OutputCollector collector;
     private static final Logger logger = LoggerFactory.getLogger(IslStatsBolt.class);
 
-    private static List<Object> tsdbTuple(String metric, long timestamp, Number value, Map<String, String> tag)
+    private static List<Object> tsdbTuple(String metric, long timestamp, long value, Map<String, String> tag)
             throws IOException{
-        Datapoint datapoint = new Datapoint(metric, timestamp, tag, value);
-        return Collections.singletonList(Utils.MAPPER.writeValueAsString(datapoint));
+        DatapointWriter writer = new DatapointWriter();
+        writer.add(metric, timestamp, value, tag);
+        return Collections.singletonList(writer.finish());
     }
 
     @Override
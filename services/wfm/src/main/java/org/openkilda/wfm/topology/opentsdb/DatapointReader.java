@@ -0,0 +1,106 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.opentsdb;
+
+import org.openkilda.messaging.info.Datapoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the binary records of the otsdb topic, the format is described in {@link DatapointWriter}.
+ */
+public final class DatapointReader {
+    private DatapointReader() {
+    }
+
+    /**
+     * @return true if the record is a binary one, not a JSON text
+     */
+    public static boolean isBinary(byte[] record) {
+        return record.length != 0 && record[0] == DatapointWriter.MAGIC;
+    }
+
+    public static List<Datapoint> read(byte[] record) throws IOException {
+        if (!isBinary(record)) {
+            throw new IOException("Not a binary datapoint record");
+        }
+        if (record.length < 2 || record[1] != DatapointWriter.VERSION) {
+            throw new IOException(String.format("Unsupported datapoint record version %d",
+                    record.length < 2 ? -1 : record[1]));
+        }
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record, 2, record.length - 2));
+        List<String> dictionary = new ArrayList<>();
+        List<Datapoint> result = new ArrayList<>();
+        while (0 < input.available()) {
+            String metric = readString(input, dictionary);
+            long time = input.readLong();
+            Number value = readValue(input);
+
+            int count = readVarInt(input);
+            Map<String, String> tags = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                tags.put(readString(input, dictionary), readString(input, dictionary));
+            }
+
+            result.add(new Datapoint(metric, time, tags, value));
+        }
+        return result;
+    }
+
+    private static Number readValue(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case DatapointWriter.TYPE_LONG:
+                return input.readLong();
+            case DatapointWriter.TYPE_DOUBLE:
+                return input.readDouble();
+            default:
+                throw new IOException(String.format("Unknown datapoint value type %d", type));
+        }
+    }
+
+    private static String readString(DataInputStream input, List<String> dictionary) throws IOException {
+        int index = readVarInt(input);
+        if (index < dictionary.size()) {
+            return dictionary.get(index);
+        }
+        if (index != dictionary.size()) {
+            throw new IOException(String.format("Invalid datapoint string index %d", index));
+        }
+
+        String value = input.readUTF();
+        dictionary.add(value);
+        return value;
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int value = input.readUnsignedByte();
+            result |= (value & 0x7f) << shift;
+            if ((value & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in datapoint record");
+    }
+}
@@ -0,0 +1,138 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.opentsdb;
+
+import org.openkilda.messaging.info.Datapoint;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The last written value of every series, to skip writing the unchanged ones. A series is identified by the metric
+ * and the sorted tags.
+ *
+ * The store is bounded. The series not seen for the TTL are evicted, and so are the least recently seen series
+ * once the estimated memory is over the limit.
+ */
+public class DatapointStore {
+    /**
+     * A rough cost of the map entry, the stored value and the key string, on top of the key chars.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final long rewriteInterval;
+    private final long ttl;
+    private final long maxMemory;
+
+    private final LinkedHashMap<String, Entry> series = new LinkedHashMap<>(16, 0.75f, true);
+    private long memory = 0;
+    private long evictions = 0;
+
+    /**
+     * @param rewriteInterval an unchanged value is written again once the last write is this old, in ms
+     * @param ttl a series not seen for this long, in ms, is evicted
+     * @param maxMemory the limit of the estimated memory, in bytes
+     */
+    public DatapointStore(long rewriteInterval, long ttl, long maxMemory) {
+        this.rewriteInterval = rewriteInterval;
+        this.ttl = ttl;
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Checks whether the datapoint has to be written and remembers it if so.
+     *
+     * @param now the current time, in ms, it drives the TTL
+     * @return true if the series is new, its value changed or the last write is older than the rewrite interval
+     */
+    public boolean update(Datapoint datapoint, long now) {
+        String key = makeKey(datapoint);
+        Entry entry = series.get(key);
+        if (entry == null) {
+            entry = new Entry(ENTRY_OVERHEAD + 2 * key.length());
+            series.put(key, entry);
+            memory += entry.size;
+        } else if (Objects.equals(entry.value, datapoint.getValue())
+                && datapoint.getTime() - entry.time < rewriteInterval) {
+            entry.lastSeen = now;
+            evict(now);
+            return false;
+        }
+
+        entry.value = datapoint.getValue();
+        entry.time = datapoint.getTime();
+        entry.lastSeen = now;
+        evict(now);
+        return true;
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    public long getMemory() {
+        return memory;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DatapointStore{series=%d, memory=%d, evictions=%d}", series.size(), memory, evictions);
+    }
+
+    public static String makeKey(Datapoint datapoint) {
+        StringBuilder key = new StringBuilder(datapoint.getMetric());
+        Map<String, String> tags = datapoint.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            for (Map.Entry<String, String> tag : new TreeMap<>(tags).entrySet()) {
+                key.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * The series are in the order they were seen last, so the eviction candidates are at the head.
+     */
+    private void evict(long now) {
+        Iterator<Entry> iterator = series.values().iterator();
+        while (iterator.hasNext()) {
+            Entry head = iterator.next();
+            if (memory <= maxMemory && now - head.lastSeen < ttl) {
+                break;
+            }
+            iterator.remove();
+            memory -= head.size;
+            evictions += 1;
+        }
+    }
+
+    private static final class Entry {
+        private final int size;
+        private Number value;
+        private long time;
+        private long lastSeen;
+
+        Entry(int size) {
+            this.size = size;
+        }
+    }
+}
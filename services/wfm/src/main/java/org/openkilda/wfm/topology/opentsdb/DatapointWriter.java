@@ -0,0 +1,132 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.opentsdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes many datapoints as one binary record of the otsdb topic, {@link DatapointReader} reads it back.
+ *
+ * The record starts with the {@link #MAGIC} byte and the {@link #VERSION}, then go the datapoints one after another
+ * till the end of the record:
+ * <pre>
+ *     metric      string
+ *     time        long
+ *     value       byte {@link #TYPE_LONG} and long, or byte {@link #TYPE_DOUBLE} and double
+ *     tags count  varint
+ *     tags        string key, string value
+ * </pre>
+ * The strings are dictionary encoded: a string is written as its varint index in the dictionary of the record,
+ * the index of a string seen for the first time is the size of the dictionary, and the string itself follows in
+ * the modified UTF-8 of {@link DataOutputStream#writeUTF}. The metric names, tag keys and most of the tag values
+ * repeat from datapoint to datapoint, so they take a byte or two each.
+ *
+ * The fields are written one by one, so a datapoint needs no object of its own and the tags map can be reused as
+ * soon as {@link #add} returns.
+ */
+public class DatapointWriter {
+    /**
+     * Never the first byte of a JSON record, the readers tell the binary records from the JSON ones by it.
+     */
+    public static final byte MAGIC = 0;
+    public static final byte VERSION = 1;
+
+    static final byte TYPE_LONG = 0;
+    static final byte TYPE_DOUBLE = 1;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream output = new DataOutputStream(buffer);
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int size = 0;
+
+    public DatapointWriter() {
+        clear();
+    }
+
+    public void add(String metric, long time, long value, Map<String, String> tags) throws IOException {
+        writeString(metric);
+        output.writeLong(time);
+        output.writeByte(TYPE_LONG);
+        output.writeLong(value);
+        writeTags(tags);
+        size += 1;
+    }
+
+    public void add(String metric, long time, double value, Map<String, String> tags) throws IOException {
+        writeString(metric);
+        output.writeLong(time);
+        output.writeByte(TYPE_DOUBLE);
+        output.writeDouble(value);
+        writeTags(tags);
+        size += 1;
+    }
+
+    /**
+     * @return the record with the datapoints added so far, the writer starts over
+     */
+    public byte[] finish() {
+        byte[] result = buffer.toByteArray();
+        clear();
+        return result;
+    }
+
+    /**
+     * Drops the datapoints added so far.
+     */
+    public void clear() {
+        buffer.reset();
+        dictionary.clear();
+        size = 0;
+        buffer.write(MAGIC);
+        buffer.write(VERSION);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void writeTags(Map<String, String> tags) throws IOException {
+        writeVarInt(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeString(tag.getKey());
+            writeString(tag.getValue());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarInt(index);
+            return;
+        }
+
+        int next = dictionary.size();
+        dictionary.put(value, next);
+        writeVarInt(next);
+        output.writeUTF(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+}
@@ -24,13 +24,16 @@ import org.apache.storm.generated.StormTopology;
 import org.apache.storm.opentsdb.bolt.OpenTsdbBolt;
 import org.apache.storm.opentsdb.bolt.TupleOpenTsdbDatapointMapper;
 import org.apache.storm.opentsdb.client.OpenTsdbClient;
+import org.apache.storm.topology.BoltDeclarer;
 import org.apache.storm.topology.TopologyBuilder;
 import org.openkilda.wfm.ConfigurationException;
 import org.openkilda.wfm.LaunchEnvironment;
 import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.opentsdb.bolts.OpenTSDBFilterBolt;
+import org.openkilda.wfm.topology.opentsdb.bolts.RollupBolt;
 
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Apache Storm topology for sending metrics into Open TSDB.
@@ -47,6 +50,7 @@ public class OpenTSDBTopology extends AbstractTopology {
     private final String spoutId = topic + "-spout";
     private final String boltId = topic + "-bolt";
     private final String parseBoltId = topic + "parse-bolt";
+    private final String rollupBoltId = topic + "-rollup-bolt";
 
     @Override
     public StormTopology createTopology() {
@@ -55,14 +59,18 @@ public class OpenTSDBTopology extends AbstractTopology {
 
         checkAndCreateTopic(topic);
 
-        KafkaSpout kafkaSpout = createKafkaSpout(topic, spoutId);
+        // the metric generators write binary records, the other producers JSON text
+        KafkaSpout kafkaSpout = createKafkaBytesSpout(topic, spoutId);
         tb.setSpout(spoutId, kafkaSpout, config.getOpenTsdbNumSpouts());
 
         tb.setBolt(parseBoltId, new DatapointParseBolt(), config.getGetDatapointParseBoltExecutors())
                 .setNumTasks(config.getGetDatapointParseBoltWorkers())
                 .shuffleGrouping(spoutId);
 
-        tb.setBolt(boltId, new OpenTSDBFilterBolt(), config.getOpenTsdbFilterBoltExecutors())
+        OpenTSDBFilterBolt filterBolt = new OpenTSDBFilterBolt(
+                TimeUnit.SECONDS.toMillis(config.getOpenTsdbFilterTtl()),
+                config.getOpenTsdbFilterMaxMemory() * 1024L * 1024L);
+        tb.setBolt(boltId, filterBolt, config.getOpenTsdbFilterBoltExecutors())
                 .fieldsGrouping(parseBoltId, new Fields("hash"));
 
         OpenTsdbClient.Builder tsdbBuilder = OpenTsdbClient
@@ -78,10 +86,19 @@ public class OpenTSDBTopology extends AbstractTopology {
                 Collections.singletonList(TupleOpenTsdbDatapointMapper.DEFAULT_MAPPER));
         openTsdbBolt.withBatchSize(config.getOpenTsdbBatchSize()).withFlushInterval(config.getOpenTsdbFlushInterval());
 //                .failTupleForFailedMetrics();
-        tb.setBolt("opentsdb", openTsdbBolt, config.getOpenTsdbBoltExecutors())
+        BoltDeclarer openTsdbBoltSetup = tb.setBolt("opentsdb", openTsdbBolt, config.getOpenTsdbBoltExecutors())
                 .setNumTasks(config.getOpenTsdbBoltWorkers())
                 .shuffleGrouping(boltId);
 
+        // the aggregates bypass the filter, they are written once per window anyway
+        if (!config.getOpenTsdbRollupPrefixes().isEmpty()) {
+            RollupBolt rollupBolt = new RollupBolt(
+                    config.getOpenTsdbRollupPrefixes(), config.getOpenTsdbRollupWindows());
+            tb.setBolt(rollupBoltId, rollupBolt, config.getOpenTsdbFilterBoltExecutors())
+                    .fieldsGrouping(parseBoltId, new Fields("hash"));
+            openTsdbBoltSetup.shuffleGrouping(rollupBoltId);
+        }
+
         return tb.createTopology();
     }
 
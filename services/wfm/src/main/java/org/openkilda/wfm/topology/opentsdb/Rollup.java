@@ -0,0 +1,200 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.opentsdb;
+
+import org.openkilda.messaging.info.Datapoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tumbling window aggregates of the series, written as separate metrics: {@code <metric>.<window>.min}, max, avg and
+ * last, e.g. {@code pen.flow.bps.5m.avg}. The aggregate is timestamped with the start of its window.
+ *
+ * A window is closed by the first datapoint of the next window, or by {@link #flush} once it is over for a while,
+ * so a series that stops reporting still gets its last windows written. A datapoint older than the current window
+ * of its series is dropped.
+ */
+public class Rollup {
+    /**
+     * How long, in ms, a window is kept open after its end, for the late datapoints.
+     */
+    static final long FLUSH_DELAY = 30000;
+
+    private final List<String> prefixes;
+    private final long[] windows;
+    private final String[] names;
+    private final long idleTimeout;
+
+    private final Map<String, Series> series = new HashMap<>();
+
+    /**
+     * @param prefixes the metrics to aggregate
+     * @param windows the window lengths, in seconds
+     */
+    public Rollup(List<String> prefixes, List<Integer> windows) {
+        this.prefixes = new ArrayList<>(prefixes);
+        this.windows = new long[windows.size()];
+        this.names = new String[windows.size()];
+
+        long longest = 0;
+        for (int i = 0; i < windows.size(); i++) {
+            int seconds = windows.get(i);
+            if (seconds <= 0) {
+                throw new IllegalArgumentException(String.format("Invalid rollup window %d", seconds));
+            }
+            this.windows[i] = seconds * 1000L;
+            this.names[i] = makeName(seconds);
+            longest = Math.max(longest, this.windows[i]);
+        }
+        this.idleTimeout = 2 * longest + FLUSH_DELAY;
+    }
+
+    public boolean isRollup(String metric) {
+        for (String prefix : prefixes) {
+            if (metric.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the datapoint to the windows of its series, the windows it closes go to the output.
+     */
+    public void add(Datapoint datapoint, List<Datapoint> output) {
+        if (datapoint.getValue() == null || datapoint.getTime() == null) {
+            return;
+        }
+
+        String key = DatapointStore.makeKey(datapoint);
+        Series entry = series.get(key);
+        if (entry == null) {
+            entry = new Series(datapoint.getMetric(), datapoint.getTags(), windows.length);
+            series.put(key, entry);
+        }
+
+        long time = datapoint.getTime();
+        double value = datapoint.getValue().doubleValue();
+        entry.lastSeen = Math.max(entry.lastSeen, time);
+        for (int i = 0; i < windows.length; i++) {
+            Window window = entry.windows[i];
+            long start = time - Math.floorMod(time, windows[i]);
+            if (window.count != 0 && window.start != start) {
+                if (start < window.start) {
+                    continue;
+                }
+                close(entry, i, output);
+            }
+            window.add(start, time, value);
+        }
+    }
+
+    /**
+     * Closes the windows that are over for the flush delay and forgets the series that stopped reporting.
+     *
+     * @param now the current time, in ms
+     */
+    public void flush(long now, List<Datapoint> output) {
+        Iterator<Series> iterator = series.values().iterator();
+        while (iterator.hasNext()) {
+            Series entry = iterator.next();
+            boolean isEmpty = true;
+            for (int i = 0; i < windows.length; i++) {
+                Window window = entry.windows[i];
+                if (window.count != 0 && window.start + windows[i] + FLUSH_DELAY <= now) {
+                    close(entry, i, output);
+                }
+                isEmpty &= window.count == 0;
+            }
+
+            if (isEmpty && entry.lastSeen + idleTimeout <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    private void close(Series entry, int index, List<Datapoint> output) {
+        Window window = entry.windows[index];
+        String prefix = entry.metric + "." + names[index] + ".";
+        output.add(new Datapoint(prefix + "min", window.start, entry.tags, window.min));
+        output.add(new Datapoint(prefix + "max", window.start, entry.tags, window.max));
+        output.add(new Datapoint(prefix + "avg", window.start, entry.tags, window.sum / window.count));
+        output.add(new Datapoint(prefix + "last", window.start, entry.tags, window.last));
+        window.count = 0;
+    }
+
+    private static String makeName(int seconds) {
+        if (seconds % 3600 == 0) {
+            return (seconds / 3600) + "h";
+        }
+        if (seconds % 60 == 0) {
+            return (seconds / 60) + "m";
+        }
+        return seconds + "s";
+    }
+
+    private static final class Series {
+        private final String metric;
+        private final Map<String, String> tags;
+        private final Window[] windows;
+        private long lastSeen = 0;
+
+        Series(String metric, Map<String, String> tags, int count) {
+            this.metric = metric;
+            this.tags = tags;
+            this.windows = new Window[count];
+            for (int i = 0; i < count; i++) {
+                windows[i] = new Window();
+            }
+        }
+    }
+
+    private static final class Window {
+        private long start;
+        private long count = 0;
+        private double min;
+        private double max;
+        private double sum;
+        private double last;
+        private long lastTime;
+
+        void add(long start, long time, double value) {
+            if (count == 0) {
+                this.start = start;
+                min = value;
+                max = value;
+                sum = 0;
+                lastTime = time;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            sum += value;
+            if (lastTime <= time) {
+                last = value;
+                lastTime = time;
+            }
+            count += 1;
+        }
+    }
+}
@@ -7,9 +7,13 @@ import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
 import org.openkilda.messaging.info.Datapoint;
+import org.openkilda.wfm.topology.opentsdb.DatapointReader;
+import org.openkilda.wfm.topology.opentsdb.DatapointWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,22 +30,48 @@ public class DatapointParseBolt extends BaseRichBolt {
         this.collector = collector;
     }
 
+    /**
+     * The message is either a binary record of {@link DatapointWriter}, or a JSON text of a datapoint or an array
+     * of them, as the other producers of the topic write it.
+     */
     @Override
     public void execute(Tuple tuple) {
-        final String data = tuple.getString(0);
-        LOGGER.debug("Processing datapoint: " + data);
+        Object value = tuple.getValue(0);
         try {
-            Datapoint datapoint = MAPPER.readValue(data, Datapoint.class);
-            List<Object> stream = Stream.of(datapoint.hashCode(), datapoint)
-                    .collect(Collectors.toList());
-            collector.emit(stream);
+            if (value instanceof byte[] && DatapointReader.isBinary((byte[]) value)) {
+                List<Datapoint> datapoints = DatapointReader.read((byte[]) value);
+                LOGGER.debug("Processing {} datapoints", datapoints.size());
+                for (Datapoint datapoint : datapoints) {
+                    emit(datapoint);
+                }
+            } else {
+                parseJson(value instanceof byte[]
+                        ? new String((byte[]) value, StandardCharsets.UTF_8) : (String) value);
+            }
         } catch (Exception e) {
-            LOGGER.error("Failed reading data: " + data, e);
+            LOGGER.error("Failed reading data: " + value, e);
         } finally {
             collector.ack(tuple);
         }
     }
 
+    private void parseJson(String data) throws IOException {
+        LOGGER.debug("Processing datapoint: " + data);
+        if (data.startsWith("[")) {
+            for (Datapoint datapoint : MAPPER.readValue(data, Datapoint[].class)) {
+                emit(datapoint);
+            }
+        } else {
+            emit(MAPPER.readValue(data, Datapoint.class));
+        }
+    }
+
+    private void emit(Datapoint datapoint) {
+        List<Object> stream = Stream.of(datapoint.hashCode(), datapoint)
+                .collect(Collectors.toList());
+        collector.emit(stream);
+    }
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         declarer.declare(new Fields("hash", "datapoint"));
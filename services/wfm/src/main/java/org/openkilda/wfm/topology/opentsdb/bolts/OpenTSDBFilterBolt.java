@@ -27,10 +27,10 @@ import org.apache.storm.topology.base.BaseRichBolt;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
 import org.openkilda.messaging.info.Datapoint;
+import org.openkilda.wfm.topology.opentsdb.DatapointStore;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,19 +38,38 @@ public class OpenTSDBFilterBolt extends BaseRichBolt {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OpenTSDBFilterBolt.class);
     private static final long TEN_MINUTES = 60000L;
+    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_MAX_MEMORY = 64 * 1024 * 1024;
 
-    private static final Fields DECLARED_FIELDS =
+    static final Fields DECLARED_FIELDS =
             new Fields(TupleOpenTsdbDatapointMapper.DEFAULT_MAPPER.getMetricField(),
                     TupleOpenTsdbDatapointMapper.DEFAULT_MAPPER.getTimestampField(),
                     TupleOpenTsdbDatapointMapper.DEFAULT_MAPPER.getValueField(),
                     TupleOpenTsdbDatapointMapper.DEFAULT_MAPPER.getTagsField());
 
-    private ConcurrentMap<Integer, Datapoint> storage = new ConcurrentHashMap<>();
+    private final long ttl;
+    private final long maxMemory;
+
+    private DatapointStore storage;
     private OutputCollector collector;
 
+    public OpenTSDBFilterBolt() {
+        this(DEFAULT_TTL, DEFAULT_MAX_MEMORY);
+    }
+
+    /**
+     * @param ttl a series not seen for this long, in ms, is forgotten
+     * @param maxMemory how much memory, in bytes, the last values of the series may take
+     */
+    public OpenTSDBFilterBolt(long ttl, long maxMemory) {
+        this.ttl = ttl;
+        this.maxMemory = maxMemory;
+    }
+
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.collector = collector;
+        this.storage = new DatapointStore(TEN_MINUTES, ttl, maxMemory);
     }
 
     @Override
@@ -63,13 +82,12 @@ public class OpenTSDBFilterBolt extends BaseRichBolt {
         Datapoint datapoint = (Datapoint) tuple.getValueByField("datapoint");
 
 
-        if (isUpdateRequired(datapoint)) {
-            addDatapoint(datapoint);
-
+        if (storage.update(datapoint, System.currentTimeMillis())) {
             List<Object> stream = Stream.of(datapoint.getMetric(), datapoint.getTime(), datapoint.getValue(),
                     datapoint.getTags()).collect(Collectors.toList());
 
             LOGGER.debug("emit: " + stream);
+            LOGGER.debug("storage: {}", storage);
             collector.emit(stream);
         }
         collector.ack(tuple);
@@ -79,20 +97,4 @@ public class OpenTSDBFilterBolt extends BaseRichBolt {
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         declarer.declare(DECLARED_FIELDS);
     }
-
-    private void addDatapoint(Datapoint datapoint) {
-        LOGGER.debug("adding datapoint: " + datapoint.hashCode());
-        LOGGER.debug("storage.size: " + storage.size());
-        storage.put(datapoint.hashCode(), datapoint);
-    }
-
-    private boolean isUpdateRequired(Datapoint datapoint) {
-        boolean update = true;
-        if (storage.containsKey(datapoint.hashCode())) {
-            Datapoint prevDatapoint = storage.get(datapoint.hashCode());
-            update = !prevDatapoint.getValue().equals(datapoint.getValue()) ||
-                    datapoint.getTime() - prevDatapoint.getTime() >= TEN_MINUTES;
-        }
-        return update;
-    }
 }
@@ -0,0 +1,94 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.opentsdb.bolts;
+
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.openkilda.messaging.info.Datapoint;
+import org.openkilda.wfm.topology.opentsdb.Rollup;
+import org.openkilda.wfm.topology.utils.AbstractTickRichBolt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the tumbling window aggregates of the configured metrics, see {@link Rollup}. The datapoints of a series
+ * must come to the same task.
+ */
+public class RollupBolt extends AbstractTickRichBolt {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RollupBolt.class);
+    private static final int FLUSH_INTERVAL = 10;
+
+    private final List<String> prefixes;
+    private final List<Integer> windows;
+
+    private Rollup rollup;
+    private final List<Datapoint> output = new ArrayList<>();
+
+    /**
+     * @param prefixes the metrics to aggregate
+     * @param windows the window lengths, in seconds
+     */
+    public RollupBolt(List<String> prefixes, List<Integer> windows) {
+        super(FLUSH_INTERVAL);
+        this.prefixes = new ArrayList<>(prefixes);
+        this.windows = new ArrayList<>(windows);
+    }
+
+    @Override
+    public void prepare(Map conf, TopologyContext context, OutputCollector collector) {
+        super.prepare(conf, context, collector);
+        rollup = new Rollup(prefixes, windows);
+    }
+
+    @Override
+    protected void doTick(Tuple tuple) {
+        rollup.flush(System.currentTimeMillis(), output);
+        emitOutput();
+        LOGGER.debug("Rollup series: {}", rollup.size());
+        _collector.ack(tuple);
+    }
+
+    @Override
+    protected void doWork(Tuple tuple) {
+        if (tuple.contains("datapoint")) {
+            Datapoint datapoint = (Datapoint) tuple.getValueByField("datapoint");
+            if (rollup.isRollup(datapoint.getMetric())) {
+                rollup.add(datapoint, output);
+                emitOutput();
+            }
+        }
+        _collector.ack(tuple);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        declarer.declare(OpenTSDBFilterBolt.DECLARED_FIELDS);
+    }
+
+    private void emitOutput() {
+        for (Datapoint datapoint : output) {
+            _collector.emit(new Values(
+                    datapoint.getMetric(), datapoint.getTime(), datapoint.getValue(), datapoint.getTags()));
+        }
+        output.clear();
+    }
+}
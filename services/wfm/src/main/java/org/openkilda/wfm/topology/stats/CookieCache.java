@@ -0,0 +1,153 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cookie to flow cache of the stats topology, the least recently used entries are evicted.
+ * It is kept up to date by the flow lifecycle events, the evicted flows come back with the next resync. The stats
+ * of an evicted flow are lost till then, so every eviction is logged: the limit must fit all the flows.
+ *
+ * Each direction of a flow has its own cookie, so a flow takes two entries.
+ *
+ * A metered flow direction is also found by its meter, the meter ids are unique within the source switch of the
+ * direction only.
+ *
+ * The cookies are indexed by the flow id too, so the flow events don't have to scan the whole cache.
+ */
+public class CookieCache {
+    private static final Logger logger = LoggerFactory.getLogger(CookieCache.class);
+
+    private final int maxSize;
+    private long evictions = 0;
+    private final Map<Long, FlowResult> flows;
+    private final Map<String, Map<Long, FlowResult>> meters = new HashMap<>();
+    private final Map<String, Set<Long>> cookiesByFlow = new HashMap<>();
+
+    /**
+     * @param maxSize the limit of the flow directions to keep
+     */
+    public CookieCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.flows = new LinkedHashMap<Long, FlowResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FlowResult> eldest) {
+                if (maxSize < size()) {
+                    FlowResult flow = eldest.getValue();
+                    evictions += 1;
+                    logger.warn("Cookie cache is full, evict cookie {} of flow {}: limit={}, evictions={}",
+                            flow.getCookie(), flow.getFlowId(), maxSize, evictions);
+                    unindex(flow);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the flow, or null if the cookie belongs to no known flow
+     */
+    public FlowResult get(long cookie) {
+        return flows.get(cookie);
+    }
+
+    /**
+     * @return the flow direction metered by the meter of the switch, or null if the meter belongs to no known flow
+     */
+    public FlowResult getByMeter(String switchId, long meterId) {
+        Map<Long, FlowResult> switchMeters = meters.get(switchId);
+        return switchMeters == null ? null : switchMeters.get(meterId);
+    }
+
+    public void put(FlowResult flow) {
+        FlowResult previous = flows.put(flow.getCookie(), flow);
+        if (previous != null) {
+            unindex(previous);
+        }
+        cookiesByFlow.computeIfAbsent(flow.getFlowId(), key -> new HashSet<>()).add(flow.getCookie());
+        if (0 < flow.getMeterId()) {
+            meters.computeIfAbsent(flow.getSrcSw(), key -> new HashMap<>()).put(flow.getMeterId(), flow);
+        }
+    }
+
+    public void remove(long cookie) {
+        FlowResult flow = flows.remove(cookie);
+        if (flow != null) {
+            unindex(flow);
+        }
+    }
+
+    /**
+     * Removes all the cookies of the flow. A reroute changes the cookies, so the ones the flow had before
+     * are looked up by the flow id.
+     */
+    public void removeFlow(String flowId) {
+        Set<Long> cookies = cookiesByFlow.remove(flowId);
+        if (cookies == null) {
+            return;
+        }
+        for (Long cookie : cookies) {
+            FlowResult flow = flows.remove(cookie);
+            if (flow != null) {
+                removeMeter(flow);
+            }
+        }
+    }
+
+    public int size() {
+        return flows.size();
+    }
+
+    /**
+     * @return how many flow directions were evicted to keep the cache within the limit
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Drops the flow direction from the flow id and meter indexes.
+     */
+    private void unindex(FlowResult flow) {
+        Set<Long> cookies = cookiesByFlow.get(flow.getFlowId());
+        if (cookies != null && cookies.remove(flow.getCookie()) && cookies.isEmpty()) {
+            cookiesByFlow.remove(flow.getFlowId());
+        }
+        removeMeter(flow);
+    }
+
+    private void removeMeter(FlowResult flow) {
+        Map<Long, FlowResult> switchMeters = meters.get(flow.getSrcSw());
+        // the meter may be taken by another flow already
+        if (switchMeters != null && switchMeters.remove(flow.getMeterId(), flow) && switchMeters.isEmpty()) {
+            meters.remove(flow.getSrcSw());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CookieCache{flows=%d, limit=%d, evictions=%d}", flows.size(), maxSize, evictions);
+    }
+}
@@ -0,0 +1,220 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The previous samples of the cumulative counters, to turn them into rates. A sample is keyed by a long (a
+ * cookie or a port number) within a switch and is kept in flat primitive arrays with open addressing, so
+ * storing a sample allocates no objects.
+ *
+ * The counters are unsigned 64 bit ones. A counter that goes down is taken as wrapped if it was in the upper
+ * half of the range, otherwise as reset (the switch rebooted or the rule was reinstalled) and no rate is
+ * computed for that interval.
+ *
+ * A sparse reply has only the samples that changed since the previous reply of the switch, the rest are
+ * carried over to it with {@link #endReply}. Unless a reply is lost in between: the samples omitted then may have
+ * changed in the lost reply, so they keep their time and the next rate of them is computed over the whole gap.
+ */
+public class CounterHistory {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int counters;
+    private final long maxAge;
+    private final Map<String, Table> switches = new HashMap<>();
+
+    /**
+     * @param counters how many counters a sample has
+     * @param maxAge the samples older than this, in ms, are not used for the rate and are dropped eventually
+     */
+    public CounterHistory(int counters, long maxAge) {
+        this.counters = counters;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Stores the sample and computes the rates, per second, since the previous one.
+     *
+     * @param rates receives the rate of every counter, valid only when true is returned
+     * @return true if the rates are computed, false if there is no previous sample to compute them from
+     */
+    public boolean update(String switchId, long key, long timestamp, long[] sample, double[] rates) {
+        Table table = switches.get(switchId);
+        if (table == null) {
+            table = new Table(counters);
+            switches.put(switchId, table);
+        }
+        return table.update(key, timestamp, sample, rates, maxAge);
+    }
+
+    /**
+     * Ends the reply of the switch. The samples that a sparse reply omits are unchanged since the previous reply,
+     * they are moved to the time of this one, so the next rate is computed over one interval and not over all of
+     * the idle ones. The samples that a full reply omits are gone and age out.
+     *
+     * @param sequence the number of the reply, the omitted samples are carried over only from the previous one
+     */
+    public void endReply(String switchId, long timestamp, boolean isSparse, long sequence) {
+        Table table = switches.get(switchId);
+        if (table != null) {
+            table.endReply(timestamp, isSparse, sequence, maxAge);
+        }
+    }
+
+    public void removeSwitch(String switchId) {
+        switches.remove(switchId);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Table table : switches.values()) {
+            size += table.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return the increase of the counter, or -1 if the counter is reset
+     */
+    static long delta(long previous, long current) {
+        if (Long.compareUnsigned(previous, current) <= 0) {
+            return current - previous;
+        }
+        if (previous < 0) {
+            // 64 bit counter wrapped, the difference is right in the two's complement
+            return current - previous;
+        }
+        return -1;
+    }
+
+    private static final class Table {
+        private final int counters;
+        private long[] keys = new long[INITIAL_CAPACITY];
+        /** The time of the sample, 0 marks a free slot. */
+        private long[] times = new long[INITIAL_CAPACITY];
+        private long[] values;
+        private int size = 0;
+        /** The time of the previous reply. */
+        private long last = 0;
+        /** The number of the previous reply. */
+        private long lastSequence = 0;
+
+        Table(int counters) {
+            this.counters = counters;
+            this.values = new long[INITIAL_CAPACITY * counters];
+        }
+
+        boolean update(long key, long timestamp, long[] sample, double[] rates, long maxAge) {
+            int slot = find(key);
+            if (times[slot] == 0) {
+                if (keys.length * 3 / 4 <= size) {
+                    rebuild(timestamp - maxAge);
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                times[slot] = timestamp;
+                System.arraycopy(sample, 0, values, slot * counters, counters);
+                size += 1;
+                return false;
+            }
+
+            long elapsed = timestamp - times[slot];
+            if (elapsed <= 0) {
+                // a duplicate or out of order sample, the stored one is newer
+                return false;
+            }
+
+            boolean isValid = elapsed <= maxAge;
+            int base = slot * counters;
+            for (int i = 0; i < counters; i++) {
+                long delta = delta(values[base + i], sample[i]);
+                if (delta < 0) {
+                    isValid = false;
+                } else {
+                    rates[i] = delta * 1000.0 / elapsed;
+                }
+                values[base + i] = sample[i];
+            }
+            times[slot] = timestamp;
+            return isValid;
+        }
+
+        void endReply(long timestamp, boolean isSparse, long sequence, long maxAge) {
+            boolean isNext = sequence == lastSequence + 1;
+            if (isSparse && isNext && 0 < last && timestamp - last <= maxAge) {
+                for (int slot = 0; slot < times.length; slot++) {
+                    if (times[slot] == last) {
+                        times[slot] = timestamp;
+                    }
+                }
+            }
+            if (last < timestamp) {
+                last = timestamp;
+                lastSequence = sequence;
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (times[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Drops the samples older than the given time and grows the table if it is still too full.
+         */
+        private void rebuild(long oldest) {
+            long[] oldKeys = keys;
+            long[] oldTimes = times;
+            long[] oldValues = values;
+
+            int alive = 0;
+            for (long time : oldTimes) {
+                if (time != 0 && oldest <= time) {
+                    alive += 1;
+                }
+            }
+            int capacity = oldKeys.length;
+            while (capacity * 3 / 4 <= alive + 1) {
+                capacity *= 2;
+            }
+
+            keys = new long[capacity];
+            times = new long[capacity];
+            values = new long[capacity * counters];
+            size = 0;
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldTimes[old] == 0 || oldTimes[old] < oldest) {
+                    continue;
+                }
+                int slot = find(oldKeys[old]);
+                keys[slot] = oldKeys[old];
+                times[slot] = oldTimes[old];
+                System.arraycopy(oldValues, old * counters, values, slot * counters, counters);
+                size += 1;
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.openkilda.wfm.topology.stats;
 
+import org.openkilda.messaging.model.Flow;
 import org.openkilda.wfm.topology.FlowCookieException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +17,10 @@ public class FlowResult {
     private String srcSw;
     private String dstSw;
     private String direction;
+    /**
+     * The meter of the flow direction on its source switch, 0 if the direction is not metered.
+     */
+    private long meterId;
 
     // Required fields in the query result set.
     final List<String> requiredKeys = Arrays.asList("cookie", "flowid", "src_switch", "dst_switch");
@@ -36,11 +41,32 @@ public class FlowResult {
         flowId = flow.get("flowid").toString();
         srcSw = flow.get("src_switch").toString();
         dstSw = flow.get("dst_switch").toString();
+        if (flow.get("meter_id") != null) {
+            meterId = ((Number) flow.get("meter_id")).longValue();
+        }
+        direction = makeDirection(cookie);
+    }
+
+    /**
+     * One direction of the flow from the flow lifecycle events.
+     *
+     * @param flow
+     */
+    public FlowResult(Flow flow) {
+        cookie = flow.getCookie();
+        flowId = flow.getFlowId();
+        srcSw = flow.getSourceSwitch();
+        dstSw = flow.getDestinationSwitch();
+        meterId = flow.getMeterId();
+        direction = makeDirection(cookie);
+    }
+
+    private String makeDirection(long cookie) {
         try {
-            direction = findDirection((long) flow.get("cookie"));
+            return findDirection(cookie);
         } catch (FlowCookieException e) {
             LOGGER.error("Error getting direction for " + cookie, e);
-            direction = "unknown";
+            return "unknown";
         }
     }
 
@@ -158,4 +184,8 @@ public class FlowResult {
     public String getDirection() {
         return direction;
     }
+
+    public long getMeterId() {
+        return meterId;
+    }
 }
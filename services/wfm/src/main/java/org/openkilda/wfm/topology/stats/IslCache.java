@@ -0,0 +1,109 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.stats;
+
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The ISLs by their source port, so the port stats of the switch can be told apart as ISL traffic.
+ * It is kept up to date by the ISL discovery and failure events, the ISLs that already exist come with the network
+ * dump.
+ *
+ * Every ISL remembers the network dump it was last seen with. Once a dump is complete, the ISLs it did not have are
+ * gone, whether their failure was missed or not, so the cache is rebuilt rather than merged with every dump.
+ */
+public class IslCache {
+    private final Map<String, Map<Integer, Entry>> isls = new HashMap<>();
+
+    /**
+     * Adds, updates or removes the ISL depending on its state.
+     *
+     * @param dump the network dump requested last, the ISL is seen with it
+     */
+    public void update(IslInfoData isl, long dump) {
+        if (isl.getPath() == null || isl.getPath().isEmpty()) {
+            return;
+        }
+
+        // NB: the failure has the source port only
+        PathNode source = isl.getPath().get(0);
+        if (IslChangeType.FAILED == isl.getState()) {
+            remove(source.getSwitchId(), source.getPortNo());
+        } else if (2 <= isl.getPath().size()) {
+            isls.computeIfAbsent(source.getSwitchId(), key -> new HashMap<>())
+                    .put(source.getPortNo(), new Entry(isl, dump));
+        }
+    }
+
+    /**
+     * Removes the ISLs last seen before the network dump, called once the dump is complete.
+     *
+     * @return how many ISLs are removed
+     */
+    public int removeOlder(long dump) {
+        int removed = 0;
+        Iterator<Map<Integer, Entry>> switches = isls.values().iterator();
+        while (switches.hasNext()) {
+            Map<Integer, Entry> ports = switches.next();
+            int size = ports.size();
+            ports.values().removeIf(entry -> entry.dump < dump);
+            removed += size - ports.size();
+            if (ports.isEmpty()) {
+                switches.remove();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the ISL that starts at the port, or null if the port is not an ISL
+     */
+    public IslInfoData get(String switchId, int port) {
+        Map<Integer, Entry> ports = isls.get(switchId);
+        Entry entry = ports == null ? null : ports.get(port);
+        return entry == null ? null : entry.isl;
+    }
+
+    public void remove(String switchId, int port) {
+        Map<Integer, Entry> ports = isls.get(switchId);
+        if (ports != null) {
+            ports.remove(port);
+            if (ports.isEmpty()) {
+                isls.remove(switchId);
+            }
+        }
+    }
+
+    public int size() {
+        return isls.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static final class Entry {
+        private final IslInfoData isl;
+        private final long dump;
+
+        private Entry(IslInfoData isl, long dump) {
+            this.isl = isl;
+            this.dump = dump;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.stats;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The usual share of the dropped and of the errored packets of every port, as exponentially weighted moving
+ * averages of the share and of its variance. A port is anomalous while the share is above the threshold, or
+ * the given number of standard deviations above the usual one. The baseline is not updated while the port is
+ * anomalous, so a degraded port is not learned as a normal one.
+ *
+ * The shares of a port with less traffic than the minimum rate are too coarse to tell anything, so the port is
+ * held as it is: neither its state nor its baseline changes, and it is not refreshed either. A port that stays
+ * quiet or is gone from the stats expires like one that is not reported anymore, and its anomalies end then.
+ *
+ * Like in {@link CounterHistory}, the ports of a switch are kept in flat primitive arrays with open addressing,
+ * so a port update allocates no objects.
+ */
+public class PortAnomalyDetector {
+    public static final int DROPS = 0;
+    public static final int ERRORS = 1;
+    public static final int SIGNALS = 2;
+
+    /**
+     * The weight of the last interval in the baseline.
+     */
+    static final double ALPHA = 0.1;
+
+    /**
+     * How many intervals a baseline takes before the deviations from it count.
+     */
+    static final int WARMUP = 10;
+
+    /**
+     * The deviation from a baseline close to zero is not an anomaly below this share of the threshold.
+     */
+    static final double DEVIATION_FLOOR = 0.1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double[] thresholds = new double[SIGNALS];
+    private final double deviation;
+    private final double minRate;
+    private final long maxAge;
+    private final Map<String, Table> switches = new HashMap<>();
+
+    /**
+     * @param dropThreshold the share of the dropped packets that is an anomaly on any port
+     * @param errorThreshold the share of the errored packets that is an anomaly on any port
+     * @param deviation how many standard deviations above the baseline is an anomaly
+     * @param minRate the packets per second below which a port is not checked
+     * @param maxAge the ports without updates for this long, in ms, are dropped eventually
+     */
+    public PortAnomalyDetector(double dropThreshold, double errorThreshold, double deviation, double minRate,
+                               long maxAge) {
+        if (dropThreshold <= 0 || errorThreshold <= 0 || deviation <= 0 || minRate < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid anomaly thresholds: drops %f, errors %f, deviation %f, min rate %f",
+                    dropThreshold, errorThreshold, deviation, minRate));
+        }
+        this.thresholds[DROPS] = dropThreshold;
+        this.thresholds[ERRORS] = errorThreshold;
+        this.deviation = deviation;
+        this.minRate = minRate;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Checks the shares of the bad packets of the last interval against the baseline of the port.
+     *
+     * @param rate the packets per second of the port, all the packets counted in the shares
+     * @param ratios the share of the bad packets of every signal
+     * @param active receives the state of every signal, true for anomalous
+     * @param baselines receives the baseline of every signal
+     * @return the bits (1 &lt;&lt; signal) of the signals whose state has changed
+     */
+    public int update(String switchId, long port, long timestamp, double rate, double[] ratios, boolean[] active,
+                      double[] baselines) {
+        Table table = switches.get(switchId);
+        if (rate < minRate) {
+            hold(table, port, active, baselines);
+            return 0;
+        }
+        if (table == null) {
+            table = new Table();
+            switches.put(switchId, table);
+        }
+        return table.update(port, timestamp, ratios, active, baselines, this);
+    }
+
+    /**
+     * Removes the ports not updated since the given time, the anomalies of them end.
+     *
+     * @return how many ports are removed
+     */
+    public int expire(long oldest, ExpiryHandler handler) {
+        int removed = 0;
+        Iterator<Map.Entry<String, Table>> iterator = switches.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Table> entry = iterator.next();
+            removed += entry.getValue().expire(entry.getKey(), oldest, handler);
+            if (entry.getValue().size == 0) {
+                iterator.remove();
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Table table : switches.values()) {
+            size += table.size;
+        }
+        return size;
+    }
+
+    private static void hold(Table table, long port, boolean[] active, double[] baselines) {
+        int slot = table == null ? -1 : table.find(port);
+        boolean isKnown = slot != -1 && table.times[slot] != 0;
+        for (int signal = 0; signal < SIGNALS; signal++) {
+            active[signal] = isKnown && (table.states[slot] & (1 << signal)) != 0;
+            baselines[signal] = isKnown ? table.means[slot * SIGNALS + signal] : 0;
+        }
+    }
+
+    private boolean isAnomaly(int signal, double ratio, double limit, double mean, double variance, int count) {
+        if (limit < ratio) {
+            return true;
+        }
+        return WARMUP <= count
+                && thresholds[signal] * DEVIATION_FLOOR < ratio
+                && mean + deviation * Math.sqrt(variance) < ratio;
+    }
+
+    /**
+     * Receives the anomalies of the expired ports.
+     */
+    public interface ExpiryHandler {
+        void anomalyEnded(String switchId, long port, int signal, double baseline);
+    }
+
+    private static final class Table {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        /** The time of the last update, 0 marks a free slot. */
+        private long[] times = new long[INITIAL_CAPACITY];
+        private double[] means = new double[INITIAL_CAPACITY * SIGNALS];
+        private double[] variances = new double[INITIAL_CAPACITY * SIGNALS];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        /** The bit of a signal is set while it is anomalous. */
+        private int[] states = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        int update(long key, long timestamp, double[] ratios, boolean[] active, double[] baselines,
+                   PortAnomalyDetector detector) {
+            int slot = find(key);
+            if (times[slot] == 0) {
+                if (keys.length * 3 / 4 <= size) {
+                    rebuild(timestamp - detector.maxAge);
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                counts[slot] = 0;
+                states[slot] = 0;
+                size += 1;
+            }
+            times[slot] = timestamp;
+
+            int changed = 0;
+            int state = states[slot];
+            int count = counts[slot];
+            for (int signal = 0; signal < SIGNALS; signal++) {
+                int idx = slot * SIGNALS + signal;
+                double ratio = ratios[signal];
+                double mean = means[idx];
+                double variance = variances[idx];
+                boolean wasActive = (state & (1 << signal)) != 0;
+                // half the threshold to clear, so a port on the edge does not flap
+                double limit = wasActive ? detector.thresholds[signal] / 2 : detector.thresholds[signal];
+                boolean isActive = detector.isAnomaly(signal, ratio, limit, mean, variance, count);
+
+                if (!isActive) {
+                    if (count == 0) {
+                        means[idx] = ratio;
+                        variances[idx] = 0;
+                    } else {
+                        double diff = ratio - mean;
+                        means[idx] = mean + ALPHA * diff;
+                        variances[idx] = (1 - ALPHA) * (variance + ALPHA * diff * diff);
+                    }
+                }
+                if (isActive != wasActive) {
+                    changed |= 1 << signal;
+                    state ^= 1 << signal;
+                }
+                active[signal] = isActive;
+                baselines[signal] = means[idx];
+            }
+            states[slot] = state;
+            if (count < WARMUP) {
+                counts[slot] = count + 1;
+            }
+            return changed;
+        }
+
+        int expire(String switchId, long oldest, ExpiryHandler handler) {
+            int removed = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (times[slot] == 0 || oldest <= times[slot]) {
+                    continue;
+                }
+                for (int signal = 0; signal < SIGNALS; signal++) {
+                    if ((states[slot] & (1 << signal)) != 0) {
+                        handler.anomalyEnded(switchId, keys[slot], signal, means[slot * SIGNALS + signal]);
+                    }
+                }
+                states[slot] = 0;
+                removed += 1;
+            }
+            if (0 < removed) {
+                rebuild(oldest);
+            }
+            return removed;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (times[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Drops the ports not updated since the given time and grows the table if it is still too full. The
+         * anomalous ports are kept, so their anomalies end with {@link #expire}.
+         */
+        private void rebuild(long oldest) {
+            long[] oldKeys = keys;
+            long[] oldTimes = times;
+            double[] oldMeans = means;
+            double[] oldVariances = variances;
+            int[] oldCounts = counts;
+            int[] oldStates = states;
+
+            int alive = 0;
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (isAlive(oldTimes[old], oldStates[old], oldest)) {
+                    alive += 1;
+                }
+            }
+            int capacity = oldKeys.length;
+            while (capacity * 3 / 4 <= alive + 1) {
+                capacity *= 2;
+            }
+
+            keys = new long[capacity];
+            times = new long[capacity];
+            means = new double[capacity * SIGNALS];
+            variances = new double[capacity * SIGNALS];
+            counts = new int[capacity];
+            states = new int[capacity];
+            size = 0;
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (!isAlive(oldTimes[old], oldStates[old], oldest)) {
+                    continue;
+                }
+                int slot = find(oldKeys[old]);
+                keys[slot] = oldKeys[old];
+                times[slot] = oldTimes[old];
+                System.arraycopy(oldMeans, old * SIGNALS, means, slot * SIGNALS, SIGNALS);
+                System.arraycopy(oldVariances, old * SIGNALS, variances, slot * SIGNALS, SIGNALS);
+                counts[slot] = oldCounts[old];
+                states[slot] = oldStates[old];
+                size += 1;
+            }
+        }
+
+        private static boolean isAlive(long time, int state, long oldest) {
+            return time != 0 && (oldest <= time || state != 0);
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
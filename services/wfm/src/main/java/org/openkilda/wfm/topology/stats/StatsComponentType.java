@@ -24,5 +24,10 @@ public enum StatsComponentType {
     PORT_STATS_METRIC_GEN,
     METER_CFG_STATS_METRIC_GEN,
     FLOW_STATS_METRIC_GEN,
+    STATS_CACHE_KAFKA_SPOUT,
+    STATS_CACHE_FILTER_BOLT,
+    STATS_DISCO_KAFKA_SPOUT,
+    STATS_TOPO_ENG_KAFKA_SPOUT,
+    TOP_FLOWS_BOLT,
     ERROR_BOLT
 }
@@ -22,5 +22,14 @@ public enum StatsStreamType {
     PORT_STATS,
     METER_CONFIG_STATS,
     FLOW_STATS,
-    STATS_RESPONSE
+    METER_STATS,
+    CACHE_UPDATE,
+    CACHE_REQUEST,
+    STATS_RESPONSE,
+    TOP_FLOWS,
+    TOP_FLOWS_REQUEST,
+    TOP_FLOWS_RESPONSE,
+    ISL_UPDATE,
+    ISL_RESYNC,
+    PORT_ANOMALY
 }
@@ -18,20 +18,26 @@ package org.openkilda.wfm.topology.stats;
 import static org.openkilda.wfm.topology.stats.StatsComponentType.FLOW_STATS_METRIC_GEN;
 import static org.openkilda.wfm.topology.stats.StatsComponentType.METER_CFG_STATS_METRIC_GEN;
 import static org.openkilda.wfm.topology.stats.StatsComponentType.PORT_STATS_METRIC_GEN;
+import static org.openkilda.wfm.topology.stats.StatsComponentType.STATS_CACHE_FILTER_BOLT;
+import static org.openkilda.wfm.topology.stats.StatsComponentType.STATS_CACHE_KAFKA_SPOUT;
+import static org.openkilda.wfm.topology.stats.StatsComponentType.STATS_DISCO_KAFKA_SPOUT;
+import static org.openkilda.wfm.topology.stats.StatsComponentType.STATS_TOPO_ENG_KAFKA_SPOUT;
+import static org.openkilda.wfm.topology.stats.StatsComponentType.TOP_FLOWS_BOLT;
 
 import org.apache.storm.generated.StormTopology;
 import org.apache.storm.kafka.spout.KafkaSpout;
 import org.apache.storm.topology.TopologyBuilder;
+import org.apache.storm.tuple.Fields;
 import org.openkilda.messaging.ServiceType;
-import org.openkilda.pce.provider.NeoDriver;
-import org.openkilda.pce.provider.PathComputer;
 import org.openkilda.wfm.ConfigurationException;
 import org.openkilda.wfm.LaunchEnvironment;
 import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.stats.bolts.CacheFilterBolt;
 import org.openkilda.wfm.topology.stats.bolts.SpeakerBolt;
 import org.openkilda.wfm.topology.stats.metrics.FlowMetricGenBolt;
 import org.openkilda.wfm.topology.stats.metrics.MeterConfigMetricGenBolt;
 import org.openkilda.wfm.topology.stats.metrics.PortMetricGenBolt;
+import org.openkilda.wfm.topology.stats.metrics.TopFlowsBolt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,30 +69,73 @@ public class StatsTopology extends AbstractTopology {
         builder.setBolt(statsOfsBolt, speakerBolt, parallelism)
                 .shuffleGrouping(kafkaSpoutId);
 
-        builder.setBolt(PORT_STATS_METRIC_GEN.name(), new PortMetricGenBolt(), parallelism)
-                .fieldsGrouping(statsOfsBolt, StatsStreamType.PORT_STATS.toString(), fieldMessage);
+        // the flow events for the cookie to flow mapping, every flow metric bolt needs all of them
+        KafkaSpout cacheKafkaSpout = createKafkaSpout(config.getKafkaTopoCacheTopic(), STATS_CACHE_KAFKA_SPOUT.name());
+        builder.setSpout(STATS_CACHE_KAFKA_SPOUT.name(), cacheKafkaSpout);
+        // the ISL events, for the utilization of the ISLs out of the port stats
+        KafkaSpout discoKafkaSpout = createKafkaSpout(config.getKafkaTopoDiscoTopic(), STATS_DISCO_KAFKA_SPOUT.name());
+        builder.setSpout(STATS_DISCO_KAFKA_SPOUT.name(), discoKafkaSpout);
+        // the ISL failures found by the discovery are sent to the topology engine only
+        final String topoEngTopic = config.getKafkaTopoEngTopic();
+        checkAndCreateTopic(topoEngTopic);
+        KafkaSpout topoEngKafkaSpout = createKafkaSpout(topoEngTopic, STATS_TOPO_ENG_KAFKA_SPOUT.name());
+        builder.setSpout(STATS_TOPO_ENG_KAFKA_SPOUT.name(), topoEngKafkaSpout);
+        builder.setBolt(STATS_CACHE_FILTER_BOLT.name(), new CacheFilterBolt(config.getStatsFlowResyncInterval()))
+                .shuffleGrouping(STATS_CACHE_KAFKA_SPOUT.name())
+                .shuffleGrouping(STATS_DISCO_KAFKA_SPOUT.name())
+                .shuffleGrouping(STATS_TOPO_ENG_KAFKA_SPOUT.name());
+
+        Fields fieldSwitchId = new Fields(SpeakerBolt.FIELD_SWITCH_ID);
+        PortMetricGenBolt portMetricGenBolt = new PortMetricGenBolt(config.getStatsAnomalyDropThreshold(),
+                config.getStatsAnomalyErrorThreshold(), config.getStatsAnomalyDeviation(),
+                config.getStatsAnomalyMinPps());
+        builder.setBolt(PORT_STATS_METRIC_GEN.name(), portMetricGenBolt, parallelism)
+                .fieldsGrouping(statsOfsBolt, StatsStreamType.PORT_STATS.toString(), fieldSwitchId)
+                .fieldsGrouping(STATS_CACHE_FILTER_BOLT.name(), StatsStreamType.ISL_UPDATE.toString(), fieldSwitchId)
+                .allGrouping(STATS_CACHE_FILTER_BOLT.name(), StatsStreamType.ISL_RESYNC.toString());
         builder.setBolt(METER_CFG_STATS_METRIC_GEN.name(), new MeterConfigMetricGenBolt(), parallelism)
-                .fieldsGrouping(statsOfsBolt, StatsStreamType.METER_CONFIG_STATS.toString(), fieldMessage);
+                .fieldsGrouping(statsOfsBolt, StatsStreamType.METER_CONFIG_STATS.toString(), fieldSwitchId);
+
+        builder.setBolt("stats-topology-engine", createKafkaBolt(topoEngTopic))
+                .shuffleGrouping(STATS_CACHE_FILTER_BOLT.name(), StatsStreamType.CACHE_REQUEST.toString());
+
         logger.debug("starting flow_stats_metric_gen");
-        builder.setBolt(FLOW_STATS_METRIC_GEN.name(),
-                createFlowMetricsGenBolt(config.getNeo4jHost(), config.getNeo4jLogin(), config.getNeo4jPassword()),
-                parallelism)
-                .fieldsGrouping(statsOfsBolt, StatsStreamType.FLOW_STATS.toString(), fieldMessage);
+        builder.setBolt(FLOW_STATS_METRIC_GEN.name(), createFlowMetricsGenBolt(), parallelism)
+                .fieldsGrouping(statsOfsBolt, StatsStreamType.FLOW_STATS.toString(), fieldSwitchId)
+                .fieldsGrouping(statsOfsBolt, StatsStreamType.METER_STATS.toString(), fieldSwitchId)
+                .allGrouping(STATS_CACHE_FILTER_BOLT.name(), StatsStreamType.CACHE_UPDATE.toString());
+
+        // one task keeps the tops of all the switches, it gets only the short tops of every reply
+        builder.setBolt(TOP_FLOWS_BOLT.name(), new TopFlowsBolt(), 1)
+                .shuffleGrouping(FLOW_STATS_METRIC_GEN.name(), StatsStreamType.TOP_FLOWS.toString())
+                .shuffleGrouping(statsOfsBolt, StatsStreamType.TOP_FLOWS_REQUEST.toString());
+
+        final String northboundTopic = config.getKafkaNorthboundTopic();
+        checkAndCreateTopic(northboundTopic);
+        builder.setBolt("stats-northbound", createKafkaBolt(northboundTopic))
+                .shuffleGrouping(TOP_FLOWS_BOLT.name(), StatsStreamType.TOP_FLOWS_RESPONSE.toString());
+
+        // the anomalies have a topic of their own, the discovery doesn't have to sort them out of the speaker events
+        final String anomalyTopic = config.getKafkaStatsAnomalyTopic();
+        checkAndCreateTopic(anomalyTopic);
+        builder.setBolt("stats-anomaly", createKafkaBolt(anomalyTopic))
+                .shuffleGrouping(PORT_STATS_METRIC_GEN.name(), StatsStreamType.PORT_ANOMALY.toString());
 
         final String openTsdbTopic = config.getKafkaOtsdbTopic();
         checkAndCreateTopic(openTsdbTopic);
-        builder.setBolt("stats-opentsdb", createKafkaBolt(openTsdbTopic))
+        builder.setBolt("stats-opentsdb", createKafkaBytesBolt(openTsdbTopic))
                 .shuffleGrouping(PORT_STATS_METRIC_GEN.name())
                 .shuffleGrouping(METER_CFG_STATS_METRIC_GEN.name())
-                .shuffleGrouping(FLOW_STATS_METRIC_GEN.name());
+                .shuffleGrouping(FLOW_STATS_METRIC_GEN.name())
+                .shuffleGrouping(TOP_FLOWS_BOLT.name());
 
         createHealthCheckHandler(builder, ServiceType.STATS_TOPOLOGY.getId());
 
         return builder.createTopology();
     }
 
-    protected FlowMetricGenBolt createFlowMetricsGenBolt(String host, String username, String password) {
-        return new FlowMetricGenBolt(host, username, password);
+    protected FlowMetricGenBolt createFlowMetricsGenBolt() {
+        return new FlowMetricGenBolt(config.getStatsFlowCacheSize());
     }
 
     public static void main(String[] args) throws Exception {
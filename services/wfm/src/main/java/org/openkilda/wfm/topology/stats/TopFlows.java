@@ -0,0 +1,97 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.stats;
+
+import org.openkilda.messaging.info.stats.TopFlowEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The flows with the highest bit rates out of the flow stats of a switch. A full stats reply has the counters of all
+ * the rules of the switch. A sparse one leaves out the rules whose counters did not change since the previous poll:
+ * they had no traffic, so they would not make the top anyway. Either way a heap of the given size over the reply
+ * gives the exact top and the memory does not depend on the number of the flows.
+ */
+public class TopFlows {
+    public static final Comparator<TopFlowEntry> HIGHEST_FIRST =
+            Comparator.comparingDouble(TopFlowEntry::getBps).reversed();
+
+    private final int size;
+    private final PriorityQueue<TopFlowEntry> heap;
+
+    public TopFlows(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid top size %d", size));
+        }
+        this.size = size;
+        this.heap = new PriorityQueue<>(size, HIGHEST_FIRST.reversed());
+    }
+
+    public void offer(String flowId, String direction, String switchId, double bps, long timestamp) {
+        if (isTop(bps)) {
+            offer(new TopFlowEntry(flowId, direction, switchId, bps, timestamp));
+        }
+    }
+
+    public void offer(TopFlowEntry entry) {
+        if (!isTop(entry.getBps())) {
+            return;
+        }
+        if (heap.size() == size) {
+            heap.poll();
+        }
+        heap.add(entry);
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * @return the flows offered so far, the highest first; the top starts over
+     */
+    public List<TopFlowEntry> finish() {
+        List<TopFlowEntry> result = new ArrayList<>(heap);
+        result.sort(HIGHEST_FIRST);
+        heap.clear();
+        return result;
+    }
+
+    public void clear() {
+        heap.clear();
+    }
+
+    /**
+     * @return the highest flows of the lists, every flow direction is expected in one list only
+     */
+    public static List<TopFlowEntry> merge(Collection<List<TopFlowEntry>> tops, int limit) {
+        TopFlows result = new TopFlows(limit);
+        for (List<TopFlowEntry> top : tops) {
+            for (TopFlowEntry entry : top) {
+                result.offer(entry);
+            }
+        }
+        return result.finish();
+    }
+
+    private boolean isTop(double bps) {
+        return heap.size() < size || heap.peek().getBps() < bps;
+    }
+}
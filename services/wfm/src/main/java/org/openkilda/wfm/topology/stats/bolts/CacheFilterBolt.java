@@ -0,0 +1,260 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.openkilda.wfm.topology.stats.bolts;
+
+import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
+import static org.openkilda.wfm.topology.AbstractTopology.fieldMessage;
+
+import org.openkilda.messaging.BaseMessage;
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.discovery.NetworkCommandData;
+import org.openkilda.messaging.info.InfoData;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.ChunkDescriptor;
+import org.openkilda.messaging.info.discovery.NetworkInfoData;
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.PortChangeType;
+import org.openkilda.messaging.info.event.PortInfoData;
+import org.openkilda.messaging.info.flow.FlowInfoData;
+import org.openkilda.messaging.info.flow.FlowOperation;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.wfm.topology.stats.StatsComponentType;
+import org.openkilda.wfm.topology.stats.StatsStreamType;
+import org.openkilda.wfm.topology.utils.AbstractTickRichBolt;
+
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Fields;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Picks the flow lifecycle events up from the topology cache topic and passes them on to the flow metric bolts.
+ * The ISL events of the discovery topic go to the port metric bolt that gets the stats of the source switch, and so
+ * do the ISL failures, which the discovery sends to the topology engine topic only. A port that goes down fails its ISL
+ * as well.
+ *
+ * The flows and the ISLs that already exist are loaded from the network dump, the bolt requests it from the
+ * topology engine on start and then every resync interval, so a metric bolt that is restarted gets them all back.
+ * Every ISL is stamped with the dump requested last, and the end of the dump is sent on the
+ * {@link StatsStreamType#ISL_RESYNC} stream, so the ISLs the dump did not have are dropped from the caches.
+ *
+ * The bolt gets every discovery message of the network, so the messages of no interest are filtered out by their
+ * class name before they are parsed.
+ */
+public class CacheFilterBolt extends AbstractTickRichBolt {
+    private static final Logger logger = LoggerFactory.getLogger(CacheFilterBolt.class);
+    private static final String CACHE_UPDATE_STREAM = StatsStreamType.CACHE_UPDATE.toString();
+    private static final String CACHE_REQUEST_STREAM = StatsStreamType.CACHE_REQUEST.toString();
+    private static final String ISL_UPDATE_STREAM = StatsStreamType.ISL_UPDATE.toString();
+    private static final String ISL_RESYNC_STREAM = StatsStreamType.ISL_RESYNC.toString();
+
+    public static final String FIELD_DUMP = "dump";
+    public static final Fields fieldsIsl = new Fields(MESSAGE_FIELD, SpeakerBolt.FIELD_SWITCH_ID, FIELD_DUMP);
+    public static final Fields fieldDump = new Fields(FIELD_DUMP);
+
+    /**
+     * The messages are serialized with their class names, so these are enough to tell them apart unparsed.
+     */
+    private static final String[] CACHE_CLASSES = {
+            FlowInfoData.class.getName(), IslInfoData.class.getName(),
+            PortInfoData.class.getName(), NetworkInfoData.class.getName()};
+    private static final String ISL_CLASS = IslInfoData.class.getName();
+    private static final String ISL_FAILED = IslChangeType.FAILED.toString();
+
+    /**
+     * How many ticks to wait for the network dump before it is requested again.
+     */
+    private static final int DUMP_RETRY_INTERVAL = 60;
+
+    private final int resyncInterval;
+
+    private int ticksSinceRequest;
+    private boolean isReceivedDump = false;
+    private String dumpCorrelationId = null;
+    private Set<Integer> dumpUnprocessedChunks = null;
+    private long dump = 0;
+
+    /**
+     * @param resyncInterval how many ticks between the network dumps
+     */
+    public CacheFilterBolt(int resyncInterval) {
+        this.resyncInterval = resyncInterval;
+        // request the dump on the first tick
+        ticksSinceRequest = resyncInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTick(Tuple tuple) {
+        ticksSinceRequest += 1;
+        if (resyncInterval <= ticksSinceRequest || (!isReceivedDump && DUMP_RETRY_INTERVAL <= ticksSinceRequest)) {
+            requestNetworkDump(tuple);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWork(Tuple tuple) {
+        String json = tuple.getString(0);
+        boolean isTopoEng = StatsComponentType.STATS_TOPO_ENG_KAFKA_SPOUT.name().equals(tuple.getSourceComponent());
+        try {
+            boolean isWanted = isTopoEng
+                    ? json.contains(ISL_CLASS) && json.contains(ISL_FAILED)
+                    : containsAny(json, CACHE_CLASSES);
+            if (!isWanted) {
+                return;
+            }
+
+            BaseMessage message = Utils.MAPPER.readValue(json, BaseMessage.class);
+            if (!(message instanceof InfoMessage)) {
+                return;
+            }
+
+            InfoData data = ((InfoMessage) message).getData();
+            if (isTopoEng) {
+                // only the ISL failures of the discovery are taken from the topology engine topic
+                if (data instanceof IslInfoData && IslChangeType.FAILED == ((IslInfoData) data).getState()) {
+                    logger.debug("ISL failure: {}", data);
+                    emitIsl((IslInfoData) data, tuple);
+                }
+            } else if (data instanceof FlowInfoData) {
+                logger.debug("Flow event: {}", data);
+                _collector.emit(CACHE_UPDATE_STREAM, tuple, new Values(data));
+            } else if (data instanceof IslInfoData) {
+                logger.debug("ISL event: {}", data);
+                emitIsl((IslInfoData) data, tuple);
+            } else if (data instanceof PortInfoData) {
+                handlePort((PortInfoData) data, tuple);
+            } else if (data instanceof NetworkInfoData) {
+                handleNetworkDump(message.getCorrelationId(), (NetworkInfoData) data, tuple);
+            }
+        } catch (IOException exception) {
+            logger.error("Could not deserialize message={}", json, exception);
+        } finally {
+            _collector.ack(tuple);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
+        outputFieldsDeclarer.declareStream(CACHE_UPDATE_STREAM, fieldMessage);
+        outputFieldsDeclarer.declareStream(CACHE_REQUEST_STREAM, fieldMessage);
+        outputFieldsDeclarer.declareStream(ISL_UPDATE_STREAM, fieldsIsl);
+        outputFieldsDeclarer.declareStream(ISL_RESYNC_STREAM, fieldDump);
+    }
+
+    private static boolean containsAny(String json, String[] values) {
+        for (String value : values) {
+            if (json.contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void emitIsl(IslInfoData isl, Tuple tuple) {
+        if (isl.getPath() == null || isl.getPath().isEmpty()) {
+            return;
+        }
+        // NB: the failure has the source port only
+        if (isl.getPath().size() < 2 && IslChangeType.FAILED != isl.getState()) {
+            return;
+        }
+        // the ISL goes with the stats of its source port
+        _collector.emit(ISL_UPDATE_STREAM, tuple, new Values(isl, isl.getPath().get(0).getSwitchId(), dump));
+    }
+
+    private void handlePort(PortInfoData port, Tuple tuple) {
+        if (PortChangeType.DOWN != port.getState() && PortChangeType.DELETE != port.getState()) {
+            return;
+        }
+        logger.debug("Port is gone, so is its ISL: {}", port);
+        PathNode node = new PathNode(port.getSwitchId(), port.getPortNo(), 0, 0L);
+        emitIsl(new IslInfoData(0L, Collections.singletonList(node), 0L, IslChangeType.FAILED, 0L), tuple);
+    }
+
+    private void handleNetworkDump(String correlationId, NetworkInfoData data, Tuple tuple) {
+        // the dumps requested by the other topologies are of no interest
+        if (dumpCorrelationId == null || !dumpCorrelationId.equals(correlationId)) {
+            return;
+        }
+
+        logger.info("Load flows {}, ISLs {}", data.getFlows().size(), data.getIsls().size());
+        for (IslInfoData isl : data.getIsls()) {
+            emitIsl(isl, tuple);
+        }
+        for (ImmutablePair<Flow, Flow> flow : data.getFlows()) {
+            FlowInfoData flowData = new FlowInfoData(
+                    flow.getLeft().getFlowId(), flow, FlowOperation.CACHE, correlationId);
+            _collector.emit(CACHE_UPDATE_STREAM, tuple, new Values(flowData));
+        }
+
+        ChunkDescriptor chunk = data.getChunk();
+        if (chunk == null) {
+            isReceivedDump = true;
+        } else {
+            if (dumpUnprocessedChunks == null) {
+                dumpUnprocessedChunks = new HashSet<>();
+                for (int idx = 1; idx <= chunk.getTotal(); idx++) {
+                    dumpUnprocessedChunks.add(idx);
+                }
+            }
+            dumpUnprocessedChunks.remove(chunk.getCurrent());
+            isReceivedDump = dumpUnprocessedChunks.isEmpty();
+        }
+
+        if (isReceivedDump) {
+            logger.info("All flows and ISLs of the network dump are loaded");
+            _collector.emit(ISL_RESYNC_STREAM, tuple, new Values(dump));
+        }
+    }
+
+    private void requestNetworkDump(Tuple tuple) {
+        ticksSinceRequest = 0;
+        isReceivedDump = false;
+        dumpUnprocessedChunks = null;
+        dumpCorrelationId = UUID.randomUUID().toString();
+        dump = System.currentTimeMillis();
+
+        CommandMessage command = new CommandMessage(new NetworkCommandData(),
+                System.currentTimeMillis(), dumpCorrelationId, Destination.TOPOLOGY_ENGINE);
+        try {
+            _collector.emit(CACHE_REQUEST_STREAM, tuple, new Values(Utils.MAPPER.writeValueAsString(command)));
+            logger.info("Network dump requested: {}", dumpCorrelationId);
+        } catch (IOException exception) {
+            logger.error("Could not serialize network cache request", exception);
+        }
+    }
+}
@@ -15,22 +15,27 @@
 
 package org.openkilda.wfm.topology.stats.bolts;
 
-import static org.openkilda.wfm.topology.AbstractTopology.fieldMessage;
+import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
 
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.Message;
 import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.stats.TopFlowsRequest;
 import org.openkilda.messaging.info.InfoData;
 import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.stats.FlowStatsData;
 import org.openkilda.messaging.info.stats.MeterConfigStatsData;
+import org.openkilda.messaging.info.stats.MeterStatsData;
 import org.openkilda.messaging.info.stats.PortStatsData;
+import org.openkilda.wfm.topology.AbstractTopology;
 import org.openkilda.wfm.topology.stats.StatsStreamType;
 
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.topology.base.BaseRichBolt;
+import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
 import org.slf4j.Logger;
@@ -44,6 +49,14 @@ public class SpeakerBolt extends BaseRichBolt {
     private static final String PORT_STATS_STREAM = StatsStreamType.PORT_STATS.toString();
     private static final String METER_CFG_STATS_STREAM = StatsStreamType.METER_CONFIG_STATS.toString();
     private static final String FLOW_STATS_STREAM = StatsStreamType.FLOW_STATS.toString();
+    private static final String METER_STATS_STREAM = StatsStreamType.METER_STATS.toString();
+    private static final String TOP_FLOWS_REQUEST_STREAM = StatsStreamType.TOP_FLOWS_REQUEST.toString();
+
+    /**
+     * The stats of a switch go to the same metric bolt task, it keeps the previous samples to compute the rates.
+     */
+    public static final String FIELD_SWITCH_ID = "switch_id";
+    public static final Fields fieldsMessageSwitchId = new Fields(MESSAGE_FIELD, FIELD_SWITCH_ID);
 
     private OutputCollector outputCollector;
 
@@ -57,20 +70,36 @@ public class SpeakerBolt extends BaseRichBolt {
         //String request = tuple.getStringByField("value");
         try {
             Message stats = Utils.MAPPER.readValue(request, Message.class);
-            if (!Destination.WFM_STATS.equals(stats.getDestination()) || !(stats instanceof InfoMessage)) {
+            if (!Destination.WFM_STATS.equals(stats.getDestination())) {
+                return;
+            }
+            if (stats instanceof CommandMessage) {
+                if (((CommandMessage) stats).getData() instanceof TopFlowsRequest) {
+                    outputCollector.emit(TOP_FLOWS_REQUEST_STREAM, tuple, new Values(stats));
+                }
+                return;
+            }
+            if (!(stats instanceof InfoMessage)) {
                 return;
             }
             InfoMessage message = (InfoMessage) stats;
             final InfoData data = message.getData();
             if (data instanceof PortStatsData) {
                 logger.debug("Port stats message: {}", new Values(request));
-                outputCollector.emit(PORT_STATS_STREAM, tuple, new Values(message));
+                outputCollector.emit(PORT_STATS_STREAM, tuple,
+                        new Values(message, ((PortStatsData) data).getSwitchId()));
             } else if (data instanceof MeterConfigStatsData) {
                 logger.debug("Meter config stats message: {}", new Values(request));
-                outputCollector.emit(METER_CFG_STATS_STREAM, tuple, new Values(message));
+                outputCollector.emit(METER_CFG_STATS_STREAM, tuple,
+                        new Values(message, ((MeterConfigStatsData) data).getSwitchId()));
             } else if (data instanceof FlowStatsData) {
                 logger.debug("Flow stats message: {}", new Values(request));
-                outputCollector.emit(FLOW_STATS_STREAM, tuple, new Values(message));
+                outputCollector.emit(FLOW_STATS_STREAM, tuple,
+                        new Values(message, ((FlowStatsData) data).getSwitchId()));
+            } else if (data instanceof MeterStatsData) {
+                logger.debug("Meter stats message: {}", new Values(request));
+                outputCollector.emit(METER_STATS_STREAM, tuple,
+                        new Values(message, ((MeterStatsData) data).getSwitchId()));
             }
         } catch (IOException exception) {
             logger.error("Could not deserialize message={}", request, exception);
@@ -85,9 +114,11 @@ public class SpeakerBolt extends BaseRichBolt {
      */
     @Override
     public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
-        outputFieldsDeclarer.declareStream(PORT_STATS_STREAM, fieldMessage);
-        outputFieldsDeclarer.declareStream(METER_CFG_STATS_STREAM, fieldMessage);
-        outputFieldsDeclarer.declareStream(FLOW_STATS_STREAM, fieldMessage);
+        outputFieldsDeclarer.declareStream(PORT_STATS_STREAM, fieldsMessageSwitchId);
+        outputFieldsDeclarer.declareStream(METER_CFG_STATS_STREAM, fieldsMessageSwitchId);
+        outputFieldsDeclarer.declareStream(FLOW_STATS_STREAM, fieldsMessageSwitchId);
+        outputFieldsDeclarer.declareStream(METER_STATS_STREAM, fieldsMessageSwitchId);
+        outputFieldsDeclarer.declareStream(TOP_FLOWS_REQUEST_STREAM, AbstractTopology.fieldMessage);
     }
 
     /**
@@ -15,75 +15,122 @@
 
 package org.openkilda.wfm.topology.stats.metrics;
 
-import static org.neo4j.helpers.collection.MapUtil.map;
 import static org.openkilda.messaging.Utils.CORRELATION_ID;
 import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
 
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
-import org.neo4j.driver.v1.exceptions.ClientException;
-import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
-import org.neo4j.helpers.collection.Iterators;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.flow.FlowInfoData;
 import org.openkilda.messaging.info.stats.FlowStatsData;
 import org.openkilda.messaging.info.stats.FlowStatsEntry;
 import org.openkilda.messaging.info.stats.FlowStatsReply;
-import org.openkilda.wfm.topology.FlowCookieException;
-import org.openkilda.wfm.topology.stats.CypherExecutor;
+import org.openkilda.messaging.info.stats.MeterStatsData;
+import org.openkilda.messaging.info.stats.MeterStatsEntry;
+import org.openkilda.messaging.info.stats.MeterStatsReply;
+import org.openkilda.messaging.model.Flow;
+import org.openkilda.messaging.model.ImmutablePair;
+import org.openkilda.wfm.topology.stats.CookieCache;
+import org.openkilda.wfm.topology.stats.CounterHistory;
 import org.openkilda.wfm.topology.stats.FlowResult;
 import org.openkilda.wfm.topology.stats.StatsComponentType;
 import org.openkilda.wfm.topology.stats.StatsStreamType;
+import org.openkilda.wfm.topology.stats.TopFlows;
 
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The type Flow metric gen bolt.
+ *
+ * Cookies are resolved to flows through the {@link CookieCache}. It is maintained from the flow lifecycle
+ * events, every task of the bolt gets all of them on the {@link StatsStreamType#CACHE_UPDATE} stream.
+ *
+ * The meter stats of the switch come here too, the meters are resolved to flows through the same cache. The rates
+ * of the traffic a meter gets and polices show the flows that hit their bandwidth limit.
  */
 public class FlowMetricGenBolt extends MetricGenBolt {
-    private static final String GET_ALL_FLOWS = "MATCH (a:switch)-[r:flow]->(b:switch) RETURN r";
+    private static final long MAX_SAMPLE_AGE = TimeUnit.MINUTES.toMillis(10);
+    private static final String TOP_FLOWS_STREAM = StatsStreamType.TOP_FLOWS.toString();
+
+    public static final String FIELD_SWITCH_ID = "switch_id";
+    public static final String FIELD_TIMESTAMP = "timestamp";
+    public static final String FIELD_TOP_HOPS = "top_hops";
+    public static final String FIELD_TOP_ENDS = "top_ends";
+    public static final Fields fieldsTopFlows =
+            new Fields(FIELD_SWITCH_ID, FIELD_TIMESTAMP, FIELD_TOP_HOPS, FIELD_TOP_ENDS);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowMetricGenBolt.class);
-    private final Map<Long, FlowResult> cookieMap = new HashMap<>();
-    private CypherExecutor cypher;
-    private final String neoUri;
+    private final int cookieCacheSize;
+    protected CookieCache cookieCache;
 
+    /**
+     * packets, bytes of the flow rule
+     */
+    private CounterHistory history;
+    private final long[] sample = new long[2];
+    private final double[] rates = new double[2];
+
+    /**
+     * in packets, in bytes, policed packets, policed bytes of the meter
+     */
+    private CounterHistory meterHistory;
+    private final long[] meterSample = new long[4];
+    private final double[] meterRates = new double[4];
 
-    public FlowMetricGenBolt() {
-        neoUri = "bolt://localhost:7687";
-    }
     /**
-     * Instantiates a new Flow metric gen bolt.
-     *
-     * @param neo4jHost   the neo 4 j host
-     * @param neo4jUser   the neo 4 j user
-     * @param neo4jPasswd the neo 4 j passwd
+     * The tags of the datapoints, written out as soon as a datapoint is added so they are reused for every entry.
      */
-    public FlowMetricGenBolt(String neo4jHost, String neo4jUser, String neo4jPasswd) {
-        neoUri = String.format("bolt://%s:%s@%s", neo4jUser, neo4jPasswd, neo4jHost);
+    private final Map<String, String> tags = new HashMap<>();
+    private final Map<String, String> flowTags = new HashMap<>();
+    private final Map<String, String> meterTags = new HashMap<>();
+
+    /**
+     * The flows with the highest rates in the current reply: all the flows that go through the switch, and the
+     * ones that end on it. Every flow ends on one switch, so the latter make the network wide top.
+     */
+    private TopFlows topHops;
+    private TopFlows topEnds;
+
+    /**
+     * @param cookieCacheSize the limit of the flow directions in the cookie cache
+     */
+    public FlowMetricGenBolt(int cookieCacheSize) {
+        this.cookieCacheSize = cookieCacheSize;
     }
 
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
-        this.collector = collector;
+        super.prepare(stormConf, context, collector);
+        cookieCache = new CookieCache(cookieCacheSize);
+        history = new CounterHistory(sample.length, MAX_SAMPLE_AGE);
+        meterHistory = new CounterHistory(meterSample.length, MAX_SAMPLE_AGE);
+        topHops = new TopFlows(TopFlowsBolt.TOP_SIZE);
+        topEnds = new TopFlows(TopFlowsBolt.TOP_SIZE);
+    }
 
-        // Create a hashmap of cookies to flows such that we can add the flowid to the tsdb stat
-        try {
-            cypher = createCypherExecutor(neoUri);
-            warmCookieMap();
-        } catch (ServiceUnavailableException | IllegalArgumentException e) {
-            LOGGER.error("Error connecting to nego4j", e);
-        }
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        super.declareOutputFields(declarer);
+        declarer.declareStream(TOP_FLOWS_STREAM, fieldsTopFlows);
     }
 
     @Override
     public void execute(Tuple input) {
+        if (StatsStreamType.CACHE_UPDATE.toString().equals(input.getSourceStreamId())) {
+            handleFlowEvent((FlowInfoData) input.getValueByField(MESSAGE_FIELD));
+            collector.ack(input);
+            return;
+        }
+
         StatsComponentType componentId = StatsComponentType.valueOf(input.getSourceComponent());
         InfoMessage message = (InfoMessage) input.getValueByField(MESSAGE_FIELD);
 
@@ -92,122 +139,143 @@ public class FlowMetricGenBolt extends MetricGenBolt {
             return;
         }
 
+        if (StatsStreamType.METER_STATS.toString().equals(input.getSourceStreamId())) {
+            try {
+                handleMeterStats((MeterStatsData) message.getData(), message.getTimestamp());
+            } catch (Exception e) {
+                LOGGER.error("Error process: {}", input.toString(), e);
+            } finally {
+                flushDatapoints();
+                collector.ack(input);
+            }
+            return;
+        }
+
         LOGGER.debug("Flow stats message: {}={}, component={}, stream={}",
                 CORRELATION_ID, message.getCorrelationId(), componentId, StatsStreamType.valueOf(input.getSourceStreamId()));
         FlowStatsData data = (FlowStatsData) message.getData();
         long timestamp = message.getTimestamp();
-        String switchId = data.getSwitchId().replaceAll(":", "");
+        String switchId = normalizeSwitchId(data.getSwitchId());
 
         try {
             for (FlowStatsReply reply : data.getStats()) {
                 for (FlowStatsEntry entry : reply.getEntries()) {
-                    emit(entry, timestamp, switchId);
+                    emit(entry, timestamp, switchId, data.getSwitchId());
                 }
             }
-            collector.ack(input);
-        } catch (ServiceUnavailableException e) {
-            LOGGER.error("Error process: {}", input.toString(), e);
-            collector.fail(input); // If we can't connect to Neo then don't know if valid input
+            history.endReply(switchId, timestamp, data.isSparse(), data.getSequence());
+            if (!topHops.isEmpty()) {
+                collector.emit(TOP_FLOWS_STREAM, new Values(
+                        data.getSwitchId(), timestamp, topHops.finish(), topEnds.finish()));
+            }
         } catch (Exception e) {
+            LOGGER.error("Error process: {}", input.toString(), e);
+        } finally {
+            flushDatapoints();
+            topHops.clear();
+            topEnds.clear();
             collector.ack(input); // We tried, no need to try again
         }
     }
 
-    private void emit(FlowStatsEntry entry, long timestamp, String switchId) throws Exception {
-        FlowResult flow = getFlowFromCache(entry.getCookie());
-        Map<String, String> tags = new HashMap<>();
+    private void emit(FlowStatsEntry entry, long timestamp, String switchId, String datapathId) throws Exception {
+        FlowResult flow = cookieCache.get(entry.getCookie());
+        String flowId = flow == null || flow.getFlowId() == null ? "unknown" : flow.getFlowId();
         tags.put("switchid", switchId);
         tags.put("cookie", String.valueOf(entry.getCookie()));
-        tags.put("tableid", String.valueOf(entry.getTableId()));
-        if (flow == null || flow.getFlowId() == null) {
-            tags.put("flowid", "unknown");
-        } else {
-            tags.put("flowid", flow.getFlowId());
+        tags.put("tableid", toTag(entry.getTableId()));
+        tags.put("flowid", flowId);
+        addDatapoint("pen.flow.raw.packets", timestamp, entry.getPacketCount(), tags);
+        addDatapoint("pen.flow.raw.bytes", timestamp, entry.getByteCount(), tags);
+        addDatapoint("pen.flow.raw.bits", timestamp, entry.getByteCount() * 8, tags);
+
+        sample[0] = entry.getPacketCount();
+        sample[1] = entry.getByteCount();
+        boolean isRate = history.update(switchId, entry.getCookie(), timestamp, sample, rates);
+        if (isRate) {
+            addDatapoint("pen.flow.raw.pps", timestamp, rates[0], tags);
+            addDatapoint("pen.flow.raw.bps", timestamp, rates[1] * 8, tags);
+            if (flow != null) {
+                topHops.offer(flowId, flow.getDirection(), datapathId, rates[1] * 8, timestamp);
+            }
         }
-        collector.emit(tuple("pen.flow.raw.packets", timestamp, entry.getPacketCount(), tags));
-        collector.emit(tuple("pen.flow.raw.bytes", timestamp, entry.getByteCount(), tags));
-        collector.emit(tuple("pen.flow.raw.bits", timestamp, entry.getByteCount() * 8, tags));
 
         /**
          * If this is the destination switch for the flow, then add to TSDB for pen.flow.* stats.  This is needed
          * as there is needed to provide simple lookup of flow stats
          **/
-        if (switchId.equals(flow.getDstSw().replaceAll(":", ""))) {
-            tags.remove("cookie");  //Doing this to prevent creation of yet another object
-            tags.remove("tableid");
-            tags.remove("switchid");
-            tags.put("direction", flow.getDirection());
-            collector.emit(tuple("pen.flow.packets", timestamp, entry.getPacketCount(), tags));
-            collector.emit(tuple("pen.flow.bytes", timestamp, entry.getByteCount(), tags));
-            collector.emit(tuple("pen.flow.bits", timestamp, entry.getByteCount() * 8, tags));
+        if (flow != null && switchId.equals(normalizeSwitchId(flow.getDstSw()))) {
+            flowTags.put("flowid", flowId);
+            flowTags.put("direction", flow.getDirection());
+            addDatapoint("pen.flow.packets", timestamp, entry.getPacketCount(), flowTags);
+            addDatapoint("pen.flow.bytes", timestamp, entry.getByteCount(), flowTags);
+            addDatapoint("pen.flow.bits", timestamp, entry.getByteCount() * 8, flowTags);
+            if (isRate) {
+                addDatapoint("pen.flow.pps", timestamp, rates[0], flowTags);
+                addDatapoint("pen.flow.bps", timestamp, rates[1] * 8, flowTags);
+                topEnds.offer(flowId, flow.getDirection(), datapathId, rates[1] * 8, timestamp);
+            }
         }
     }
 
+    private void handleMeterStats(MeterStatsData data, long timestamp) throws Exception {
+        String switchId = normalizeSwitchId(data.getSwitchId());
+        for (MeterStatsReply reply : data.getStats()) {
+            for (MeterStatsEntry entry : reply.getEntries()) {
+                meterSample[0] = entry.getPacketInCount();
+                meterSample[1] = entry.getByteInCount();
+                meterSample[2] = entry.getPacketBandCount();
+                meterSample[3] = entry.getByteBandCount();
+                if (!meterHistory.update(switchId, entry.getMeterId(), timestamp, meterSample, meterRates)) {
+                    continue;
+                }
 
-    /**
-     * Create a CypherExecutor
-     *
-     * @param uri the URI of the neo4J server
-     * @return
-     */
-    private CypherExecutor createCypherExecutor(String uri) {
-        try {
-            String auth = new URL(uri.replace("bolt", "http")).getUserInfo();
-            if (auth != null) {
-                String[] parts = auth.split(":");
-                return new CypherExecutor(uri, parts[0], parts[1]);
+                FlowResult flow = cookieCache.getByMeter(data.getSwitchId(), entry.getMeterId());
+                meterTags.put("switchid", switchId);
+                meterTags.put("meterid", toTag(entry.getMeterId()));
+                meterTags.put("flowid", flow == null || flow.getFlowId() == null ? "unknown" : flow.getFlowId());
+                meterTags.put("direction", flow == null ? "unknown" : flow.getDirection());
+                addDatapoint("pen.flow.meter.pps", timestamp, meterRates[0], meterTags);
+                addDatapoint("pen.flow.meter.bps", timestamp, meterRates[1] * 8, meterTags);
+                addDatapoint("pen.flow.meter.policed-pps", timestamp, meterRates[2], meterTags);
+                addDatapoint("pen.flow.meter.policed-bps", timestamp, meterRates[3] * 8, meterTags);
             }
-            return new CypherExecutor(uri);
-        } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Invalid Neo4j-ServerURL " + uri);
         }
     }
 
-    /**
-     * Pre-Populate the cookieMap from Neo4J
-     */
-    @SuppressWarnings("unchecked")
-    private void warmCookieMap() {
-        Iterator<Map<String, Object>> result;
-        try {
-            result = cypher.query(GET_ALL_FLOWS, null);
-        } catch (ClientException e) {
-            LOGGER.error("Error warming cookieMap", e);
-            return;
-        }
-        while (result.hasNext()) {
-            Map<String, Object> row = result.next();
-            FlowResult flow;
-            try {
-                flow = new FlowResult(row);
-                cookieMap.put(flow.getCookie(), flow);
-                LOGGER.debug("added entry to cookieMap: {}", flow.toString());
-            } catch (FlowCookieException e) {
-                LOGGER.error("error processing cookie", e);
-            }
-        }
-    }
+    private void handleFlowEvent(FlowInfoData data) {
+        LOGGER.debug("Flow {} event: {}", data.getOperation(), data.getFlowId());
+        switch (data.getOperation()) {
+            case CREATE:
+            case UPDATE:
+            case STATE:
+            case PUSH:
+            case PUSH_PROPAGATE:
+            case CACHE:
+                // a reroute changes the cookies, the old ones must not be reported as this flow
+                cookieCache.removeFlow(data.getFlowId());
+                ImmutablePair<Flow, Flow> flow = data.getPayload();
+                if (flow != null) {
+                    putFlow(flow.getLeft());
+                    putFlow(flow.getRight());
+                }
+                break;
 
-    @SuppressWarnings("unchecked")
-    protected FlowResult getFlowFromCache(Long cookie) throws Exception {
-        FlowResult flow = cookieMap.get(cookie);
-        if (flow == null) {
-            LOGGER.info("{} not found, fetching.", cookie);
-            try {
-                flow = new FlowResult((Map) getFlowWithCookie(cookie).get("r"));
-            } catch (ClientException e) {
-                LOGGER.error("error getting flow for {}", cookie);
-            }
-            cookieMap.put(flow.getCookie(), flow);
-            LOGGER.debug("added entry to cookieMap: {}", flow.toString());
+            case DELETE:
+            case UNPUSH:
+            case UNPUSH_PROPAGATE:
+                cookieCache.removeFlow(data.getFlowId());
+                break;
+
+            default:
+                LOGGER.warn("Skip undefined flow operation {}", data);
+                break;
         }
-        return flow;
     }
 
-    protected Map getFlowWithCookie(Long cookie) {
-        if (cookie == null) return Collections.emptyMap();
-        return Iterators.singleOrNull(cypher.query(
-                "MATCH (a:switch)-[r:flow {cookie:{cookie}}]->(b:switch) RETURN r",
-                map("cookie", cookie)));
+    private void putFlow(Flow flow) {
+        if (flow != null) {
+            cookieCache.put(new FlowResult(flow));
+        }
     }
-}
\ No newline at end of file
+}
@@ -18,7 +18,6 @@ package org.openkilda.wfm.topology.stats.metrics;
 import static org.openkilda.messaging.Utils.CORRELATION_ID;
 import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
 
-import com.google.common.collect.ImmutableMap;
 import org.apache.storm.tuple.Tuple;
 import org.openkilda.messaging.Destination;
 import org.openkilda.messaging.info.InfoMessage;
@@ -30,11 +29,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 public class MeterConfigMetricGenBolt extends MetricGenBolt {
     private static final Logger LOGGER = LoggerFactory.getLogger(MeterConfigMetricGenBolt.class);
 
+    private final Map<String, String> tags = new HashMap<>();
+
     @Override
     public void execute(Tuple input) {
         StatsComponentType componentId = StatsComponentType.valueOf(input.getSourceComponent());
@@ -51,24 +53,23 @@ public class MeterConfigMetricGenBolt extends MetricGenBolt {
         long timestamp = message.getTimestamp();
 
         try {
-            String switchId = data.getSwitchId().replaceAll(":", "");
+            String switchId = normalizeSwitchId(data.getSwitchId());
             for (MeterConfigReply reply : data.getStats()) {
                 for (Long meterId : reply.getMeterIds()) {
                     emit(timestamp, meterId, switchId);
                 }
             }
         } finally {
+            flushDatapoints();
             collector.ack(input);
         }
     }
 
     private void emit(long timestamp, Long meterId, String switchId) {
         try {
-            Map<String, String> tags = ImmutableMap.of(
-                    "switchid", switchId,
-                    "meterId", meterId.toString()
-            );
-            collector.emit(tuple("pen.switch.meters", timestamp, meterId, tags));
+            tags.put("switchid", switchId);
+            tags.put("meterId", toTag(meterId));
+            addDatapoint("pen.switch.meters", timestamp, meterId, tags);
         } catch (IOException e) {
             LOGGER.error("Error during serialization of datapoint", e);
         }
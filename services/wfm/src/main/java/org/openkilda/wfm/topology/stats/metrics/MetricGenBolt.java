@@ -19,25 +19,40 @@ import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.topology.base.BaseRichBolt;
-import org.openkilda.messaging.Utils;
-import org.openkilda.messaging.info.Datapoint;
+import org.apache.storm.tuple.Values;
 import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.opentsdb.DatapointWriter;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Base of the stats metric generators. The datapoints of a stats reply are collected with {@link #addDatapoint} and
+ * written by {@link #flushDatapoints} as one binary message of the otsdb topic, see {@link DatapointWriter}.
+ */
 public abstract class MetricGenBolt extends BaseRichBolt {
+    /**
+     * The limit of the datapoints in one message, it keeps the messages of the big replies within the Kafka limits.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
 
-    protected OutputCollector collector;
+    /**
+     * Tag values of the small numbers: table ids, port numbers, meter ids.
+     */
+    private static final String[] NUMBER_TAGS = new String[4096];
 
-    protected static List<Object> tuple(String metric, long timestamp, Number value, Map<String, String> tag)
-            throws IOException {
-        Datapoint datapoint = new Datapoint(metric, timestamp, tag, value);
-        return Collections.singletonList(Utils.MAPPER.writeValueAsString(datapoint));
+    static {
+        for (int i = 0; i < NUMBER_TAGS.length; i++) {
+            NUMBER_TAGS[i] = String.valueOf(i);
+        }
     }
 
+    protected OutputCollector collector;
+
+    private DatapointWriter writer;
+    private final Map<String, String> switchIds = new HashMap<>();
+
     @Override
     public void declareOutputFields(OutputFieldsDeclarer declarer) {
         declarer.declare(AbstractTopology.fieldMessage);
@@ -46,5 +61,57 @@ public abstract class MetricGenBolt extends BaseRichBolt {
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.collector = collector;
+        this.writer = new DatapointWriter();
+    }
+
+    /**
+     * Adds the datapoint to the message. The tags are written right away, the map can be reused for the next one.
+     */
+    protected void addDatapoint(String metric, long timestamp, long value, Map<String, String> tags)
+            throws IOException {
+        writer.add(metric, timestamp, value, tags);
+        flushFull();
+    }
+
+    protected void addDatapoint(String metric, long timestamp, double value, Map<String, String> tags)
+            throws IOException {
+        writer.add(metric, timestamp, value, tags);
+        flushFull();
+    }
+
+    /**
+     * Emits the datapoints added so far as one message.
+     */
+    protected void flushDatapoints() {
+        if (writer.size() == 0) {
+            return;
+        }
+
+        collector.emit(new Values(writer.finish()));
+    }
+
+    /**
+     * @return the switch id without the colons, as it is tagged
+     */
+    protected String normalizeSwitchId(String switchId) {
+        String result = switchIds.get(switchId);
+        if (result == null) {
+            result = switchId.replaceAll(":", "");
+            switchIds.put(switchId, result);
+        }
+        return result;
+    }
+
+    protected static String toTag(long value) {
+        if (0 <= value && value < NUMBER_TAGS.length) {
+            return NUMBER_TAGS[(int) value];
+        }
+        return String.valueOf(value);
+    }
+
+    private void flushFull() {
+        if (MAX_BATCH_SIZE <= writer.size()) {
+            flushDatapoints();
+        }
     }
 }
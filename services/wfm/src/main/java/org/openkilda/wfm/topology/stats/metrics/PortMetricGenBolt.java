@@ -18,29 +18,128 @@ package org.openkilda.wfm.topology.stats.metrics;
 import static org.openkilda.messaging.Utils.CORRELATION_ID;
 import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
 
-import com.google.common.collect.ImmutableMap;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
 import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.Utils;
 import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.PortAnomalyData;
+import org.openkilda.messaging.info.event.PortAnomalyType;
 import org.openkilda.messaging.info.stats.PortStatsData;
 import org.openkilda.messaging.info.stats.PortStatsEntry;
 import org.openkilda.messaging.info.stats.PortStatsReply;
+import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.stats.CounterHistory;
+import org.openkilda.wfm.topology.stats.IslCache;
+import org.openkilda.wfm.topology.stats.PortAnomalyDetector;
 import org.openkilda.wfm.topology.stats.StatsComponentType;
 import org.openkilda.wfm.topology.stats.StatsStreamType;
+import org.openkilda.wfm.topology.stats.bolts.CacheFilterBolt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The port counters and rates of the switches.
+ *
+ * The ISLs that start on the switches of the task come on the {@link StatsStreamType#ISL_UPDATE} stream, the tx
+ * rate of the source port of an ISL is reported as its utilization too. The end of every network dump comes on the
+ * {@link StatsStreamType#ISL_RESYNC} stream, the ISLs the dump did not have are dropped then.
+ *
+ * The shares of the dropped and of the errored packets of every port are checked by the
+ * {@link PortAnomalyDetector}, a port that starts or stops to be anomalous is reported on the
+ * {@link StatsStreamType#PORT_ANOMALY} stream. The ports that are gone from the stats, or stay below the minimum
+ * packet rate, expire after {@link #MAX_SAMPLE_AGE}, and the anomalies of them end then.
+ */
 public class PortMetricGenBolt extends MetricGenBolt {
     private static final Logger LOGGER = LoggerFactory.getLogger(PortMetricGenBolt.class);
 
+    private static final long MAX_SAMPLE_AGE = TimeUnit.MINUTES.toMillis(10);
+    private static final String PORT_ANOMALY_STREAM = StatsStreamType.PORT_ANOMALY.toString();
+    private static final PortAnomalyType[] ANOMALY_TYPES = {PortAnomalyType.DROPS, PortAnomalyType.ERRORS};
+    private static final String[] ANOMALY_TAGS = {"drops", "errors"};
+
+    private final double dropThreshold;
+    private final double errorThreshold;
+    private final double deviation;
+    private final double minRate;
+    private long lastExpiry = 0;
+
     private Map<String, String> switchNameCache = new HashMap<>();
 
+    /**
+     * rx packets, tx packets, rx bytes, tx bytes, rx dropped, tx dropped, rx errors, tx errors of the port
+     */
+    private CounterHistory history;
+    private final long[] sample = new long[8];
+    private final double[] rates = new double[8];
+
+    private PortAnomalyDetector anomalyDetector;
+    private final double[] ratios = new double[PortAnomalyDetector.SIGNALS];
+    private final boolean[] anomalies = new boolean[PortAnomalyDetector.SIGNALS];
+    private final double[] baselines = new double[PortAnomalyDetector.SIGNALS];
+
+    /**
+     * The tags of the datapoints, reused for every entry.
+     */
+    private final Map<String, String> tags = new HashMap<>();
+    private final Map<String, String> islTags = new HashMap<>();
+
+    private IslCache islCache;
+
+    /**
+     * @param dropThreshold the share of the dropped packets that is an anomaly on any port
+     * @param errorThreshold the share of the errored packets that is an anomaly on any port
+     * @param deviation how many standard deviations above the usual share of a port is an anomaly
+     * @param minRate the packets per second below which a port is not checked for anomalies
+     */
+    public PortMetricGenBolt(double dropThreshold, double errorThreshold, double deviation, double minRate) {
+        this.dropThreshold = dropThreshold;
+        this.errorThreshold = errorThreshold;
+        this.deviation = deviation;
+        this.minRate = minRate;
+    }
+
+    @Override
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        super.prepare(stormConf, context, collector);
+        history = new CounterHistory(sample.length, MAX_SAMPLE_AGE);
+        islCache = new IslCache();
+        anomalyDetector = new PortAnomalyDetector(dropThreshold, errorThreshold, deviation, minRate,
+                MAX_SAMPLE_AGE);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        super.declareOutputFields(declarer);
+        declarer.declareStream(PORT_ANOMALY_STREAM, AbstractTopology.fieldMessage);
+    }
+
     @Override
     public void execute(Tuple input) {
+        if (StatsStreamType.ISL_UPDATE.toString().equals(input.getSourceStreamId())) {
+            islCache.update((IslInfoData) input.getValueByField(MESSAGE_FIELD),
+                    input.getLongByField(CacheFilterBolt.FIELD_DUMP));
+            collector.ack(input);
+            return;
+        }
+        if (StatsStreamType.ISL_RESYNC.toString().equals(input.getSourceStreamId())) {
+            int removed = islCache.removeOlder(input.getLongByField(CacheFilterBolt.FIELD_DUMP));
+            LOGGER.debug("ISLs gone since the previous network dump: {}", removed);
+            collector.ack(input);
+            return;
+        }
+
         StatsComponentType componentId = StatsComponentType.valueOf(input.getSourceComponent());
         InfoMessage message = (InfoMessage) input.getValueByField(MESSAGE_FIELD);
 
@@ -55,45 +154,159 @@ public class PortMetricGenBolt extends MetricGenBolt {
         long timestamp = message.getTimestamp();
 
         try {
-            String switchId = switchNameCache.get(data.getSwitchId());
-            if (switchId == null) {
-                switchId = "SW" + data.getSwitchId().replaceAll(":", "").toUpperCase();
-                switchNameCache.put(data.getSwitchId(), switchId);
-            }
-
+            String switchId = toSwitchName(data.getSwitchId());
             for (PortStatsReply reply : data.getStats()) {
                 for (PortStatsEntry entry : reply.getEntries()) {
-                    emit(entry, timestamp, switchId);
+                    emit(entry, timestamp, switchId, data.getSwitchId(), message.getCorrelationId());
                 }
             }
+
+            if (lastExpiry + MAX_SAMPLE_AGE <= timestamp) {
+                lastExpiry = timestamp;
+                expireAnomalies(timestamp);
+            }
         } finally {
+            flushDatapoints();
             collector.ack(input);
         }
     }
 
-    private void emit(PortStatsEntry entry, long timestamp, String switchId) {
+    private String toSwitchName(String datapathId) {
+        String switchId = switchNameCache.get(datapathId);
+        if (switchId == null) {
+            switchId = "SW" + datapathId.replaceAll(":", "").toUpperCase();
+            switchNameCache.put(datapathId, switchId);
+        }
+        return switchId;
+    }
+
+    private void emit(PortStatsEntry entry, long timestamp, String switchId, String datapathId,
+                      String correlationId) {
         try {
-            Map<String, String> tags = ImmutableMap.of(
-                    "switchid", switchId,
-                    "port", String.valueOf(entry.getPortNo())
-            );
-
-            collector.emit(tuple("pen.switch.rx-packets", timestamp, entry.getRxPackets(), tags));
-            collector.emit(tuple("pen.switch.tx-packets", timestamp, entry.getTxPackets(), tags));
-            collector.emit(tuple("pen.switch.rx-bytes", timestamp, entry.getRxBytes(), tags));
-            collector.emit(tuple("pen.switch.rx-bits", timestamp, entry.getRxBytes()*8, tags));
-            collector.emit(tuple("pen.switch.tx-bytes", timestamp, entry.getTxBytes(), tags));
-            collector.emit(tuple("pen.switch.tx-bits", timestamp, entry.getTxBytes()*8, tags));
-            collector.emit(tuple("pen.switch.rx-dropped", timestamp, entry.getRxDropped(), tags));
-            collector.emit(tuple("pen.switch.tx-dropped", timestamp, entry.getTxDropped(), tags));
-            collector.emit(tuple("pen.switch.rx-errors", timestamp, entry.getRxErrors(), tags));
-            collector.emit(tuple("pen.switch.tx-errors", timestamp, entry.getTxErrors(), tags));
-            collector.emit(tuple("pen.switch.rx-frame-error", timestamp, entry.getRxFrameErr(), tags));
-            collector.emit(tuple("pen.switch.rx-over-error", timestamp, entry.getRxOverErr(), tags));
-            collector.emit(tuple("pen.switch.rx-crc-error", timestamp, entry.getRxCrcErr(), tags));
-            collector.emit(tuple("pen.switch.collisions", timestamp, entry.getCollisions(), tags));
+            tags.put("switchid", switchId);
+            tags.put("port", toTag(entry.getPortNo()));
+
+            addDatapoint("pen.switch.rx-packets", timestamp, entry.getRxPackets(), tags);
+            addDatapoint("pen.switch.tx-packets", timestamp, entry.getTxPackets(), tags);
+            addDatapoint("pen.switch.rx-bytes", timestamp, entry.getRxBytes(), tags);
+            addDatapoint("pen.switch.rx-bits", timestamp, entry.getRxBytes()*8, tags);
+            addDatapoint("pen.switch.tx-bytes", timestamp, entry.getTxBytes(), tags);
+            addDatapoint("pen.switch.tx-bits", timestamp, entry.getTxBytes()*8, tags);
+            addDatapoint("pen.switch.rx-dropped", timestamp, entry.getRxDropped(), tags);
+            addDatapoint("pen.switch.tx-dropped", timestamp, entry.getTxDropped(), tags);
+            addDatapoint("pen.switch.rx-errors", timestamp, entry.getRxErrors(), tags);
+            addDatapoint("pen.switch.tx-errors", timestamp, entry.getTxErrors(), tags);
+            addDatapoint("pen.switch.rx-frame-error", timestamp, entry.getRxFrameErr(), tags);
+            addDatapoint("pen.switch.rx-over-error", timestamp, entry.getRxOverErr(), tags);
+            addDatapoint("pen.switch.rx-crc-error", timestamp, entry.getRxCrcErr(), tags);
+            addDatapoint("pen.switch.collisions", timestamp, entry.getCollisions(), tags);
+
+            sample[0] = entry.getRxPackets();
+            sample[1] = entry.getTxPackets();
+            sample[2] = entry.getRxBytes();
+            sample[3] = entry.getTxBytes();
+            sample[4] = entry.getRxDropped();
+            sample[5] = entry.getTxDropped();
+            sample[6] = entry.getRxErrors();
+            sample[7] = entry.getTxErrors();
+            if (history.update(switchId, entry.getPortNo(), timestamp, sample, rates)) {
+                addDatapoint("pen.switch.rx-pps", timestamp, rates[0], tags);
+                addDatapoint("pen.switch.tx-pps", timestamp, rates[1], tags);
+                addDatapoint("pen.switch.rx-bps", timestamp, rates[2] * 8, tags);
+                addDatapoint("pen.switch.tx-bps", timestamp, rates[3] * 8, tags);
+
+                IslInfoData isl = islCache.get(datapathId, entry.getPortNo());
+                if (isl != null) {
+                    emitIsl(isl, timestamp, rates[3] * 8);
+                }
+
+                checkAnomalies(entry.getPortNo(), timestamp, switchId, datapathId, correlationId);
+            }
         } catch (IOException e) {
             LOGGER.error("Error during serialization of datapoint", e);
         }
     }
+
+    /**
+     * The speed of the ISL is in kbps. The utilization is the share of it in use, the headroom is the rest in bps.
+     */
+    private void emitIsl(IslInfoData isl, long timestamp, double bps) throws IOException {
+        if (isl.getSpeed() <= 0) {
+            return;
+        }
+
+        PathNode source = isl.getPath().get(0);
+        PathNode destination = isl.getPath().get(1);
+        islTags.put("src_switch", normalizeSwitchId(source.getSwitchId()));
+        islTags.put("src_port", toTag(source.getPortNo()));
+        islTags.put("dst_switch", normalizeSwitchId(destination.getSwitchId()));
+        islTags.put("dst_port", toTag(destination.getPortNo()));
+
+        double capacity = isl.getSpeed() * 1000.0;
+        addDatapoint("pen.isl.utilization", timestamp, bps / capacity, islTags);
+        addDatapoint("pen.isl.headroom", timestamp, Math.max(0, capacity - bps), islTags);
+    }
+
+    /**
+     * The CRC, frame and overrun errors are counted in the rx errors, so they are not added up again.
+     */
+    private void checkAnomalies(int port, long timestamp, String switchId, String datapathId,
+                                String correlationId) throws IOException {
+        double packets = rates[0] + rates[1];
+        ratios[PortAnomalyDetector.DROPS] = share(rates[4] + rates[5], packets);
+        ratios[PortAnomalyDetector.ERRORS] = share(rates[6] + rates[7], packets);
+
+        int changed = anomalyDetector.update(datapathId, port, timestamp, packets, ratios, anomalies, baselines);
+        for (int signal = 0; signal < PortAnomalyDetector.SIGNALS; signal++) {
+            boolean isChanged = (changed & (1 << signal)) != 0;
+            if (!anomalies[signal] && !isChanged) {
+                continue;
+            }
+
+            tags.put("type", ANOMALY_TAGS[signal]);
+            addDatapoint("pen.switch.anomaly", timestamp, anomalies[signal] ? 1L : 0L, tags);
+            tags.remove("type");
+
+            if (isChanged) {
+                emitAnomaly(datapathId, port, signal, anomalies[signal], ratios[signal], baselines[signal],
+                        timestamp, correlationId);
+            }
+        }
+    }
+
+    /**
+     * Ends the anomalies of the ports not updated for {@link #MAX_SAMPLE_AGE}.
+     */
+    private void expireAnomalies(long timestamp) {
+        String correlationId = UUID.randomUUID().toString();
+        int removed = anomalyDetector.expire(timestamp - MAX_SAMPLE_AGE, (datapathId, port, signal, baseline) -> {
+            tags.put("switchid", toSwitchName(datapathId));
+            tags.put("port", toTag(port));
+            tags.put("type", ANOMALY_TAGS[signal]);
+            try {
+                addDatapoint("pen.switch.anomaly", timestamp, 0L, tags);
+                emitAnomaly(datapathId, (int) port, signal, false, 0, baseline, timestamp, correlationId);
+            } catch (IOException e) {
+                LOGGER.error("Error during serialization of the end of anomaly", e);
+            } finally {
+                tags.remove("type");
+            }
+        });
+        LOGGER.debug("Ports expired from the anomaly detector: {}", removed);
+    }
+
+    private void emitAnomaly(String datapathId, int port, int signal, boolean isActive, double ratio,
+                             double baseline, long timestamp, String correlationId) throws IOException {
+        LOGGER.info("Port {}-{} {} anomaly {}: ratio={}, baseline={}", datapathId, port,
+                ANOMALY_TAGS[signal], isActive ? "started" : "ended", ratio, baseline);
+        PortAnomalyData data = new PortAnomalyData(datapathId, port, ANOMALY_TYPES[signal], isActive, ratio,
+                baseline);
+        InfoMessage event = new InfoMessage(data, timestamp, correlationId, Destination.WFM);
+        collector.emit(PORT_ANOMALY_STREAM, new Values(Utils.MAPPER.writeValueAsString(event)));
+    }
+
+    private static double share(double bad, double good) {
+        double total = bad + good;
+        return total <= 0 ? 0 : bad / total;
+    }
 }
@@ -0,0 +1,198 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.stats.metrics;
+
+import static org.openkilda.wfm.topology.AbstractTopology.MESSAGE_FIELD;
+
+import org.apache.storm.Config;
+import org.apache.storm.Constants;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.Utils;
+import org.openkilda.messaging.command.CommandMessage;
+import org.openkilda.messaging.command.stats.TopFlowsRequest;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.stats.TopFlowEntry;
+import org.openkilda.messaging.info.stats.TopFlowsResponse;
+import org.openkilda.wfm.topology.AbstractTopology;
+import org.openkilda.wfm.topology.stats.StatsStreamType;
+import org.openkilda.wfm.topology.stats.TopFlows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the flows with the highest bit rates per switch and network wide, out of the tops the
+ * {@link FlowMetricGenBolt} tasks take of every stats reply. It answers the {@link TopFlowsRequest} of the northbound
+ * and writes the tops as metrics every minute. It must run as one task to see all the switches.
+ */
+public class TopFlowsBolt extends MetricGenBolt {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopFlowsBolt.class);
+
+    /**
+     * How many flows the tops keep, the limit of a request.
+     */
+    public static final int TOP_SIZE = 50;
+
+    private static final int METRICS_INTERVAL = 60;
+    private static final int METRICS_TOP_SIZE = 10;
+
+    /**
+     * The top of a switch that sent no stats for this long is dropped.
+     */
+    private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String TOP_FLOWS_STREAM = StatsStreamType.TOP_FLOWS.toString();
+    private static final String TOP_FLOWS_REQUEST_STREAM = StatsStreamType.TOP_FLOWS_REQUEST.toString();
+    private static final String TOP_FLOWS_RESPONSE_STREAM = StatsStreamType.TOP_FLOWS_RESPONSE.toString();
+
+    private Map<String, SwitchTop> switches;
+    private final Map<String, String> tags = new HashMap<>();
+
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        Config conf = new Config();
+        conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, METRICS_INTERVAL);
+        return conf;
+    }
+
+    @Override
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        super.prepare(stormConf, context, collector);
+        switches = new HashMap<>();
+    }
+
+    @Override
+    public void execute(Tuple input) {
+        try {
+            if (isTickTuple(input)) {
+                long now = System.currentTimeMillis();
+                expire(now);
+                writeMetrics(now);
+            } else if (TOP_FLOWS_STREAM.equals(input.getSourceStreamId())) {
+                String switchId = input.getStringByField(FlowMetricGenBolt.FIELD_SWITCH_ID);
+                switches.put(makeKey(switchId), new SwitchTop(System.currentTimeMillis(),
+                        (List<TopFlowEntry>) input.getValueByField(FlowMetricGenBolt.FIELD_TOP_HOPS),
+                        (List<TopFlowEntry>) input.getValueByField(FlowMetricGenBolt.FIELD_TOP_ENDS)));
+            } else if (TOP_FLOWS_REQUEST_STREAM.equals(input.getSourceStreamId())) {
+                reply(input, (CommandMessage) input.getValueByField(MESSAGE_FIELD));
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error process: {}", input, e);
+        } finally {
+            collector.ack(input);
+        }
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+        super.declareOutputFields(declarer);
+        declarer.declareStream(TOP_FLOWS_RESPONSE_STREAM, AbstractTopology.fieldMessage);
+    }
+
+    private void reply(Tuple input, CommandMessage message) throws IOException {
+        TopFlowsRequest request = (TopFlowsRequest) message.getData();
+        int limit = Math.min(Math.max(request.getLimit(), 1), TOP_SIZE);
+        LOGGER.debug("Top {} flows request for switch {}", limit, request.getSwitchId());
+
+        List<TopFlowEntry> flows;
+        if (request.getSwitchId() == null) {
+            flows = getNetworkTop(limit);
+        } else {
+            SwitchTop top = switches.get(makeKey(request.getSwitchId()));
+            flows = top == null
+                    ? Collections.emptyList()
+                    : new ArrayList<>(top.hops.subList(0, Math.min(limit, top.hops.size())));
+        }
+
+        InfoMessage response = new InfoMessage(new TopFlowsResponse(request.getSwitchId(), flows),
+                System.currentTimeMillis(), message.getCorrelationId(), Destination.NORTHBOUND);
+        collector.emit(TOP_FLOWS_RESPONSE_STREAM, input, new Values(Utils.MAPPER.writeValueAsString(response)));
+    }
+
+    private void writeMetrics(long now) throws IOException {
+        for (SwitchTop top : switches.values()) {
+            int rank = 0;
+            for (TopFlowEntry entry : top.hops.subList(0, Math.min(METRICS_TOP_SIZE, top.hops.size()))) {
+                tags.put("switchid", normalizeSwitchId(entry.getSwitchId()));
+                tags.put("flowid", entry.getFlowId());
+                tags.put("direction", entry.getDirection());
+                tags.put("rank", toTag(++rank));
+                addDatapoint("pen.switch.top-flows.bps", now, entry.getBps(), tags);
+            }
+        }
+        tags.clear();
+
+        int rank = 0;
+        for (TopFlowEntry entry : getNetworkTop(METRICS_TOP_SIZE)) {
+            tags.put("flowid", entry.getFlowId());
+            tags.put("direction", entry.getDirection());
+            tags.put("rank", toTag(++rank));
+            addDatapoint("pen.flow.top.bps", now, entry.getBps(), tags);
+        }
+        tags.clear();
+        flushDatapoints();
+    }
+
+    private List<TopFlowEntry> getNetworkTop(int limit) {
+        return TopFlows.merge(switches.values().stream()
+                .map(top -> top.ends)
+                .collect(Collectors.toList()), limit);
+    }
+
+    private void expire(long now) {
+        Iterator<SwitchTop> iterator = switches.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().received + MAX_AGE < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private String makeKey(String switchId) {
+        return normalizeSwitchId(switchId).toLowerCase();
+    }
+
+    private static boolean isTickTuple(Tuple tuple) {
+        return (tuple.getSourceComponent().equals(Constants.SYSTEM_COMPONENT_ID)
+                && tuple.getSourceStreamId().equals(Constants.SYSTEM_TICK_STREAM_ID));
+    }
+
+    private static final class SwitchTop {
+        private final long received;
+        private final List<TopFlowEntry> hops;
+        private final List<TopFlowEntry> ends;
+
+        SwitchTop(long received, List<TopFlowEntry> hops, List<TopFlowEntry> ends) {
+            this.received = received;
+            this.hops = hops;
+            this.ends = ends;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.openkilda.messaging.model.DiscoveryNode;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -132,6 +133,168 @@ public class DiscoveryManagerTest {
 
     }
 
+    @Test
+    public void noResponseCounters() {
+        // The nodes are touched only on the ticks they are due, counters must still be the same as
+        // if every tick were applied one by one.
+        dm = new DiscoveryManager(new DummyIIslFilter(), new LinkedList<>(), 2, 1, 8);
+        dm.handlePortUp("sw1", "pt1");
+
+        // sends on ticks 3, 6, 9, 12, 15; no response from tick 7 on, forlorn from tick 16
+        int sent = 0;
+        for (int i = 0; i < 20; i++) {
+            DiscoveryManager.Plan discoveryPlan = dm.makeDiscoveryPlan();
+            sent += discoveryPlan.needDiscovery.size();
+            assertEquals(0, discoveryPlan.discoveryFailure.size());
+        }
+        assertEquals(5, sent);
+
+        DiscoveryNode node = dm.filterQueue(new DiscoveryManager.Node("sw1", "pt1")).get(0);
+        assertEquals(5, node.getAttempts());
+        assertEquals(9, node.getConsecutiveFailure());
+
+        // port up revives the forlorn node
+        dm.handlePortUp("sw1", "pt1");
+        dm.makeDiscoveryPlan();
+        dm.makeDiscoveryPlan();
+        assertEquals(1, dm.makeDiscoveryPlan().needDiscovery.size());
+    }
+
+    @Test
+    public void adaptiveCheckInterval() {
+        // A stable ISL backs off to the max interval, a missed response or a port event brings it
+        // back to the base interval.
+        dm = new DiscoveryManager(
+                new DummyIIslFilter(), new LinkedList<>(), 1, 8, DiscoveryNode.FORLORN_NEVER, 8, 4,
+                FlapDampening.NONE);
+        DiscoveryManager.Node subject = new DiscoveryManager.Node("sw1", "pt1");
+        dm.handlePortUp(subject.switchId, subject.portId);
+
+        assertTrue(dm.handleDiscovered(subject.switchId, subject.portId));
+        assertEquals(1, dm.filterQueue(subject).get(0).getCheckInterval());
+        for (int expected : new int[]{2, 4, 8, 8}) {
+            dm.handleDiscovered(subject.switchId, subject.portId);
+            assertEquals(expected, dm.filterQueue(subject).get(0).getCheckInterval());
+        }
+
+        // sends on ticks 9 and 18 instead of every other tick
+        int sent = 0;
+        for (int i = 0; i < 20; i++) {
+            DiscoveryManager.Plan discoveryPlan = dm.makeDiscoveryPlan();
+            sent += discoveryPlan.needDiscovery.size();
+            for (DiscoveryManager.Node node : discoveryPlan.needDiscovery) {
+                dm.handleDiscovered(node.switchId, node.portId);
+            }
+        }
+        assertEquals(2, sent);
+
+        // no response: the second send is on the base interval again, then the failure is reported
+        List<Integer> failures = new LinkedList<>();
+        for (int i = 0; i < 20; i++) {
+            if (dm.makeDiscoveryPlan().discoveryFailure.size() > 0) {
+                failures.add(i);
+            }
+        }
+        assertEquals(1, failures.size());
+        assertEquals(1, dm.filterQueue(subject).get(0).getCheckInterval());
+
+        dm.handleDiscovered(subject.switchId, subject.portId);
+        dm.handleDiscovered(subject.switchId, subject.portId);
+        assertEquals(2, dm.filterQueue(subject).get(0).getCheckInterval());
+        dm.handlePortUp(subject.switchId, subject.portId);
+        assertEquals(1, dm.filterQueue(subject).get(0).getCheckInterval());
+    }
+
+    @Test
+    public void backedOffFailureDetection() {
+        // A stable ISL on the max interval is reported down no later than on the base interval.
+        assertTrue(ticksToFailure(8) <= ticksToFailure(1));
+        // The max interval is capped at the failure threshold.
+        assertTrue(ticksToFailure(100) <= ticksToFailure(1));
+    }
+
+    /** @return how many ticks after the last response the ISL failure is reported */
+    private int ticksToFailure(int maxInterval) {
+        dm = new DiscoveryManager(
+                new DummyIIslFilter(), new LinkedList<>(), 1, 8, DiscoveryNode.FORLORN_NEVER, maxInterval, 4,
+                FlapDampening.NONE);
+        DiscoveryManager.Node subject = new DiscoveryManager.Node("sw1", "pt1");
+        dm.handlePortUp(subject.switchId, subject.portId);
+        for (int i = 0; i < 8; i++) {
+            dm.handleDiscovered(subject.switchId, subject.portId);
+        }
+
+        for (int i = 1; i < 100; i++) {
+            if (dm.makeDiscoveryPlan().discoveryFailure.size() > 0) {
+                return i;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    @Test
+    public void edgePortCheckInterval() {
+        // A port that never answers is checked on the edge port interval.
+        dm = new DiscoveryManager(
+                new DummyIIslFilter(), new LinkedList<>(), 1, 1, DiscoveryNode.FORLORN_NEVER, 8, 4,
+                FlapDampening.NONE);
+        dm.handlePortUp("sw1", "pt1");
+
+        StringBuilder sends = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            sends.append(dm.makeDiscoveryPlan().needDiscovery.size());
+        }
+        assertEquals("010101000010000100001000010000", sends.toString());
+    }
+
+    @Test
+    public void flapDampening() {
+        // Each ISL down adds 1000 to the penalty, the penalty halves every 10 ticks. From 2000 on, the
+        // ISL UP isn't reported until the penalty decays below 750.
+        dm = new DiscoveryManager(
+                new DummyIIslFilter(), new LinkedList<>(), 1, 2, DiscoveryNode.FORLORN_NEVER, 1, 1,
+                new FlapDampening(1000, 2000, 750, 10, 4000));
+        DiscoveryManager.Node subject = new DiscoveryManager.Node("sw1", "pt1");
+        dm.handlePortUp(subject.switchId, subject.portId);
+
+        assertTrue(dm.handleDiscovered(subject.switchId, subject.portId));
+        assertTrue(dm.handleFailed(subject.switchId, subject.portId));
+        assertTrue(dm.handleDiscovered(subject.switchId, subject.portId));
+        assertTrue(dm.handleFailed(subject.switchId, subject.portId));
+        // penalty 2000
+        assertFalse(dm.handleDiscovered(subject.switchId, subject.portId));
+        assertTrue(dm.filterQueue(subject).get(0).isSuppressed());
+        // the UP wasn't reported, so neither is the DOWN; penalty 3000
+        assertFalse(dm.handleFailed(subject.switchId, subject.portId));
+        assertFalse(dm.handleDiscovered(subject.switchId, subject.portId));
+
+        // the penalty is below 750 after tick 20, the first discovery after that reports the UP
+        List<Integer> reported = new LinkedList<>();
+        for (int i = 1; i <= 30; i++) {
+            for (DiscoveryManager.Node node : dm.makeDiscoveryPlan().needDiscovery) {
+                if (dm.handleDiscovered(node.switchId, node.portId)) {
+                    reported.add(i);
+                }
+            }
+        }
+        assertEquals(1, reported.size());
+        assertEquals(22, (int) reported.get(0));
+
+        Map<String, Long> stats = dm.getDampeningStats();
+        assertEquals(3L, (long) stats.get("flaps"));
+        assertEquals(2L, (long) stats.get("suppressions"));
+        assertEquals(0L, (long) stats.get("suppressed"));
+
+        // the port down is a flap too, and the penalty outlives the node
+        dm.handlePortDown(subject.switchId, subject.portId);
+        assertEquals(1L, (long) dm.getDampeningStats().get("remembered"));
+        dm.handlePortUp(subject.switchId, subject.portId);
+        DiscoveryNode node = dm.filterQueue(subject).get(0);
+        assertEquals(4, node.getFlapCount());
+        assertTrue(node.getFlapPenalty() > 1000);
+        assertEquals(0L, (long) dm.getDampeningStats().get("remembered"));
+    }
+
     @Test
     public void handleDiscovered() {
         // Test whether it handle the state change properly .. ie is this a new failure ore not.
@@ -1,5 +1,8 @@
 package org.openkilda.wfm.topology;
 
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.openkilda.wfm.topology.stats.FlowResult;
 import org.openkilda.wfm.topology.stats.metrics.FlowMetricGenBolt;
 
 import java.util.HashMap;
@@ -12,7 +15,8 @@ public class TestFlowGenMetricsBolt extends FlowMetricGenBolt{
     private String dstSw;
     private String direction;
 
-    public TestFlowGenMetricsBolt(long cookie, String flowId, String srcSw, String dstSw) {
+    public TestFlowGenMetricsBolt(int cookieCacheSize, long cookie, String flowId, String srcSw, String dstSw) {
+        super(cookieCacheSize);
         this.cookie = cookie;
         this.flowId = flowId;
         this.srcSw = srcSw;
@@ -20,15 +24,18 @@ public class TestFlowGenMetricsBolt extends FlowMetricGenBolt{
     }
 
     @Override
-    protected Map getFlowWithCookie(Long cookie) {
+    public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+        super.prepare(stormConf, context, collector);
+
         Map<String, Object> result = new HashMap<>();
         result.put("cookie", cookie);
         result.put("flowid", flowId);
         result.put("src_switch", srcSw);
         result.put("dst_switch", dstSw);
-
-        Map<String, Object> cypherResult = new HashMap<>();
-        cypherResult.put("r", result);
-        return cypherResult;
+        try {
+            cookieCache.put(new FlowResult(result));
+        } catch (FlowCookieException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,64 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openkilda.messaging.model.DiscoveryNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class DiscoveryCheckpointTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        Path path = DiscoveryCheckpoint.makePath(folder.getRoot().getPath() + "/discovery", "link", 1);
+        assertNull(DiscoveryCheckpoint.load(path));
+
+        DiscoveryNode isl = new DiscoveryNode("sw1", "1", 2, DiscoveryNode.FORLORN_NEVER);
+        isl.setFoundIsl(true);
+        isl.incConsecutiveSuccess();
+        isl.setCheckInterval(8);
+        DiscoveryNode edge = new DiscoveryNode("sw1", "2", 2, DiscoveryNode.FORLORN_NEVER);
+        edge.incAttempts();
+
+        new DiscoveryCheckpoint(1000L, 2, Arrays.asList(isl, edge), Collections.singleton(edge)).save(path);
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+
+        DiscoveryCheckpoint checkpoint = DiscoveryCheckpoint.load(path);
+        assertEquals(1000L, checkpoint.getTimestamp());
+        assertEquals(2, checkpoint.getPartitionsCount());
+        assertEquals(Arrays.asList(isl, edge), checkpoint.getNodes());
+        assertEquals(Collections.singleton(edge), checkpoint.getFiltered());
+
+        DiscoveryNode restored = checkpoint.getNodes().get(0);
+        assertTrue(restored.isFoundIsl());
+        assertEquals(1, restored.getConsecutiveSuccess());
+        assertEquals(8, restored.getCheckInterval());
+        assertEquals(1, checkpoint.getNodes().get(1).getAttempts());
+    }
+}
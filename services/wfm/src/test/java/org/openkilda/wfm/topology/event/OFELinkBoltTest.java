@@ -39,6 +39,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class OFELinkBoltTest extends AbstractStormTest {
 
@@ -181,6 +183,41 @@ public class OFELinkBoltTest extends AbstractStormTest {
     }
 
 
+    /**
+     * With several bolt tasks every task picks only its own switches out of the network dump.
+     */
+    @Test
+    public void cacheLoadPartitionCheck() throws IOException {
+        List<String> switches = Arrays.asList("sw1", "sw2", "sw3", "sw4", "sw5", "sw6");
+        Set<PortInfoData> ports = switches.stream()
+                .map(switchId -> new PortInfoData(switchId, 1, null, UP))
+                .collect(Collectors.toSet());
+        NetworkInfoData dump = new NetworkInfoData(
+                "test", Collections.emptySet(), ports, Collections.emptySet(), Collections.emptySet(), null);
+        String request = objectMapper.writeValueAsString(
+                new InfoMessage(dump, 0, DEFAULT_CORRELATION_ID, Destination.WFM));
+
+        int total = 0;
+        for (int partition = 0; partition < 2; partition++) {
+            OFELinkBolt partitionBolt = new OFELinkBolt(config);
+            TopologyContext partitionContext = Mockito.mock(TopologyContext.class);
+            Mockito.when(partitionContext.getThisComponentId()).thenReturn(OFEventWFMTopology.BOLT_ID);
+            Mockito.when(partitionContext.getComponentTasks(OFEventWFMTopology.BOLT_ID))
+                    .thenReturn(Arrays.asList(1, 2));
+            Mockito.when(partitionContext.getThisTaskIndex()).thenReturn(partition);
+            partitionBolt.prepare(stormConfig(), partitionContext, new OutputCollector(new OutputCollectorMock()));
+            partitionBolt.initState(new InMemoryKeyValueState<>());
+
+            partitionBolt.doWork(new TupleImpl(context, new Values(request), TASK_ID_BOLT, STREAM_ID_INPUT));
+
+            for (DiscoveryNode node : partitionBolt.getDiscoveryQueue()) {
+                assertEquals(partition, SwitchIdGrouping.getPartition(node.getSwitchId(), 2));
+            }
+            total += partitionBolt.getDiscoveryQueue().size();
+        }
+        assertEquals(switches.size(), total);
+    }
+
     public void initBolt() throws JsonProcessingException {
         Tuple dumpTuple = getDumpTuple();
         bolt.doWork(dumpTuple);
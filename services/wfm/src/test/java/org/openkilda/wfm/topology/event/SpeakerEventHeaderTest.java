@@ -0,0 +1,102 @@
+/* Copyright 2017 Telstra Open Source
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.openkilda.wfm.topology.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.openkilda.messaging.Utils.DEFAULT_CORRELATION_ID;
+import static org.openkilda.messaging.Utils.MAPPER;
+
+import org.junit.Test;
+import org.openkilda.messaging.Destination;
+import org.openkilda.messaging.HeartBeat;
+import org.openkilda.messaging.info.InfoData;
+import org.openkilda.messaging.info.InfoMessage;
+import org.openkilda.messaging.info.discovery.NetworkInfoData;
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+import org.openkilda.messaging.info.event.PortChangeType;
+import org.openkilda.messaging.info.event.PortInfoData;
+import org.openkilda.messaging.info.event.SwitchInfoData;
+import org.openkilda.messaging.info.event.SwitchState;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SpeakerEventHeaderTest {
+    @Test
+    public void switchEvent() throws IOException {
+        SpeakerEventHeader header = parse(new SwitchInfoData(
+                "sw1", SwitchState.ACTIVATED, "127.0.0.1", "localhost", "test switch", "kilda"));
+
+        assertFalse(header.isBroadcast());
+        assertEquals("sw1", header.getSwitchId());
+    }
+
+    @Test
+    public void portEvent() throws IOException {
+        SpeakerEventHeader header = parse(new PortInfoData("sw1", 1, null, PortChangeType.UP));
+
+        assertFalse(header.isBroadcast());
+        assertEquals("sw1", header.getSwitchId());
+    }
+
+    @Test
+    public void islEventGoesToSourceSwitch() throws IOException {
+        IslInfoData isl = new IslInfoData(10L,
+                Arrays.asList(new PathNode("sw1", 1, 0, 0L), new PathNode("sw2", 2, 1, 0L)),
+                1000L, IslChangeType.DISCOVERED, 900L);
+        SpeakerEventHeader header = parse(isl);
+
+        assertFalse(header.isBroadcast());
+        assertEquals("sw1", header.getSwitchId());
+    }
+
+    @Test
+    public void networkDumpIsBroadcast() throws IOException {
+        NetworkInfoData dump = new NetworkInfoData(
+                "test", Collections.emptySet(),
+                Collections.singleton(new PortInfoData("sw1", 1, null, PortChangeType.UP)),
+                Collections.emptySet(), Collections.emptySet(), null);
+
+        assertTrue(parse(dump).isBroadcast());
+    }
+
+    @Test
+    public void heartBeatIsBroadcast() throws IOException {
+        String json = MAPPER.writeValueAsString(new HeartBeat(0, DEFAULT_CORRELATION_ID));
+
+        assertTrue(SpeakerEventHeader.parse(json).isBroadcast());
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedJson() throws IOException {
+        SpeakerEventHeader.parse("{\"corrupted-json");
+    }
+
+    @Test(expected = IOException.class)
+    public void emptyMessage() throws IOException {
+        SpeakerEventHeader.parse("");
+    }
+
+    private SpeakerEventHeader parse(InfoData data) throws IOException {
+        InfoMessage message = new InfoMessage(data, 0, DEFAULT_CORRELATION_ID, Destination.WFM);
+        return SpeakerEventHeader.parse(MAPPER.writeValueAsString(message));
+    }
+}
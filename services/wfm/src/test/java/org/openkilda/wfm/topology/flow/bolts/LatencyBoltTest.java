@@ -0,0 +1,64 @@
+package org.openkilda.wfm.topology.flow.bolts;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import org.openkilda.wfm.topology.flow.LatencyStage;
+
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyBoltTest {
+    private static final String CORRELATION_ID = "latency-test";
+
+    private LatencyBolt bolt;
+
+    @Before
+    public void setUp() {
+        bolt = new LatencyBolt(60);
+        bolt.prepare(new HashMap(), mock(TopologyContext.class), mock(OutputCollector.class));
+    }
+
+    @Test
+    public void stageLatencyIsCountedFromPreviousStage() {
+        bolt.record(CORRELATION_ID, LatencyStage.NORTHBOUND, 1000L, 1000L);
+        bolt.record(CORRELATION_ID, LatencyStage.SPLITTER, 1010L, 1010L);
+        bolt.record(CORRELATION_ID, LatencyStage.CRUD, 1030L, 1030L);
+
+        assertEquals(0, bolt.getHistogram(LatencyStage.NORTHBOUND).getTotalCount());
+        assertEquals(10, bolt.getHistogram(LatencyStage.SPLITTER).getMaxValue());
+        assertEquals(20, bolt.getHistogram(LatencyStage.CRUD).getMaxValue());
+    }
+
+    @Test
+    public void missingStageIsSkipped() {
+        bolt.record(CORRELATION_ID, LatencyStage.NORTHBOUND, 1000L, 1000L);
+        bolt.record(CORRELATION_ID, LatencyStage.CRUD, 1050L, 1050L);
+
+        assertEquals(1, bolt.getHistogram(LatencyStage.CRUD).getTotalCount());
+        assertEquals(50, bolt.getHistogram(LatencyStage.CRUD).getMaxValue());
+    }
+
+    @Test
+    public void clockSkewDoesNotProduceNegativeLatency() {
+        bolt.record(CORRELATION_ID, LatencyStage.TRANSACTION_OPEN, 2000L, 2000L);
+        bolt.record(CORRELATION_ID, LatencyStage.SPEAKER, 1990L, 2010L);
+
+        assertEquals(1, bolt.getHistogram(LatencyStage.SPEAKER).getTotalCount());
+        assertEquals(0, bolt.getHistogram(LatencyStage.SPEAKER).getMaxValue());
+    }
+
+    @Test
+    public void tracesExpire() {
+        bolt.record(CORRELATION_ID, LatencyStage.NORTHBOUND, 1000L, 1000L);
+        bolt.record(CORRELATION_ID + "-2", LatencyStage.NORTHBOUND, 5000L, 5000L);
+
+        bolt.expireTraces(1000L + TimeUnit.MINUTES.toMillis(10));
+        assertEquals(1, bolt.getTracesCount());
+    }
+}
@@ -12,7 +12,6 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.openkilda.messaging.Destination;
-import org.openkilda.messaging.Utils;
 import org.openkilda.messaging.info.Datapoint;
 import org.openkilda.messaging.info.InfoData;
 import org.openkilda.messaging.info.InfoMessage;
@@ -20,6 +19,7 @@ import org.openkilda.messaging.info.event.IslChangeType;
 import org.openkilda.messaging.info.event.IslInfoData;
 import org.openkilda.messaging.info.event.PathNode;
 import org.openkilda.messaging.info.event.PortInfoData;
+import org.openkilda.wfm.topology.opentsdb.DatapointReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,10 +72,12 @@ public class IslStatsBoltTest {
         List<Object> tsdbTuple = statsBolt.buildTsdbTuple(islInfoData, TIMESTAMP);
         assertThat(tsdbTuple.size(), is(1));
 
-        Datapoint datapoint = Utils.MAPPER.readValue(tsdbTuple.get(0).toString(), Datapoint.class);
+        List<Datapoint> datapoints = DatapointReader.read((byte[]) tsdbTuple.get(0));
+        assertThat(datapoints.size(), is(1));
+        Datapoint datapoint = datapoints.get(0);
         assertEquals("pen.isl.latency", datapoint.getMetric());
         assertEquals((Long) TIMESTAMP, datapoint.getTime());
-        assertEquals(LATENCY, datapoint.getValue());
+        assertEquals(LATENCY, datapoint.getValue().intValue());
 
         Map<String, String> pathNode = datapoint.getTags();
         assertEquals(SWITCH1_ID, pathNode.get("src_switch"));
@@ -0,0 +1,82 @@
+package org.openkilda.wfm.topology.opentsdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openkilda.messaging.info.Datapoint;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DatapointStoreTest {
+    private static final String METRIC = "pen.switch.rx-bytes";
+    private static final long INTERVAL = 60000;
+    private static final long TTL = 600000;
+
+    @Test
+    public void skipUnchangedValueWithinInterval() {
+        DatapointStore store = new DatapointStore(INTERVAL, TTL, Long.MAX_VALUE);
+
+        assertTrue(store.update(makeDatapoint("1", 1000, 10), 0));
+        assertFalse(store.update(makeDatapoint("1", 1000 + INTERVAL - 1, 10), 0));
+        assertTrue(store.update(makeDatapoint("1", 1000 + INTERVAL - 1, 11), 0));
+        assertTrue(store.update(makeDatapoint("1", 1000 + 2 * INTERVAL, 11), 0));
+    }
+
+    @Test
+    public void seriesKeyIsExact() {
+        DatapointStore store = new DatapointStore(INTERVAL, TTL, Long.MAX_VALUE);
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("switchid", "SW1");
+        tags.put("port", "1");
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("port", "1");
+        reversed.put("switchid", "SW1");
+
+        assertTrue(store.update(new Datapoint(METRIC, 1000L, tags, 10), 0));
+        assertFalse(store.update(new Datapoint(METRIC, 1000L, reversed, 10), 0));
+        assertTrue(store.update(makeDatapoint("2", 1000, 10), 0));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void unseenSeriesExpire() {
+        DatapointStore store = new DatapointStore(INTERVAL, TTL, Long.MAX_VALUE);
+
+        store.update(makeDatapoint("1", 1000, 10), 0);
+        store.update(makeDatapoint("2", 1000, 10), TTL / 2);
+        store.update(makeDatapoint("3", 1000, 10), TTL);
+
+        assertEquals(2, store.size());
+        assertEquals(1, store.getEvictions());
+    }
+
+    @Test
+    public void leastRecentlySeenEvictedOverMemory() {
+        DatapointStore store = new DatapointStore(INTERVAL, TTL, Long.MAX_VALUE);
+        store.update(makeDatapoint("1", 1000, 10), 0);
+        long entrySize = store.getMemory();
+
+        store = new DatapointStore(INTERVAL, TTL, 2 * entrySize);
+        store.update(makeDatapoint("1", 1000, 10), 0);
+        store.update(makeDatapoint("2", 1000, 10), 0);
+        store.update(makeDatapoint("1", 2000, 10), 0);
+        store.update(makeDatapoint("3", 1000, 10), 0);
+
+        assertEquals(2, store.size());
+        assertEquals(2 * entrySize, store.getMemory());
+        assertFalse(store.update(makeDatapoint("1", 3000, 10), 0));
+        assertTrue(store.update(makeDatapoint("2", 3000, 10), 0));
+    }
+
+    private static Datapoint makeDatapoint(String port, long time, int value) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("switchid", "SW1");
+        tags.put("port", port);
+        return new Datapoint(METRIC, time, tags, value);
+    }
+}
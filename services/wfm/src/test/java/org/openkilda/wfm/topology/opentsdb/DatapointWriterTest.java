@@ -0,0 +1,70 @@
+package org.openkilda.wfm.topology.opentsdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openkilda.messaging.info.Datapoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DatapointWriterTest {
+    @Test
+    public void readBack() throws Exception {
+        DatapointWriter writer = new DatapointWriter();
+        Map<String, String> tags = new HashMap<>();
+        tags.put("switchid", "SW1");
+        tags.put("port", "1");
+        writer.add("pen.switch.rx-bytes", 1000L, Long.MAX_VALUE, tags);
+        tags.put("port", "2");
+        writer.add("pen.switch.rx-bps", 2000L, 0.5, tags);
+        tags.clear();
+        writer.add("pen.switch.rx-bytes", 3000L, -1L, tags);
+        assertEquals(3, writer.size());
+
+        List<Datapoint> datapoints = DatapointReader.read(writer.finish());
+        assertEquals(0, writer.size());
+        assertEquals(3, datapoints.size());
+
+        assertEquals("pen.switch.rx-bytes", datapoints.get(0).getMetric());
+        assertEquals(Long.valueOf(1000L), datapoints.get(0).getTime());
+        assertEquals(Long.MAX_VALUE, datapoints.get(0).getValue());
+        assertEquals("1", datapoints.get(0).getTags().get("port"));
+
+        assertEquals("pen.switch.rx-bps", datapoints.get(1).getMetric());
+        assertEquals(0.5, datapoints.get(1).getValue().doubleValue(), 0);
+        assertEquals("2", datapoints.get(1).getTags().get("port"));
+        assertEquals("SW1", datapoints.get(1).getTags().get("switchid"));
+
+        assertEquals("pen.switch.rx-bytes", datapoints.get(2).getMetric());
+        assertEquals(-1L, datapoints.get(2).getValue());
+        assertTrue(datapoints.get(2).getTags().isEmpty());
+    }
+
+    @Test
+    public void startOverAfterFinish() throws Exception {
+        DatapointWriter writer = new DatapointWriter();
+        Map<String, String> tags = new HashMap<>();
+        tags.put("switchid", "SW1");
+        writer.add("pen.switch.meters", 1000L, 1L, tags);
+        writer.finish();
+        writer.add("pen.switch.meters", 2000L, 2L, tags);
+
+        List<Datapoint> datapoints = DatapointReader.read(writer.finish());
+        assertEquals(1, datapoints.size());
+        assertEquals(Long.valueOf(2000L), datapoints.get(0).getTime());
+        assertEquals("SW1", datapoints.get(0).getTags().get("switchid"));
+        assertEquals(0, DatapointReader.read(writer.finish()).size());
+    }
+
+    @Test
+    public void tellBinaryFromJson() throws Exception {
+        assertTrue(DatapointReader.isBinary(new DatapointWriter().finish()));
+        assertFalse(DatapointReader.isBinary("{\"metric\":\"pen.isl.latency\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(DatapointReader.isBinary(new byte[0]));
+    }
+}
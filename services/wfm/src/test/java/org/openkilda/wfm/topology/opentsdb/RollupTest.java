@@ -0,0 +1,120 @@
+package org.openkilda.wfm.topology.opentsdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openkilda.messaging.info.Datapoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RollupTest {
+    private static final String METRIC = "pen.flow.bps";
+    private static final long MINUTE = 60000;
+
+    @Test
+    public void matchByPrefix() {
+        Rollup rollup = new Rollup(Arrays.asList("pen.flow.", "pen.switch."), Collections.singletonList(60));
+
+        assertTrue(rollup.isRollup("pen.flow.bps"));
+        assertTrue(rollup.isRollup("pen.switch.rx-bps"));
+        assertFalse(rollup.isRollup("pen.isl.latency"));
+    }
+
+    @Test
+    public void windowClosedByNextWindow() {
+        Rollup rollup = new Rollup(Collections.singletonList("pen.flow."), Collections.singletonList(60));
+        List<Datapoint> output = new ArrayList<>();
+
+        rollup.add(makeDatapoint(MINUTE + 10000, 4), output);
+        rollup.add(makeDatapoint(MINUTE + 30000, 8), output);
+        rollup.add(makeDatapoint(MINUTE + 20000, 3), output);
+        assertTrue(output.isEmpty());
+
+        rollup.add(makeDatapoint(2 * MINUTE, 100), output);
+        Map<String, Number> values = toMap(output, MINUTE);
+        assertEquals(4, values.size());
+        assertEquals(3.0, values.get(METRIC + ".1m.min").doubleValue(), 0);
+        assertEquals(8.0, values.get(METRIC + ".1m.max").doubleValue(), 0);
+        assertEquals(5.0, values.get(METRIC + ".1m.avg").doubleValue(), 0);
+        assertEquals(8.0, values.get(METRIC + ".1m.last").doubleValue(), 0);
+    }
+
+    @Test
+    public void lateDatapointDropped() {
+        Rollup rollup = new Rollup(Collections.singletonList("pen.flow."), Collections.singletonList(60));
+        List<Datapoint> output = new ArrayList<>();
+
+        rollup.add(makeDatapoint(2 * MINUTE, 10), output);
+        rollup.add(makeDatapoint(MINUTE, 1000), output);
+        rollup.add(makeDatapoint(3 * MINUTE, 0), output);
+
+        Map<String, Number> values = toMap(output, 2 * MINUTE);
+        assertEquals(4, values.size());
+        assertEquals(10.0, values.get(METRIC + ".1m.max").doubleValue(), 0);
+    }
+
+    @Test
+    public void eachWindowClosedOnItsOwn() {
+        Rollup rollup = new Rollup(Collections.singletonList("pen.flow."), Arrays.asList(60, 300));
+        List<Datapoint> output = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            rollup.add(makeDatapoint(i * MINUTE, i), output);
+        }
+        assertEquals(4 * 4, output.size());
+        output.clear();
+
+        rollup.add(makeDatapoint(5 * MINUTE, 5), output);
+        assertEquals(2 * 4, output.size());
+        Map<String, Number> values = toMap(output, 0);
+        assertEquals(4, values.size());
+        assertEquals(2.0, values.get(METRIC + ".5m.avg").doubleValue(), 0);
+        assertEquals(4.0, values.get(METRIC + ".5m.last").doubleValue(), 0);
+    }
+
+    @Test
+    public void flushClosesStaleWindowsAndForgetsIdleSeries() {
+        Rollup rollup = new Rollup(Collections.singletonList("pen.flow."), Collections.singletonList(60));
+        List<Datapoint> output = new ArrayList<>();
+
+        rollup.add(makeDatapoint(MINUTE, 1), output);
+        rollup.flush(2 * MINUTE + Rollup.FLUSH_DELAY - 1, output);
+        assertTrue(output.isEmpty());
+
+        rollup.flush(2 * MINUTE + Rollup.FLUSH_DELAY, output);
+        assertEquals(4, output.size());
+        assertEquals(1, rollup.size());
+
+        rollup.flush(MINUTE + 2 * MINUTE + Rollup.FLUSH_DELAY, output);
+        assertEquals(0, rollup.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWindow() {
+        new Rollup(Collections.singletonList("pen.flow."), Collections.singletonList(0));
+    }
+
+    private static Map<String, Number> toMap(List<Datapoint> output, long start) {
+        Map<String, Number> values = new HashMap<>();
+        for (Datapoint datapoint : output) {
+            if (datapoint.getTime() == start) {
+                values.put(datapoint.getMetric(), datapoint.getValue());
+            }
+        }
+        return values;
+    }
+
+    private static Datapoint makeDatapoint(long time, int value) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("switchid", "SW1");
+        tags.put("flowid", "f1");
+        return new Datapoint(METRIC, time, tags, value);
+    }
+}
@@ -0,0 +1,110 @@
+package org.openkilda.wfm.topology.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CookieCacheTest {
+    private static final long FORWARD_COOKIE = 0x4000000000000001L;
+    private static final long REVERSE_COOKIE = 0x2000000000000001L;
+    private static final String FLOW_ID = "f3459085345454";
+    private static final String SRC_SWITCH = "de:ad:be:ef:00:00:00:02";
+    private static final String DST_SWITCH = "de:ad:be:ef:00:00:00:04";
+
+    private CookieCache cache;
+
+    @Before
+    public void setupEach() {
+        cache = new CookieCache(2);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws Exception {
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID));
+        cache.put(makeFlow(REVERSE_COOKIE, FLOW_ID));
+        cache.get(FORWARD_COOKIE);
+        cache.put(makeFlow(FORWARD_COOKIE + 1, FLOW_ID + "-other"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(FORWARD_COOKIE));
+        assertNull(cache.get(REVERSE_COOKIE));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void removeFlowRemovesAllItsCookies() throws Exception {
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID));
+        cache.put(makeFlow(REVERSE_COOKIE, FLOW_ID));
+
+        cache.removeFlow(FLOW_ID);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(FORWARD_COOKIE));
+        assertNull(cache.get(REVERSE_COOKIE));
+    }
+
+    @Test
+    public void removeFlowSkipsCookiesReusedByOtherFlow() throws Exception {
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID));
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID + "-other"));
+
+        cache.removeFlow(FLOW_ID);
+        assertNotNull(cache.get(FORWARD_COOKIE));
+
+        cache.removeFlow(FLOW_ID + "-other");
+        assertNull(cache.get(FORWARD_COOKIE));
+    }
+
+    @Test
+    public void evictedCookieIsNotRemovedAgain() throws Exception {
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID));
+        cache.put(makeFlow(REVERSE_COOKIE, FLOW_ID + "-other"));
+        // evicts the forward cookie of the first flow
+        cache.put(makeFlow(FORWARD_COOKIE + 1, FLOW_ID + "-third"));
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID + "-fourth"));
+
+        cache.removeFlow(FLOW_ID);
+        assertEquals(FLOW_ID + "-fourth", cache.get(FORWARD_COOKIE).getFlowId());
+    }
+
+    @Test
+    public void meterIsResolvedOnSourceSwitch() throws Exception {
+        FlowResult flow = makeFlow(FORWARD_COOKIE, FLOW_ID, 32);
+        cache.put(flow);
+
+        assertEquals(flow, cache.getByMeter(SRC_SWITCH, 32));
+        assertNull(cache.getByMeter(DST_SWITCH, 32));
+        assertNull(cache.getByMeter(SRC_SWITCH, 33));
+    }
+
+    @Test
+    public void meterIsRemovedWithFlow() throws Exception {
+        cache.put(makeFlow(FORWARD_COOKIE, FLOW_ID, 32));
+        cache.put(makeFlow(REVERSE_COOKIE, FLOW_ID + "-other", 33));
+        cache.put(makeFlow(FORWARD_COOKIE + 1, FLOW_ID + "-third", 34));
+
+        // evicted
+        assertNull(cache.getByMeter(SRC_SWITCH, 32));
+        cache.removeFlow(FLOW_ID + "-other");
+        assertNull(cache.getByMeter(SRC_SWITCH, 33));
+        assertNotNull(cache.getByMeter(SRC_SWITCH, 34));
+    }
+
+    private static FlowResult makeFlow(long cookie, String flowId) throws Exception {
+        return makeFlow(cookie, flowId, 0);
+    }
+
+    private static FlowResult makeFlow(long cookie, String flowId, int meterId) throws Exception {
+        Map<String, Object> row = new HashMap<>();
+        row.put("meter_id", meterId);
+        row.put("cookie", cookie);
+        row.put("flowid", flowId);
+        row.put("src_switch", SRC_SWITCH);
+        row.put("dst_switch", DST_SWITCH);
+        return new FlowResult(row);
+    }
+}
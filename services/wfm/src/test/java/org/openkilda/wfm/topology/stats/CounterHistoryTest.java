@@ -0,0 +1,125 @@
+package org.openkilda.wfm.topology.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CounterHistoryTest {
+    private static final String SWITCH_ID = "SW0000000000000001";
+    private static final long MAX_AGE = 60000;
+
+    private CounterHistory history;
+    private final double[] rates = new double[2];
+
+    @Before
+    public void setupEach() {
+        history = new CounterHistory(2, MAX_AGE);
+    }
+
+    @Test
+    public void rateSincePreviousSample() {
+        assertFalse(history.update(SWITCH_ID, 1, 1000, new long[]{100, 1000}, rates));
+        assertTrue(history.update(SWITCH_ID, 1, 3000, new long[]{300, 5000}, rates));
+
+        assertEquals(100.0, rates[0], 0.001);
+        assertEquals(2000.0, rates[1], 0.001);
+    }
+
+    @Test
+    public void keysAndSwitchesAreSeparate() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{100, 100}, rates);
+        history.update(SWITCH_ID, 2, 1000, new long[]{200, 200}, rates);
+        history.update("SW0000000000000002", 1, 1000, new long[]{300, 300}, rates);
+
+        assertTrue(history.update(SWITCH_ID, 2, 2000, new long[]{210, 220}, rates));
+        assertEquals(10.0, rates[0], 0.001);
+        assertEquals(20.0, rates[1], 0.001);
+        assertEquals(3, history.size());
+    }
+
+    @Test
+    public void counterWrap() {
+        // no 32 bit wrap, a 64 bit counter going down from 3 * 10^9 is reset
+        assertEquals(-1, CounterHistory.delta(3_000_000_000L, 1000L));
+        assertEquals(16, CounterHistory.delta(0xFFFFFFFFFFFFFFF0L, 0));
+        assertEquals(-1, CounterHistory.delta(1000, 10));
+    }
+
+    @Test
+    public void noRateAfterReset() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{1000, 1000}, rates);
+        assertFalse(history.update(SWITCH_ID, 1, 2000, new long[]{10, 10}, rates));
+        assertTrue(history.update(SWITCH_ID, 1, 3000, new long[]{20, 20}, rates));
+        assertEquals(10.0, rates[0], 0.001);
+    }
+
+    @Test
+    public void noRateFromOldOrDuplicateSample() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{0, 0}, rates);
+        assertFalse(history.update(SWITCH_ID, 1, 1000, new long[]{10, 10}, rates));
+        assertFalse(history.update(SWITCH_ID, 1, 2000 + MAX_AGE, new long[]{20, 20}, rates));
+    }
+
+    @Test
+    public void oldSamplesAreDroppedWhenFull() {
+        for (int key = 0; key < 40; key++) {
+            history.update(SWITCH_ID, key, 1000, new long[]{key, key}, rates);
+        }
+        for (int key = 0; key < 40; key++) {
+            history.update(SWITCH_ID, 100 + key, 2000 + MAX_AGE, new long[]{key, key}, rates);
+        }
+
+        assertEquals(40, history.size());
+        assertTrue(history.update(SWITCH_ID, 139, 3000 + MAX_AGE, new long[]{40, 40}, rates));
+        assertEquals(1.0, rates[0], 0.001);
+    }
+
+    @Test
+    public void sparseReplyCarriesOmittedSamples() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{100, 100}, rates);
+        history.update(SWITCH_ID, 2, 1000, new long[]{200, 200}, rates);
+        history.endReply(SWITCH_ID, 1000, false, 0);
+
+        history.update(SWITCH_ID, 2, 2000, new long[]{210, 210}, rates);
+        history.endReply(SWITCH_ID, 2000, true, 1);
+
+        assertTrue(history.update(SWITCH_ID, 1, 3000, new long[]{110, 110}, rates));
+        assertEquals(10.0, rates[0], 0.001);
+    }
+
+    @Test
+    public void sparseReplyAfterLostOneCarriesNothing() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{100, 100}, rates);
+        history.endReply(SWITCH_ID, 1000, false, 0);
+
+        // the reply 1 with the sample 1 at 110 is lost, the reply 2 omits it as unchanged
+        history.endReply(SWITCH_ID, 3000, true, 2);
+
+        assertTrue(history.update(SWITCH_ID, 1, 4000, new long[]{130, 130}, rates));
+        assertEquals(10.0, rates[0], 0.001);
+    }
+
+    @Test
+    public void fullReplyLeavesOmittedSamples() {
+        history.update(SWITCH_ID, 1, 1000, new long[]{100, 100}, rates);
+        history.endReply(SWITCH_ID, 1000, false, 0);
+        history.endReply(SWITCH_ID, 2000, false, 1);
+
+        assertTrue(history.update(SWITCH_ID, 1, 3000, new long[]{120, 120}, rates));
+        assertEquals(10.0, rates[0], 0.001);
+    }
+
+    @Test
+    public void tableGrows() {
+        for (int key = 0; key < 1000; key++) {
+            history.update(SWITCH_ID, key, 1000, new long[]{key, key}, rates);
+        }
+        assertEquals(1000, history.size());
+        for (int key = 0; key < 1000; key++) {
+            assertTrue(history.update(SWITCH_ID, key, 2000, new long[]{key + 1, key + 2}, rates));
+            assertEquals(1.0, rates[0], 0.001);
+            assertEquals(2.0, rates[1], 0.001);
+        }
+    }
+}
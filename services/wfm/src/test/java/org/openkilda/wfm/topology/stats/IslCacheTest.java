@@ -0,0 +1,83 @@
+package org.openkilda.wfm.topology.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openkilda.messaging.info.event.IslChangeType;
+import org.openkilda.messaging.info.event.IslInfoData;
+import org.openkilda.messaging.info.event.PathNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class IslCacheTest {
+    private static final String SRC_SWITCH = "de:ad:be:ef:00:00:00:02";
+    private static final String DST_SWITCH = "de:ad:be:ef:00:00:00:04";
+
+    private IslCache cache;
+
+    @Before
+    public void setupEach() {
+        cache = new IslCache();
+    }
+
+    @Test
+    public void islIsFoundBySourcePort() {
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 1);
+
+        assertNotNull(cache.get(SRC_SWITCH, 1));
+        assertNull(cache.get(SRC_SWITCH, 2));
+        assertNull(cache.get(DST_SWITCH, 2));
+    }
+
+    @Test
+    public void updateReplacesIsl() {
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 1);
+        cache.update(makeIsl(1, 3, IslChangeType.DISCOVERED), 1);
+
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.get(SRC_SWITCH, 1).getPath().get(1).getPortNo());
+    }
+
+    @Test
+    public void failedIslIsRemoved() {
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 1);
+        cache.update(makeIsl(1, 2, IslChangeType.FAILED), 1);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(SRC_SWITCH, 1));
+    }
+
+    @Test
+    public void failureWithSourcePortOnlyRemovesIsl() {
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 1);
+        cache.update(makeIsl(2, 3, IslChangeType.DISCOVERED), 1);
+        // the discovery reports the failure with the source port only
+        PathNode source = new PathNode(SRC_SWITCH, 1, 0, 0L);
+        cache.update(new IslInfoData(0L, Collections.singletonList(source), 0L, IslChangeType.FAILED, 0L), 1);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(SRC_SWITCH, 1));
+        assertNotNull(cache.get(SRC_SWITCH, 2));
+    }
+
+    @Test
+    public void islsMissingFromDumpAreRemoved() {
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 1);
+        cache.update(makeIsl(2, 3, IslChangeType.DISCOVERED), 1);
+        // the next dump has the first ISL only
+        cache.update(makeIsl(1, 2, IslChangeType.DISCOVERED), 2);
+
+        assertEquals(1, cache.removeOlder(2));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(SRC_SWITCH, 1));
+        assertNull(cache.get(SRC_SWITCH, 2));
+    }
+
+    private static IslInfoData makeIsl(int srcPort, int dstPort, IslChangeType state) {
+        return new IslInfoData(10,
+                Arrays.asList(new PathNode(SRC_SWITCH, srcPort, 0), new PathNode(DST_SWITCH, dstPort, 1)),
+                10000000L, state, 10000000L);
+    }
+}
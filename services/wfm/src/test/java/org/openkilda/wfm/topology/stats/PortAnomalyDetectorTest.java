@@ -0,0 +1,122 @@
+package org.openkilda.wfm.topology.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PortAnomalyDetectorTest {
+    private static final String SWITCH_ID = "00:00:00:00:00:00:00:01";
+    private static final long INTERVAL = 10000;
+    private static final long MAX_AGE = 60000;
+    private static final double MIN_RATE = 10;
+    private static final double RATE = 1000;
+
+    private PortAnomalyDetector detector;
+    private final boolean[] active = new boolean[PortAnomalyDetector.SIGNALS];
+    private final double[] baselines = new double[PortAnomalyDetector.SIGNALS];
+    private long timestamp = INTERVAL;
+
+    @Before
+    public void setupEach() {
+        detector = new PortAnomalyDetector(0.01, 0.001, 6, MIN_RATE, MAX_AGE);
+    }
+
+    @Test
+    public void thresholdStartsAndEndsAnomaly() {
+        assertEquals(0, update(1, 0, 0));
+
+        assertEquals(1 << PortAnomalyDetector.DROPS, update(1, 0.02, 0));
+        assertTrue(active[PortAnomalyDetector.DROPS]);
+        assertFalse(active[PortAnomalyDetector.ERRORS]);
+
+        // cleared only below half the threshold
+        assertEquals(0, update(1, 0.008, 0));
+        assertTrue(active[PortAnomalyDetector.DROPS]);
+        assertEquals(1 << PortAnomalyDetector.DROPS, update(1, 0.004, 0));
+        assertFalse(active[PortAnomalyDetector.DROPS]);
+    }
+
+    @Test
+    public void deviationFromBaselineIsAnomaly() {
+        for (int i = 0; i < PortAnomalyDetector.WARMUP; i++) {
+            assertEquals(0, update(1, 0, i % 2 == 0 ? 0.0001 : 0.0002));
+        }
+
+        // below the threshold, but far above the usual share of the port
+        assertEquals(1 << PortAnomalyDetector.ERRORS, update(1, 0, 0.0008));
+        assertEquals(0.00015, baselines[PortAnomalyDetector.ERRORS], 0.00005);
+    }
+
+    @Test
+    public void noDeviationBeforeWarmup() {
+        update(1, 0, 0.0001);
+        assertEquals(0, update(1, 0, 0.0008));
+    }
+
+    @Test
+    public void baselineIsNotLearnedWhileAnomalous() {
+        update(1, 0.001, 0);
+        for (int i = 0; i < 20; i++) {
+            update(1, 0.5, 0);
+        }
+        assertTrue(active[PortAnomalyDetector.DROPS]);
+        assertEquals(0.001, baselines[PortAnomalyDetector.DROPS], 0.0000001);
+    }
+
+    @Test
+    public void portsAreSeparate() {
+        update(1, 0.02, 0);
+        assertEquals(0, update(2, 0, 0));
+        assertFalse(active[PortAnomalyDetector.DROPS]);
+        assertEquals(2, detector.size());
+    }
+
+    @Test
+    public void quietPortIsHeld() {
+        update(1, 0.02, 0);
+        assertTrue(active[PortAnomalyDetector.DROPS]);
+
+        // a single drop of the few packets of an idle port is no news
+        assertEquals(0, update(1, 0.5, 0, MIN_RATE / 2));
+        assertTrue(active[PortAnomalyDetector.DROPS]);
+        assertEquals(0, update(2, 0.5, 0, MIN_RATE / 2));
+        assertFalse(active[PortAnomalyDetector.DROPS]);
+        assertEquals(1, detector.size());
+    }
+
+    @Test
+    public void anomalyEndsWhenPortExpires() {
+        update(1, 0.02, 0);
+        update(2, 0.02, 0);
+        // the first port stays quiet, the second one goes on
+        for (long time = 0; time <= MAX_AGE; time += INTERVAL) {
+            update(1, 0.02, 0, 0);
+            update(2, 0.02, 0);
+        }
+
+        List<Long> ended = new ArrayList<>();
+        int removed = detector.expire(timestamp - MAX_AGE, (switchId, port, signal, baseline) -> {
+            assertEquals(SWITCH_ID, switchId);
+            assertEquals(PortAnomalyDetector.DROPS, signal);
+            ended.add(port);
+        });
+
+        assertEquals(1, removed);
+        assertEquals(Collections.singletonList(1L), ended);
+        assertEquals(1, detector.size());
+    }
+
+    private int update(int port, double drops, double errors) {
+        return update(port, drops, errors, RATE);
+    }
+
+    private int update(int port, double drops, double errors, double rate) {
+        timestamp += INTERVAL;
+        return detector.update(SWITCH_ID, port, timestamp, rate, new double[]{drops, errors}, active, baselines);
+    }
+}
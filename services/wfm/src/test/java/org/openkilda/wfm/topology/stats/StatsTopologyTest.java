@@ -33,7 +33,6 @@ import org.junit.Test;
 import org.junit.Ignore;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.openkilda.messaging.Destination;
-import org.openkilda.messaging.Utils;
 import org.openkilda.messaging.info.Datapoint;
 import org.openkilda.messaging.info.InfoMessage;
 import org.openkilda.messaging.info.stats.FlowStatsData;
@@ -47,6 +46,7 @@ import org.openkilda.messaging.info.stats.PortStatsReply;
 import org.openkilda.wfm.StableAbstractStormTest;
 import org.openkilda.wfm.topology.TestFlowGenMetricsBolt;
 import org.openkilda.wfm.topology.TestingKafkaBolt;
+import org.openkilda.wfm.topology.opentsdb.DatapointReader;
 import org.openkilda.wfm.topology.stats.metrics.FlowMetricGenBolt;
 
 import java.io.File;
@@ -82,6 +82,8 @@ public class StatsTopologyTest extends StableAbstractStormTest {
         MockedSources sources = new MockedSources();
         sources.addMockData(StatsComponentType.STATS_OFS_KAFKA_SPOUT.toString(),
                 new Values(MAPPER.writeValueAsString(message)));
+        sources.addMockData(StatsComponentType.STATS_CACHE_KAFKA_SPOUT.toString());
+        sources.addMockData(StatsComponentType.STATS_DISCO_KAFKA_SPOUT.toString());
         completeTopologyParam.setMockedSources(sources);
 
         //execute topology
@@ -93,9 +95,10 @@ public class StatsTopologyTest extends StableAbstractStormTest {
             Map result = Testing.completeTopology(cluster, stormTopology, completeTopologyParam);
             ArrayList<FixedTuple> tuples =
                     (ArrayList<FixedTuple>) result.get(StatsComponentType.PORT_STATS_METRIC_GEN.name());
-            assertThat(tuples.size(), is(728));
-            tuples.stream()
-                    .map(this::readFromJson)
+            assertThat(tuples.size(), is(1));
+            List<Datapoint> datapoints = readDatapoints(tuples.get(0));
+            assertThat(datapoints.size(), is(728));
+            datapoints.stream()
                     .forEach(datapoint -> {
                         assertThat(datapoint.getTags().get("switchId"), is(switchId.replaceAll(":", "")));
                         assertThat(datapoint.getTime(), is(timestamp));
@@ -115,6 +118,8 @@ public class StatsTopologyTest extends StableAbstractStormTest {
         MockedSources sources = new MockedSources();
         sources.addMockData(StatsComponentType.STATS_OFS_KAFKA_SPOUT.toString(),
                 new Values(MAPPER.writeValueAsString(message)));
+        sources.addMockData(StatsComponentType.STATS_CACHE_KAFKA_SPOUT.toString());
+        sources.addMockData(StatsComponentType.STATS_DISCO_KAFKA_SPOUT.toString());
         completeTopologyParam.setMockedSources(sources);
 
         //execute topology
@@ -126,9 +131,10 @@ public class StatsTopologyTest extends StableAbstractStormTest {
             Map result = Testing.completeTopology(cluster, stormTopology, completeTopologyParam);
             ArrayList<FixedTuple> tuples =
                     (ArrayList<FixedTuple>) result.get(StatsComponentType.METER_CFG_STATS_METRIC_GEN.name());
-            assertThat(tuples.size(), is(3));
-            tuples.stream()
-                    .map(this::readFromJson)
+            assertThat(tuples.size(), is(1));
+            List<Datapoint> datapoints = readDatapoints(tuples.get(0));
+            assertThat(datapoints.size(), is(3));
+            datapoints.stream()
                     .forEach(datapoint -> {
                         assertThat(datapoint.getTags().get("switchid"), is(switchId.replaceAll(":", "")));
                         assertThat(datapoint.getTime(), is(timestamp));
@@ -148,6 +154,8 @@ public class StatsTopologyTest extends StableAbstractStormTest {
         MockedSources sources = new MockedSources();
         sources.addMockData(StatsComponentType.STATS_OFS_KAFKA_SPOUT.toString(),
                 new Values(MAPPER.writeValueAsString(message)));
+        sources.addMockData(StatsComponentType.STATS_CACHE_KAFKA_SPOUT.toString());
+        sources.addMockData(StatsComponentType.STATS_DISCO_KAFKA_SPOUT.toString());
         completeTopologyParam.setMockedSources(sources);
 
         //execute topology
@@ -160,9 +168,10 @@ public class StatsTopologyTest extends StableAbstractStormTest {
             //verify results which were sent to Kafka bolt
             ArrayList<FixedTuple> tuples =
                     (ArrayList<FixedTuple>) result.get(StatsComponentType.FLOW_STATS_METRIC_GEN.name());
-            assertThat(tuples.size(), is(6));
-            tuples.stream()
-                    .map(this::readFromJson)
+            assertThat(tuples.size(), is(1));
+            List<Datapoint> datapoints = readDatapoints(tuples.get(0));
+            assertThat(datapoints.size(), is(6));
+            datapoints.stream()
                     .forEach(datapoint -> {
                         if (datapoint.getMetric().equals("pen.flow.packets")) {
                             assertThat(datapoint.getTags().get("direction"), is("forward"));
@@ -173,13 +182,13 @@ public class StatsTopologyTest extends StableAbstractStormTest {
         });
     }
 
-    private Datapoint readFromJson(FixedTuple tuple) {
+    private List<Datapoint> readDatapoints(FixedTuple tuple) {
         try {
-            return Utils.MAPPER.readValue(tuple.values.get(0).toString(), Datapoint.class);
+            return DatapointReader.read((byte[]) tuple.values.get(0));
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return null;
+        return Collections.emptyList();
     }
 
     /**
@@ -214,8 +223,13 @@ public class StatsTopologyTest extends StableAbstractStormTest {
         }
 
         @Override
-        protected FlowMetricGenBolt createFlowMetricsGenBolt(String host, String username, String password) {
-            return new TestFlowGenMetricsBolt(cookie, flowId, switchId, switchId);
+        protected KafkaBolt createKafkaBytesBolt(String topic) {
+            return kafkaBolt;
+        }
+
+        @Override
+        protected FlowMetricGenBolt createFlowMetricsGenBolt() {
+            return new TestFlowGenMetricsBolt(config.getStatsFlowCacheSize(), cookie, flowId, switchId, switchId);
         }
     }
 }
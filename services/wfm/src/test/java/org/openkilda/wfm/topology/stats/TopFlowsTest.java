@@ -0,0 +1,62 @@
+package org.openkilda.wfm.topology.stats;
+
+import org.junit.Test;
+import org.openkilda.messaging.info.stats.TopFlowEntry;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TopFlowsTest {
+    private static final String SWITCH_ID = "de:ad:be:ef:00:00:00:02";
+    private static final String FORWARD = "forward";
+    private static final String REVERSE = "reverse";
+
+    @Test
+    public void keepsHighestFirst() {
+        TopFlows top = new TopFlows(3);
+        double[] rates = {5, 1, 9, 3, 7, 2};
+        for (int i = 0; i < rates.length; i++) {
+            top.offer("f" + i, FORWARD, SWITCH_ID, rates[i], 1000);
+        }
+
+        List<TopFlowEntry> result = top.finish();
+        assertEquals(3, result.size());
+        assertEquals("f2", result.get(0).getFlowId());
+        assertEquals("f4", result.get(1).getFlowId());
+        assertEquals("f0", result.get(2).getFlowId());
+        assertTrue(top.isEmpty());
+    }
+
+    @Test
+    public void mergeKeepsHighestOfAllSwitches() {
+        List<TopFlowEntry> first = Arrays.asList(
+                new TopFlowEntry("a", FORWARD, "sw1", 10, 1000), new TopFlowEntry("b", FORWARD, "sw1", 2, 1000));
+        List<TopFlowEntry> second = Arrays.asList(
+                new TopFlowEntry("c", FORWARD, "sw2", 8, 1000), new TopFlowEntry("d", FORWARD, "sw2", 4, 1000));
+
+        List<TopFlowEntry> result = TopFlows.merge(Arrays.asList(first, second), 3);
+        assertEquals(3, result.size());
+        assertEquals("a", result.get(0).getFlowId());
+        assertEquals("c", result.get(1).getFlowId());
+        assertEquals("d", result.get(2).getFlowId());
+    }
+
+    @Test
+    public void directionsOfFlowAreSeparateEntries() {
+        TopFlows top = new TopFlows(3);
+        top.offer("f", FORWARD, SWITCH_ID, 5, 1000);
+        top.offer("f", REVERSE, SWITCH_ID, 3, 1000);
+
+        List<TopFlowEntry> result = top.finish();
+        assertEquals(2, result.size());
+        assertEquals(FORWARD, result.get(0).getDirection());
+        assertEquals(REVERSE, result.get(1).getDirection());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSize() {
+        new TopFlows(0);
+    }
+}